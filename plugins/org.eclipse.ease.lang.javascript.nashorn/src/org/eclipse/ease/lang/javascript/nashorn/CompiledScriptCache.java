@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.javascript.nashorn;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import org.eclipse.ease.tools.BoundedCache;
+
+/**
+ * Cache for compiled Nashorn scripts, shared by all Nashorn engine instances to bound the overall amount of compiled scripts. Nashorn binds compiled scripts to
+ * the engine that compiled them, so entries are keyed by engine and a hash of the source code and are only reused by their own engine. Engines need to
+ * {@link #removeScripts(ScriptEngine)} when they are disposed.
+ */
+public class CompiledScriptCache extends BoundedCache<String, CompiledScript> {
+
+	/** Default amount of cached scripts. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static CompiledScriptCache fInstance = null;
+
+	/**
+	 * Get the cache shared by all Nashorn engines.
+	 *
+	 * @return shared cache instance
+	 */
+	public static synchronized CompiledScriptCache getInstance() {
+		if (fInstance == null)
+			fInstance = new CompiledScriptCache(DEFAULT_CAPACITY);
+
+		return fInstance;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            maximum amount of cached scripts
+	 */
+	public CompiledScriptCache(final int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * Get a compiled script for given source code. Compiles the code on a cache miss.
+	 *
+	 * @param engine
+	 *            engine used for compilation and evaluation
+	 * @param code
+	 *            source code to compile
+	 * @return compiled script
+	 * @throws ScriptException
+	 *             when the code cannot be compiled
+	 */
+	public CompiledScript getScript(final Compilable engine, final String code) throws ScriptException {
+		final String key = Integer.toHexString(System.identityHashCode(engine)) + ":" + hash(code);
+
+		CompiledScript script = get(key);
+		if ((script == null) || (script.getEngine() != engine)) {
+			// identity hash codes are not unique, never evaluate scripts of another engine
+			script = engine.compile(code);
+			put(key, script);
+		}
+
+		return script;
+	}
+
+	/**
+	 * Remove all scripts compiled by an engine. Cached scripts keep their engine alive, so this needs to be called when the engine is disposed.
+	 *
+	 * @param engine
+	 *            engine to remove scripts for
+	 */
+	public void removeScripts(final ScriptEngine engine) {
+		removeAll(new IFilter<String, CompiledScript>() {
+
+			@Override
+			public boolean matches(final String key, final CompiledScript script) {
+				return script.getEngine() == engine;
+			}
+		});
+	}
+}
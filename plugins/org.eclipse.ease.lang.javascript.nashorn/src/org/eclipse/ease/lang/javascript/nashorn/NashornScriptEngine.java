@@ -6,9 +6,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
+import javax.script.SimpleScriptContext;
 
 import org.eclipse.ease.AbstractScriptEngine;
 import org.eclipse.ease.IScriptEngine;
@@ -18,8 +21,36 @@ import org.eclipse.ease.lang.javascript.JavaScriptHelper;
 
 public class NashornScriptEngine extends AbstractScriptEngine implements IScriptEngine {
 
+	/** Nashorn factory, discovered once. */
+	private static ScriptEngineFactory fFactory = null;
+
+	/**
+	 * Get the Nashorn factory. Discovering the factory is expensive, creating engines from it is not.
+	 *
+	 * @return Nashorn factory
+	 * @throws ScriptEngineException
+	 *             when Nashorn is not available
+	 */
+	private static synchronized ScriptEngineFactory getFactory() throws ScriptEngineException {
+		if (fFactory == null) {
+			final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+			if (engine == null)
+				throw new ScriptEngineException("Unable to load Nashorn Script Engine");
+
+			fFactory = engine.getFactory();
+		}
+
+		return fFactory;
+	}
+
+	/**
+	 * Underlying engine of this instance. The factory reports <code>null</code> for the THREADING parameter, so Nashorn engines are never shared between
+	 * instances that may run concurrently. Compiled scripts are cached in the shared {@link CompiledScriptCache}.
+	 */
 	private ScriptEngine fEngine;
 
+	private ScriptContext fContext;
+
 	public NashornScriptEngine() {
 		super("Nashorn");
 	}
@@ -31,13 +62,13 @@ public class NashornScriptEngine extends AbstractScriptEngine implements IScript
 
 	@Override
 	protected Object internalGetVariable(final String name) {
-		return fEngine.get(name);
+		return fContext.getBindings(ScriptContext.ENGINE_SCOPE).get(name);
 	}
 
 	@Override
 	protected Map<String, Object> internalGetVariables() {
 		Map<String, Object> variables = new HashMap<String, Object>();
-		Bindings bindings = fEngine.getBindings(ScriptContext.ENGINE_SCOPE);
+		Bindings bindings = fContext.getBindings(ScriptContext.ENGINE_SCOPE);
 		for (Entry<String, Object> entry : bindings.entrySet())
 			variables.put(entry.getKey(), entry.getValue());
 
@@ -46,7 +77,7 @@ public class NashornScriptEngine extends AbstractScriptEngine implements IScript
 
 	@Override
 	protected boolean internalHasVariable(final String name) {
-		return fEngine.getBindings(ScriptContext.ENGINE_SCOPE).containsKey(name);
+		return fContext.getBindings(ScriptContext.ENGINE_SCOPE).containsKey(name);
 	}
 
 	@Override
@@ -54,12 +85,12 @@ public class NashornScriptEngine extends AbstractScriptEngine implements IScript
 		if (!JavaScriptHelper.isSaveName(name))
 			throw new RuntimeException("\"" + name + "\" is not a valid JavaScript variable name");
 
-		fEngine.put(name, content);
+		fContext.getBindings(ScriptContext.ENGINE_SCOPE).put(name, content);
 	}
 
 	@Override
 	protected Object internalRemoveVariable(final String name) {
-		return fEngine.getBindings(ScriptContext.ENGINE_SCOPE).remove(name);
+		return fContext.getBindings(ScriptContext.ENGINE_SCOPE).remove(name);
 	}
 
 	@Override
@@ -74,21 +105,39 @@ public class NashornScriptEngine extends AbstractScriptEngine implements IScript
 
 	@Override
 	protected void setupEngine() throws ScriptEngineException {
-		ScriptEngineManager engineManager = new ScriptEngineManager();
-		fEngine = engineManager.getEngineByName("nashorn");
+		fEngine = getFactory().getScriptEngine();
 
-		if (fEngine == null) {
-			throw new ScriptEngineException("Unable to load Nashorn Script Engine");
-		}
+		// dedicated global scope for this engine
+		fContext = new SimpleScriptContext();
+		fContext.setBindings(fEngine.createBindings(), ScriptContext.ENGINE_SCOPE);
+	}
+
+	@Override
+	protected boolean resetEngine() throws ScriptEngineException {
+		fContext.setBindings(fEngine.createBindings(), ScriptContext.ENGINE_SCOPE);
+		return true;
+	}
+
+	@Override
+	protected boolean supportsSharedExecution() {
+		// javax.script engines do not bind state to the calling thread
+		return true;
 	}
 
 	@Override
 	protected void teardownEngine() throws ScriptEngineException {
+		if (fEngine != null)
+			CompiledScriptCache.getInstance().removeScripts(fEngine);
+
 		fEngine = null;
+		fContext = null;
 	}
 
 	@Override
 	protected Object execute(final Script script, final Object reference, final String fileName, final boolean uiThread) throws Exception {
-		return fEngine.eval(script.getCode());
+		if (fEngine instanceof Compilable)
+			return CompiledScriptCache.getInstance().getScript((Compilable) fEngine, script.getCode()).eval(fContext);
+
+		return fEngine.eval(script.getCode(), fContext);
 	}
 }
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.javascript.rhino;
+
+import org.eclipse.ease.lang.javascript.rhino.RhinoClassLoader.EngineClassLoader;
+import org.eclipse.ease.tools.BoundedCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+
+/**
+ * Cache for compiled Rhino scripts. Compiled scripts do not depend on a dedicated scope, so they can be shared across all Rhino engine instances. Entries are
+ * keyed by a hash of the source code, the source name and the optimization level used for compilation.
+ * <p>
+ * Scripts are compiled with the shared {@link RhinoClassLoader} instead of the {@link EngineClassLoader} of the compiling engine. Otherwise cached scripts
+ * would keep class loaders and registered jars of terminated engines alive.
+ * </p>
+ */
+public class CompiledScriptCache extends BoundedCache<String, Script> {
+
+	/** Default amount of cached scripts. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static CompiledScriptCache fInstance = null;
+
+	/**
+	 * Get the cache shared by all Rhino engines.
+	 *
+	 * @return shared cache instance
+	 */
+	public static synchronized CompiledScriptCache getInstance() {
+		if (fInstance == null)
+			fInstance = new CompiledScriptCache(DEFAULT_CAPACITY);
+
+		return fInstance;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            maximum amount of cached scripts
+	 */
+	public CompiledScriptCache(final int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * Get a compiled script for given source code. Compiles the code on a cache miss. Compilation uses the optimization level set on the context.
+	 *
+	 * @param context
+	 *            context used for compilation
+	 * @param code
+	 *            source code to compile
+	 * @param sourceName
+	 *            name of the source, used in stack traces
+	 * @return compiled script
+	 */
+	public Script getScript(final Context context, final String code, final String sourceName) {
+		final String key = context.getOptimizationLevel() + ":" + sourceName + ":" + hash(code);
+
+		Script script = get(key);
+		if (script == null) {
+			final ClassLoader applicationClassLoader = context.getApplicationClassLoader();
+			if (applicationClassLoader instanceof EngineClassLoader)
+				context.setApplicationClassLoader(applicationClassLoader.getParent());
+
+			try {
+				script = context.compileString(code, sourceName, 1, null);
+			} finally {
+				context.setApplicationClassLoader(applicationClassLoader);
+			}
+
+			put(key, script);
+		}
+
+		return script;
+	}
+}
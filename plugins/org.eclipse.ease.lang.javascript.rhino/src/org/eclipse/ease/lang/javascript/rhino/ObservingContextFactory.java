@@ -10,30 +10,71 @@
  *******************************************************************************/
 package org.eclipse.ease.lang.javascript.rhino;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.eclipse.ease.ExitException;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 
+/**
+ * Context factory supporting termination of running scripts. Termination requests are stored in the context of the script thread, so concurrently running
+ * engines do not share any lock when instruction counts are observed.
+ */
 public class ObservingContextFactory extends ContextFactory {
 
-	private final Set<Context> mTerminationRequests = new HashSet<Context>();
+	/**
+	 * Context holding a termination request.
+	 */
+	public static class ObservingContext extends Context {
+
+		private volatile boolean fTerminationRequested = false;
+
+		protected ObservingContext(final ContextFactory factory) {
+			super(factory);
+		}
+
+		/**
+		 * Request termination of the script running in this context. May be called from any thread.
+		 */
+		public void requestTermination() {
+			fTerminationRequested = true;
+		}
+
+		/**
+		 * Remove a pending termination request.
+		 */
+		public void cancelTermination() {
+			fTerminationRequested = false;
+		}
+
+		private boolean consumeTerminationRequest() {
+			if (fTerminationRequested) {
+				fTerminationRequested = false;
+				return true;
+			}
+
+			return false;
+		}
+	}
+
+	@Override
+	protected Context makeContext() {
+		return new ObservingContext(this);
+	}
 
 	@Override
-	protected synchronized void observeInstructionCount(final Context cx, final int instructionCount) {
-		if(mTerminationRequests.remove(cx))
+	protected void observeInstructionCount(final Context cx, final int instructionCount) {
+		if ((cx instanceof ObservingContext) && (((ObservingContext) cx).consumeTerminationRequest()))
 			throw new ExitException();
 
 		super.observeInstructionCount(cx, instructionCount);
 	}
 
-	public synchronized void terminate(final Context context) {
-		mTerminationRequests.add(context);
+	public void terminate(final Context context) {
+		if (context instanceof ObservingContext)
+			((ObservingContext) context).requestTermination();
 	}
 
 	public void cancelTerminate(final Context context) {
-		mTerminationRequests.remove(context);
+		if (context instanceof ObservingContext)
+			((ObservingContext) context).cancelTermination();
 	}
 }
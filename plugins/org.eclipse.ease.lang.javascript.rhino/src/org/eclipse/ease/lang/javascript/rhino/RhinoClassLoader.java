@@ -13,37 +13,85 @@ package org.eclipse.ease.lang.javascript.rhino;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.ease.IScriptEngine;
 
 /**
  * A class loader for the Rhino runtime. This class loader will find classes from javascript and from the RCP. As it needs to use <i>buddy class loading</i>
  * creating new objects might be an expensive operation. Activate this class loader like this:
  * <code>ContextFactory.getGlobal().initApplicationClassLoader(new RhinoClassLoader());</code>
+ * <p>
+ * Jars registered by script engines are loaded by dedicated {@link EngineClassLoader}s using this class loader as parent.
+ * </p>
  */
 public class RhinoClassLoader extends BundleProxyClassLoader {
 
-	private static Map<IScriptEngine, URLClassLoader> REGISTERED_JARS = new HashMap<IScriptEngine, URLClassLoader>();
+	/**
+	 * Class loader of a single script engine. Registered jars are added incrementally. Classes that could not be found are remembered until the next jar gets
+	 * registered.
+	 */
+	public static class EngineClassLoader extends URLClassLoader {
+
+		/** Classes not found since the last jar got registered. */
+		private final Set<String> fMissingClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		/** Incremented whenever a jar is registered. */
+		private volatile int fGeneration = 0;
+
+		public EngineClassLoader(final ClassLoader parent) {
+			super(new URL[0], parent);
+		}
+
+		/**
+		 * Add a jar to the search path. Already registered jars are ignored.
+		 *
+		 * @param url
+		 *            url to add to classpath
+		 */
+		public synchronized void addJar(final URL url) {
+			if (!Arrays.asList(getURLs()).contains(url)) {
+				addURL(url);
+
+				fGeneration++;
+				fMissingClasses.clear();
+			}
+		}
+
+		@Override
+		protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+			if (fMissingClasses.contains(name))
+				throw new ClassNotFoundException(name);
+
+			final int generation = fGeneration;
+			try {
+				return super.loadClass(name, resolve);
+
+			} catch (final ClassNotFoundException e) {
+				// do not cache lookups that raced with a new jar
+				if (generation == fGeneration)
+					fMissingClasses.add(name);
+
+				throw e;
+			}
+		}
+	}
+
+	private static final ConcurrentMap<IScriptEngine, EngineClassLoader> REGISTERED_ENGINES = new ConcurrentHashMap<IScriptEngine, EngineClassLoader>();
 
 	private static RhinoClassLoader fInstance = null;
 
-	public static RhinoClassLoader getInstance() {
+	public static synchronized RhinoClassLoader getInstance() {
 		if (fInstance == null)
 			fInstance = new RhinoClassLoader();
 
 		return fInstance;
 	}
 
-	/** Marker that we are currently looking within a specific URLClassLoader. */
-	private final Collection<URLClassLoader> fTraversingURLClassLoader = new HashSet<URLClassLoader>();
-
 	/**
 	 * Constructor for Rhino class loader.
 	 */
@@ -51,34 +99,27 @@ public class RhinoClassLoader extends BundleProxyClassLoader {
 		super(Platform.getBundle("org.mozilla.javascript"), RhinoClassLoader.class.getClassLoader());
 	}
 
-	@Override
-	public Class<?> findClass(final String name) throws ClassNotFoundException {
-		// try to load from jars
-		final Job currentJob = Job.getJobManager().currentJob();
-		final URLClassLoader classLoader = REGISTERED_JARS.get(currentJob);
-		if (classLoader != null) {
-			// the URLClassLoader will query its parent (this) if it cannot find the requested class, keep a marker to break the cycle
-			if (!fTraversingURLClassLoader.contains(classLoader)) {
-				fTraversingURLClassLoader.add(classLoader);
-				try {
-					Class<?> clazz = classLoader.loadClass(name);
-					if (clazz != null)
-						return clazz;
-				} catch (ClassNotFoundException e) {
-					// ignore, class not found in registered JARs
-				} finally {
-					// clear marker
-					fTraversingURLClassLoader.remove(classLoader);
-				}
-			}
+	/**
+	 * Get the class loader of a script engine. Creates a new class loader on the first request.
+	 *
+	 * @param engine
+	 *            script engine used
+	 * @return class loader of the engine
+	 */
+	public static EngineClassLoader getEngineClassLoader(final IScriptEngine engine) {
+		EngineClassLoader classLoader = REGISTERED_ENGINES.get(engine);
+		if (classLoader == null) {
+			final EngineClassLoader newClassLoader = new EngineClassLoader(getInstance());
+			classLoader = REGISTERED_ENGINES.putIfAbsent(engine, newClassLoader);
+			if (classLoader == null)
+				classLoader = newClassLoader;
 		}
 
-		// not found in jars, delegate to eclipse loader
-		return super.findClass(name);
+		return classLoader;
 	}
 
 	/**
-	 * Add a URL to the search path of the classloader. Currently detects classes only, not resources.
+	 * Add a URL to the search path of the engine class loader. Currently detects classes only, not resources.
 	 *
 	 * @param engine
 	 *            script engine used
@@ -86,23 +127,10 @@ public class RhinoClassLoader extends BundleProxyClassLoader {
 	 *            url to add to classpath
 	 */
 	public static void registerURL(final IScriptEngine engine, final URL url) {
-		// engine needs to be registered as we use a single classloader for multiple script engines.
-		if (!REGISTERED_JARS.containsKey(engine))
-			REGISTERED_JARS.put(engine, URLClassLoader.newInstance(new URL[] { url }, getInstance()));
-
-		else {
-			URL[] registeredURLs = REGISTERED_JARS.get(engine).getURLs();
-			List<URL> urlList = Arrays.asList(registeredURLs);
-			if (!urlList.contains(url)) {
-				// new URL, add to list
-				URL[] updatedURLs = Arrays.copyOf(registeredURLs, registeredURLs.length + 1);
-				updatedURLs[updatedURLs.length - 1] = url;
-				REGISTERED_JARS.put(engine, URLClassLoader.newInstance(updatedURLs, getInstance()));
-			}
-		}
+		getEngineClassLoader(engine).addJar(url);
 	}
 
 	public static void unregisterEngine(final RhinoScriptEngine engine) {
-		REGISTERED_JARS.remove(engine);
+		REGISTERED_ENGINES.remove(engine);
 	}
 }
@@ -67,6 +67,9 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 
 	public static final String ENGINE_ID = "org.eclipse.ease.javascript.rhino";
 
+	/** Default amount of instructions between checks for termination requests. */
+	public static final int DEFAULT_INSTRUCTION_OBSERVER_THRESHOLD = 10;
+
 	/** Rhino Scope. Created when interpreter is initialized */
 	private ScriptableObject fScope;
 
@@ -76,6 +79,8 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 
 	private int fOptimizationLevel = 9;
 
+	private int fInstructionObserverThreshold = DEFAULT_INSTRUCTION_OBSERVER_THRESHOLD;
+
 	/**
 	 * Creates a new Rhino interpreter.
 	 */
@@ -97,6 +102,17 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 		fOptimizationLevel = level;
 	}
 
+	/**
+	 * Set the amount of instructions executed between checks for termination requests. Higher values reduce overhead but delay termination. Needs to be set
+	 * before the engine is started.
+	 *
+	 * @param threshold
+	 *            instruction count, 0 disables termination of running scripts
+	 */
+	public void setInstructionObserverThreshold(final int threshold) {
+		fInstructionObserverThreshold = threshold;
+	}
+
 	@Override
 	protected synchronized void setupEngine() {
 		fContext = getContext();
@@ -113,11 +129,13 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 			fContext.setDebugger(null, null);
 		}
 
+		// the scope binds to the class loader of the context, registered jars are added to the same loader later on
+		fContext.setApplicationClassLoader(RhinoClassLoader.getEngineClassLoader(this));
 		fScope = new ImporterTopLevel(fContext);
 
 		// enable script termination support
 		fContext.setGenerateObserverCount(true);
-		fContext.setInstructionObserverThreshold(10);
+		fContext.setInstructionObserverThreshold(fInstructionObserverThreshold);
 
 		// enable JS v1.8 language constructs
 		try {
@@ -128,6 +146,20 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 		}
 	}
 
+	@Override
+	protected synchronized boolean resetEngine() {
+		if (fDebugger != null)
+			// debug sessions are bound to a single script run
+			return false;
+
+		// drop registered jars and the whole script scope
+		RhinoClassLoader.unregisterEngine(this);
+		getContext().setApplicationClassLoader(RhinoClassLoader.getEngineClassLoader(this));
+		fScope = new ImporterTopLevel(getContext());
+
+		return true;
+	}
+
 	@Override
 	protected synchronized void teardownEngine() {
 		// remove debugger to allow for garbage collection
@@ -171,7 +203,7 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 		// remove an eventually cached terminate request
 		((ObservingContextFactory) ContextFactory.getGlobal()).cancelTerminate(getContext());
 
-		final InputStreamReader codeReader = new InputStreamReader(script.getCodeStream());
+		InputStreamReader codeReader = null;
 		try {
 			final Object result;
 
@@ -182,8 +214,15 @@ public class RhinoScriptEngine extends AbstractScriptEngine {
 				// execute anonymous functions
 				result = ((org.mozilla.javascript.Script) script.getCommand()).exec(getContext(), fScope);
 
-			else
+			else if (fDebugger == null)
+				// compiled scripts do not depend on the scope and are shared across engines
+				result = CompiledScriptCache.getInstance().getScript(getContext(), script.getCode(), fileName).exec(getContext(), fScope);
+
+			else {
+				// debugger needs to see the source while compiling
+				codeReader = new InputStreamReader(script.getCodeStream());
 				result = getContext().evaluateReader(fScope, codeReader, fileName, 1, null);
+			}
 
 			if ((result == null) || (result instanceof Undefined))
 				return null;
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.jvm.compiled;
+
+import org.eclipse.ui.plugin.AbstractUIPlugin;
+import org.osgi.framework.BundleContext;
+
+public class Activator extends AbstractUIPlugin {
+
+	public static final String PLUGIN_ID = "org.eclipse.ease.lang.jvm.compiled";
+
+	private static Activator mInstance;
+
+	public static Activator getDefault() {
+		return mInstance;
+	}
+
+	@Override
+	public void start(final BundleContext context) throws Exception {
+		super.start(context);
+
+		mInstance = this;
+	}
+
+	@Override
+	public void stop(final BundleContext context) throws Exception {
+		ProjectClassLoaderCache.dispose();
+		JVMCompiledScriptEngine.dispose();
+
+		mInstance = null;
+
+		super.stop(context);
+	}
+}
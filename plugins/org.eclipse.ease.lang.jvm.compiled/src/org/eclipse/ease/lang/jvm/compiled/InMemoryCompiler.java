@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.jvm.compiled;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.eclipse.ease.ScriptExecutionException;
+import org.eclipse.ease.debugging.IScriptDebugFrame;
+import org.eclipse.ease.tools.BoundedCache;
+
+/**
+ * Compiles single file java scripts in memory using the system java compiler. Neither source nor class files are written to disk, so scripts can be executed
+ * without a workspace build. Compiled classes are cached by source code, class name and parent loader, so unchanged scripts are loaded only once.
+ * <p>
+ * The compiler resolves types from the JRE and the provided classpath only, it cannot query the parent loader. Types visible to the parent loader at runtime,
+ * like classes of OSGi bundles, need to be added to the classpath by their locations, otherwise compilation fails.
+ * </p>
+ */
+public class InMemoryCompiler {
+
+	/** Default amount of cached classes. */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private static final Pattern PACKAGE_PATTERN = Pattern.compile("^\\s*package\\s+([\\w\\.]+)\\s*;", Pattern.MULTILINE);
+
+	private static final Pattern CLASS_PATTERN = Pattern.compile("public\\s+(?:(?:abstract|final|strictfp)\\s+)*class\\s+(\\w+)");
+
+	/**
+	 * Source file backed by a string.
+	 */
+	private static class SourceFile extends SimpleJavaFileObject {
+
+		private final String fCode;
+
+		public SourceFile(final String className, final String code) {
+			super(toURI(className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			fCode = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+			return fCode;
+		}
+	}
+
+	/**
+	 * Class file stored in memory.
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream fContent = new ByteArrayOutputStream();
+
+		public ClassFile(final String className) {
+			super(toURI(className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return fContent;
+		}
+	}
+
+	/**
+	 * File manager redirecting compiler output to memory.
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private final Map<String, ClassFile> fClassFiles = new HashMap<String, ClassFile>();
+
+		public MemoryFileManager(final StandardJavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(final Location location, final String className, final Kind kind, final FileObject sibling) {
+			final ClassFile classFile = new ClassFile(className);
+			fClassFiles.put(className, classFile);
+			return classFile;
+		}
+
+		public Map<String, byte[]> getClassFiles() {
+			final Map<String, byte[]> classFiles = new HashMap<String, byte[]>();
+			for (final Entry<String, ClassFile> entry : fClassFiles.entrySet())
+				classFiles.put(entry.getKey(), entry.getValue().fContent.toByteArray());
+
+			return classFiles;
+		}
+	}
+
+	/**
+	 * Loader defining compiled classes from memory. Compiled classes take precedence over outdated class files visible to the parent loader, all other classes
+	 * are delegated to the parent.
+	 */
+	private static class MemoryClassLoader extends ClassLoader {
+
+		private final Map<String, byte[]> fClassFiles;
+
+		public MemoryClassLoader(final Map<String, byte[]> classFiles, final ClassLoader parent) {
+			super(parent);
+			fClassFiles = classFiles;
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz == null) {
+				// class files are not needed any longer once defined
+				final byte[] content = fClassFiles.remove(name);
+				if (content == null)
+					return super.loadClass(name, resolve);
+
+				clazz = defineClass(name, content, 0, content.length);
+			}
+
+			if (resolve)
+				resolveClass(clazz);
+
+			return clazz;
+		}
+	}
+
+	private static InMemoryCompiler fInstance = null;
+
+	/**
+	 * Get the compiler shared by all JVM engines.
+	 *
+	 * @return shared compiler instance
+	 */
+	public static synchronized InMemoryCompiler getInstance() {
+		if (fInstance == null)
+			fInstance = new InMemoryCompiler(DEFAULT_CAPACITY);
+
+		return fInstance;
+	}
+
+	/**
+	 * Check whether a system java compiler is available. Plain runtime environments do not ship one.
+	 *
+	 * @return <code>true</code> when in memory compilation is supported
+	 */
+	public static boolean isAvailable() {
+		return ToolProvider.getSystemJavaCompiler() != null;
+	}
+
+	private final BoundedCache<String, Class<?>> fCache;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            maximum amount of cached classes
+	 */
+	public InMemoryCompiler(final int capacity) {
+		fCache = new BoundedCache<String, Class<?>>(capacity);
+	}
+
+	/**
+	 * Compile java source code and load its main class.
+	 *
+	 * @param code
+	 *            java source code
+	 * @param fileName
+	 *            name of the source file, used to detect the class name. May be <code>null</code>
+	 * @param classpath
+	 *            additional classpath entries, may be empty
+	 * @param parent
+	 *            parent loader for classes not defined by the script
+	 * @return main class of the script
+	 * @throws ClassNotFoundException
+	 *             when the main class cannot be detected or loaded or no compiler is available
+	 * @throws ScriptExecutionException
+	 *             when the code does not compile
+	 */
+	public Class<?> compile(final String code, final String fileName, final URL[] classpath, final ClassLoader parent) throws ClassNotFoundException {
+		final String className = getClassName(code, fileName);
+		if (className == null)
+			throw new ClassNotFoundException("Could not detect main class of script");
+
+		// classes compiled against an outdated project loader need to be recompiled
+		final String key = className + ":" + Arrays.toString(classpath) + ":" + System.identityHashCode(parent) + ":" + BoundedCache.hash(code);
+
+		Class<?> clazz = fCache.get(key);
+		if ((clazz == null) || (clazz.getClassLoader().getParent() != parent)) {
+			clazz = new MemoryClassLoader(compile(className, code, classpath), parent).loadClass(className);
+			fCache.put(key, clazz);
+		}
+
+		return clazz;
+	}
+
+	/**
+	 * Remove all classes compiled against a parent loader. Cached classes keep their parent loader alive, so this needs to be called when a parent loader gets
+	 * dropped.
+	 *
+	 * @param parent
+	 *            dropped parent loader
+	 */
+	public void invalidate(final ClassLoader parent) {
+		fCache.removeAll(new BoundedCache.IFilter<String, Class<?>>() {
+
+			@Override
+			public boolean matches(final String key, final Class<?> clazz) {
+				return clazz.getClassLoader().getParent() == parent;
+			}
+		});
+	}
+
+	/**
+	 * Get the amount of cache hits.
+	 *
+	 * @return cache hits
+	 */
+	public long getHitCount() {
+		return fCache.getHitCount();
+	}
+
+	/**
+	 * Get the amount of cache misses.
+	 *
+	 * @return cache misses
+	 */
+	public long getMissCount() {
+		return fCache.getMissCount();
+	}
+
+	/**
+	 * Remove all cached classes and reset statistics.
+	 */
+	public void clear() {
+		fCache.clear();
+	}
+
+	private static Map<String, byte[]> compile(final String className, final String code, final URL[] classpath) throws ClassNotFoundException {
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null)
+			throw new ClassNotFoundException("No java compiler available, run on a JDK to compile scripts in memory");
+
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		final MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, null));
+
+		final List<String> options = new ArrayList<String>();
+		final String classpathOption = createClasspath(classpath);
+		if (!classpathOption.isEmpty()) {
+			options.add("-classpath");
+			options.add(classpathOption);
+		}
+
+		try {
+			final Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, Arrays.asList(new SourceFile(className, code))).call();
+			if (!Boolean.TRUE.equals(success)) {
+				final StringBuilder message = new StringBuilder("Compilation of ").append(className).append(" failed:");
+				for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+					if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+						message.append("\nline ").append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(Locale.getDefault()));
+				}
+
+				throw new ScriptExecutionException(message.toString(), 0, null, "CompilationError", Collections.<IScriptDebugFrame> emptyList(), null);
+			}
+
+			return fileManager.getClassFiles();
+
+		} finally {
+			try {
+				fileManager.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Detect the fully qualified name of the main class. The simple name is taken from the file name or, if not available, from the first public class.
+	 *
+	 * @param code
+	 *            java source code
+	 * @param fileName
+	 *            name of the source file, may be <code>null</code>
+	 * @return fully qualified class name or <code>null</code>
+	 */
+	static String getClassName(final String code, final String fileName) {
+		String simpleName = null;
+		if ((fileName != null) && (fileName.endsWith(Kind.SOURCE.extension))) {
+			simpleName = fileName.substring(0, fileName.length() - Kind.SOURCE.extension.length());
+			simpleName = simpleName.substring(Math.max(simpleName.lastIndexOf('/'), simpleName.lastIndexOf('\\')) + 1);
+		}
+
+		if ((simpleName == null) || (simpleName.isEmpty())) {
+			final Matcher matcher = CLASS_PATTERN.matcher(code);
+			if (!matcher.find())
+				return null;
+
+			simpleName = matcher.group(1);
+		}
+
+		final Matcher matcher = PACKAGE_PATTERN.matcher(code);
+		return (matcher.find()) ? matcher.group(1) + "." + simpleName : simpleName;
+	}
+
+	private static String createClasspath(final URL[] classpath) {
+		final StringBuilder result = new StringBuilder();
+		for (final URL url : classpath) {
+			if ("file".equals(url.getProtocol())) {
+				try {
+					if (result.length() > 0)
+						result.append(File.pathSeparatorChar);
+
+					result.append(new File(url.toURI()).getAbsolutePath());
+				} catch (final URISyntaxException e) {
+					// ignore invalid entry
+				}
+			}
+		}
+
+		return result.toString();
+	}
+
+	private static URI toURI(final String path) {
+		return URI.create("string:///" + path);
+	}
+}
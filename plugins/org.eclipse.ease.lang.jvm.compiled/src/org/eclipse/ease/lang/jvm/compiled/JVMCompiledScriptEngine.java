@@ -21,6 +21,7 @@ import java.net.URLClassLoader;
 import java.util.AbstractMap;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,37 +29,36 @@ import java.util.Random;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.ease.AbstractScriptEngine;
 import org.eclipse.ease.IScriptEngine;
 import org.eclipse.ease.Script;
 import org.eclipse.ease.tools.ResourceTools;
-import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
-import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.pde.core.project.IBundleProjectDescription;
 import org.eclipse.pde.core.project.IBundleProjectService;
-import org.eclipse.pde.core.project.IRequiredBundleDescription;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
-import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
 
 public class JVMCompiledScriptEngine extends AbstractScriptEngine implements IScriptEngine {
 
+	/** Tracks the bundle project service, so service changes are picked up and the service is released on shutdown. */
+	private static ServiceTracker<IBundleProjectService, IBundleProjectService> fBundleProjectServiceTracker = null;
+
 	private final Map<String, Object> fVariables = new HashMap<String, Object>();
 
+	private boolean fInMemoryCompilation = true;
+
 	public JVMCompiledScriptEngine() {
 		super("JVMCompiled");
 	}
@@ -124,6 +124,22 @@ public class JVMCompiledScriptEngine extends AbstractScriptEngine implements ISc
 		return Pattern.matches("[a-zA-Z_$][a-zA-Z0-9_$]*", identifier);
 	}
 
+	/**
+	 * Enable in memory compilation of java scripts. When enabled, java scripts that are not part of a built bundle project get compiled using the system java
+	 * compiler. Enabled by default.
+	 *
+	 * @param inMemoryCompilation
+	 *            <code>true</code> to compile scripts in memory
+	 */
+	public void setInMemoryCompilation(final boolean inMemoryCompilation) {
+		fInMemoryCompilation = inMemoryCompilation;
+	}
+
+	private boolean isInMemoryCompilation(final String fileName) {
+		// only java sources can be compiled, dynamic code does not provide a source file name
+		return (fInMemoryCompilation) && ((fileName == null) || (!fileName.endsWith(".scala"))) && (InMemoryCompiler.isAvailable());
+	}
+
 	@Override
 	public void registerJar(final URL url) {
 		throw new RuntimeException("Functionality not supported by this engine");
@@ -140,7 +156,18 @@ public class JVMCompiledScriptEngine extends AbstractScriptEngine implements ISc
 	@Override
 	protected Object execute(final Script script, final Object reference, final String fileName, final boolean uiThread) throws Exception {
 
-		final Class<?> clazz = loadClass(reference);
+		Class<?> clazz = null;
+		try {
+			clazz = loadClass(reference);
+		} catch (final ClassNotFoundException e) {
+			// class not built yet, try to compile in memory
+			if (!isInMemoryCompilation(fileName))
+				throw e;
+		}
+
+		if ((clazz == null) && (isInMemoryCompilation(fileName)))
+			clazz = compileClass(script, reference, fileName);
+
 		if (clazz != null) {
 
 			final Method mainMethod = clazz.getMethod("main", String[].class);
@@ -171,7 +198,7 @@ public class JVMCompiledScriptEngine extends AbstractScriptEngine implements ISc
 	}
 
 	/**
-	 * Loads a class definition for a given source file.
+	 * Loads a class definition for a given source file. Class loaders are cached per project and reused until the project gets modified.
 	 *
 	 * @param reference
 	 *            file name or {@link IFile} instance of the source file.
@@ -186,107 +213,92 @@ public class JVMCompiledScriptEngine extends AbstractScriptEngine implements ISc
 		final SimpleEntry<IFile, IBundleProjectDescription> pair = getBundleProjectDescription(file);
 		if (pair != null) {
 			final IFile sourceFile = pair.getKey();
-			final IBundleProjectDescription scriptBundleProject = pair.getValue();
-			final List<URL> urls = new ArrayList<URL>();
-			final IProject project = scriptBundleProject.getProject();
-			final IJavaProject javaProject = JavaCore.create(project);
-
-			final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-
-			final IClasspathEntry[] cpEntries = javaProject.getRawClasspath();
-			if (cpEntries != null) {
-				for (final IClasspathEntry cpEntry : cpEntries) {
-					// The script bundle project may have a ".classpath"
-					// dependency on another
-					// Eclipse "source" project (could be Java or Scala or
-					// anything else based on the Eclipse Java nature)
-					if ((cpEntry.getEntryKind() == IClasspathEntry.CPE_PROJECT) && (cpEntry.getContentKind() == IPackageFragmentRoot.K_SOURCE)) {
-						final IPath cpPath = cpEntry.getPath();
-						final IProject cpProject = root.getProject(cpPath.toString());
-						if (cpProject != null) {
-							final IJavaProject jcpProject = JavaCore.create(cpProject);
-							final IPath output = jcpProject.getOutputLocation();
-							final IResource bin = root.findMember(output);
-							final IPath binPath = bin.getRawLocation();
-							final URL url = binPath.toFile().toURI().toURL();
-							urls.add(url);
-						}
-					} else if ((cpEntry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) && (cpEntry.getContentKind() == IPackageFragmentRoot.K_BINARY)) {
-						IPath path = cpEntry.getPath();
-						urls.add(path.toFile().toURL());
-					}
-				}
-			}
-
-			final IPath output = javaProject.getOutputLocation();
-			final IResource bin = root.findMember(output);
-			final IPath binPath = bin.getRawLocation();
-			final URL url = binPath.toFile().toURI().toURL();
-			urls.add(url);
+			final IJavaProject javaProject = JavaCore.create(pair.getValue().getProject());
 
 			final IPath wsPath = sourceFile.getProjectRelativePath();
 			final IPath wsSource = wsPath.removeFirstSegments(1);
 
-			final IRequiredBundleDescription[] requiredBundles = scriptBundleProject.getRequiredBundles();
-			final List<Bundle> bundles = new ArrayList<Bundle>();
-			if (requiredBundles != null) {
-				for (final IRequiredBundleDescription requiredBundle : requiredBundles) {
-					final String id = requiredBundle.getName();
-					final Bundle b = Platform.getBundle(id);
-					if (b != null)
-						// The script bundle project (in the Eclipse workspace)
-						// has a MANIFEST dependency
-						// on an Eclipse bundle (in the Eclipse installation)
-						bundles.add(b);
-					else {
-						// The script bundle project (in the Eclipse workspace)
-						// has a MANIFEST dependency
-						// on an Eclipse plugin that is not in the Eclipse
-						// installation -- so it must be in the Eclipse
-						// workspace...
-						final IProject bProject = root.getProject("/" + id);
-						if (bProject != null) {
-							final IJavaProject bjProject = JavaCore.create(bProject);
-							final IPath bOutput = bjProject.getOutputLocation();
-							final IResource bBin = root.findMember(bOutput);
-							final IPath bBinPath = bBin.getRawLocation();
-							final URL bUrl = bBinPath.toFile().toURI().toURL();
-							urls.add(bUrl);
-						}
-					}
-				}
-			}
+			final IJavaElement wsElement = javaProject.findElement(wsSource);
+			if (wsElement instanceof ICompilationUnit) {
+				final ICompilationUnit u = (ICompilationUnit) wsElement;
+				final String uName = u.getElementName();
+				final int dot = uName.indexOf('.');
 
-			final URLClassLoader cl = new URLClassLoader(urls.toArray(new URL[urls.size()]), JVMCompiledScriptEngine.class.getClassLoader());
-			try {
-				final IJavaElement wsElement = javaProject.findElement(wsSource);
-				if (wsElement instanceof ICompilationUnit) {
-					final ICompilationUnit u = (ICompilationUnit) wsElement;
-					final String uName = u.getElementName();
-					final int dot = uName.indexOf('.');
-
-					String qName = uName.substring(0, dot);
-
-					IJavaElement uParent = u.getParent();
-					while (uParent instanceof IPackageFragment) {
-						final IPackageFragment uPkg = (IPackageFragment) uParent;
-						final String pkgName = uPkg.getElementName();
-						if ((pkgName != null) && (!pkgName.isEmpty()))
-							qName = pkgName + "." + qName;
-
-						uParent = uParent.getParent();
-					}
+				String qName = uName.substring(0, dot);
 
-					return cl.loadClass(qName);
+				IJavaElement uParent = u.getParent();
+				while (uParent instanceof IPackageFragment) {
+					final IPackageFragment uPkg = (IPackageFragment) uParent;
+					final String pkgName = uPkg.getElementName();
+					if ((pkgName != null) && (!pkgName.isEmpty()))
+						qName = pkgName + "." + qName;
+
+					uParent = uParent.getParent();
 				}
-			} finally {
-				// TODO needs Java 1.7
-				// cl.close();
+
+				return ProjectClassLoaderCache.getInstance().getClassLoader(pair.getValue()).loadClass(qName);
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Compile a single file java script in memory. When the script is located in a bundle project, the project classpath and the locations of required
+	 * platform bundles are used for compilation.
+	 *
+	 * @param script
+	 *            script to compile
+	 * @param reference
+	 *            file name or {@link IFile} instance of the source file, may be <code>null</code>
+	 * @param fileName
+	 *            name of the source file, may be <code>null</code>
+	 * @return main class of the script
+	 */
+	private static Class<?> compileClass(final Script script, final Object reference, final String fileName) throws Exception {
+		URL[] classpath = new URL[0];
+		ClassLoader parent = JVMCompiledScriptEngine.class.getClassLoader();
+
+		final SimpleEntry<IFile, IBundleProjectDescription> pair = getBundleProjectDescription(ResourceTools.resolveFile(reference, null, true));
+		if (pair != null) {
+			final URLClassLoader projectClassLoader = ProjectClassLoaderCache.getInstance().getClassLoader(pair.getValue());
+			final List<URL> urls = new ArrayList<URL>(Arrays.asList(projectClassLoader.getURLs()));
+			urls.addAll(Arrays.asList(ProjectClassLoaderCache.getPlatformBundleClasspath(pair.getValue())));
+			classpath = urls.toArray(new URL[urls.size()]);
+			parent = projectClassLoader;
+		}
+
+		return InMemoryCompiler.getInstance().compile(script.getCode(), fileName, classpath, parent);
+	}
+
+	/**
+	 * Get the bundle project service. The service is tracked from the first call on until {@link #dispose()}.
+	 *
+	 * @return bundle project service or <code>null</code> when not available
+	 */
+	private static synchronized IBundleProjectService getBundleProjectService() {
+		if (fBundleProjectServiceTracker == null) {
+			final Bundle bundle = FrameworkUtil.getBundle(JVMCompiledScriptEngine.class);
+			final BundleContext context = (bundle != null) ? bundle.getBundleContext() : null;
+			if (context == null)
+				return null;
+
+			fBundleProjectServiceTracker = new ServiceTracker<IBundleProjectService, IBundleProjectService>(context, IBundleProjectService.class, null);
+			fBundleProjectServiceTracker.open();
+		}
+
+		return fBundleProjectServiceTracker.getService();
+	}
+
+	/**
+	 * Stop tracking the bundle project service. Called when the bundle stops.
+	 */
+	public static synchronized void dispose() {
+		if (fBundleProjectServiceTracker != null) {
+			fBundleProjectServiceTracker.close();
+			fBundleProjectServiceTracker = null;
+		}
+	}
+
 	private static AbstractMap.SimpleEntry<IFile, IBundleProjectDescription> getBundleProjectDescription(final Object reference) {
 
 		IFile sourceFile = null;
@@ -303,10 +315,9 @@ public class JVMCompiledScriptEngine extends AbstractScriptEngine implements ISc
 		}
 
 		if (sourceFile != null) {
-			final Bundle bundle = FrameworkUtil.getBundle(IBundleProjectService.class);
-			final BundleContext context = bundle.getBundleContext();
-			final ServiceReference<IBundleProjectService> ref = context.getServiceReference(IBundleProjectService.class);
-			final IBundleProjectService service = context.getService(ref);
+			final IBundleProjectService service = getBundleProjectService();
+			if (service == null)
+				return null;
 
 			try {
 				final IBundleProjectDescription projectDescription = service.getDescription(sourceFile.getProject());
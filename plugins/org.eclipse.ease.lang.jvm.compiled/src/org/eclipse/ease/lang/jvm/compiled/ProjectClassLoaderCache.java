@@ -0,0 +1,326 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.jvm.compiled;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.pde.core.project.IBundleProjectDescription;
+import org.eclipse.pde.core.project.IRequiredBundleDescription;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+
+/**
+ * Caches one class loader per script bundle project. Loaders are created from the JDT classpath of the project and reused for all script executions, so
+ * classes are loaded (and JIT compiled) only once. A loader gets dropped as soon as the project or any workspace project it depends on changes, is closed or
+ * deleted. Changed class files therefore get picked up after the next build. Classes compiled in memory against a dropped loader are removed from the
+ * {@link InMemoryCompiler} cache.
+ * <p>
+ * Dropped loaders are not closed explicitly as {@link URLClassLoader#close()} is not available on the JavaSE-1.6 execution environment of this bundle. They
+ * get released by the garbage collector once no loaded classes are referenced any longer, open jar files of a loader remain open until then.
+ * </p>
+ */
+public class ProjectClassLoaderCache implements IResourceChangeListener {
+
+	/**
+	 * Cached loader with the names of all workspace projects it loads classes from.
+	 */
+	private static class CacheEntry {
+		private final URLClassLoader fClassLoader;
+		private final Set<String> fProjects;
+
+		public CacheEntry(final URLClassLoader classLoader, final Set<String> projects) {
+			fClassLoader = classLoader;
+			fProjects = projects;
+		}
+	}
+
+	private static ProjectClassLoaderCache fInstance = null;
+
+	/**
+	 * Get the cache shared by all JVM engines. Registers the cache for workspace changes on first access.
+	 *
+	 * @return shared cache instance
+	 */
+	public static synchronized ProjectClassLoaderCache getInstance() {
+		if (fInstance == null) {
+			fInstance = new ProjectClassLoaderCache();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(fInstance,
+					IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+		}
+
+		return fInstance;
+	}
+
+	/**
+	 * Unregister the shared cache from workspace changes and drop all cached loaders. Called when the bundle stops.
+	 */
+	public static synchronized void dispose() {
+		if (fInstance != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(fInstance);
+			fInstance.clear();
+			fInstance = null;
+		}
+	}
+
+	/** Cached loaders by project name. Guarded by itself. */
+	private final Map<String, CacheEntry> fClassLoaders = new HashMap<String, CacheEntry>();
+
+	/** Incremented whenever loaders get dropped. Guarded by fClassLoaders. */
+	private long fGeneration = 0;
+
+	/**
+	 * Get the class loader for a script bundle project. Creates a new loader in case none is cached.
+	 *
+	 * @param description
+	 *            bundle description of the script project
+	 * @return class loader for project classes
+	 * @throws JavaModelException
+	 *             when the classpath of a project cannot be resolved
+	 * @throws MalformedURLException
+	 *             when a classpath entry cannot be converted to an URL
+	 */
+	public URLClassLoader getClassLoader(final IBundleProjectDescription description) throws JavaModelException, MalformedURLException {
+		final String name = description.getProject().getName();
+
+		while (true) {
+			final long generation;
+			synchronized (fClassLoaders) {
+				final CacheEntry entry = fClassLoaders.get(name);
+				if (entry != null)
+					return entry.fClassLoader;
+
+				generation = fGeneration;
+			}
+
+			// resolve classpath outside of lock, worst case the loader gets created twice
+			final CacheEntry entry = createEntry(description);
+			synchronized (fClassLoaders) {
+				final CacheEntry existing = fClassLoaders.get(name);
+				if (existing != null)
+					return existing.fClassLoader;
+
+				// a concurrent invalidation might have been based on a classpath older than the one just resolved, resolve again
+				if (generation == fGeneration) {
+					fClassLoaders.put(name, entry);
+					return entry.fClassLoader;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drop all loaders using classes from a given project.
+	 *
+	 * @param projectName
+	 *            name of the changed project
+	 */
+	public void invalidate(final String projectName) {
+		final List<ClassLoader> droppedLoaders = new ArrayList<ClassLoader>();
+		synchronized (fClassLoaders) {
+			fGeneration++;
+
+			final Iterator<CacheEntry> iterator = fClassLoaders.values().iterator();
+			while (iterator.hasNext()) {
+				final CacheEntry entry = iterator.next();
+				if (entry.fProjects.contains(projectName)) {
+					droppedLoaders.add(entry.fClassLoader);
+					iterator.remove();
+				}
+			}
+		}
+
+		for (final ClassLoader loader : droppedLoaders)
+			InMemoryCompiler.getInstance().invalidate(loader);
+	}
+
+	/**
+	 * Drop all cached loaders.
+	 */
+	public void clear() {
+		final List<ClassLoader> droppedLoaders = new ArrayList<ClassLoader>();
+		synchronized (fClassLoaders) {
+			fGeneration++;
+
+			for (final CacheEntry entry : fClassLoaders.values())
+				droppedLoaders.add(entry.fClassLoader);
+
+			fClassLoaders.clear();
+		}
+
+		for (final ClassLoader loader : droppedLoaders)
+			InMemoryCompiler.getInstance().invalidate(loader);
+	}
+
+	/**
+	 * Get the locations of all required bundles of a script project that are installed in the running platform. Classes of these bundles are loaded by the
+	 * parent of the project loader, which the java compiler cannot query for types. To compile against them, their locations need to be added to the compiler
+	 * classpath. Jars nested in bundle jars and packages re-exported by required bundles are not resolved.
+	 *
+	 * @param description
+	 *            bundle description of the script project
+	 * @return bundle locations, may be empty
+	 */
+	public static URL[] getPlatformBundleClasspath(final IBundleProjectDescription description) {
+		final List<URL> urls = new ArrayList<URL>();
+
+		final IRequiredBundleDescription[] requiredBundles = description.getRequiredBundles();
+		if (requiredBundles != null) {
+			for (final IRequiredBundleDescription requiredBundle : requiredBundles) {
+				final Bundle bundle = Platform.getBundle(requiredBundle.getName());
+				if (bundle != null)
+					addBundleLocation(bundle, urls);
+			}
+		}
+
+		return urls.toArray(new URL[urls.size()]);
+	}
+
+	private static void addBundleLocation(final Bundle bundle, final List<URL> urls) {
+		try {
+			final File bundleFile = FileLocator.getBundleFile(bundle);
+			urls.add(bundleFile.toURI().toURL());
+
+			// unpacked bundles may provide their classes in sub folders
+			final String bundleClassPath = bundle.getHeaders().get(Constants.BUNDLE_CLASSPATH);
+			if ((bundleFile.isDirectory()) && (bundleClassPath != null)) {
+				for (final String entry : bundleClassPath.split(",")) {
+					final String path = entry.split(";")[0].trim();
+					if ((!path.isEmpty()) && (!".".equals(path))) {
+						final File folder = new File(bundleFile, path);
+						if (folder.exists())
+							urls.add(folder.toURI().toURL());
+					}
+				}
+			}
+
+		} catch (final IOException e) {
+			// bundle location not accessible, types of this bundle cannot be resolved by the compiler
+		}
+	}
+
+	@Override
+	public void resourceChanged(final IResourceChangeEvent event) {
+		if (event.getResource() instanceof IProject) {
+			// project closed or deleted
+			invalidate(event.getResource().getName());
+
+		} else if (event.getDelta() != null) {
+			for (final IResourceDelta projectDelta : event.getDelta().getAffectedChildren()) {
+				if (isRelevant(projectDelta))
+					invalidate(projectDelta.getResource().getName());
+			}
+		}
+	}
+
+	/**
+	 * Check whether a delta contains changes other than marker updates.
+	 *
+	 * @param delta
+	 *            delta to inspect
+	 * @return <code>true</code> when resources were added, removed or modified
+	 */
+	private static boolean isRelevant(final IResourceDelta delta) {
+		if ((delta.getKind() != IResourceDelta.CHANGED) || ((delta.getFlags() & ~IResourceDelta.MARKERS) != 0))
+			return true;
+
+		for (final IResourceDelta child : delta.getAffectedChildren()) {
+			if (isRelevant(child))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static CacheEntry createEntry(final IBundleProjectDescription description) throws JavaModelException, MalformedURLException {
+		final List<URL> urls = new ArrayList<URL>();
+		final Set<String> projects = new HashSet<String>();
+
+		final IProject project = description.getProject();
+		final IJavaProject javaProject = JavaCore.create(project);
+		projects.add(project.getName());
+
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+
+		final IClasspathEntry[] cpEntries = javaProject.getRawClasspath();
+		if (cpEntries != null) {
+			for (final IClasspathEntry cpEntry : cpEntries) {
+				// The script bundle project may have a ".classpath" dependency on another Eclipse "source" project (could be Java or Scala or anything else
+				// based on the Eclipse Java nature)
+				if ((cpEntry.getEntryKind() == IClasspathEntry.CPE_PROJECT) && (cpEntry.getContentKind() == IPackageFragmentRoot.K_SOURCE)) {
+					final IProject cpProject = root.getProject(cpEntry.getPath().toString());
+					if (cpProject != null) {
+						projects.add(cpProject.getName());
+						addOutputLocation(JavaCore.create(cpProject), urls);
+					}
+
+				} else if ((cpEntry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) && (cpEntry.getContentKind() == IPackageFragmentRoot.K_BINARY))
+					urls.add(cpEntry.getPath().toFile().toURI().toURL());
+			}
+		}
+
+		addOutputLocation(javaProject, urls);
+
+		final IRequiredBundleDescription[] requiredBundles = description.getRequiredBundles();
+		if (requiredBundles != null) {
+			for (final IRequiredBundleDescription requiredBundle : requiredBundles) {
+				final String id = requiredBundle.getName();
+				if (Platform.getBundle(id) == null) {
+					// The script bundle project (in the Eclipse workspace) has a MANIFEST dependency on an Eclipse plugin that is not in the Eclipse
+					// installation -- so it must be in the Eclipse workspace...
+					final IProject bundleProject = root.getProject("/" + id);
+					if (bundleProject != null) {
+						projects.add(bundleProject.getName());
+						addOutputLocation(JavaCore.create(bundleProject), urls);
+					}
+				}
+			}
+		}
+
+		return new CacheEntry(new URLClassLoader(urls.toArray(new URL[urls.size()]), JVMCompiledScriptEngine.class.getClassLoader()), projects);
+	}
+
+	private static void addOutputLocation(final IJavaProject javaProject, final List<URL> urls) throws JavaModelException, MalformedURLException {
+		final IResource bin = ResourcesPlugin.getWorkspace().getRoot().findMember(javaProject.getOutputLocation());
+
+		// output folder does not exist before the first build
+		if (bin != null) {
+			final IPath binPath = bin.getRawLocation();
+			if (binPath != null)
+				urls.add(binPath.toFile().toURI().toURL());
+		}
+	}
+}
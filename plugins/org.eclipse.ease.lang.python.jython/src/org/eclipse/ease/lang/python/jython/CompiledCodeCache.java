@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.jython;
+
+import org.eclipse.ease.tools.BoundedCache;
+import org.python.core.CompileMode;
+import org.python.core.CompilerFlags;
+import org.python.core.Py;
+import org.python.core.PyObject;
+
+/**
+ * Cache for compiled Python code. Code objects do not depend on a dedicated namespace, so they can be shared across all Jython engine instances. Entries are
+ * keyed by a hash of the source code and the file name of the script.
+ */
+public class CompiledCodeCache extends BoundedCache<String, PyObject> {
+
+	/** Default amount of cached code objects. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/** File name compiled code gets registered with. */
+	private static final String CODE_FILE_NAME = "(none)";
+
+	private static CompiledCodeCache fInstance = null;
+
+	/**
+	 * Get the cache shared by all Jython engines.
+	 *
+	 * @return shared cache instance
+	 */
+	public static synchronized CompiledCodeCache getInstance() {
+		if (fInstance == null)
+			fInstance = new CompiledCodeCache(DEFAULT_CAPACITY);
+
+		return fInstance;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            maximum amount of cached code objects
+	 */
+	public CompiledCodeCache(final int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * Get compiled code for given source code. Compiles the code on a cache miss.
+	 *
+	 * @param code
+	 *            source code to compile
+	 * @param fileName
+	 *            file name of the script, may be <code>null</code>
+	 * @return compiled code
+	 * @throws RuntimeException
+	 *             when the code is incomplete
+	 */
+	public PyObject getCode(final String code, final String fileName) {
+		final String key = fileName + ":" + hash(code);
+
+		PyObject compiledCode = get(key);
+		if (compiledCode == null) {
+			compiledCode = Py.compile_command_flags(code, CODE_FILE_NAME, CompileMode.exec, new CompilerFlags(), true);
+			if (compiledCode == Py.None)
+				throw new RuntimeException("Could not compile code");
+
+			put(key, compiledCode);
+		}
+
+		return compiledCode;
+	}
+}
@@ -30,8 +30,6 @@ import org.eclipse.ease.lang.python.preferences.IPreferenceConstants;
 import org.eclipse.ease.tools.RunnableWithResult;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.swt.widgets.Display;
-import org.python.core.CompileMode;
-import org.python.core.CompilerFlags;
 import org.python.core.Py;
 import org.python.core.PyBoolean;
 import org.python.core.PyFloat;
@@ -45,6 +43,7 @@ import org.python.core.PyLong;
 import org.python.core.PyNone;
 import org.python.core.PyObject;
 import org.python.core.PyObjectDerived;
+import org.python.core.PySlice;
 import org.python.core.PyString;
 import org.python.core.PyStringMap;
 import org.python.util.InteractiveInterpreter;
@@ -55,6 +54,15 @@ public class JythonScriptEngine extends AbstractScriptEngine {
 
 	private PyObject mResult;
 
+	/** Explicit setting to keep script folders on the python path, <code>null</code> to use the preference. */
+	private Boolean mKeepScriptFolders = null;
+
+	/** Copy of sys.path after engine setup, restored on reset. */
+	private PyObject mInitialPath;
+
+	/** Names of modules in sys.modules after engine setup, restored on reset. */
+	private PyObject mInitialModules;
+
 	private class DisplayHook extends PyObject {
 
 		private static final long serialVersionUID = -6793040471701923706L;
@@ -70,6 +78,24 @@ public class JythonScriptEngine extends AbstractScriptEngine {
 		super("Jython");
 	}
 
+	/**
+	 * Keep folders of executed scripts on the python path. By default script folders are added before execution and removed afterwards. An explicit setting
+	 * takes precedence over the preference.
+	 *
+	 * @param keepScriptFolders
+	 *            <code>true</code> to keep folders on the python path
+	 */
+	public void setKeepScriptFolders(final boolean keepScriptFolders) {
+		mKeepScriptFolders = keepScriptFolders;
+	}
+
+	private boolean isKeepScriptFolders() {
+		if (mKeepScriptFolders != null)
+			return mKeepScriptFolders;
+
+		return Activator.getDefault().getPreferenceStore().getBoolean(IPreferenceConstants.PYTHON_KEEP_SCRIPT_FOLDERS);
+	}
+
 	@Override
 	public void terminateCurrent() {
 		try {
@@ -113,6 +139,34 @@ public class JythonScriptEngine extends AbstractScriptEngine {
 		getEngine().getSystemState().settrace(new JythonTracer());
 
 		// FIXME ev we need to set the system path to make jython aware of the changes
+
+		// remember interpreter state to be restored on reset
+		mInitialPath = getEngine().getSystemState().path.__getitem__(new PySlice());
+		mInitialModules = getEngine().getSystemState().modules.invoke("keys");
+	}
+
+	@Override
+	protected boolean resetEngine() throws ScriptEngineException {
+		// replace the global namespace, the interpreter itself can be reused
+		final PyStringMap locals = new PyStringMap();
+		locals.__setitem__("__name__", new PyString("__main__"));
+		getEngine().setLocals(locals);
+
+		// restore the python path, script folders and paths added by scripts are dropped
+		getEngine().getSystemState().path.__setitem__(new PySlice(), mInitialPath.__getitem__(new PySlice()));
+
+		// drop modules imported by previous scripts, they might carry state
+		final PyObject modules = getEngine().getSystemState().modules;
+		for (final PyObject name : modules.invoke("keys").asIterable()) {
+			if (!mInitialModules.__contains__(name))
+				modules.__delitem__(name);
+		}
+
+		setOutputStream(getOutputStream());
+		setInputStream(getInputStream());
+		setErrorStream(getErrorStream());
+
+		return true;
 	}
 
 	@Override
@@ -145,9 +199,8 @@ public class JythonScriptEngine extends AbstractScriptEngine {
 	protected Object internalExecute(final Script script, final Object reference, final String fileName) throws Exception {
 		mResult = Py.None;
 
-		final PyObject code = Py.compile_command_flags(script.getCode(), "(none)", CompileMode.exec, new CompilerFlags(), true);
-		if (code == Py.None)
-			throw new RuntimeException("Could not compile code");
+		final PyObject code = CompiledCodeCache.getInstance().getCode(script.getCode(), fileName);
+
 		final Object file = script.getFile();
 		File f = null;
 		if (file instanceof IFile) {
@@ -162,12 +215,26 @@ public class JythonScriptEngine extends AbstractScriptEngine {
 			setVariable("__file__", absolutePath);
 			final String containerPart = f.getParent();
 			newString = Py.newString(containerPart);
-			Py.getSystemState().path.insert(0, newString);
+
+			final PyList systemPath = Py.getSystemState().path;
+			if (isKeepScriptFolders()) {
+				// add folder once and keep it
+				if (!systemPath.contains(newString))
+					systemPath.insert(0, newString);
+
+				newString = null;
+
+			} else
+				systemPath.insert(0, newString);
 		}
-		Py.exec(code, getEngine().getLocals(), null);
-		if (newString != null) {
-			Py.getSystemState().path.remove(newString);
+
+		try {
+			Py.exec(code, getEngine().getLocals(), null);
+		} finally {
+			if (newString != null)
+				Py.getSystemState().path.remove(newString);
 		}
+
 		return toJava(mResult);
 	}
 
@@ -12,6 +12,7 @@ package org.eclipse.ease.lang.python.jython.preferences;
 
 import org.eclipse.ease.lang.python.jython.Activator;
 import org.eclipse.ease.lang.python.preferences.IPreferenceConstants;
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.PathEditor;
 import org.eclipse.swt.widgets.Composite;
@@ -44,5 +45,6 @@ public class PythonLibraryPreferencePage extends FieldEditorPreferencePage imple
 	@Override
 	protected void createFieldEditors() {
 		addField(new PathEditor(IPreferenceConstants.PYTHON_LIBRARIES, "External library location", "Select a folder for an external library", parent));
+		addField(new BooleanFieldEditor(IPreferenceConstants.PYTHON_KEEP_SCRIPT_FOLDERS, "Keep folders of executed scripts on the python path", parent));
 	}
 }
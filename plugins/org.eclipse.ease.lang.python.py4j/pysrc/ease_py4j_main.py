@@ -9,6 +9,7 @@
 #     Jonah Graham (Kichwa Coders) - initial API and implementation
 #################################################################################
 
+import array
 import code
 import os
 import py4j
@@ -16,6 +17,8 @@ from py4j.clientserver import ClientServer, JavaParameters, PythonParameters
 from py4j.java_collections import MapConverter
 from py4j.java_gateway import JavaObject
 from py4j.protocol import Py4JJavaError, get_command_part
+import socket
+import struct
 import sys
 import threading
 
@@ -58,14 +61,249 @@ class EaseInteractiveConsole(code.InteractiveConsole):
             # ScriptExecutionException
             self.showtraceback()
 
+class BulkChannel(object):
+    '''
+    Python side of Java's BulkDataChannel.
+    Transfers byte buffers, numeric arrays and tables as framed big endian
+    binary data next to the py4j gateway. Each frame consists of a handle,
+    a kind, the payload length and the payload.
+    Incoming frames are received by a reader thread, so sending a large
+    frame never waits for the other side to ask for it.
+    '''
+    KIND_BYTES = 1
+    KIND_INT32 = 2
+    KIND_INT64 = 3
+    KIND_FLOAT32 = 4
+    KIND_FLOAT64 = 5
+    KIND_TABLE = 6
+
+    NO_HANDLE = -1
+
+    # small byte strings are cheap enough to pass through py4j directly
+    BYTES_THRESHOLD = 4096
+
+    # maximum amount of received frames waiting to be read
+    MAX_PENDING_FRAMES = 16
+
+    # array typecodes of signed types per kind
+    ARRAY_KINDS = {'b': KIND_BYTES, 'f': KIND_FLOAT32, 'd': KIND_FLOAT64}
+
+    def __init__(self, port, token):
+        self.socket = socket.create_connection(('127.0.0.1', port))
+        self.socket.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+        # authenticate before anything else is sent
+        self.socket.sendall(token.encode('ascii'))
+        self.reader = self.socket.makefile('rb')
+        self.write_lock = threading.Lock()
+        self.received = threading.Condition()
+        self.next_handle = 0
+        self.pending = dict()
+        self.last_received_handle = BulkChannel.NO_HANDLE
+        self.input_closed = False
+        self.closed = False
+        thread = threading.Thread(target=self.receive_frames, name='EASE py4j bulk data reader')
+        thread.setDaemon(True)
+        thread.start()
+
+    def close(self):
+        '''
+        Close the connection. A failed transfer may leave a partial frame
+        on the connection, so the channel cannot be used any longer.
+        '''
+        self.closed = True
+        with self.received:
+            self.received.notify_all()
+        try:
+            # wake up the reader thread
+            self.socket.shutdown(socket.SHUT_RDWR)
+        except socket.error:
+            pass
+        try:
+            self.reader.close()
+        finally:
+            self.socket.close()
+
+    def send(self, data):
+        '''
+        Send data if it is supported by the channel.
+        Returns the frame handle or NO_HANDLE when data needs to be
+        passed through py4j.
+        '''
+        encoded = self.encode(data, True)
+        if encoded is None:
+            return BulkChannel.NO_HANDLE
+
+        kind, payload = encoded
+        with self.write_lock:
+            handle = self.next_handle
+            self.next_handle += 1
+            try:
+                self.socket.sendall(struct.pack('>ibi', handle, kind, len(payload)))
+                self.socket.sendall(payload)
+            except:
+                self.close()
+                raise
+        return handle
+
+    def receive_frames(self):
+        '''
+        Receive frames until the connection gets closed. Runs in the reader
+        thread.
+        '''
+        try:
+            while True:
+                header = self.reader.read(4)
+                if not header:
+                    # connection closed by the other side between frames
+                    break
+                if len(header) != 4:
+                    raise IOError('Bulk data channel closed')
+                handle, = struct.unpack('>i', header)
+                value = self.read_value()
+                with self.received:
+                    self.pending[handle] = value
+                    self.last_received_handle = handle
+                    if len(self.pending) > BulkChannel.MAX_PENDING_FRAMES:
+                        # discard the oldest unread frame
+                        del self.pending[min(self.pending)]
+                    self.received.notify_all()
+        except:
+            if not self.closed:
+                self.close()
+        with self.received:
+            self.input_closed = True
+            self.received.notify_all()
+
+    def receive(self, handle):
+        '''
+        Read the data for a given frame handle. Blocks until the frame is
+        available.
+        '''
+        with self.received:
+            while handle not in self.pending:
+                if self.closed or self.input_closed:
+                    raise IOError('Bulk data channel closed')
+                if 0 <= handle <= self.last_received_handle:
+                    raise IOError('Bulk data frame %d was discarded or read before' % handle)
+                self.received.wait()
+            return self.pending.pop(handle)
+
+    def read_exactly(self, length):
+        data = self.reader.read(length)
+        if len(data) != length:
+            raise IOError('Bulk data channel closed')
+        return data
+
+    def read_value(self):
+        kind, length = struct.unpack('>bi', self.read_exactly(5))
+        payload = self.read_exactly(length)
+        if kind == BulkChannel.KIND_BYTES:
+            return payload
+        if kind == BulkChannel.KIND_INT32:
+            return self.to_array(payload, 4, 'i')
+        if kind == BulkChannel.KIND_INT64:
+            return self.to_array(payload, 8, 'q', 'l')
+        if kind == BulkChannel.KIND_FLOAT32:
+            return self.to_array(payload, 4, 'f')
+        if kind == BulkChannel.KIND_FLOAT64:
+            return self.to_array(payload, 8, 'd')
+        raise IOError('Unknown bulk data kind: %d' % kind)
+
+    @staticmethod
+    def to_array(payload, itemsize, *typecodes):
+        for typecode in typecodes:
+            try:
+                values = array.array(typecode)
+            except ValueError:
+                # typecode not supported by this Python version
+                continue
+            if values.itemsize != itemsize:
+                continue
+            if hasattr(values, 'frombytes'):
+                values.frombytes(payload)
+            else:
+                values.fromstring(payload)
+            if sys.byteorder == 'little':
+                values.byteswap()
+            return values
+
+        # no matching array type, fall back to a list
+        fmt = '>%d%s' % (len(payload) // itemsize, 'q' if itemsize == 8 else 'i')
+        return list(struct.unpack(fmt, payload))
+
+    def encode(self, data, top_level=False):
+        '''
+        Encode data to a (kind, payload) tuple.
+        Returns None if data is not supported.
+        '''
+        if isinstance(data, memoryview):
+            data = data.tobytes()
+
+        if isinstance(data, bytearray) or (bytes is not str and isinstance(data, bytes)):
+            if top_level and len(data) < BulkChannel.BYTES_THRESHOLD:
+                return None
+            return (BulkChannel.KIND_BYTES, bytes(data))
+
+        if isinstance(data, array.array):
+            kind = BulkChannel.ARRAY_KINDS.get(data.typecode)
+            if kind is None and data.typecode in ('h', 'i', 'l', 'q'):
+                kind = {4: BulkChannel.KIND_INT32, 8: BulkChannel.KIND_INT64}.get(data.itemsize)
+            if kind is None:
+                return None
+            values = array.array(data.typecode, data)
+            if sys.byteorder == 'little':
+                values.byteswap()
+            return (kind, values.tobytes() if hasattr(values, 'tobytes') else values.tostring())
+
+        # numpy arrays, detected by duck typing to not depend on numpy
+        if hasattr(data, 'dtype') and hasattr(data, 'tobytes') and getattr(data, 'ndim', None) == 1:
+            kind = {('i', 4): BulkChannel.KIND_INT32, ('i', 8): BulkChannel.KIND_INT64,
+                    ('f', 4): BulkChannel.KIND_FLOAT32, ('f', 8): BulkChannel.KIND_FLOAT64,
+                    ('i', 1): BulkChannel.KIND_BYTES, ('u', 1): BulkChannel.KIND_BYTES}.get((data.dtype.kind, data.dtype.itemsize))
+            if kind is None:
+                return None
+            return (kind, data.astype('>%s%d' % (data.dtype.kind, data.dtype.itemsize)).tobytes())
+
+        if top_level:
+            # tables: dictionaries or data frames of columns
+            if isinstance(data, dict):
+                columns = list(data.items())
+            elif hasattr(data, 'columns') and hasattr(data, '__getitem__'):
+                columns = [(column, getattr(data[column], 'values', None)) for column in data.columns]
+            else:
+                return None
+            return self.encode_table(columns)
+
+        return None
+
+    def encode_table(self, columns):
+        if not columns:
+            return None
+
+        parts = [struct.pack('>i', len(columns))]
+        for name, column in columns:
+            encoded = self.encode(column)
+            if encoded is None:
+                return None
+            name = str(name).encode('utf-8')
+            kind, payload = encoded
+            parts.append(struct.pack('>i', len(name)))
+            parts.append(name)
+            parts.append(struct.pack('>bi', kind, len(payload)))
+            parts.append(payload)
+
+        return (BulkChannel.KIND_TABLE, b''.join(parts))
+
 class InteractiveReturn(object):
     '''
     Instance of Java's IInteractiveReturn.
     This class encapsulates the return state from the
     ScriptEngineExecute.executeInteractive() method
     '''
-    def __init__(self, gateway_client, display_data=None, except_data=None):
+    def __init__(self, gateway_client, bulk_channel=None, display_data=None, except_data=None):
         self.gateway_client = gateway_client
+        self.bulk_channel = bulk_channel
+        self.bulk_handle = None
         self.display_data = display_data
         self.except_data = except_data
     def getException(self):
@@ -75,6 +313,12 @@ class InteractiveReturn(object):
         if isinstance(data, JavaObject):
             return data;
         return "".join(data)
+    def getBulkHandle(self):
+        if self.bulk_handle is None:
+            self.bulk_handle = BulkChannel.NO_HANDLE
+            if self.bulk_channel is not None and not self.bulk_channel.closed and self.display_data is not None:
+                self.bulk_handle = self.bulk_channel.send(self.display_data)
+        return self.bulk_handle
     def getResult(self):
         data = self.display_data
 
@@ -104,11 +348,20 @@ class ScriptEngineExecute(object):
     Instance of Java's IPythonSideEngine.
     This class is the main class of the Python side.
     '''
-    def __init__(self):
+    def __init__(self, bulk_channel=None):
         self.shutdown_event = threading.Event()
+        self.bulk_channel = bulk_channel
 
     def set_gateway(self, gateway):
         self.gateway = gateway
+        self.reset_namespace()
+        sys.displayhook = self.displayhook
+        # interpreter state to restore when the process gets reused
+        self.initial_path = list(sys.path)
+        self.initial_modules = set(sys.modules)
+
+    def reset_namespace(self):
+        gateway = self.gateway
         self.locals = dict()
         self.interp = EaseInteractiveConsole(self, self.locals)
         # Provide most common top level pacakage names in the namespace
@@ -122,7 +375,6 @@ class ScriptEngineExecute(object):
         self.locals['jvm'] = gateway.jvm
         self.locals['gateway'] = gateway
         self.locals['py4j'] = py4j
-        sys.displayhook = self.displayhook
         self.display_data = None
         self.except_data = None
 
@@ -144,7 +396,7 @@ class ScriptEngineExecute(object):
             except_data = self.except_data
             self.display_data = None
             self.except_data = None
-            return InteractiveReturn(self.gateway._gateway_client, display_data=display_data, except_data=except_data)
+            return InteractiveReturn(self.gateway._gateway_client, self.bulk_channel, display_data=display_data, except_data=except_data)
 
     def executeScript(self, code_text, filename=None):
         # TODO: Handle filename
@@ -170,6 +422,27 @@ class ScriptEngineExecute(object):
     def internalSetVariable(self, name, content):
         self.locals[name] = content
 
+    def internalSetBulkVariable(self, name, handle):
+        self.locals[name] = self.bulk_channel.receive(handle)
+
+    def connectBulkDataChannel(self, port, token):
+        old_channel = self.bulk_channel
+        self.bulk_channel = None
+        if old_channel is not None and not old_channel.closed:
+            old_channel.close()
+        self.bulk_channel = BulkChannel(port, token)
+
+    def resetEngine(self):
+        # drop globals, search path changes and modules imported by scripts,
+        # so nothing leaks to the next engine using this process
+        self.locals.clear()
+        sys.path[:] = self.initial_path
+        for name in list(sys.modules):
+            if name not in self.initial_modules:
+                sys.modules.pop(name, None)
+        sys.displayhook = self.displayhook
+        self.reset_namespace()
+
     def teardownEngine(self):
         self.shutdown_event.set()
 
@@ -199,7 +472,13 @@ def watchdog(engine):
 
 def main(argv):
     port = int(argv[1])
-    engine = ScriptEngineExecute()
+    bulk_channel = None
+    if len(argv) > 2:
+        # connect the bulk data channel before reporting startup complete,
+        # the token is passed in the environment to not show up in the
+        # process list
+        bulk_channel = BulkChannel(int(argv[2]), os.environ.pop('EASE_BULK_DATA_TOKEN', ''))
+    engine = ScriptEngineExecute(bulk_channel)
     gateway = ClientServer(java_parameters=JavaParameters(auto_convert=True, port=port),
                           python_parameters=PythonParameters(port=0),
                           python_server_entry_point=engine)
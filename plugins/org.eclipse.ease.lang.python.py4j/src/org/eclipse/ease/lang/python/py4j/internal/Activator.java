@@ -27,6 +27,7 @@ public class Activator extends AbstractUIPlugin {
 	}
 
 	public void stop(BundleContext context) throws Exception {
+		PythonWorkerPool.getInstance().dispose();
 		plugin = null;
 		super.stop(context);
 	}
@@ -0,0 +1,479 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Kichwa Coders and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Jonah Graham (Kichwa Coders) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.py4j.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.ease.Logger;
+
+/**
+ * Framed binary channel used next to the py4j gateway to transfer bulk data between Java and Python. Byte arrays, numeric arrays and tables (columns of
+ * numeric arrays) are transferred as raw big endian data instead of being converted by the py4j text protocol or by <code>repr()</code>.
+ *
+ * <p>
+ * Each frame consists of a 4 byte handle, a 1 byte kind, a 4 byte payload length and the payload. The handle is passed through the py4j gateway, so the
+ * receiving side knows which frame belongs to a call. Frames of kind {@link #KIND_TABLE} contain the column count followed by a name (length prefixed UTF-8)
+ * and a nested kind, length and payload for each column. The Python counterpart is implemented in <code>ease_py4j_main.py</code>.
+ * </p>
+ *
+ * <p>
+ * Incoming frames are received by a dedicated reader thread and kept until {@link #read(int)} asks for their handle. Therefore a side writing a large
+ * frame never waits for the other side to call {@link #read(int)}, which would deadlock when the reading call waits for the write to complete. At most
+ * {@link #MAX_PENDING_FRAMES} unread frames are kept, older frames are discarded.
+ * </p>
+ *
+ * <p>
+ * A failed transfer may leave a partial frame on the connection, which breaks framing of all following frames. The channel therefore closes itself when a
+ * transfer fails and needs to be replaced by a new connection.
+ * </p>
+ *
+ * <p>
+ * The channel listens on the loopback interface only. A connecting client needs to send the {@link #getToken() token} of the channel first, connections
+ * sending a wrong token are dropped. The token is passed to the Python process started by {@link PythonWorker}.
+ * </p>
+ */
+public class BulkDataChannel implements Closeable {
+
+	/** Payload is a byte array. */
+	public static final byte KIND_BYTES = 1;
+
+	/** Payload is an array of 32 bit integers. */
+	public static final byte KIND_INT32 = 2;
+
+	/** Payload is an array of 64 bit integers. */
+	public static final byte KIND_INT64 = 3;
+
+	/** Payload is an array of 32 bit floats. */
+	public static final byte KIND_FLOAT32 = 4;
+
+	/** Payload is an array of 64 bit floats. */
+	public static final byte KIND_FLOAT64 = 5;
+
+	/** Payload is a table of named columns. */
+	public static final byte KIND_TABLE = 6;
+
+	/** Handle indicating that no bulk data is available. */
+	public static final int NO_HANDLE = -1;
+
+	/** Maximum amount of received frames waiting to be read. */
+	public static final int MAX_PENDING_FRAMES = 16;
+
+	/** Length of the authentication token in bytes. */
+	private static final int TOKEN_LENGTH = 16;
+
+	/**
+	 * Check whether an object can be transferred using a bulk channel.
+	 *
+	 * @param data
+	 *            data to transfer
+	 * @return <code>true</code> when data is supported
+	 */
+	public static boolean isSupported(Object data) {
+		return (data instanceof byte[]) || (data instanceof ByteBuffer) || (data instanceof int[]) || (data instanceof long[]) || (data instanceof float[])
+				|| (data instanceof double[]);
+	}
+
+	private final ServerSocket fServerSocket;
+	private final String fToken;
+	private Socket fSocket;
+	private DataInputStream fInput;
+	private DataOutputStream fOutput;
+
+	private final Object fReadLock = new Object();
+	private final Object fWriteLock = new Object();
+
+	private int fNextHandle = 0;
+
+	private volatile boolean fClosed = false;
+
+	/** Received frames not read yet, in order of their handles. Guarded by {@link #fReadLock}. */
+	private final Map<Integer, Object> fPendingFrames = new LinkedHashMap<>();
+
+	/** Handle of the last received frame. Guarded by {@link #fReadLock}. */
+	private int fLastReceivedHandle = NO_HANDLE;
+
+	/** Set when no more frames will be received. Guarded by {@link #fReadLock}. */
+	private boolean fInputClosed = false;
+
+	/** Failure of the reader thread. Guarded by {@link #fReadLock}. */
+	private IOException fReadFailure = null;
+
+	/**
+	 * Create a channel listening on a local port. The Python side needs to connect to {@link #getPort()} and send {@link #getToken()} before
+	 * {@link #accept(int)} times out.
+	 *
+	 * @throws IOException
+	 *             when the server socket cannot be created
+	 */
+	public BulkDataChannel() throws IOException {
+		fServerSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+
+		byte[] token = new byte[TOKEN_LENGTH];
+		new SecureRandom().nextBytes(token);
+		StringBuilder hexToken = new StringBuilder();
+		for (byte value : token)
+			hexToken.append(String.format("%02x", value & 0xFF));
+
+		fToken = hexToken.toString();
+	}
+
+	/**
+	 * Create a channel on already connected streams.
+	 *
+	 * @param input
+	 *            stream to read frames from
+	 * @param output
+	 *            stream to write frames to
+	 */
+	BulkDataChannel(InputStream input, OutputStream output) {
+		fServerSocket = null;
+		fToken = null;
+		fInput = new DataInputStream(new BufferedInputStream(input));
+		fOutput = new DataOutputStream(new BufferedOutputStream(output));
+		startReader();
+	}
+
+	/**
+	 * Get the local port the channel is listening on.
+	 *
+	 * @return listening port
+	 */
+	public int getPort() {
+		return fServerSocket.getLocalPort();
+	}
+
+	/**
+	 * Get the token a client needs to send after connecting. The token consists of ASCII characters only.
+	 *
+	 * @return authentication token
+	 */
+	public String getToken() {
+		return fToken;
+	}
+
+	/**
+	 * Wait for the Python side to connect. Connections not sending the {@link #getToken() token} are dropped. Once a client is authenticated, no further
+	 * connections are accepted.
+	 *
+	 * @param timeoutMillis
+	 *            time to wait for the connection
+	 * @throws IOException
+	 *             when no connection could be established
+	 */
+	public void accept(int timeoutMillis) throws IOException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (true) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0)
+				throw new SocketTimeoutException("No authenticated connection to bulk data channel within " + timeoutMillis + " ms");
+
+			fServerSocket.setSoTimeout((int) remaining);
+			Socket socket = fServerSocket.accept();
+			try {
+				socket.setSoTimeout((int) remaining);
+				if (isAuthenticated(socket)) {
+					socket.setSoTimeout(0);
+					socket.setTcpNoDelay(true);
+					fSocket = socket;
+					break;
+				}
+
+				Logger.warning(Activator.PLUGIN_ID, "Rejected unauthenticated connection to bulk data channel");
+			} catch (IOException e) {
+				Logger.warning(Activator.PLUGIN_ID, "Failed to authenticate connection to bulk data channel", e);
+			}
+
+			socket.close();
+		}
+
+		fServerSocket.close();
+		fInput = new DataInputStream(new BufferedInputStream(fSocket.getInputStream()));
+		fOutput = new DataOutputStream(new BufferedOutputStream(fSocket.getOutputStream()));
+		startReader();
+	}
+
+	private boolean isAuthenticated(Socket socket) throws IOException {
+		byte[] expected = fToken.getBytes(StandardCharsets.US_ASCII);
+		byte[] received = new byte[expected.length];
+		new DataInputStream(socket.getInputStream()).readFully(received);
+
+		// constant time comparison
+		return MessageDigest.isEqual(expected, received);
+	}
+
+	private void startReader() {
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				receiveFrames();
+			}
+		}, "EASE py4j bulk data reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Receive frames until the connection gets closed. Runs in the reader thread.
+	 */
+	private void receiveFrames() {
+		try {
+			while (true) {
+				int first = fInput.read();
+				if (first < 0)
+					// connection closed by the other side between frames
+					break;
+
+				int handle = (first << 24) | (fInput.readUnsignedByte() << 16) | fInput.readUnsignedShort();
+				Object value = readValue(fInput);
+
+				synchronized (fReadLock) {
+					fPendingFrames.put(handle, value);
+					fLastReceivedHandle = handle;
+
+					if (fPendingFrames.size() > MAX_PENDING_FRAMES) {
+						// frames are stored in order, discard the oldest one
+						Iterator<Integer> iterator = fPendingFrames.keySet().iterator();
+						Logger.warning(Activator.PLUGIN_ID, "Discarding unread bulk data frame " + iterator.next());
+						iterator.remove();
+					}
+
+					fReadLock.notifyAll();
+				}
+			}
+
+		} catch (IOException e) {
+			if (!fClosed) {
+				// the frame might be read partially, the connection cannot be used any longer
+				synchronized (fReadLock) {
+					fReadFailure = e;
+				}
+				closeAfterFailure();
+			}
+		}
+
+		synchronized (fReadLock) {
+			fInputClosed = true;
+			fReadLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Write data to the channel.
+	 *
+	 * @param data
+	 *            data to write, needs to be supported by {@link #isSupported(Object)}
+	 * @return handle to pass to the Python side
+	 * @throws IOException
+	 *             when writing fails, the channel is closed afterwards
+	 */
+	public int write(Object data) throws IOException {
+		synchronized (fWriteLock) {
+			if (fClosed)
+				throw new IOException("Bulk data channel is closed");
+
+			try {
+				int handle = fNextHandle++;
+				fOutput.writeInt(handle);
+				writeValue(fOutput, data);
+				fOutput.flush();
+				return handle;
+
+			} catch (IOException e) {
+				// the frame might be written partially, the connection cannot be used any longer
+				closeAfterFailure();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Read the data for a given handle. Blocks until the frame is available.
+	 *
+	 * @param handle
+	 *            handle received from the Python side
+	 * @return decoded data
+	 * @throws IOException
+	 *             when the frame cannot be received any longer or was discarded
+	 */
+	public Object read(int handle) throws IOException {
+		synchronized (fReadLock) {
+			while (!fPendingFrames.containsKey(handle)) {
+				if (fReadFailure != null)
+					throw new IOException("Bulk data channel failed", fReadFailure);
+
+				if ((fClosed) || (fInputClosed))
+					throw new IOException("Bulk data channel is closed");
+
+				if ((handle >= 0) && (handle <= fLastReceivedHandle))
+					throw new IOException("Bulk data frame " + handle + " was discarded or read before");
+
+				try {
+					fReadLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for bulk data frame " + handle, e);
+				}
+			}
+
+			return fPendingFrames.remove(handle);
+		}
+	}
+
+	/**
+	 * Check whether the channel got closed, either explicitly or due to a failed transfer.
+	 *
+	 * @return <code>true</code> when the channel cannot be used any longer
+	 */
+	public boolean isClosed() {
+		return fClosed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		fClosed = true;
+		synchronized (fReadLock) {
+			fReadLock.notifyAll();
+		}
+
+		try {
+			if (fSocket != null)
+				fSocket.close();
+		} finally {
+			if (fServerSocket != null)
+				fServerSocket.close();
+		}
+	}
+
+	private void closeAfterFailure() {
+		try {
+			close();
+		} catch (IOException e) {
+			// ignore, the failed transfer gets reported
+		}
+	}
+
+	private static void writeValue(DataOutputStream output, Object data) throws IOException {
+		ByteBuffer buffer;
+		byte kind;
+
+		if (data instanceof byte[]) {
+			kind = KIND_BYTES;
+			buffer = ByteBuffer.wrap((byte[]) data);
+
+		} else if (data instanceof ByteBuffer) {
+			kind = KIND_BYTES;
+			buffer = ((ByteBuffer) data).duplicate();
+
+		} else if (data instanceof int[]) {
+			kind = KIND_INT32;
+			int[] values = (int[]) data;
+			buffer = ByteBuffer.allocate(values.length * 4);
+			buffer.asIntBuffer().put(values);
+
+		} else if (data instanceof long[]) {
+			kind = KIND_INT64;
+			long[] values = (long[]) data;
+			buffer = ByteBuffer.allocate(values.length * 8);
+			buffer.asLongBuffer().put(values);
+
+		} else if (data instanceof float[]) {
+			kind = KIND_FLOAT32;
+			float[] values = (float[]) data;
+			buffer = ByteBuffer.allocate(values.length * 4);
+			buffer.asFloatBuffer().put(values);
+
+		} else if (data instanceof double[]) {
+			kind = KIND_FLOAT64;
+			double[] values = (double[]) data;
+			buffer = ByteBuffer.allocate(values.length * 8);
+			buffer.asDoubleBuffer().put(values);
+
+		} else
+			throw new IOException("Unsupported bulk data type: " + ((data != null) ? data.getClass().getName() : "null"));
+
+		output.writeByte(kind);
+		output.writeInt(buffer.remaining());
+		if (buffer.hasArray())
+			output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		else {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			output.write(bytes);
+		}
+	}
+
+	private static Object readValue(DataInputStream input) throws IOException {
+		byte kind = input.readByte();
+		int length = input.readInt();
+
+		if (kind == KIND_TABLE) {
+			int columns = input.readInt();
+			Map<String, Object> table = new LinkedHashMap<>();
+			for (int index = 0; index < columns; index++) {
+				byte[] name = new byte[input.readInt()];
+				input.readFully(name);
+				table.put(new String(name, StandardCharsets.UTF_8), readValue(input));
+			}
+
+			return table;
+		}
+
+		byte[] payload = new byte[length];
+		input.readFully(payload);
+		ByteBuffer buffer = ByteBuffer.wrap(payload);
+
+		switch (kind) {
+		case KIND_BYTES:
+			return payload;
+
+		case KIND_INT32:
+			int[] ints = new int[length / 4];
+			buffer.asIntBuffer().get(ints);
+			return ints;
+
+		case KIND_INT64:
+			long[] longs = new long[length / 8];
+			buffer.asLongBuffer().get(longs);
+			return longs;
+
+		case KIND_FLOAT32:
+			float[] floats = new float[length / 4];
+			buffer.asFloatBuffer().get(floats);
+			return floats;
+
+		case KIND_FLOAT64:
+			double[] doubles = new double[length / 8];
+			buffer.asDoubleBuffer().get(doubles);
+			return doubles;
+
+		default:
+			throw new IOException("Unknown bulk data kind: " + kind);
+		}
+	}
+}
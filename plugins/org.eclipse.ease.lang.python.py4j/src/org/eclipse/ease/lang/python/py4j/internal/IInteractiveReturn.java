@@ -29,4 +29,12 @@ public interface IInteractiveReturn {
 	 * @return the Java instance of the type, or if Python returned something that cannot be represented as a Java type, return a repr() of the value.
 	 */
 	Object getResult();
+
+	/**
+	 * Get the handle of a result transferred over the {@link BulkDataChannel}. Large arrays, byte buffers and tables are not returned by {@link #getResult()}
+	 * but written to the bulk data channel instead.
+	 *
+	 * @return frame handle or {@link BulkDataChannel#NO_HANDLE}
+	 */
+	int getBulkHandle();
 }
@@ -48,6 +48,32 @@ public interface IPythonSideEngine {
 	 */
 	void internalSetVariable(String name, Object content);
 
+	/**
+	 * Set a variable to data transferred over the {@link BulkDataChannel}.
+	 *
+	 * @param name
+	 *            variable name
+	 * @param handle
+	 *            handle of the frame containing the variable content
+	 */
+	void internalSetBulkVariable(String name, int handle);
+
+	/**
+	 * Replace the bulk data channel of the Python side by a new connection. The previous connection is closed.
+	 *
+	 * @param port
+	 *            local port of the new {@link BulkDataChannel}
+	 * @param token
+	 *            authentication token of the new {@link BulkDataChannel}
+	 */
+	void connectBulkDataChannel(int port, String token);
+
+	/**
+	 * Reset the Python side to a clean state, so the process can be reused by another engine. Clears the namespace, restores <code>sys.path</code> and
+	 * removes modules imported after startup.
+	 */
+	void resetEngine();
+
 	/**
 	 * Tear down the Python side of the engine
 	 */
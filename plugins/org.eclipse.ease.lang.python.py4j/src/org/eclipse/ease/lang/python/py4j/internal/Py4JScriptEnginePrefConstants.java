@@ -16,4 +16,7 @@ public interface Py4JScriptEnginePrefConstants {
 
 	String INTERPRETER = PREFIX + "INTERPRETER";
 	String DEFAULT_INTERPRETER = "python"; //$NON-NLS-1$
+
+	String REUSE_PROCESSES = PREFIX + "REUSE_PROCESSES";
+	boolean DEFAULT_REUSE_PROCESSES = true;
 }
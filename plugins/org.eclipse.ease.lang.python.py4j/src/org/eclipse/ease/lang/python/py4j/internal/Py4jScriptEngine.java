@@ -10,21 +10,11 @@
  *******************************************************************************/
 package org.eclipse.ease.lang.python.py4j.internal;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.MalformedURLException;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
-import org.eclipse.core.runtime.FileLocator;
-import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.ease.AbstractScriptEngine;
 import org.eclipse.ease.Logger;
 import org.eclipse.ease.Script;
@@ -34,10 +24,6 @@ import org.eclipse.ease.lang.python.PythonHelper;
 import org.eclipse.ease.tools.RunnableWithResult;
 import org.eclipse.swt.widgets.Display;
 
-import py4j.ClientServer;
-import py4j.ClientServer.ClientServerBuilder;
-import py4j.JavaServer;
-
 public class Py4jScriptEngine extends AbstractScriptEngine {
 
 	/**
@@ -45,59 +31,14 @@ public class Py4jScriptEngine extends AbstractScriptEngine {
 	 */
 	public static final String ENGINE_ID = "org.eclipse.ease.lang.python.py4j.engine";
 
-	// TODO: Add preference for this
-	private static final int PYTHON_STARTUP_TIMEOUT_SECONDS = 10;
-
-	// TODO: Add preference for this
-	private static final int PYTHON_SHUTDOWN_TIMEOUT_SECONDS = 10;
-
-	/**
-	 * Path within this plug-in to the main python file.
-	 */
-	private static final String PYSRC_EASE_PY4J_MAIN_PY = "/pysrc/ease_py4j_main.py";
-
-	/**
-	 * The ID of the py4j sources plug-in, needs to match the name of the dependent plug-in.
-	 */
-	private static final String PY4J_PYTHON_BUNDLE_ID = "py4j-python";
-
-	private ClientServer fGatewayServer;
+	private volatile PythonWorker fWorker;
 	protected IPythonSideEngine fPythonSideEngine;
-	private Process fPythonProcess;
-	private Thread fInputGobbler, fErrorGobbler;
 
-	private CountDownLatch fPythonStartupComplete;
+	/** Set when the Python process got killed, so the worker must not be reused. */
+	private volatile boolean fDestroyed = false;
 
-	/**
-	 * Standard StreamGobbler.
-	 */
-	private static class StreamGobbler implements Runnable {
-		private final InputStream fReader;
-		private final OutputStream fWriter;
-		private String fStreamName;
-
-		public StreamGobbler(InputStream stream, OutputStream output, String streamName) {
-			fReader = stream;
-			fWriter = output;
-			fStreamName = streamName;
-		}
-
-		public void run() {
-			try {
-				byte[] bytes = new byte[512];
-				int readCount;
-				while ((readCount = fReader.read(bytes)) >= 0) {
-					try {
-						fWriter.write(bytes, 0, readCount);
-					} catch (IOException e) {
-						Logger.error(Activator.PLUGIN_ID, "Failed to write data read from Python's " + fStreamName + " stream.", e);
-					}
-				}
-			} catch (IOException e) {
-				Logger.error(Activator.PLUGIN_ID, "Failed to read data from Python's " + fStreamName + " stream.", e);
-			}
-		}
-	}
+	/** Set when the worker was leased from the {@link PythonWorkerPool} and needs to be returned there. */
+	private boolean fPooledWorker = false;
 
 	public Py4jScriptEngine() {
 		super("Python");
@@ -105,78 +46,21 @@ public class Py4jScriptEngine extends AbstractScriptEngine {
 
 	@Override
 	protected void setupEngine() throws ScriptEngineException {
-		try {
-			fPythonStartupComplete = new CountDownLatch(1);
-			fGatewayServer = new ClientServerBuilder(this).javaPort(0).pythonPort(0).build();
-			fGatewayServer.startServer(true);
-			int javaListeningPort = ((JavaServer) fGatewayServer.getJavaServer()).getListeningPort();
-
-			fPythonProcess = startPythonProcess(javaListeningPort);
-			fInputGobbler = new Thread(new StreamGobbler(fPythonProcess.getInputStream(), getOutputStream(), "stdout"),
-					"EASE py4j engine output stream gobbler");
-			fInputGobbler.start();
-			fErrorGobbler = new Thread(new StreamGobbler(fPythonProcess.getErrorStream(), getErrorStream(), "stderr"), "EASE py4j engine error stream gobbler");
-			fErrorGobbler.start();
-
-			// TODO Handle python's stdin (fPythonProcess.getOutputStream())
-
-			if (!fPythonStartupComplete.await(PYTHON_STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-				throw new ScriptEngineException("Python process did not start within " + PYTHON_STARTUP_TIMEOUT_SECONDS + " seconds");
-			}
-		} catch (ScriptEngineException e) {
-			teardownEngine();
-			throw e;
-		} catch (Exception e) {
-			teardownEngine();
-			throw new ScriptEngineException(e);
-		}
-	}
-
-	private Process startPythonProcess(int javaListeningPort) throws IOException, MalformedURLException, URISyntaxException {
-		ProcessBuilder pb = new ProcessBuilder();
-
-		String pythonPathBefore = pb.environment().get("PYTHONPATH");
-		StringBuilder pythonPath = new StringBuilder(pythonPathBefore == null ? "" : pythonPathBefore);
-		if (pythonPath.length() != 0) {
-			pythonPath.insert(0, File.pathSeparatorChar);
-		}
-		pythonPath.insert(0, getPy4jPythonSrc());
-		pb.environment().put("PYTHONPATH", pythonPath.toString());
 		String interpreter = Activator.getDefault().getPreferenceStore().getString(Py4JScriptEnginePrefConstants.INTERPRETER);
-		pb.command().add(interpreter);
-		pb.command().add("-u");
-		pb.command().add(getPy4jEaseMainPy().toString());
-		pb.command().add(Integer.toString(javaListeningPort));
-
-		Process start = pb.start();
-		return start;
-	}
-
-	private File getPy4jPythonSrc() throws IOException {
-		File py4jPythonBundleFile = FileLocator.getBundleFile(Platform.getBundle(PY4J_PYTHON_BUNDLE_ID));
-		File py4jPythonSrc = new File(py4jPythonBundleFile, "/src");
-		File py4j = new File(py4jPythonSrc, "py4j");
-		if (!py4j.exists() || !py4j.isDirectory()) {
-			throw new IOException("Failed to find py4j python directory, expected it here: " + py4j);
-		}
-		return py4jPythonSrc;
-	}
-
-	private File getPy4jEaseMainPy() throws MalformedURLException, IOException, URISyntaxException {
-		URL url = new URL("platform:/plugin/" + Activator.PLUGIN_ID + PYSRC_EASE_PY4J_MAIN_PY);
-		URL fileURL = FileLocator.toFileURL(url);
-		File py4jEaseMain = new File(URIUtil.toURI(fileURL));
-		if (!py4jEaseMain.exists()) {
-			throw new IOException("Failed to find " + PYSRC_EASE_PY4J_MAIN_PY + ", expected it here: " + py4jEaseMain);
+		// the preference may change while the engine runs, remember how the worker was obtained
+		boolean pooledWorker = Activator.getDefault().getPreferenceStore().getBoolean(Py4JScriptEnginePrefConstants.REUSE_PROCESSES);
+		PythonWorker worker;
+		if (pooledWorker) {
+			worker = PythonWorkerPool.getInstance().lease(interpreter);
+		} else {
+			worker = new PythonWorker(interpreter);
+			worker.start();
 		}
-		return py4jEaseMain;
-	}
 
-	public void pythonStartupComplete(int pythonPort, IPythonSideEngine pythonSideEngine) {
-		JavaServer javaServer = (JavaServer) fGatewayServer.getJavaServer();
-		javaServer.resetCallbackClient(javaServer.getCallbackClient().getAddress(), pythonPort);
-		this.fPythonSideEngine = pythonSideEngine;
-		fPythonStartupComplete.countDown();
+		worker.setOwner(this);
+		fPythonSideEngine = worker.getPythonSideEngine();
+		fPooledWorker = pooledWorker;
+		fWorker = worker;
 	}
 
 	@Override
@@ -212,6 +96,22 @@ public class Py4jScriptEngine extends AbstractScriptEngine {
 			throw (Throwable) exception;
 		} else if (exception != null) {
 			throw new ScriptExecutionException(exception.toString(), 0, null, null, Collections.emptyList(), null);
+		}
+
+		// every call is a round trip to the Python side
+		int bulkHandle = interactiveReturn.getBulkHandle();
+		if (bulkHandle != BulkDataChannel.NO_HANDLE) {
+			BulkDataChannel channel = fWorker.getBulkDataChannel();
+			if (channel == null)
+				throw new IOException("Bulk data channel not available");
+
+			try {
+				return channel.read(bulkHandle);
+			} catch (IOException e) {
+				if (channel.isClosed())
+					fWorker.recreateBulkDataChannel();
+				throw e;
+			}
 		} else {
 			return interactiveReturn.getResult();
 		}
@@ -225,55 +125,32 @@ public class Py4jScriptEngine extends AbstractScriptEngine {
 		// to cleanup.
 		// XXX: This is an issue solved by PyDev, resolving it here fully is not
 		// the logical course of action.
-		if (fPythonProcess != null) {
-			fPythonProcess.destroyForcibly();
+		fDestroyed = true;
+		PythonWorker worker = fWorker;
+		if (worker != null) {
+			worker.destroy();
 		}
 	}
 
 	@Override
 	protected void teardownEngine() throws ScriptEngineException {
-		// TODO: this clean shutdown isn't working as intended.
-		// Sometimes (on Linux) the Python process seems to shutdown
-		// before fully acknowledging the call to teardownEngine, leaving
-		// us in a worst state than if we shutdown not-cleanly.
-		// When/if this is resurrected, the fPythonProcess.destroy();
-		// below should be removed.
-		// if (fPythonSideEngine != null) {
-		// // try a clean shutdown
-		// fPythonSideEngine.teardownEngine();
-		// }
-
-		if (fPythonProcess != null) {
-			fPythonProcess.destroy();
-
-			try {
-				fPythonProcess.waitFor(PYTHON_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-			} catch (InterruptedException e) {
-				// finish the teardown, but don't wait around
-				Thread.currentThread().interrupt();
+		if (fWorker != null) {
+			if (fPooledWorker && !fDestroyed) {
+				PythonWorkerPool.getInstance().release(fWorker);
+			} else {
+				fWorker.shutdown();
+				fWorker.setOwner(null);
 			}
-		}
 
-		if (fGatewayServer != null) {
-			fGatewayServer.shutdown();
-		}
-		if (fPythonProcess != null) {
-			// The clean shutdown had a chance, now time for a force shutdown
-			fPythonProcess.destroyForcibly();
+			fWorker = null;
+			fPythonSideEngine = null;
 		}
+	}
 
-		try {
-			// Wait until the gobblers have shovelled all their
-			// inputs before allowing the engine to considered terminated
-			if (fInputGobbler != null) {
-				fInputGobbler.join();
-			}
-			if (fErrorGobbler != null) {
-				fErrorGobbler.join();
-			}
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-		}
+	@Override
+	protected boolean resetEngine() throws ScriptEngineException {
+		fPythonSideEngine.resetEngine();
+		return true;
 	}
 
 	@Override
@@ -303,6 +180,17 @@ public class Py4jScriptEngine extends AbstractScriptEngine {
 
 	@Override
 	protected void internalSetVariable(String name, Object content) {
+		BulkDataChannel channel = fWorker.getBulkDataChannel();
+		if ((channel != null) && (BulkDataChannel.isSupported(content))) {
+			try {
+				fPythonSideEngine.internalSetBulkVariable(name, channel.write(content));
+				return;
+			} catch (IOException e) {
+				Logger.warning(Activator.PLUGIN_ID, "Failed to transfer variable \"" + name + "\" using bulk data channel", e);
+				fWorker.recreateBulkDataChannel();
+			}
+		}
+
 		fPythonSideEngine.internalSetVariable(name, content);
 	}
 
@@ -314,8 +202,9 @@ public class Py4jScriptEngine extends AbstractScriptEngine {
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T getAdapter(Class<T> adapter) {
-		if (adapter.isInstance(fPythonProcess)) {
-			return (T) fPythonProcess;
+		PythonWorker worker = fWorker;
+		if ((worker != null) && adapter.isInstance(worker.getProcess())) {
+			return (T) worker.getProcess();
 		}
 		return super.getAdapter(adapter);
 	}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Kichwa Coders and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Jonah Graham (Kichwa Coders) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.py4j.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.URIUtil;
+import org.eclipse.ease.IScriptEngine;
+import org.eclipse.ease.Logger;
+import org.eclipse.ease.ScriptEngineException;
+
+import py4j.ClientServer;
+import py4j.ClientServer.ClientServerBuilder;
+import py4j.JavaServer;
+
+/**
+ * A Python process connected through py4j. Workers may be reused by multiple {@link Py4jScriptEngine} instances, see {@link PythonWorkerPool}. Output of the
+ * Python process is forwarded to the streams of the engine currently owning the worker.
+ */
+public class PythonWorker {
+
+	// TODO: Add preference for this
+	private static final int PYTHON_STARTUP_TIMEOUT_SECONDS = 10;
+
+	// TODO: Add preference for this
+	private static final int PYTHON_SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	/**
+	 * Path within this plug-in to the main python file.
+	 */
+	private static final String PYSRC_EASE_PY4J_MAIN_PY = "/pysrc/ease_py4j_main.py";
+
+	/**
+	 * The ID of the py4j sources plug-in, needs to match the name of the dependent plug-in.
+	 */
+	private static final String PY4J_PYTHON_BUNDLE_ID = "py4j-python";
+
+	/**
+	 * StreamGobbler forwarding to the streams of the current owner.
+	 */
+	private class StreamGobbler implements Runnable {
+		private final InputStream fReader;
+		private final boolean fErrorStream;
+		private String fStreamName;
+
+		public StreamGobbler(InputStream stream, boolean errorStream, String streamName) {
+			fReader = stream;
+			fErrorStream = errorStream;
+			fStreamName = streamName;
+		}
+
+		public void run() {
+			try {
+				byte[] bytes = new byte[512];
+				int readCount;
+				while ((readCount = fReader.read(bytes)) >= 0) {
+					try {
+						getOutput(fErrorStream).write(bytes, 0, readCount);
+					} catch (IOException e) {
+						Logger.error(Activator.PLUGIN_ID, "Failed to write data read from Python's " + fStreamName + " stream.", e);
+					}
+				}
+			} catch (IOException e) {
+				Logger.error(Activator.PLUGIN_ID, "Failed to read data from Python's " + fStreamName + " stream.", e);
+			}
+		}
+	}
+
+	private final String fInterpreter;
+
+	private ClientServer fGatewayServer;
+	private volatile BulkDataChannel fBulkDataChannel;
+	private IPythonSideEngine fPythonSideEngine;
+	private Process fPythonProcess;
+	private Thread fInputGobbler, fErrorGobbler;
+
+	private CountDownLatch fPythonStartupComplete;
+
+	/** Engine receiving output of the Python process. */
+	private volatile IScriptEngine fOwner;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param interpreter
+	 *            Python interpreter to launch
+	 */
+	public PythonWorker(String interpreter) {
+		fInterpreter = interpreter;
+	}
+
+	/**
+	 * Start the Python process and wait until it is connected.
+	 *
+	 * @throws ScriptEngineException
+	 *             when the Python process could not be started
+	 */
+	public void start() throws ScriptEngineException {
+		try {
+			fPythonStartupComplete = new CountDownLatch(1);
+			fGatewayServer = new ClientServerBuilder(this).javaPort(0).pythonPort(0).build();
+			fGatewayServer.startServer(true);
+			int javaListeningPort = ((JavaServer) fGatewayServer.getJavaServer()).getListeningPort();
+			fBulkDataChannel = new BulkDataChannel();
+
+			fPythonProcess = startPythonProcess(javaListeningPort, fBulkDataChannel);
+			fInputGobbler = new Thread(new StreamGobbler(fPythonProcess.getInputStream(), false, "stdout"), "EASE py4j engine output stream gobbler");
+			fInputGobbler.start();
+			fErrorGobbler = new Thread(new StreamGobbler(fPythonProcess.getErrorStream(), true, "stderr"), "EASE py4j engine error stream gobbler");
+			fErrorGobbler.start();
+
+			// TODO Handle python's stdin (fPythonProcess.getOutputStream())
+
+			if (!fPythonStartupComplete.await(PYTHON_STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new ScriptEngineException("Python process did not start within " + PYTHON_STARTUP_TIMEOUT_SECONDS + " seconds");
+			}
+
+			// Python connects the bulk data channel before reporting startup complete
+			fBulkDataChannel.accept(PYTHON_STARTUP_TIMEOUT_SECONDS * 1000);
+		} catch (ScriptEngineException e) {
+			shutdown();
+			throw e;
+		} catch (Exception e) {
+			shutdown();
+			throw new ScriptEngineException(e);
+		}
+	}
+
+	private Process startPythonProcess(int javaListeningPort, BulkDataChannel bulkDataChannel) throws IOException, MalformedURLException, URISyntaxException {
+		ProcessBuilder pb = new ProcessBuilder();
+
+		String pythonPathBefore = pb.environment().get("PYTHONPATH");
+		StringBuilder pythonPath = new StringBuilder(pythonPathBefore == null ? "" : pythonPathBefore);
+		if (pythonPath.length() != 0) {
+			pythonPath.insert(0, File.pathSeparatorChar);
+		}
+		pythonPath.insert(0, getPy4jPythonSrc());
+		pb.environment().put("PYTHONPATH", pythonPath.toString());
+		// passed in the environment as the command line is visible to other users
+		pb.environment().put("EASE_BULK_DATA_TOKEN", bulkDataChannel.getToken());
+		pb.command().add(fInterpreter);
+		pb.command().add("-u");
+		pb.command().add(getPy4jEaseMainPy().toString());
+		pb.command().add(Integer.toString(javaListeningPort));
+		pb.command().add(Integer.toString(bulkDataChannel.getPort()));
+
+		Process start = pb.start();
+		return start;
+	}
+
+	private File getPy4jPythonSrc() throws IOException {
+		File py4jPythonBundleFile = FileLocator.getBundleFile(Platform.getBundle(PY4J_PYTHON_BUNDLE_ID));
+		File py4jPythonSrc = new File(py4jPythonBundleFile, "/src");
+		File py4j = new File(py4jPythonSrc, "py4j");
+		if (!py4j.exists() || !py4j.isDirectory()) {
+			throw new IOException("Failed to find py4j python directory, expected it here: " + py4j);
+		}
+		return py4jPythonSrc;
+	}
+
+	private File getPy4jEaseMainPy() throws MalformedURLException, IOException, URISyntaxException {
+		URL url = new URL("platform:/plugin/" + Activator.PLUGIN_ID + PYSRC_EASE_PY4J_MAIN_PY);
+		URL fileURL = FileLocator.toFileURL(url);
+		File py4jEaseMain = new File(URIUtil.toURI(fileURL));
+		if (!py4jEaseMain.exists()) {
+			throw new IOException("Failed to find " + PYSRC_EASE_PY4J_MAIN_PY + ", expected it here: " + py4jEaseMain);
+		}
+		return py4jEaseMain;
+	}
+
+	/**
+	 * Called from the Python side once it is up and running.
+	 */
+	public void pythonStartupComplete(int pythonPort, IPythonSideEngine pythonSideEngine) {
+		JavaServer javaServer = (JavaServer) fGatewayServer.getJavaServer();
+		javaServer.resetCallbackClient(javaServer.getCallbackClient().getAddress(), pythonPort);
+		this.fPythonSideEngine = pythonSideEngine;
+		fPythonStartupComplete.countDown();
+	}
+
+	/**
+	 * Set the engine receiving output of the Python process. When no owner is set, output is forwarded to {@link System#out} and {@link System#err}.
+	 *
+	 * @param owner
+	 *            engine owning this worker or <code>null</code>
+	 */
+	public void setOwner(IScriptEngine owner) {
+		fOwner = owner;
+	}
+
+	private OutputStream getOutput(boolean errorStream) {
+		IScriptEngine owner = fOwner;
+		if (owner != null)
+			return errorStream ? owner.getErrorStream() : owner.getOutputStream();
+
+		return errorStream ? System.err : System.out;
+	}
+
+	public String getInterpreter() {
+		return fInterpreter;
+	}
+
+	public IPythonSideEngine getPythonSideEngine() {
+		return fPythonSideEngine;
+	}
+
+	/**
+	 * Get the channel for bulk data transfers.
+	 *
+	 * @return bulk data channel or <code>null</code> when it could not be recreated after a failed transfer
+	 */
+	public BulkDataChannel getBulkDataChannel() {
+		return fBulkDataChannel;
+	}
+
+	/**
+	 * Replace the bulk data channel by a new connection. Needs to be called after a failed transfer as the connection might contain partial frames. When the
+	 * new connection cannot be established, {@link #getBulkDataChannel()} returns <code>null</code> and data needs to be passed through py4j.
+	 */
+	public synchronized void recreateBulkDataChannel() {
+		BulkDataChannel oldChannel = fBulkDataChannel;
+		fBulkDataChannel = null;
+		if (oldChannel != null) {
+			try {
+				oldChannel.close();
+			} catch (IOException e) {
+				// ignore, channel is replaced anyway
+			}
+		}
+
+		BulkDataChannel channel = null;
+		try {
+			channel = new BulkDataChannel();
+			fPythonSideEngine.connectBulkDataChannel(channel.getPort(), channel.getToken());
+			channel.accept(PYTHON_STARTUP_TIMEOUT_SECONDS * 1000);
+			fBulkDataChannel = channel;
+
+		} catch (IOException | RuntimeException e) {
+			Logger.warning(Activator.PLUGIN_ID, "Failed to recreate bulk data channel", e);
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e1) {
+					// ignore, channel was not used
+				}
+			}
+		}
+	}
+
+	public Process getProcess() {
+		return fPythonProcess;
+	}
+
+	/**
+	 * Check whether the Python process is still running.
+	 *
+	 * @return <code>true</code> when the worker can be used
+	 */
+	public boolean isAlive() {
+		return (fPythonProcess != null) && (fPythonProcess.isAlive()) && (fPythonSideEngine != null);
+	}
+
+	/**
+	 * Forcibly terminate the Python process.
+	 */
+	public void destroy() {
+		if (fPythonProcess != null) {
+			fPythonProcess.destroyForcibly();
+		}
+	}
+
+	/**
+	 * Terminate the Python process and release all resources.
+	 */
+	public void shutdown() {
+		// TODO: this clean shutdown isn't working as intended.
+		// Sometimes (on Linux) the Python process seems to shutdown
+		// before fully acknowledging the call to teardownEngine, leaving
+		// us in a worst state than if we shutdown not-cleanly.
+		// When/if this is resurrected, the fPythonProcess.destroy();
+		// below should be removed.
+		// if (fPythonSideEngine != null) {
+		// // try a clean shutdown
+		// fPythonSideEngine.teardownEngine();
+		// }
+
+		if (fPythonProcess != null) {
+			fPythonProcess.destroy();
+
+			try {
+				fPythonProcess.waitFor(PYTHON_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// finish the teardown, but don't wait around
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (fGatewayServer != null) {
+			fGatewayServer.shutdown();
+		}
+		BulkDataChannel bulkDataChannel = fBulkDataChannel;
+		if (bulkDataChannel != null) {
+			try {
+				bulkDataChannel.close();
+			} catch (IOException e) {
+				// ignore, we are shutting down anyway
+			}
+		}
+		if (fPythonProcess != null) {
+			// The clean shutdown had a chance, now time for a force shutdown
+			fPythonProcess.destroyForcibly();
+		}
+
+		try {
+			// Wait until the gobblers have shovelled all their
+			// inputs before allowing the engine to considered terminated
+			if (fInputGobbler != null) {
+				fInputGobbler.join();
+			}
+			if (fErrorGobbler != null) {
+				fErrorGobbler.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Kichwa Coders and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Jonah Graham (Kichwa Coders) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.py4j.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.eclipse.ease.Logger;
+import org.eclipse.ease.ScriptEngineException;
+
+/**
+ * Pool of long-lived Python worker processes. Starting Python and importing py4j is expensive, so released workers get a clean namespace and are kept for
+ * the next engine instead of being terminated.
+ */
+public class PythonWorkerPool {
+
+	/** Maximum amount of idle workers kept running. */
+	public static final int MAX_IDLE_WORKERS = 2;
+
+	private static PythonWorkerPool fInstance = null;
+
+	public static synchronized PythonWorkerPool getInstance() {
+		if (fInstance == null)
+			fInstance = new PythonWorkerPool();
+
+		return fInstance;
+	}
+
+	/** Idle workers, the most recently released worker is stored first. */
+	private final LinkedList<PythonWorker> fIdleWorkers = new LinkedList<>();
+
+	private boolean fDisposed = false;
+
+	/**
+	 * Lease a worker for a dedicated interpreter. Reuses an idle worker if available, otherwise a new Python process is started.
+	 *
+	 * @param interpreter
+	 *            Python interpreter to use
+	 * @return running worker
+	 * @throws ScriptEngineException
+	 *             when a new worker could not be started
+	 */
+	public PythonWorker lease(String interpreter) throws ScriptEngineException {
+		List<PythonWorker> deadWorkers = new ArrayList<>();
+		PythonWorker worker = null;
+
+		synchronized (this) {
+			Iterator<PythonWorker> iterator = fIdleWorkers.iterator();
+			while (iterator.hasNext()) {
+				PythonWorker candidate = iterator.next();
+				if (!candidate.isAlive()) {
+					iterator.remove();
+					deadWorkers.add(candidate);
+
+				} else if (candidate.getInterpreter().equals(interpreter)) {
+					iterator.remove();
+					worker = candidate;
+					break;
+				}
+			}
+		}
+
+		for (PythonWorker deadWorker : deadWorkers)
+			deadWorker.shutdown();
+
+		if (worker == null) {
+			worker = new PythonWorker(interpreter);
+			worker.start();
+		}
+
+		return worker;
+	}
+
+	/**
+	 * Return a worker to the pool. Globals, <code>sys.path</code> and modules imported by scripts get reset, so the next lease gets a clean environment.
+	 * Workers that cannot be reset or exceed {@link #MAX_IDLE_WORKERS} are terminated.
+	 *
+	 * @param worker
+	 *            worker to return
+	 */
+	public void release(PythonWorker worker) {
+		worker.setOwner(null);
+
+		boolean pooled = false;
+		if (worker.isAlive()) {
+			try {
+				worker.getPythonSideEngine().resetEngine();
+
+				synchronized (this) {
+					if ((!fDisposed) && (fIdleWorkers.size() < MAX_IDLE_WORKERS)) {
+						fIdleWorkers.addFirst(worker);
+						pooled = true;
+					}
+				}
+			} catch (Exception e) {
+				Logger.warning(Activator.PLUGIN_ID, "Failed to reset Python worker, terminating process", e);
+			}
+		}
+
+		if (!pooled)
+			worker.shutdown();
+	}
+
+	/**
+	 * Terminate all idle workers. Workers released afterwards are terminated immediately.
+	 */
+	public void dispose() {
+		List<PythonWorker> idleWorkers;
+		synchronized (this) {
+			fDisposed = true;
+			idleWorkers = new ArrayList<>(fIdleWorkers);
+			fIdleWorkers.clear();
+		}
+
+		for (PythonWorker worker : idleWorkers)
+			worker.shutdown();
+	}
+}
@@ -20,6 +20,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 	@Override
 	public void initializeDefaultPreferences() {
 		Activator.getDefault().getPreferenceStore().setDefault(Py4JScriptEnginePrefConstants.INTERPRETER, Py4JScriptEnginePrefConstants.DEFAULT_INTERPRETER);
+		Activator.getDefault().getPreferenceStore().setDefault(Py4JScriptEnginePrefConstants.REUSE_PROCESSES,
+				Py4JScriptEnginePrefConstants.DEFAULT_REUSE_PROCESSES);
 	}
 
 }
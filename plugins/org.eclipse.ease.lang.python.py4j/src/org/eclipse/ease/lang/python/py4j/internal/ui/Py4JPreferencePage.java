@@ -16,6 +16,7 @@ import java.io.File;
 import org.eclipse.ease.lang.python.py4j.internal.Activator;
 import org.eclipse.ease.lang.python.py4j.internal.Py4JScriptEnginePrefConstants;
 import org.eclipse.jface.dialogs.IMessageProvider;
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.FileFieldEditor;
 import org.eclipse.ui.IWorkbench;
@@ -85,6 +86,8 @@ public class Py4JPreferencePage extends FieldEditorPreferencePage implements IWo
 			}
 		});
 
+		addField(new BooleanFieldEditor(Py4JScriptEnginePrefConstants.REUSE_PROCESSES, "Reuse Python processes between script engines",
+				getFieldEditorParent()));
 	}
 
 }
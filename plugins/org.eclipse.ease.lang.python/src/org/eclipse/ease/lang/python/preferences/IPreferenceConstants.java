@@ -16,4 +16,7 @@ public interface IPreferenceConstants {
 
 	public static final String PYTHON_LIBRARIES = "org.eclipse.eclipsemonkey.lang.python";
 
+	/** Keep folders of executed scripts on the python path instead of removing them after execution. */
+	public static final String PYTHON_KEEP_SCRIPT_FOLDERS = "org.eclipse.ease.lang.python.keepScriptFolders";
+
 }
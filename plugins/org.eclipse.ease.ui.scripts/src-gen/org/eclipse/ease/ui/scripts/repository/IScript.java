@@ -187,4 +187,16 @@ public interface IScript extends IRawLocation {
 	 */
 	IScriptEngine prepareEngine();
 
+	/**
+	 * Run script with predefined variables on a pre-started engine taken from the engine pool. Falls back to a dedicated engine when pooling is disabled or not
+	 * supported by the script engine. Pooled engines are reused after execution, so callers must not wait for the returned engine to terminate.
+	 *
+	 * @param variables
+	 *            variables to set before the script is executed
+	 * @return script engine
+	 *
+	 * @generated NOT
+	 */
+	IScriptEngine runPooled(Map<String, Object> variables);
+
 } // IScript
@@ -11,21 +11,24 @@
 package org.eclipse.ease.ui.scripts.repository.impl;
 
 import java.io.File;
+import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URLDecoder;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-
+import java.util.Map.Entry;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.ease.AbstractScriptEngine;
 import org.eclipse.ease.Activator;
 import org.eclipse.ease.IScriptEngine;
 import org.eclipse.ease.Logger;
 import org.eclipse.ease.service.EngineDescription;
+import org.eclipse.ease.service.EnginePool;
 import org.eclipse.ease.service.IScriptService;
 import org.eclipse.ease.service.ScriptType;
 import org.eclipse.ease.ui.console.ScriptConsole;
@@ -458,37 +461,105 @@ public class ScriptImpl extends RawLocationImpl implements IScript {
 		if (engineDescription != null) {
 			IScriptEngine engine = engineDescription.createEngine();
 
-			// create console
-			final ScriptConsole console = ScriptConsole.create(engine.getName() + ": " + getPath(), engine);
-			engine.setOutputStream(console.getOutputStream());
-			engine.setErrorStream(console.getErrorStream());
-			engine.setInputStream(console.getInputStream());
+			if (configureEngine(engine, false)) {
+				engine.executeAsync(getExecutionContent());
+				return engine;
+			}
 
-			// check for remote scripts
-			if (isRemote()) {
-				// verify that remote access is allowed
-				final Preferences prefs = InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID).node(Activator.PREFERENCES_NODE_SCRIPTS);
-				final boolean allowRemoteAccess = prefs.getBoolean(IPreferenceConstants.SCRIPTS_ALLOW_REMOTE_ACCESS,
-						IPreferenceConstants.DEFAULT_SCRIPTS_ALLOW_REMOTE_ACCESS);
+		} else
+			Logger.error(org.eclipse.ease.ui.scripts.Activator.PLUGIN_ID, "Could not detect script engine for " + this);
 
-				if (!allowRemoteAccess) {
-					engine.getErrorStream().println("Remote script source detected. Access is disabled in preferences.");
-					return null;
+		return null;
+	}
+
+	@Override
+	public IScriptEngine runPooled(final Map<String, Object> variables) {
+		final Preferences prefs = InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID).node(Activator.PREFERENCES_NODE_SCRIPTS);
+		if (prefs.getBoolean(Activator.SCRIPTS_POOL_ENGINES, Activator.DEFAULT_SCRIPTS_POOL_ENGINES)) {
+			EngineDescription engineDescription = getEngineDescription();
+			if (engineDescription != null) {
+				final IScriptService scriptService = PlatformUI.getWorkbench().getService(IScriptService.class);
+				final EnginePool pool = scriptService.getEnginePool(engineDescription.getID());
+				final AbstractScriptEngine engine = (pool != null) ? pool.acquire() : null;
+
+				if (engine != null) {
+					if (configureEngine(engine, true)) {
+						// engine is already running, therefore variables need to be set from within the engine thread
+						engine.setVariablesAsync(variables);
+						engine.executeAsync(getExecutionContent());
+					}
+
+					// engine gets reset once the script is done
+					pool.release(engine);
+					return engine;
 				}
 			}
+		}
 
-			Object executionContent = getResource();
-			if (executionContent == null)
-				executionContent = getInputStream();
+		// no pooled engine available
+		IScriptEngine engine = prepareEngine();
+		if (engine != null) {
+			for (Entry<String, Object> entry : variables.entrySet())
+				engine.setVariable(entry.getKey(), entry.getValue());
 
-			engine.executeAsync(executionContent);
+			engine.schedule();
+		}
 
-			return engine;
+		return engine;
+	}
 
-		} else
-			Logger.error(org.eclipse.ease.ui.scripts.Activator.PLUGIN_ID, "Could not detect script engine for " + this);
+	/**
+	 * Attach a console to the engine and verify that the script may be executed.
+	 *
+	 * @param engine
+	 *            engine to configure
+	 * @param running
+	 *            <code>true</code> for pooled engines that are already running, streams are then replaced from within the engine thread
+	 * @return <code>true</code> when the script may be executed
+	 *
+	 * @generated NOT
+	 */
+	private boolean configureEngine(final IScriptEngine engine, final boolean running) {
+		// create console
+		final ScriptConsole console = ScriptConsole.create(engine.getName() + ": " + getPath(), engine);
+		if (running)
+			((AbstractScriptEngine) engine).setStreamsAsync(console.getOutputStream(), console.getErrorStream(), console.getInputStream());
 
-		return null;
+		else {
+			engine.setOutputStream(console.getOutputStream());
+			engine.setErrorStream(console.getErrorStream());
+			engine.setInputStream(console.getInputStream());
+		}
+
+		// check for remote scripts
+		if (isRemote()) {
+			// verify that remote access is allowed
+			final Preferences prefs = InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID).node(Activator.PREFERENCES_NODE_SCRIPTS);
+			final boolean allowRemoteAccess = prefs.getBoolean(IPreferenceConstants.SCRIPTS_ALLOW_REMOTE_ACCESS,
+					IPreferenceConstants.DEFAULT_SCRIPTS_ALLOW_REMOTE_ACCESS);
+
+			if (!allowRemoteAccess) {
+				new PrintStream(console.getErrorStream(), true).println("Remote script source detected. Access is disabled in preferences.");
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get the content to be executed by a script engine.
+	 *
+	 * @return resource or input stream of this script
+	 *
+	 * @generated NOT
+	 */
+	private Object getExecutionContent() {
+		Object executionContent = getResource();
+		if (executionContent == null)
+			executionContent = getInputStream();
+
+		return executionContent;
 	}
 
 	@Override
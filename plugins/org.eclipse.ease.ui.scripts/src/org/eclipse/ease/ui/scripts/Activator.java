@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.ease.ui.scripts;
 
+import org.eclipse.ease.ui.scripts.repository.impl.RepositoryService;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -33,6 +34,8 @@ public class Activator extends AbstractUIPlugin {
 
 	@Override
 	public void stop(final BundleContext context) throws Exception {
+		RepositoryService.shutdown();
+
 		fInstance = null;
 
 		super.stop(context);
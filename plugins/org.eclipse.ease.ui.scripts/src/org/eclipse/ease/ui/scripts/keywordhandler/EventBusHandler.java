@@ -1,10 +1,10 @@
 package org.eclipse.ease.ui.scripts.keywordhandler;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.e4.core.services.events.IEventBroker;
-import org.eclipse.ease.IScriptEngine;
 import org.eclipse.ease.ui.scripts.repository.IScript;
 import org.eclipse.ui.PlatformUI;
 import org.osgi.service.event.Event;
@@ -22,11 +22,7 @@ public class EventBusHandler implements EventHandler {
 
 		@Override
 		public void handleEvent(final Event event) {
-			IScriptEngine engine = fScript.prepareEngine();
-			if (engine != null) {
-				engine.setVariable("event", event);
-				engine.schedule();
-			}
+			fScript.runPooled(Collections.<String, Object> singletonMap("event", event));
 		}
 	}
 
@@ -13,6 +13,7 @@ package org.eclipse.ease.ui.scripts.keywordhandler;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -96,7 +97,7 @@ public class ResourceChangeHandler implements EventHandler, IResourceChangeListe
 							if (Pattern.matches(entry.getKey(), location)) {
 								// execute registered scripts
 								for (IScript script : entry.getValue())
-									script.run(location, getKind(delta.getKind()));
+									script.runPooled(Collections.<String, Object> singletonMap("argv", new String[] { location, getKind(delta.getKind()) }));
 							}
 						}
 					}
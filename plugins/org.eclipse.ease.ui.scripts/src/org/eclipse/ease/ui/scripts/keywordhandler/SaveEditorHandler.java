@@ -13,6 +13,7 @@ package org.eclipse.ease.ui.scripts.keywordhandler;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -121,7 +122,7 @@ public class SaveEditorHandler implements EventHandler, IPartListener, IProperty
 							if (Pattern.matches(entry.getKey(), location)) {
 								// execute registered scripts
 								for (IScript script : entry.getValue())
-									script.run(location);
+									script.runPooled(Collections.<String, Object> singletonMap("argv", new String[] { location }));
 							}
 						}
 					}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.ui.scripts.repository.impl;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ease.Logger;
+import org.eclipse.ease.ui.scripts.Activator;
+import org.eclipse.ease.ui.scripts.repository.IScriptLocation;
+
+/**
+ * Watches file system script locations for changes. Changed files are passed to the {@link UpdateRepositoryJob}, so file system locations do not need to be
+ * traversed periodically.
+ */
+public class FileSystemWatcher implements Runnable {
+
+	/** Time in milliseconds to wait for further events before changes get reported. */
+	private static final long SETTLE_TIME = 100;
+
+	/** Maximum time in milliseconds to collect events before changes get reported. */
+	private static final long MAX_COLLECT_TIME = 500;
+
+	/**
+	 * Folder registered with the watch service.
+	 */
+	private static class WatchedFolder {
+
+		private final IScriptLocation fLocation;
+		private final Path fFolder;
+
+		public WatchedFolder(final IScriptLocation location, final Path folder) {
+			fLocation = location;
+			fFolder = folder;
+		}
+	}
+
+	private final UpdateRepositoryJob fUpdateJob;
+
+	private WatchService fWatchService = null;
+
+	private Thread fThread = null;
+
+	/** Registered folders. Guarded by this. */
+	private final Map<WatchKey, WatchedFolder> fWatchedFolders = new HashMap<WatchKey, WatchedFolder>();
+
+	/** Root folders of locations currently watched. Guarded by this. */
+	private final Map<IScriptLocation, Path> fWatchedLocations = new HashMap<IScriptLocation, Path>();
+
+	public FileSystemWatcher(final UpdateRepositoryJob updateJob) {
+		fUpdateJob = updateJob;
+	}
+
+	/**
+	 * Start watching a file system location. Already watched locations are not registered again.
+	 *
+	 * @param location
+	 *            script location
+	 * @param root
+	 *            root folder of the location
+	 * @return <code>true</code> when the location is watched, <code>false</code> when it needs to be traversed periodically
+	 */
+	public synchronized boolean watch(final IScriptLocation location, final File root) {
+		if (fWatchedLocations.containsKey(location))
+			return true;
+
+		if (!root.isDirectory())
+			return false;
+
+		try {
+			if (fWatchService == null) {
+				fWatchService = FileSystems.getDefault().newWatchService();
+
+				fThread = new Thread(this, "Script location watcher");
+				fThread.setDaemon(true);
+				fThread.start();
+			}
+
+			register(location, root.toPath());
+			fWatchedLocations.put(location, root.toPath());
+
+			return true;
+
+		} catch (final IOException e) {
+			Logger.warning(Activator.PLUGIN_ID, "Cannot watch script location " + location.getLocation() + ", falling back to polling", e);
+			unwatch(location);
+		} catch (final UnsupportedOperationException e) {
+			// file system does not support watching
+		}
+
+		return false;
+	}
+
+	/**
+	 * Stop watching a location.
+	 *
+	 * @param location
+	 *            script location
+	 */
+	public synchronized void unwatch(final IScriptLocation location) {
+		fWatchedLocations.remove(location);
+
+		final Iterator<Entry<WatchKey, WatchedFolder>> iterator = fWatchedFolders.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Entry<WatchKey, WatchedFolder> entry = iterator.next();
+			if (location.equals(entry.getValue().fLocation)) {
+				entry.getKey().cancel();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Stop watching all locations and terminate the watcher thread.
+	 */
+	public synchronized void dispose() {
+		for (final WatchKey key : fWatchedFolders.keySet())
+			key.cancel();
+
+		fWatchedFolders.clear();
+		fWatchedLocations.clear();
+
+		if (fWatchService != null) {
+			try {
+				fWatchService.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+
+			fWatchService = null;
+			fThread = null;
+		}
+	}
+
+	@Override
+	public void run() {
+		final WatchService watchService;
+		synchronized (this) {
+			watchService = fWatchService;
+		}
+
+		try {
+			while (watchService != null) {
+				WatchKey key = watchService.take();
+
+				// collect events for a short time, editors typically trigger several events when saving a file
+				final Map<IScriptLocation, Set<File>> changes = new HashMap<IScriptLocation, Set<File>>();
+				final long deadline = System.currentTimeMillis() + MAX_COLLECT_TIME;
+				do {
+					collectChanges(key, changes);
+					key = (System.currentTimeMillis() < deadline) ? watchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS) : null;
+				} while (key != null);
+
+				for (final Entry<IScriptLocation, Set<File>> entry : changes.entrySet())
+					fUpdateJob.update(entry.getKey(), entry.getValue());
+			}
+
+		} catch (final InterruptedException e) {
+			// terminate watcher
+		} catch (final ClosedWatchServiceException e) {
+			// watcher got disposed
+		}
+	}
+
+	private void collectChanges(final WatchKey key, final Map<IScriptLocation, Set<File>> changes) {
+		final WatchedFolder folder;
+		synchronized (this) {
+			folder = fWatchedFolders.get(key);
+		}
+
+		for (final WatchEvent<?> event : key.pollEvents()) {
+			if (folder == null)
+				continue;
+
+			if (OVERFLOW.equals(event.kind())) {
+				// events got lost, update the whole location
+				fUpdateJob.update(folder.fLocation);
+				continue;
+			}
+
+			final Path path = folder.fFolder.resolve((Path) event.context());
+			if (ENTRY_CREATE.equals(event.kind()) && (folder.fLocation.isRecursive()) && (Files.isDirectory(path))) {
+				try {
+					synchronized (this) {
+						if (fWatchedLocations.containsKey(folder.fLocation))
+							register(folder.fLocation, path);
+					}
+				} catch (final IOException e) {
+					Logger.warning(Activator.PLUGIN_ID, "Cannot watch script folder " + path, e);
+				}
+			}
+
+			Set<File> files = changes.get(folder.fLocation);
+			if (files == null) {
+				files = new HashSet<File>();
+				changes.put(folder.fLocation, files);
+			}
+			files.add(path.toFile());
+		}
+
+		if (!key.reset()) {
+			// folder is no longer accessible
+			final boolean rootRemoved;
+			synchronized (this) {
+				fWatchedFolders.remove(key);
+				rootRemoved = (folder != null) && (folder.fFolder.equals(fWatchedLocations.get(folder.fLocation)));
+				if (rootRemoved)
+					unwatch(folder.fLocation);
+			}
+
+			// root folder got deleted, let the update job decide whether to watch or poll the location
+			if (rootRemoved)
+				fUpdateJob.update(folder.fLocation);
+		}
+	}
+
+	private void register(final IScriptLocation location, final Path folder) throws IOException {
+		if (location.isRecursive()) {
+			Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(final Path directory, final BasicFileAttributes attributes) throws IOException {
+					registerFolder(location, directory);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(final Path file, final IOException e) throws IOException {
+					// unreadable folder, ignore
+					return FileVisitResult.CONTINUE;
+				}
+			});
+
+		} else
+			registerFolder(location, folder);
+	}
+
+	private void registerFolder(final IScriptLocation location, final Path folder) throws IOException {
+		final WatchKey key = folder.register(fWatchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+		fWatchedFolders.put(key, new WatchedFolder(location, folder));
+	}
+}
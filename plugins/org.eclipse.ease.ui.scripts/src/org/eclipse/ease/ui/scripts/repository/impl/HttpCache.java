@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.ui.scripts.repository.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.eclipse.ease.Logger;
+import org.eclipse.ease.ui.scripts.Activator;
+
+/**
+ * On-disk cache for remote script locations. Resources are fetched using conditional requests (ETag and Last-Modified), so unchanged resources are not
+ * downloaded again. Each resource gets a stable timestamp: the Last-Modified date provided by the server or, when not available, the time a content change
+ * was detected.
+ */
+public class HttpCache {
+
+	/**
+	 * Fetched resource.
+	 */
+	public static class Response {
+
+		private final byte[] fContent;
+		private final long fTimestamp;
+		private final boolean fModified;
+
+		public Response(final byte[] content, final long timestamp, final boolean modified) {
+			fContent = content;
+			fTimestamp = timestamp;
+			fModified = modified;
+		}
+
+		/**
+		 * Get the resource content.
+		 *
+		 * @return resource content
+		 */
+		public byte[] getContent() {
+			return fContent;
+		}
+
+		/**
+		 * Get the stream of the resource content.
+		 *
+		 * @return content stream
+		 */
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(fContent);
+		}
+
+		/**
+		 * Get the modification timestamp of the resource. Stays the same as long as the resource is not modified.
+		 *
+		 * @return modification timestamp
+		 */
+		public long getTimestamp() {
+			return fTimestamp;
+		}
+
+		/**
+		 * Check whether the resource changed since it got cached.
+		 *
+		 * @return <code>true</code> when the content was downloaded
+		 */
+		public boolean isModified() {
+			return fModified;
+		}
+	}
+
+	/** Folder within the plugin state location. */
+	private static final String CACHE_FOLDER = "httpCache";
+
+	/** Connect and read timeout in milliseconds. */
+	private static final int TIMEOUT = 10000;
+
+	private static final String KEY_URL = "url";
+	private static final String KEY_ETAG = "etag";
+	private static final String KEY_LAST_MODIFIED = "lastModified";
+	private static final String KEY_TIMESTAMP = "timestamp";
+
+	private static final String DATA_EXTENSION = ".data";
+	private static final String META_EXTENSION = ".properties";
+
+	private static HttpCache fInstance = null;
+
+	/**
+	 * Get the cache stored in the plugin state location.
+	 *
+	 * @return cache instance
+	 */
+	public static synchronized HttpCache getInstance() {
+		if (fInstance == null)
+			fInstance = new HttpCache(Activator.getDefault().getStateLocation().append(CACHE_FOLDER).toFile());
+
+		return fInstance;
+	}
+
+	/**
+	 * Check whether a location is handled by this cache.
+	 *
+	 * @param location
+	 *            location to check
+	 * @return <code>true</code> for http and https locations
+	 */
+	public static boolean isRemote(final String location) {
+		return (location.startsWith("http://")) || (location.startsWith("https://"));
+	}
+
+	private final File fFolder;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param folder
+	 *            folder to store cached resources to
+	 */
+	public HttpCache(final File folder) {
+		fFolder = folder;
+	}
+
+	/**
+	 * Fetch a resource. Cached resources are validated with a conditional request. When the server cannot be reached or reports an error the cached content is
+	 * returned. Cached content is only removed when the server reports the resource as not found or gone.
+	 *
+	 * @param location
+	 *            URL to fetch
+	 * @return fetched resource
+	 * @throws IOException
+	 *             when the resource cannot be fetched and is not cached
+	 */
+	public Response fetch(final String location) throws IOException {
+		final String key = getKey(location);
+		final Properties metadata = loadMetadata(key, location);
+		final File dataFile = new File(fFolder, key + DATA_EXTENSION);
+
+		final byte[] cachedContent = (metadata != null) ? readFile(dataFile) : null;
+
+		boolean serverResponded = false;
+		try {
+			final URLConnection connection = new URL(location).openConnection();
+			connection.setConnectTimeout(TIMEOUT);
+			connection.setReadTimeout(TIMEOUT);
+			connection.setUseCaches(false);
+
+			if ((cachedContent != null) && (connection instanceof HttpURLConnection)) {
+				final String etag = metadata.getProperty(KEY_ETAG);
+				if (etag != null)
+					connection.setRequestProperty("If-None-Match", etag);
+
+				final String lastModified = metadata.getProperty(KEY_LAST_MODIFIED);
+				if (lastModified != null)
+					connection.setRequestProperty("If-Modified-Since", lastModified);
+			}
+
+			if (connection instanceof HttpURLConnection) {
+				final int responseCode = ((HttpURLConnection) connection).getResponseCode();
+				serverResponded = true;
+
+				if ((responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) && (cachedContent != null))
+					return new Response(cachedContent, getTimestamp(metadata), false);
+
+				if ((responseCode == HttpURLConnection.HTTP_NOT_FOUND) || (responseCode == HttpURLConnection.HTTP_GONE)) {
+					// resource is not available any longer
+					remove(key);
+					throw new IOException("Server returned HTTP " + responseCode + " for " + location);
+				}
+
+				if (responseCode != HttpURLConnection.HTTP_OK) {
+					if (cachedContent != null) {
+						// temporary server problem, keep working with the cached resource
+						Logger.warning(Activator.PLUGIN_ID, "Server returned HTTP " + responseCode + " for " + location + ", using cached content");
+						return new Response(cachedContent, getTimestamp(metadata), false);
+					}
+
+					throw new IOException("Server returned HTTP " + responseCode + " for " + location);
+				}
+			}
+
+			final byte[] content = read(connection.getInputStream());
+
+			long timestamp = connection.getLastModified();
+			if (timestamp <= 0) {
+				// no modification date from the server, keep the previous timestamp while the content does not change
+				timestamp = ((cachedContent != null) && (Arrays.equals(cachedContent, content))) ? getTimestamp(metadata) : System.currentTimeMillis();
+			}
+
+			final Properties newMetadata = new Properties();
+			newMetadata.setProperty(KEY_URL, location);
+			newMetadata.setProperty(KEY_TIMESTAMP, Long.toString(timestamp));
+			if (connection.getHeaderField("ETag") != null)
+				newMetadata.setProperty(KEY_ETAG, connection.getHeaderField("ETag"));
+			if (connection.getHeaderField("Last-Modified") != null)
+				newMetadata.setProperty(KEY_LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+
+			store(key, content, newMetadata);
+
+			return new Response(content, timestamp, true);
+
+		} catch (final IOException e) {
+			if ((!serverResponded) && (cachedContent != null))
+				// server not reachable, work offline
+				return new Response(cachedContent, getTimestamp(metadata), false);
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the cached content of a resource without contacting the server.
+	 *
+	 * @param location
+	 *            URL of the resource
+	 * @return content stream or <code>null</code> when not cached
+	 */
+	public InputStream getCachedContent(final String location) {
+		try {
+			final String key = getKey(location);
+			final File dataFile = new File(fFolder, key + DATA_EXTENSION);
+			if ((loadMetadata(key, location) != null) && (dataFile.exists()))
+				return new FileInputStream(dataFile);
+
+		} catch (final IOException e) {
+			// not cached
+		}
+
+		return null;
+	}
+
+	/**
+	 * Remove all cached resources.
+	 */
+	public synchronized void clear() {
+		final File[] files = fFolder.listFiles();
+		if (files != null) {
+			for (final File file : files)
+				file.delete();
+		}
+	}
+
+	private Properties loadMetadata(final String key, final String location) {
+		final File metaFile = new File(fFolder, key + META_EXTENSION);
+		if (metaFile.exists()) {
+			final Properties metadata = new Properties();
+			try {
+				final InputStream input = new FileInputStream(metaFile);
+				try {
+					metadata.load(input);
+				} finally {
+					input.close();
+				}
+
+				// protect against hash collisions
+				if (location.equals(metadata.getProperty(KEY_URL)))
+					return metadata;
+
+			} catch (final IOException e) {
+				// invalid cache entry
+			}
+		}
+
+		return null;
+	}
+
+	private synchronized void remove(final String key) {
+		new File(fFolder, key + DATA_EXTENSION).delete();
+		new File(fFolder, key + META_EXTENSION).delete();
+	}
+
+	private synchronized void store(final String key, final byte[] content, final Properties metadata) throws IOException {
+		if (!fFolder.exists())
+			fFolder.mkdirs();
+
+		// write to temporary files first so readers never see partial entries
+		final File dataFile = new File(fFolder, key + DATA_EXTENSION);
+		final File tempDataFile = new File(fFolder, key + DATA_EXTENSION + ".tmp");
+		final OutputStream dataOutput = new FileOutputStream(tempDataFile);
+		try {
+			dataOutput.write(content);
+		} finally {
+			dataOutput.close();
+		}
+
+		final File metaFile = new File(fFolder, key + META_EXTENSION);
+		final File tempMetaFile = new File(fFolder, key + META_EXTENSION + ".tmp");
+		final OutputStream metaOutput = new FileOutputStream(tempMetaFile);
+		try {
+			metadata.store(metaOutput, null);
+		} finally {
+			metaOutput.close();
+		}
+
+		Files.move(tempDataFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.move(tempMetaFile.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static long getTimestamp(final Properties metadata) {
+		try {
+			return Long.parseLong(metadata.getProperty(KEY_TIMESTAMP, "0"));
+		} catch (final NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private static String getKey(final String location) throws UnsupportedEncodingException {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(location.getBytes("UTF-8"));
+
+			final StringBuilder key = new StringBuilder();
+			for (final byte value : digest)
+				key.append(String.format("%02x", value & 0xFF));
+
+			return key.toString();
+
+		} catch (final NoSuchAlgorithmException e) {
+			// SHA-1 is available on all java platforms
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] readFile(final File file) {
+		try {
+			if (file.exists())
+				return read(new FileInputStream(file));
+
+		} catch (final IOException e) {
+			// invalid cache entry
+		}
+
+		return null;
+	}
+
+	private static byte[] read(final InputStream input) throws IOException {
+		try {
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int length;
+			while ((length = input.read(buffer)) != -1)
+				output.write(buffer, 0, length);
+
+			return output.toByteArray();
+
+		} finally {
+			input.close();
+		}
+	}
+}
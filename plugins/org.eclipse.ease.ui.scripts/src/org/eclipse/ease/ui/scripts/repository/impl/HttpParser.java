@@ -11,14 +11,24 @@
 package org.eclipse.ease.ui.scripts.repository.impl;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.ease.service.IScriptService;
-import org.eclipse.ease.service.ScriptType;
-import org.eclipse.ease.tools.StringTools;
 import org.eclipse.ease.ui.scripts.repository.IRepositoryService;
 import org.eclipse.ease.ui.scripts.repository.IScriptLocation;
 import org.eclipse.emf.common.util.URI;
@@ -26,49 +36,189 @@ import org.eclipse.ui.PlatformUI;
 
 public class HttpParser extends InputStreamParser {
 
+	/** Maximum folder depth to follow links below the location root. */
+	private static final int MAX_DEPTH = 8;
+
+	/** Maximum amount of parallel requests. */
+	private static final int MAX_CONNECTIONS = 4;
+
+	private final HttpCache fCache;
+
+	public HttpParser() {
+		this(HttpCache.getInstance());
+	}
+
+	public HttpParser(final HttpCache cache) {
+		fCache = cache;
+	}
+
+	/**
+	 * Crawl a remote location for scripts. Index pages and scripts are fetched in parallel using the {@link HttpCache}, so unchanged resources are not
+	 * downloaded again. Scripts are registered with the timestamp reported by the cache.
+	 *
+	 * @param location
+	 *            root URL
+	 * @param entry
+	 *            script location to register scripts for
+	 */
 	public void parse(final String location, final IScriptLocation entry) {
-		final IScriptService scriptService = (IScriptService) PlatformUI.getWorkbench().getService(IScriptService.class);
-		ScriptType scriptType = scriptService.getScriptType(location);
-		if (scriptType != null) {
-			// register script
-			final IRepositoryService repositoryService = (IRepositoryService) PlatformUI.getWorkbench().getService(IRepositoryService.class);
-			repositoryService.updateLocation(entry, location, System.currentTimeMillis());
-
-		} else {
-			try {
-				InputStream stream = new URL(location).openStream();
-				if (stream != null) {
-					String content = StringTools.toString(stream);
-
-					try {
-						stream.close();
-					} catch (IOException e) {
-					}
+		final IScriptService scriptService = PlatformUI.getWorkbench().getService(IScriptService.class);
+		final IRepositoryService repositoryService = PlatformUI.getWorkbench().getService(IRepositoryService.class);
+
+		for (final Entry<String, Long> script : crawl(location, scriptService).entrySet())
+			repositoryService.updateLocation(entry, script.getKey(), script.getValue());
+	}
+
+	/**
+	 * Crawl a remote location. Scripts are detected by their script type, all other resources are treated as index pages and searched for links. Only links
+	 * below the folder of the root location are followed.
+	 *
+	 * @param location
+	 *            root URL
+	 * @param scriptService
+	 *            script service to detect script types
+	 * @return detected script URLs with their modification timestamps
+	 */
+	Map<String, Long> crawl(final String location, final IScriptService scriptService) {
+		final Map<String, Long> scripts = new HashMap<String, Long>();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(MAX_CONNECTIONS, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "Script repository HTTP crawler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 
-					Collection<String> anchors = extractAnchors(location, content);
+		try {
+			final URI root = getFolder(location);
 
-					for (String subLocation : anchors)
-						parse(subLocation, entry);
+			final Set<String> visited = new HashSet<String>();
+			visited.add(location);
+
+			List<String> level = Collections.singletonList(location);
+			for (int depth = 0; (depth <= MAX_DEPTH) && (!level.isEmpty()); depth++) {
+				final Map<String, Future<HttpCache.Response>> scriptRequests = new HashMap<String, Future<HttpCache.Response>>();
+				final Map<String, Future<HttpCache.Response>> pageRequests = new HashMap<String, Future<HttpCache.Response>>();
+
+				for (final String url : level) {
+					final Future<HttpCache.Response> request = executor.submit(new Callable<HttpCache.Response>() {
+
+						@Override
+						public HttpCache.Response call() throws Exception {
+							return fCache.fetch(url);
+						}
+					});
+
+					if (scriptService.getScriptType(url) != null)
+						scriptRequests.put(url, request);
+					else
+						pageRequests.put(url, request);
+				}
+
+				for (final Entry<String, Future<HttpCache.Response>> request : scriptRequests.entrySet()) {
+					final HttpCache.Response response = getResponse(request.getValue());
+					if (response != null)
+						scripts.put(request.getKey(), response.getTimestamp());
 				}
-			} catch (IOException e) {
-				// cannot read content, ignore location
-				// Includes MalformedURLException, so ignore invalid URLs
 
+				final List<String> nextLevel = new ArrayList<String>();
+				for (final Entry<String, Future<HttpCache.Response>> request : pageRequests.entrySet()) {
+					final HttpCache.Response response = getResponse(request.getValue());
+					if (response != null) {
+						for (final String anchor : extractAnchors(request.getKey(), toString(response.getContent()))) {
+							if ((isBelow(root, URI.createURI(anchor))) && (visited.add(anchor)))
+								nextLevel.add(anchor);
+						}
+					}
+				}
+
+				level = nextLevel;
 			}
+
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+		} finally {
+			executor.shutdownNow();
 		}
+
+		return scripts;
 	}
 
-	private Collection<String> extractAnchors(final String base, final String content) {
-		Collection<String> anchorNodes = new HashSet<String>();
+	private static HttpCache.Response getResponse(final Future<HttpCache.Response> request) throws InterruptedException {
+		try {
+			return request.get();
+		} catch (final ExecutionException e) {
+			// cannot read content, ignore location
+			// Includes MalformedURLException, so ignore invalid URLs
+			return null;
+		}
+	}
+
+	private static String toString(final byte[] content) {
+		try {
+			return new String(content, "UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			// UTF-8 is available on all java platforms
+			return new String(content);
+		}
+	}
+
+	/**
+	 * Get the folder a location refers to. Locations with a file extension refer to files within the folder.
+	 *
+	 * @param location
+	 *            location to get folder for
+	 * @return folder URI without trailing separator
+	 */
+	private static URI getFolder(final String location) {
+		URI folder = URI.createURI(location);
+		if (folder.fileExtension() != null) {
+			// location refers to a file, not a folder
+			folder = folder.trimSegments(1);
+		}
+
+		if (folder.hasTrailingPathSeparator())
+			folder = folder.trimSegments(1);
 
-		URI baseURI = URI.createURI(base);
-		if (baseURI.fileExtension() != null) {
-			// base refers to a file, not a folder
-			baseURI = baseURI.trimSegments(1);
+		return folder;
+	}
+
+	/**
+	 * Check whether a candidate is stored below a folder. Segments are compared, so <i>/scripts-old</i> is not considered to be below <i>/scripts</i>.
+	 *
+	 * @param folder
+	 *            folder URI without trailing separator
+	 * @param candidate
+	 *            absolute URI to check
+	 * @return <code>true</code> when candidate is located within folder or one of its subfolders
+	 */
+	private static boolean isBelow(final URI folder, final URI candidate) {
+		if ((!equals(folder.scheme(), candidate.scheme())) || (!equals(folder.authority(), candidate.authority())))
+			return false;
+
+		if (candidate.segmentCount() <= folder.segmentCount())
+			return false;
+
+		for (int index = 0; index < folder.segmentCount(); index++) {
+			if (!folder.segment(index).equals(candidate.segment(index)))
+				return false;
 		}
 
-		if (baseURI.hasTrailingPathSeparator())
-			baseURI = baseURI.trimSegments(1);
+		return true;
+	}
+
+	private static boolean equals(final String first, final String second) {
+		return (first == null) ? second == null : first.equals(second);
+	}
+
+	private Collection<String> extractAnchors(final String base, final String content) {
+		Collection<String> anchorNodes = new HashSet<String>();
+
+		final URI baseURI = getFolder(base);
 
 		int pos = content.indexOf(" href=");
 		do {
@@ -77,17 +227,14 @@ public class HttpParser extends InputStreamParser {
 				if (content.charAt(pos + 7) != '#') {
 					URI candidate = URI.createURI(content.substring(pos + 7, endpos));
 					if (candidate.isRelative())
-						candidate = candidate.resolve(baseURI);
+						// resolve relative to the base folder, not to its parent
+						candidate = candidate.resolve(baseURI.appendSegment(""));
 
 					if (candidate.hasTrailingPathSeparator())
 						candidate = candidate.trimSegments(1);
 
-					if (candidate.toString().startsWith(baseURI.toString())) {
-						// candidate is stored below the base
-
-						if (candidate.segmentCount() > baseURI.segmentCount())
-							anchorNodes.add(candidate.toString());
-					}
+					if (isBelow(baseURI, candidate))
+						anchorNodes.add(candidate.toString());
 				}
 			}
 
@@ -13,12 +13,22 @@ package org.eclipse.ease.ui.scripts.repository.impl;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -28,7 +38,6 @@ import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
@@ -39,6 +48,7 @@ import org.eclipse.ease.ICodeParser;
 import org.eclipse.ease.Logger;
 import org.eclipse.ease.service.IScriptService;
 import org.eclipse.ease.service.ScriptType;
+import org.eclipse.ease.tools.ResourceTools;
 import org.eclipse.ease.ui.scripts.Activator;
 import org.eclipse.ease.ui.scripts.preferences.PreferencesHelper;
 import org.eclipse.ease.ui.scripts.repository.IRepositoryFactory;
@@ -46,12 +56,17 @@ import org.eclipse.ease.ui.scripts.repository.IRepositoryService;
 import org.eclipse.ease.ui.scripts.repository.IScript;
 import org.eclipse.ease.ui.scripts.repository.IScriptLocation;
 import org.eclipse.ease.ui.scripts.repository.IStorage;
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.ui.PlatformUI;
+import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
 
 public class RepositoryService implements IRepositoryService, IResourceChangeListener {
@@ -63,7 +78,10 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 
 	private static RepositoryService fInstance;
 
-	private static final String CACHE_FILE_NAME = "script.repository";
+	private static final String CACHE_FILE_NAME = "script.repository.bin";
+
+	/** Cache file used by previous versions, stored as XMI. */
+	private static final String LEGACY_CACHE_FILE_NAME = "script.repository";
 
 	// TODO find a nice delay value here
 	private static final long DEFAULT_DELAY = 60 * 1000; // 1 minute
@@ -73,6 +91,70 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 	private static final String EXTENSION_KEYWORD_HANDLER_CLASS = "class";
 	private static final String EXTENSION_KEYWORD_HANDLER_KEYWORDS = "keywords";
 
+	/** Maximum amount of threads parsing script headers. */
+	private static final int MAX_PARSER_THREADS = 4;
+
+	/** Time in seconds before an idle parser thread terminates. */
+	private static final long PARSER_KEEP_ALIVE_TIME = 10;
+
+	/**
+	 * Header parse job queued by {@link RepositoryService#updateLocation(IScriptLocation, String, long)}.
+	 */
+	private static class PendingUpdate {
+
+		private final IScript fScript;
+		private final long fTimestamp;
+		private final Future<Map<String, String>> fParameters;
+
+		public PendingUpdate(final IScript script, final long timestamp, final Future<Map<String, String>> parameters) {
+			fScript = script;
+			fTimestamp = timestamp;
+			fParameters = parameters;
+		}
+	}
+
+	/**
+	 * Keyword handler proxy. Instantiates the contributed handler on the first event, so handler bundles are not activated on startup.
+	 */
+	private static class LazyKeywordHandler implements EventHandler {
+
+		private final IConfigurationElement fConfigurationElement;
+
+		private EventHandler fHandler = null;
+
+		private boolean fInvalid = false;
+
+		public LazyKeywordHandler(final IConfigurationElement configurationElement) {
+			fConfigurationElement = configurationElement;
+		}
+
+		@Override
+		public void handleEvent(final Event event) {
+			final EventHandler handler = getHandler();
+			if (handler != null)
+				handler.handleEvent(event);
+		}
+
+		private synchronized EventHandler getHandler() {
+			if ((fHandler == null) && (!fInvalid)) {
+				try {
+					final Object listener = fConfigurationElement.createExecutableExtension(EXTENSION_KEYWORD_HANDLER_CLASS);
+					if (listener instanceof EventHandler)
+						fHandler = (EventHandler) listener;
+					else
+						Logger.error(Activator.PLUGIN_ID, "Invalid keyword handler detected: " + fConfigurationElement.getAttribute("id"));
+
+				} catch (final Exception e) {
+					Logger.error(Activator.PLUGIN_ID, "Invalid keyword handler detected: " + fConfigurationElement.getAttribute("id"), e);
+				}
+
+				fInvalid = (fHandler == null);
+			}
+
+			return fHandler;
+		}
+	}
+
 	/**
 	 * Get the repository service singleton.
 	 *
@@ -85,26 +167,61 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		return fInstance;
 	}
 
+	/**
+	 * Stop the repository service singleton. Stops background updates and releases workspace listeners and file system watchers. Called when the bundle
+	 * stops.
+	 */
+	public static void shutdown() {
+		if (fInstance != null) {
+			fInstance.fUpdateJob.dispose();
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(fInstance);
+
+			fInstance = null;
+		}
+	}
+
 	private IStorage fRepository = null;
 
 	private final UpdateRepositoryJob fUpdateJob;
 
+	/** Scripts indexed by their location. Lazily built on first access. */
+	private Map<String, IScript> fScriptIndex = null;
+
+	/** Header parse jobs not applied to the repository yet. */
+	private final List<PendingUpdate> fPendingUpdates = new ArrayList<PendingUpdate>();
+
+	/** Parses script headers in parallel. */
+	private final ThreadPoolExecutor fParserPool = createParserPool();
+
 	IEventBroker fEventBroker = PlatformUI.getWorkbench().getService(IEventBroker.class);
 
+	/** Keywords with registered keyword handlers. */
+	private final Set<String> fHandledKeywords = new HashSet<String>();
+
+	/** Set when persisted data of the repository changed since the last save. */
+	private volatile boolean fDirty = false;
+
 	private final Job fSaveJob = new Job("Save Script Repositories") {
 
 		@Override
 		protected IStatus run(final IProgressMonitor monitor) {
-			final IPath path = Activator.getDefault().getStateLocation().append(CACHE_FILE_NAME);
-			final File file = path.toFile();
+			final File file = Activator.getDefault().getStateLocation().append(CACHE_FILE_NAME).toFile();
+
+			// changes from now on need another save
+			fDirty = false;
 
-			// Obtain a new resource set
-			final ResourceSet resSet = new ResourceSetImpl();
-			final Resource resource = resSet.createResource(URI.createFileURI(file.getAbsolutePath()));
+			final Resource resource = new BinaryResourceImpl(URI.createFileURI(file.getAbsolutePath()));
 			resource.getContents().add(fRepository);
 			try {
 				resource.save(Collections.emptyMap());
+
+				// remove cache of previous versions
+				final File legacyFile = Activator.getDefault().getStateLocation().append(LEGACY_CACHE_FILE_NAME).toFile();
+				if (legacyFile.exists())
+					legacyFile.delete();
+
 			} catch (final IOException e) {
+				fDirty = true;
 				Logger.error(Activator.PLUGIN_ID, "Could not store script repositories", e);
 			}
 
@@ -112,6 +229,22 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		}
 	};
 
+	private final Job fKeywordReplayJob = new Job("Register script keywords") {
+
+		@Override
+		protected IStatus run(final IProgressMonitor monitor) {
+			// push cached keywords to the event bus, only keywords with registered handlers are of interest
+			for (final IScript script : fRepository.getScripts()) {
+				for (final Entry<String, String> entry : script.getParameters().entrySet()) {
+					if (fHandledKeywords.contains(entry.getKey()))
+						fireKeywordEvent(script, entry.getKey(), entry.getValue(), null);
+				}
+			}
+
+			return Status.OK_STATUS;
+		}
+	};
+
 	/**
 	 * Initialize the repository service.
 	 */
@@ -123,27 +256,22 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		startKeywordHandlers();
 
 		// load stored data
-		final IPath path = Activator.getDefault().getStateLocation().append(CACHE_FILE_NAME);
-		final File file = path.toFile();
-		if ((file != null) && (file.exists())) {
+		final File file = Activator.getDefault().getStateLocation().append(CACHE_FILE_NAME).toFile();
+		final File legacyFile = Activator.getDefault().getStateLocation().append(LEGACY_CACHE_FILE_NAME).toFile();
+		if (file.exists()) {
+			fRepository = load(new BinaryResourceImpl(URI.createFileURI(file.getAbsolutePath())));
 
+		} else if (legacyFile.exists()) {
+			// migrate cache of previous versions
 			final ResourceSet resourceSet = new ResourceSetImpl();
-			final Resource resource = resourceSet.createResource(URI.createURI(file.toURI().toString()));
-			try {
-				resource.load(null);
-				fRepository = (IStorage) resource.getContents().get(0);
-
-				// push all updates to the event bus
-				for (IScript script : fRepository.getScripts()) {
-					for (Entry<String, String> entry : script.getParameters().entrySet())
-						fireKeywordEvent(script, entry.getKey(), entry.getValue(), null);
-				}
-
-				Logger.trace(Activator.PLUGIN_ID, TRACE_REPOSITORY_SERVICE, Activator.PLUGIN_ID, "Loaded cached scripts");
+			fRepository = load(resourceSet.createResource(URI.createURI(legacyFile.toURI().toString())));
+			fDirty = (fRepository != null);
+		}
 
-			} catch (final IOException e) {
-				// we could not load an existing model, but we will refresh it in a second
-			}
+		if (fRepository != null) {
+			// push cached keywords to the event bus in the background
+			fKeywordReplayJob.setSystem(true);
+			fKeywordReplayJob.schedule();
 		}
 
 		// create repository if empty
@@ -163,9 +291,23 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 			Logger.trace(Activator.PLUGIN_ID, TRACE_REPOSITORY_SERVICE, Activator.PLUGIN_ID, "Cached scripts are dirty, cleanup");
 			fRepository.getEntries().clear();
 			fRepository.getEntries().addAll(PreferencesHelper.getLocations());
+			fDirty = true;
 			save();
 		}
 
+		// track changes of persisted data
+		fRepository.eAdapters().add(new EContentAdapter() {
+
+			@Override
+			public void notifyChanged(final Notification notification) {
+				super.notifyChanged(notification);
+
+				if ((!notification.isTouch()) && (notification.getFeature() instanceof EStructuralFeature)
+						&& (!((EStructuralFeature) notification.getFeature()).isTransient()))
+					fDirty = true;
+			}
+		});
+
 		// update repository
 		fUpdateJob = new UpdateRepositoryJob(this);
 
@@ -184,7 +326,29 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 	}
 
 	/**
+	 * Load a stored repository.
 	 *
+	 * @param resource
+	 *            resource to load from
+	 * @return loaded repository or <code>null</code>
+	 */
+	private static IStorage load(final Resource resource) {
+		try {
+			resource.load(null);
+			if ((!resource.getContents().isEmpty()) && (resource.getContents().get(0) instanceof IStorage)) {
+				Logger.trace(Activator.PLUGIN_ID, TRACE_REPOSITORY_SERVICE, Activator.PLUGIN_ID, "Loaded cached scripts");
+				return (IStorage) resource.getContents().get(0);
+			}
+
+		} catch (final IOException e) {
+			// we could not load an existing model, but we will refresh it in a second
+		}
+
+		return null;
+	}
+
+	/**
+	 * Register keyword handlers. Handlers are instantiated on the first event they receive.
 	 */
 	private void startKeywordHandlers() {
 		final IConfigurationElement[] config = Platform.getExtensionRegistry().getConfigurationElementsFor(EXTENSION_KEYWORD_ID);
@@ -192,23 +356,32 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		for (final IConfigurationElement e : config) {
 
 			if (EXTENSION_KEYWORD_HANDLER.equals(e.getName())) {
-				try {
-					Object listener = e.createExecutableExtension(EXTENSION_KEYWORD_HANDLER_CLASS);
-					if (listener instanceof EventHandler) {
-						String keywords = e.getAttribute(EXTENSION_KEYWORD_HANDLER_KEYWORDS);
-						for (String keyword : keywords.split(","))
-							fEventBroker.subscribe(BROKER_CHANNEL_SCRIPT_KEYWORDS + keyword, (EventHandler) listener);
-
-					} else
-						Logger.error(Activator.PLUGIN_ID, "Invalid keyword handler detected: " + e.getAttribute("id"));
+				final String keywords = e.getAttribute(EXTENSION_KEYWORD_HANDLER_KEYWORDS);
+				if (keywords != null) {
+					final EventHandler handler = new LazyKeywordHandler(e);
+					for (String keyword : keywords.split(",")) {
+						keyword = keyword.trim();
+						fHandledKeywords.add(keyword);
+						fEventBroker.subscribe(BROKER_CHANNEL_SCRIPT_KEYWORDS + keyword, handler);
+					}
 
-				} catch (Exception e1) {
-					Logger.error(Activator.PLUGIN_ID, "Invalid keyword handler detected: " + e.getAttribute("id"), e1);
-				}
+				} else
+					Logger.error(Activator.PLUGIN_ID, "Invalid keyword handler detected: " + e.getAttribute("id"));
 			}
 		}
 	}
 
+	/**
+	 * Wait for cached keywords to be pushed to the event bus. Keyword changes detected by updates must not be posted before.
+	 */
+	void joinKeywordReplay() {
+		try {
+			fKeywordReplayJob.join();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * Post a keyword change to the event bus.
 	 *
@@ -287,8 +460,10 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 	 * Trigger delayed save action. Store the repository to disk after a given delay.
 	 */
 	void save() {
-		fSaveJob.cancel();
-		fSaveJob.schedule(500);
+		if (fDirty) {
+			fSaveJob.cancel();
+			fSaveJob.schedule(500);
+		}
 	}
 
 	@Override
@@ -301,11 +476,20 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		return Collections.unmodifiableCollection(fRepository.getEntries());
 	}
 
+	/**
+	 * Update a script from a given location. Headers of new or modified scripts are parsed asynchronously, results get stored to the repository by
+	 * {@link #applyPendingUpdates()}.
+	 */
 	@Override
 	public void updateLocation(final IScriptLocation entry, final String location, final long lastChanged) {
-		final IScriptService scriptService = PlatformUI.getWorkbench().getService(IScriptService.class);
-
 		IScript script = getScriptByLocation(location);
+		if ((script != null) && (script.getTimestamp() == lastChanged)) {
+			// no update needed
+			script.setUpdatePending(false);
+			return;
+		}
+
+		final IScriptService scriptService = PlatformUI.getWorkbench().getService(IScriptService.class);
 		final ScriptType scriptType = scriptService.getScriptType(location);
 		if (scriptType != null) {
 
@@ -316,20 +500,79 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 				script.setLocation(location);
 
 				entry.getScripts().add(script);
+				addToIndex(script);
+
 				HashMap<String, Object> eventData = new HashMap<String, Object>();
 				eventData.put("script", script);
 				fEventBroker.post(BROKER_CHANNEL_SCRIPTS_NEW, eventData);
+			}
+
+			// parse header in the background, do not access the model from parser threads
+			final Future<Map<String, String>> parameters = fParserPool.submit(new Callable<Map<String, String>>() {
+
+				@Override
+				public Map<String, String> call() throws Exception {
+					// remote scripts got downloaded to the cache by the http parser already
+					InputStream stream = HttpCache.isRemote(location) ? HttpCache.getInstance().getCachedContent(location) : null;
+					if (stream == null)
+						stream = ResourceTools.getInputStream(location);
+
+					return extractParameters(scriptType, stream);
+				}
+			});
 
-			} else if (script.getTimestamp() == lastChanged) {
-				// no update needed
-				script.setUpdatePending(false);
-				return;
+			synchronized (fPendingUpdates) {
+				fPendingUpdates.add(new PendingUpdate(script, lastChanged, parameters));
 			}
 
+		} else if (script != null)
+			// we have a script in the cache which is no longer supported by any engine
+			removeScript(script);
+	}
+
+	/**
+	 * Store parsed script headers to the repository. Waits for all headers queued by {@link #updateLocation(IScriptLocation, String, long)} to be parsed.
+	 * Keyword events are fired from the calling thread.
+	 */
+	void applyPendingUpdates() {
+		final List<PendingUpdate> updates;
+		synchronized (fPendingUpdates) {
+			updates = new ArrayList<PendingUpdate>(fPendingUpdates);
+			fPendingUpdates.clear();
+		}
+
+		for (final PendingUpdate update : updates) {
+			try {
+				updateParameters(update.fScript, update.fParameters.get(), update.fTimestamp);
+
+			} catch (final InterruptedException e) {
+				// keep the old header, timestamp is not updated so the script gets parsed again on the next update
+				update.fParameters.cancel(true);
+				update.fScript.setUpdatePending(false);
+				Thread.currentThread().interrupt();
+
+			} catch (final ExecutionException e) {
+				Logger.error(Activator.PLUGIN_ID, "Could not parse script header of " + update.fScript.getLocation(), e.getCause());
+				update.fScript.setUpdatePending(false);
+			}
+		}
+	}
+
+	/**
+	 * Store new header parameters for a script and fire keyword events for changed parameters.
+	 *
+	 * @param script
+	 *            script to update
+	 * @param parameters
+	 *            parsed header parameters
+	 * @param lastChanged
+	 *            timestamp of the parsed script source
+	 */
+	private void updateParameters(final IScript script, final Map<String, String> parameters, final long lastChanged) {
+		if (script.getEntry() != null) {
 			// update script parameters
 			final Map<String, String> oldParameters = script.getParameters();
 
-			final Map<String, String> parameters = extractParameters(scriptType, script.getInputStream());
 			script.getScriptParameters().clear();
 			script.getScriptParameters().putAll(parameters);
 
@@ -353,34 +596,72 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 
 			// script is up to date
 			script.setTimestamp(lastChanged);
-			script.setUpdatePending(false);
+		}
 
-		} else if (script != null)
-			// we have a script in the cache which is no longer supported by any engine
-			removeScript(script);
+		script.setUpdatePending(false);
 	}
 
-	private IScript getScriptByLocation(final String location) {
-		for (final IScript script : getScripts()) {
-			if (script.getLocation().equals(location))
-				return script;
+	private synchronized IScript getScriptByLocation(final String location) {
+		if (fScriptIndex == null) {
+			fScriptIndex = new HashMap<String, IScript>();
+			for (final IScript script : getScripts())
+				fScriptIndex.put(script.getLocation(), script);
 		}
 
-		return null;
+		return fScriptIndex.get(location);
+	}
+
+	private synchronized void addToIndex(final IScript script) {
+		if (fScriptIndex != null)
+			fScriptIndex.put(script.getLocation(), script);
+	}
+
+	private synchronized void removeFromIndex(final IScript script) {
+		if ((fScriptIndex != null) && (fScriptIndex.get(script.getLocation()) == script))
+			fScriptIndex.remove(script.getLocation());
 	}
 
 	private static Map<String, String> extractParameters(final ScriptType type, final InputStream stream) {
-		if (type != null) {
-			final ICodeParser parser = type.getCodeParser();
-			if (parser != null)
-				return parser.parse(stream);
+		if ((type != null) && (stream != null)) {
+			try {
+				final ICodeParser parser = type.getCodeParser();
+				if (parser != null)
+					return parser.parse(stream);
+
+			} finally {
+				try {
+					stream.close();
+				} catch (final IOException e) {
+					// ignore
+				}
+			}
 		}
 
 		return Collections.emptyMap();
 	}
 
+	private static ThreadPoolExecutor createParserPool() {
+		final int threads = Math.max(1, Math.min(MAX_PARSER_THREADS, Runtime.getRuntime().availableProcessors()));
+		final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, PARSER_KEEP_ALIVE_TIME, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable, "Script repository parser");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		// repository updates are rare, do not keep idle threads around
+		pool.allowCoreThreadTimeOut(true);
+
+		return pool;
+	}
+
 	void removeScript(final IScript script) {
 		script.getEntry().getScripts().remove(script);
+		removeFromIndex(script);
 
 		// unregister script keywords
 		for (Entry<String, String> entry : script.getParameters().entrySet())
@@ -391,6 +672,23 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		fEventBroker.post(BROKER_CHANNEL_SCRIPTS_REMOVED, eventData);
 	}
 
+	/**
+	 * Remove scripts stored in a given file or folder.
+	 *
+	 * @param entry
+	 *            script location containing the scripts
+	 * @param location
+	 *            URI of the file or folder
+	 */
+	void removeScripts(final IScriptLocation entry, final String location) {
+		final String folderLocation = location.endsWith("/") ? location : location + "/";
+
+		for (final IScript script : new ArrayList<IScript>(entry.getScripts())) {
+			if ((script.getLocation().equals(location)) || (script.getLocation().startsWith(folderLocation)))
+				removeScript(script);
+		}
+	}
+
 	@Override
 	public void resourceChanged(final IResourceChangeEvent event) {
 		try {
@@ -454,6 +752,7 @@ public class RepositoryService implements IRepositoryService, IResourceChangeLis
 		for (final IScriptLocation entry : new HashSet<IScriptLocation>(fRepository.getEntries())) {
 			if (entry.getLocation().equals(locationURI)) {
 				fRepository.getEntries().remove(entry);
+				fUpdateJob.unwatch(entry);
 
 				for (final IScript script : new HashSet<IScript>(entry.getScripts()))
 					removeScript(script);
@@ -15,7 +15,11 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -27,8 +31,19 @@ import org.eclipse.ease.ui.scripts.repository.IScriptLocation;
 
 public class UpdateRepositoryJob extends Job {
 
+	/** Delay in milliseconds before changed files get processed. */
+	private static final long FILE_CHANGE_DELAY = 100;
+
 	private final RepositoryService fRepositoryService;
 
+	private final FileSystemWatcher fFileSystemWatcher = new FileSystemWatcher(this);
+
+	/** Set when the repository service shuts down. */
+	private volatile boolean fDisposed = false;
+
+	/** Changed files reported by the file system watcher. Guarded by this. */
+	private Map<IScriptLocation, Set<File>> fChangedFiles = new HashMap<IScriptLocation, Set<File>>();
+
 	public UpdateRepositoryJob(final RepositoryService repositoryService) {
 		super("Updating script repository");
 
@@ -37,6 +52,24 @@ public class UpdateRepositoryJob extends Job {
 
 	@Override
 	protected IStatus run(final IProgressMonitor monitor) {
+		if (fDisposed)
+			return Status.CANCEL_STATUS;
+
+		// keywords of cached scripts need to be posted before any updates
+		fRepositoryService.joinKeywordReplay();
+
+		// process files reported by the file system watcher
+		final Map<IScriptLocation, Set<File>> changedFiles;
+		synchronized (this) {
+			changedFiles = fChangedFiles;
+			fChangedFiles = new HashMap<IScriptLocation, Set<File>>();
+		}
+
+		for (final Entry<IScriptLocation, Set<File>> entry : changedFiles.entrySet()) {
+			// locations might have been removed in the meantime, pending locations get fully traversed anyway
+			if ((fRepositoryService.getLocations().contains(entry.getKey())) && (!entry.getKey().isUpdatePending()))
+				updateFiles(entry.getKey(), entry.getValue());
+		}
 
 		final Collection<IScriptLocation> locations = fRepositoryService.getLocations();
 
@@ -57,6 +90,10 @@ public class UpdateRepositoryJob extends Job {
 					// this is a valid file system resource
 					new FileSystemParser().parse((File) content, location);
 
+					// watched locations receive file updates, no need to traverse them periodically
+					if (fFileSystemWatcher.watch(location, (File) content))
+						location.setUpdatePending(false);
+
 				} else if (content instanceof URI) {
 					if ("platform".equals(((URI) content).getScheme())) {
 						new PluginParser().parse(content, location);
@@ -75,6 +112,9 @@ public class UpdateRepositoryJob extends Job {
 					// entry.setTimestamp(System.currentTimeMillis());
 				}
 
+				// wait for script headers parsed in the background
+				fRepositoryService.applyPendingUpdates();
+
 				// remove scripts that were not verified
 				for (final IScript script : new HashSet<IScript>(location.getScripts())) {
 					if (script.isUpdatePending())
@@ -88,11 +128,80 @@ public class UpdateRepositoryJob extends Job {
 
 		// re schedule job
 		// TODO make this editable by preferences
-		schedule(1000 * 60 * 30);
+		if (!fDisposed)
+			schedule(1000 * 60 * 30);
 
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Update files of a watched location. Files might be new, modified or deleted.
+	 *
+	 * @param location
+	 *            script location containing the files
+	 * @param files
+	 *            changed files
+	 */
+	private void updateFiles(final IScriptLocation location, final Collection<File> files) {
+		for (final File file : files) {
+			if (file.isFile())
+				fRepositoryService.updateLocation(location, file.toURI().toString(), file.lastModified());
+
+			else if (file.isDirectory()) {
+				// new folder, might already contain scripts
+				if (location.isRecursive())
+					new FileSystemParser().parse(file, location);
+
+			} else
+				// file or folder got deleted
+				fRepositoryService.removeScripts(location, file.toURI().toString());
+		}
+
+		fRepositoryService.applyPendingUpdates();
+	}
+
+	/**
+	 * Report changed files of a watched location.
+	 *
+	 * @param entry
+	 *            script location containing the files
+	 * @param files
+	 *            new, modified or deleted files
+	 */
+	synchronized void update(final IScriptLocation entry, final Collection<File> files) {
+		Set<File> changedFiles = fChangedFiles.get(entry);
+		if (changedFiles == null) {
+			changedFiles = new HashSet<File>();
+			fChangedFiles.put(entry, changedFiles);
+		}
+		changedFiles.addAll(files);
+
+		if (getState() != Job.RUNNING)
+			cancel();
+
+		schedule(FILE_CHANGE_DELAY);
+	}
+
+	/**
+	 * Stop receiving file updates for a location.
+	 *
+	 * @param entry
+	 *            script location
+	 */
+	void unwatch(final IScriptLocation entry) {
+		fFileSystemWatcher.unwatch(entry);
+	}
+
+	/**
+	 * Stop updating the repository and release file system watchers.
+	 */
+	void dispose() {
+		fDisposed = true;
+		cancel();
+
+		fFileSystemWatcher.dispose();
+	}
+
 	synchronized void update(final IScriptLocation entry) {
 		entry.setUpdatePending(true);
 
@@ -123,6 +123,8 @@ public class ScriptConsole extends IOConsole implements IExecutionListener, IScr
 		if (engine.equals(getScriptEngine())) {
 			switch (status) {
 			case ENGINE_END:
+			case ENGINE_RESET:
+				// a reset engine is returned to its pool and no longer serves this console
 				terminate();
 				break;
 			}
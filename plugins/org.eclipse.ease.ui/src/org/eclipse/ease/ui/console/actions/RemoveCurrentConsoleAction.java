@@ -58,6 +58,7 @@ public class RemoveCurrentConsoleAction extends Action implements IExecutionList
     public void notify(final IScriptEngine engine, final Script script, final int status) {
         switch (status) {
             case ENGINE_END:
+            case ENGINE_RESET:
                 // remove engine once terminated
                 engine.removeExecutionListener(this);
                 setEnabled(true);
@@ -11,7 +11,6 @@
 
 package org.eclipse.ease.ui.modules.ui;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -20,7 +19,6 @@ import java.util.List;
 import org.eclipse.ease.ICodeFactory.Parameter;
 import org.eclipse.ease.modules.ModuleDefinition;
 import org.eclipse.ease.modules.ModuleHelper;
-import org.eclipse.ease.modules.ScriptParameter;
 import org.eclipse.ease.service.IScriptService;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.jface.viewers.StyledString;
@@ -133,13 +131,9 @@ public class ModulesTools {
 	public static int getOptionalParameterCount(final Method method) {
 		int optional = 0;
 
-		for (final Annotation[] list : method.getParameterAnnotations()) {
-			for (final Annotation annotation : list) {
-				if ((annotation.annotationType().equals(ScriptParameter.class)) && (ScriptParameter.Helper.isOptional((ScriptParameter) annotation))) {
-					optional++;
-					break;
-				}
-			}
+		for (final Parameter parameter : ModuleHelper.getParameters(method)) {
+			if (parameter.isOptional())
+				optional++;
 		}
 
 		return optional;
@@ -29,6 +29,7 @@ public class ScriptingPage extends PreferencePage implements IWorkbenchPreferenc
 
 	private Button btnAllowUIAccess;
 	private Button btnAllowRemoteAccess;
+	private Button btnPoolEngines;
 
 	public ScriptingPage() {
 	}
@@ -54,6 +55,14 @@ public class ScriptingPage extends PreferencePage implements IWorkbenchPreferenc
 		btnAllowRemoteAccess = new Button(grpSecurisecurty, SWT.CHECK);
 		btnAllowRemoteAccess.setText("Allow to run remote scripts");
 
+		Group grpPerformance = new Group(container, SWT.NONE);
+		grpPerformance.setLayout(new FillLayout(SWT.VERTICAL));
+		grpPerformance.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+		grpPerformance.setText("Performance");
+
+		btnPoolEngines = new Button(grpPerformance, SWT.CHECK);
+		btnPoolEngines.setText("Pre-start and reuse script engines for scripts triggered by keywords");
+
 		performDefaults();
 
 		return container;
@@ -70,6 +79,9 @@ public class ScriptingPage extends PreferencePage implements IWorkbenchPreferenc
 				.getBoolean(IPreferenceConstants.SCRIPTS_ALLOW_REMOTE_ACCESS, IPreferenceConstants.DEFAULT_SCRIPTS_ALLOW_REMOTE_ACCESS);
 		btnAllowRemoteAccess.setSelection(allowRemoteAccess);
 
+		boolean poolEngines = prefs.getBoolean(Activator.SCRIPTS_POOL_ENGINES, Activator.DEFAULT_SCRIPTS_POOL_ENGINES);
+		btnPoolEngines.setSelection(poolEngines);
+
 		super.performDefaults();
 	}
 
@@ -79,6 +91,7 @@ public class ScriptingPage extends PreferencePage implements IWorkbenchPreferenc
 
 		prefs.putBoolean(Activator.SCRIPTS_ALLOW_UI_ACCESS, btnAllowUIAccess.getSelection());
 		prefs.putBoolean(IPreferenceConstants.SCRIPTS_ALLOW_REMOTE_ACCESS, btnAllowRemoteAccess.getSelection());
+		prefs.putBoolean(Activator.SCRIPTS_POOL_ENGINES, btnPoolEngines.getSelection());
 
 		return super.performOk();
 	}
@@ -11,14 +11,15 @@
 package org.eclipse.ease;
 
 import java.io.BufferedReader;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.ease.sign.ScriptSignatureException;
@@ -29,44 +30,131 @@ public abstract class AbstractCodeParser implements ICodeParser {
 	/** Default line break character. */
 	public static final String LINE_DELIMITER = System.getProperty(Platform.PREF_LINE_SEPARATOR);
 
-	private static final Pattern PARAMETER_PATTERN = Pattern.compile("\\s*([\\p{Alnum}-_]*)\\s*:(.*)");
+	/** Maximum amount of characters read when looking for a header. */
+	private static final int MAX_HEADER_LENGTH = 64 * 1024;
 
 	/** Begin and End strings for signature block. */
 	private static final String BEGIN_STRING = "-----BEGIN SIGNATURE-----", END_STRING = "-----END SIGNATURE-----";
 
-	@Override
-	public Map<String, String> parse(final InputStream stream) {
-		final Map<String, String> parameters = new HashMap<String, String>();
+	/**
+	 * Receives the lines of a comment area. Lines are trimmed and comment tokens are removed.
+	 */
+	private interface ICommentLineHandler {
+
+		void handleLine(String line);
+	}
+
+	/**
+	 * Extracts key/value pairs from comment lines. A key starts with alphanumeric characters, '-' or '_' followed by a colon. Following lines extend the
+	 * value of the previous key until an empty line or a delimiter line (all same characters) is found.
+	 */
+	private static class HeaderTokenizer implements ICommentLineHandler {
 
-		final String comment = getComment(stream);
+		private final Map<String, String> fParameters = new HashMap<String, String>();
 
-		String key = null;
-		for (String line : comment.split("\\r?\\n")) {
-			final Matcher matcher = PARAMETER_PATTERN.matcher(line);
-			if (matcher.matches()) {
+		private String fKey = null;
+
+		@Override
+		public void handleLine(final String line) {
+			final int separator = findKeySeparator(line);
+			if (separator >= 0) {
 				// key value pair found
-				key = matcher.group(1);
-				parameters.put(key, matcher.group(2).trim());
-
-			} else if (key != null) {
-				if (!line.trim().isEmpty()) {
-					// check that we do not have a delimiter line (all same chars)
-					line = line.trim();
-					if (!Pattern.matches("[" + line.charAt(0) + "]+", line))
-						// line belongs to previous key value pair
-						parameters.put(key, parameters.get(key) + " " + line.trim());
-					else
-						// line does not belong to previous key anymore
-						key = null;
-				} else
-					// remove cached key as we hit an empty line
-					key = null;
+				fKey = line.substring(0, separator).trim();
+				fParameters.put(fKey, line.substring(separator + 1).trim());
+
+			} else if (fKey != null) {
+				if ((!line.isEmpty()) && (!isDelimiter(line)))
+					// line belongs to previous key value pair
+					fParameters.put(fKey, fParameters.get(fKey) + " " + line);
+				else
+					// line does not belong to previous key anymore
+					fKey = null;
 			}
 
 			// any other line will be ignored
 		}
 
-		return parameters;
+		public Map<String, String> getParameters() {
+			return fParameters;
+		}
+
+		/**
+		 * Find the colon separating a key from its value.
+		 *
+		 * @param line
+		 *            trimmed comment line
+		 * @return index of the separator or -1 when the line does not start with a key
+		 */
+		private static int findKeySeparator(final String line) {
+			int index = 0;
+			while ((index < line.length()) && (isKeyCharacter(line.charAt(index))))
+				index++;
+
+			while ((index < line.length()) && (Character.isWhitespace(line.charAt(index))))
+				index++;
+
+			return ((index < line.length()) && (line.charAt(index) == ':')) ? index : -1;
+		}
+
+		private static boolean isKeyCharacter(final char character) {
+			return ((character >= 'a') && (character <= 'z')) || ((character >= 'A') && (character <= 'Z')) || ((character >= '0') && (character <= '9'))
+					|| (character == '-') || (character == '_');
+		}
+
+		private static boolean isDelimiter(final String line) {
+			final char first = line.charAt(0);
+			for (int index = 1; index < line.length(); index++) {
+				if (line.charAt(index) != first)
+					return false;
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * Reader returning end of stream after a maximum amount of characters.
+	 */
+	private static class BoundedReader extends FilterReader {
+
+		private int fRemaining;
+
+		public BoundedReader(final Reader reader, final int maxLength) {
+			super(reader);
+			fRemaining = maxLength;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (fRemaining <= 0)
+				return -1;
+
+			final int character = super.read();
+			if (character != -1)
+				fRemaining--;
+
+			return character;
+		}
+
+		@Override
+		public int read(final char[] buffer, final int offset, final int length) throws IOException {
+			if (fRemaining <= 0)
+				return -1;
+
+			final int count = super.read(buffer, offset, Math.min(length, fRemaining));
+			if (count > 0)
+				fRemaining -= count;
+
+			return count;
+		}
+	}
+
+	@Override
+	public Map<String, String> parse(final InputStream stream) {
+		final HeaderTokenizer tokenizer = new HeaderTokenizer();
+		readComment(stream, tokenizer);
+
+		return tokenizer.getParameters();
 	}
 
 	@Override
@@ -108,61 +196,83 @@ public abstract class AbstractCodeParser implements ICodeParser {
 	protected String getComment(final InputStream stream) {
 		final StringBuilder comment = new StringBuilder();
 
-		final BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+		final boolean success = readComment(stream, new ICommentLineHandler() {
+
+			@Override
+			public void handleLine(final String line) {
+				comment.append(line);
+				comment.append("\n");
+			}
+		});
+
+		return (success) ? comment.toString() : "";
+	}
+
+	/**
+	 * Read the first comment area from a stream line by line. Reading stops at the first code line or after {@value #MAX_HEADER_LENGTH} characters.
+	 *
+	 * @param stream
+	 *            stream to parse
+	 * @param handler
+	 *            handler receiving comment lines
+	 * @return <code>true</code> when the stream could be read
+	 */
+	private boolean readComment(final InputStream stream, final ICommentLineHandler handler) {
+		final BufferedReader reader = new BufferedReader(new BoundedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), MAX_HEADER_LENGTH));
+
+		final String lineCommentToken = getLineCommentToken();
+		final boolean hasBlockComment = hasBlockComment();
+		final String blockCommentStartToken = (hasBlockComment) ? getBlockCommentStartToken() : null;
+		final String blockCommentEndToken = (hasBlockComment) ? getBlockCommentEndToken() : null;
 
-		boolean isComment = true;
 		boolean isBlock = false;
 		try {
-			do {
-				String line = reader.readLine();
-				if (line == null)
-					break;
-
+			String line;
+			while ((line = reader.readLine()) != null) {
 				line = line.trim();
 
 				if (line.isEmpty())
 					continue;
 
-				if (line.startsWith(getLineCommentToken())) {
-					comment.append(line.substring(getLineCommentToken().length()).trim());
-					comment.append("\n");
+				if (line.startsWith(lineCommentToken)) {
+					handler.handleLine(line.substring(lineCommentToken.length()).trim());
 					continue;
 				}
 
-				if (hasBlockComment()) {
-					if (line.startsWith(getBlockCommentStartToken())) {
+				if (hasBlockComment) {
+					if (line.startsWith(blockCommentStartToken)) {
 						isBlock = true;
-						line = line.substring(getBlockCommentStartToken().length()).trim();
+						line = line.substring(blockCommentStartToken.length()).trim();
 					}
 
 					if (isBlock) {
-						if (line.contains(getBlockCommentEndToken())) {
+						final int endIndex = line.indexOf(blockCommentEndToken);
+						if (endIndex >= 0) {
 							isBlock = false;
-							line = line.substring(0, line.indexOf(getBlockCommentEndToken()));
+							line = line.substring(0, endIndex);
 						}
 
 						// remove leading '*' characters
 						line = line.trim();
-						while (line.startsWith("*"))
-							line = line.substring(1);
+						int start = 0;
+						while ((start < line.length()) && (line.charAt(start) == '*'))
+							start++;
 
-						comment.append(line.trim());
-						comment.append("\n");
+						handler.handleLine(line.substring(start).trim());
 						continue;
 					}
 				}
 
 				// not a comment line, not empty
-				isComment = false;
-
-			} while (isComment);
+				break;
+			}
 
 		} catch (final IOException e) {
 			Logger.error(Activator.PLUGIN_ID, "Could not parse input stream header", e);
-			return "";
+			return false;
 		}
 
-		return comment.toString();
+		return true;
 	}
 
 	@Override
@@ -179,7 +289,7 @@ public abstract class AbstractCodeParser implements ICodeParser {
 
 			// contentBuffer is used to get content excluding signature block. It is updated continuously because in rare cases, we may come to know that
 			// what we have read yet is not an actual signature block but part of original script.
-			StringBuffer contentBuffer = new StringBuffer();
+			StringBuilder contentBuffer = new StringBuilder();
 
 			cur = bReader.readLine();
 			if (cur == null)
@@ -198,10 +308,9 @@ public abstract class AbstractCodeParser implements ICodeParser {
 						return null;
 				}
 
-				StringBuffer contentOnlyBuffer = new StringBuffer(contentBuffer);
-				// remove an extra \n character at end. Since this content is used for verification. Same script is required in contentOnly as it was before
-				// signing
-				contentOnlyBuffer.deleteCharAt(contentOnlyBuffer.length() - 1);
+				// remember content length instead of copying the buffer for every candidate. Remove an extra \n character at end. Since this content is used
+				// for verification. Same script is required in contentOnly as it was before signing
+				final int contentOnlyLength = Math.max(0, contentBuffer.length() - 1);
 
 				contentBuffer.append(prev + "\n");
 				if (!prev.equals(getBlockCommentStartToken())) {
@@ -319,7 +428,7 @@ public abstract class AbstractCodeParser implements ICodeParser {
 					throw new ScriptSignatureException("Text after signature is not allowed");
 				else {
 					String certificates[] = certBuf.toString().split(":");
-					return new SignatureInfo(signature, provider, messageDigestAlgo, certificates, contentOnlyBuffer.toString());
+					return new SignatureInfo(signature, provider, messageDigestAlgo, certificates, contentBuffer.substring(0, contentOnlyLength));
 				}
 			}
 			return null;
@@ -15,22 +15,31 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.ease.debugging.IScriptDebugFrame;
 import org.eclipse.ease.debugging.ScriptDebugFrame;
+import org.eclipse.ease.metrics.ExecutionMetrics;
 import org.eclipse.ease.service.EngineDescription;
+import org.eclipse.ease.service.ScriptService;
 import org.osgi.service.prefs.Preferences;
 
 /**
@@ -39,8 +48,69 @@ import org.osgi.service.prefs.Preferences;
  */
 public abstract class AbstractScriptEngine extends Job implements IScriptEngine {
 
-	/** List of code junks to be executed. */
-	private final List<Script> fCodePieces = Collections.synchronizedList(new ArrayList<Script>());
+	/**
+	 * Internal request processed by the engine thread in order with other scheduled code pieces. Requests are not reported to execution listeners.
+	 */
+	private abstract static class EngineRequest extends Script {
+
+		public EngineRequest(final String title) {
+			super(title, "");
+		}
+
+		/**
+		 * Process the request. Called from within the engine thread.
+		 *
+		 * @return request result
+		 * @throws Exception
+		 *             when processing fails
+		 */
+		protected abstract Object process() throws Exception;
+	}
+
+	/**
+	 * Multiple code pieces scheduled at once. Processed as a single queue entry, individual pieces are executed without notifying execution listeners.
+	 */
+	private static class ScriptBatch extends Script {
+
+		private final List<Script> fPieces;
+
+		public ScriptBatch(final List<Script> pieces) {
+			super("Batch (" + pieces.size() + " scripts)", "");
+
+			fPieces = pieces;
+		}
+
+		public List<Script> getPieces() {
+			return fPieces;
+		}
+	}
+
+	/** Event marker to execute code without notifying execution listeners. */
+	private static final int NO_EVENT = 0;
+
+	/** Queue of code junks to be executed. Producers do not block, the engine thread gets woken up using {@link LockSupport#unpark(Thread)}. */
+	private final Queue<Script> fCodePieces = new ConcurrentLinkedQueue<Script>();
+
+	/** Thread running the main loop. <code>null</code> while the engine is not running. */
+	private volatile Thread fEngineThread = null;
+
+	/** Set when the engine is driven by the {@link EngineExecutor} instead of its own job. */
+	private volatile boolean fShared = false;
+
+	/** Set while a drain of the code queue is scheduled or running on the {@link EngineExecutor}. Guarantees serial execution of shared engines. */
+	private final AtomicBoolean fDrainScheduled = new AtomicBoolean(false);
+
+	/** Cancellation monitor of shared engines. */
+	private final IProgressMonitor fSharedMonitor = new NullProgressMonitor();
+
+	/** Processes pending code pieces of a shared engine. */
+	private final Runnable fDrainTask = new Runnable() {
+
+		@Override
+		public void run() {
+			drain();
+		}
+	};
 
 	private final ListenerList fExecutionListeners = new ListenerList();
 
@@ -92,26 +162,135 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 		else
 			piece = new Script(content);
 
-		fCodePieces.add(piece);
-		synchronized (this) {
-			notifyAll();
-		}
+		if (ExecutionMetrics.getInstance().isEnabled())
+			piece.markQueued();
+
+		fCodePieces.offer(piece);
+		wakeUpEngine();
 
 		return piece.getResult();
 	}
 
+	@Override
+	public final ScriptResult executeBatch(final Collection<?> contents) {
+		final List<Script> pieces = new ArrayList<Script>(contents.size());
+		for (final Object content : contents)
+			pieces.add((content instanceof Script) ? (Script) content : new Script(content));
+
+		if (ExecutionMetrics.getInstance().isEnabled()) {
+			for (final Script piece : pieces)
+				piece.markQueued();
+		}
+
+		return executeAsync(new ScriptBatch(pieces));
+	}
+
+	/**
+	 * Request an engine reset. The reset is executed by the engine thread after all previously scheduled code pieces are processed. A successful reset discards
+	 * the script scope of the engine, restores default I/O streams and re-applies all launch extensions, so the Environment module gets loaded again. Engines
+	 * not supporting {@link #resetEngine()} terminate instead.
+	 *
+	 * @return result containing {@link Boolean#TRUE} when the engine was reset successfully
+	 */
+	public final ScriptResult reset() {
+		return executeAsync(new EngineRequest("Engine reset") {
+
+			@Override
+			protected Object process() {
+				return performReset();
+			}
+		});
+	}
+
+	/**
+	 * Set variables from within the engine thread. Variables get set after all previously scheduled code pieces are processed. In contrast to
+	 * {@link #setVariable(String, Object)} this method is safe to be called from any thread on a running engine.
+	 *
+	 * @param variables
+	 *            variables to set
+	 * @return result of the set operation
+	 */
+	public final ScriptResult setVariablesAsync(final Map<String, Object> variables) {
+		final Map<String, Object> content = new HashMap<String, Object>(variables);
+
+		return executeAsync(new EngineRequest("Set variables") {
+
+			@Override
+			protected Object process() {
+				for (final Entry<String, Object> entry : content.entrySet())
+					setVariable(entry.getKey(), entry.getValue());
+
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Set I/O streams from within the engine thread. Streams get replaced after all previously scheduled code pieces are processed, so code still running
+	 * keeps its streams. In contrast to {@link #setOutputStream(OutputStream)} and its siblings this method is safe to be called from any thread on a running
+	 * engine.
+	 *
+	 * @param outputStream
+	 *            output stream to use
+	 * @param errorStream
+	 *            error stream to use
+	 * @param inputStream
+	 *            input stream to use
+	 * @return result of the set operation
+	 */
+	public final ScriptResult setStreamsAsync(final OutputStream outputStream, final OutputStream errorStream, final InputStream inputStream) {
+		return executeAsync(new EngineRequest("Set streams") {
+
+			@Override
+			protected Object process() {
+				setOutputStream(outputStream);
+				setErrorStream(errorStream);
+				setInputStream(inputStream);
+
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Start the engine on the shared {@link EngineExecutor} instead of a dedicated job. Code pieces are still executed one after the other, but the engine only
+	 * occupies a pool thread while it processes code. Idle engines kept alive by {@link #setTerminateOnIdle(boolean)} therefore do not hold a thread.
+	 * <p>
+	 * Engines not supporting shared execution (see {@link #supportsSharedExecution()}) get scheduled as a job instead. Shared engines are not visible to the job
+	 * manager, {@link #getThread()} returns <code>null</code> for them.
+	 * </p>
+	 */
+	public final void scheduleShared() {
+		if ((supportsSharedExecution()) && (!fShared) && (getState() == NONE)) {
+			fShared = true;
+			scheduleDrain();
+
+		} else if (!fShared)
+			schedule();
+	}
+
+	/**
+	 * Check whether this engine is driven by the shared {@link EngineExecutor}.
+	 *
+	 * @return <code>true</code> for shared engines
+	 */
+	public final boolean isShared() {
+		return fShared;
+	}
+
 	@Override
 	public final ScriptResult executeSync(final Object content) throws InterruptedException {
 
-		if (getState() == NONE)
+		if ((!fShared) && (getState() == NONE))
 			// automatically schedule engine as it is not started yet
 			schedule();
 
 		final ScriptResult result = executeAsync(content);
 
-		synchronized (result) {
-			while (!result.isReady())
-				result.wait();
+		try {
+			result.get();
+		} catch (final ExecutionException e) {
+			// exception is stored within result
 		}
 
 		return result;
@@ -133,12 +312,12 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 	}
 
 	private final Object internalInject(final Object content, final boolean uiThread) {
-		// injected code shall not trigger a new event, therefore notifyListerners needs to be false
+		// injected code shall not trigger a new script event, it is reported as injection instead
 		ScriptResult result;
 		if (content instanceof Script)
-			result = inject((Script) content, false, uiThread);
+			result = inject((Script) content, IExecutionListener.SCRIPT_INJECTION_START, IExecutionListener.SCRIPT_INJECTION_END, uiThread);
 		else
-			result = inject(new Script(content), false, uiThread);
+			result = inject(new Script(content), IExecutionListener.SCRIPT_INJECTION_START, IExecutionListener.SCRIPT_INJECTION_END, uiThread);
 
 		if (result.hasException()) {
 			// re-throw previous exception
@@ -158,14 +337,22 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 	 *
 	 * @param script
 	 *            script to be executed
-	 * @param notifyListeners
-	 *            <code>true</code> when listeners should be informed of code fragment
+	 * @param startEvent
+	 *            event to notify listeners with before execution or {@link #NO_EVENT}
+	 * @param endEvent
+	 *            event to notify listeners with after execution or {@link #NO_EVENT}
 	 * @param uiThread
 	 *            when set to <code>true</code> run injected code in UI thread
 	 * @return script execution result
 	 */
-	private ScriptResult inject(final Script script, final boolean notifyListeners, final boolean uiThread) {
+	private ScriptResult inject(final Script script, final int startEvent, final int endEvent, final boolean uiThread) {
 
+		final boolean recordMetrics = ExecutionMetrics.getInstance().isEnabled();
+		final long startTime = (recordMetrics) ? System.nanoTime() : 0;
+		long executionStartTime = startTime;
+		long listenerTime = 0;
+
+		// blocking waiters resume after SCRIPT_END listeners got notified; non-blocking result access does not use this monitor
 		synchronized (script.getResult()) {
 
 			try {
@@ -174,10 +361,14 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 				fStackTrace.add(0, new ScriptDebugFrame(script, 0, IScriptDebugFrame.TYPE_FILE));
 
 				// execution
-				if (notifyListeners)
-					notifyExecutionListeners(script, IExecutionListener.SCRIPT_START);
-				else
-					notifyExecutionListeners(script, IExecutionListener.SCRIPT_INJECTION_START);
+				final long listenerStartTime = (recordMetrics) ? System.nanoTime() : 0;
+				if (startEvent != NO_EVENT)
+					notifyExecutionListeners(script, startEvent);
+
+				if (recordMetrics) {
+					executionStartTime = System.nanoTime();
+					listenerTime = executionStartTime - listenerStartTime;
+				}
 
 				script.setResult(execute(script, script.getFile(), fStackTrace.get(0).getName(), uiThread));
 
@@ -196,26 +387,107 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 					e.printStackTrace(getErrorStream());
 
 			} finally {
-				if (notifyListeners)
-					notifyExecutionListeners(script, IExecutionListener.SCRIPT_END);
-				else
-					notifyExecutionListeners(script, IExecutionListener.SCRIPT_INJECTION_END);
+				final long listenerStartTime = (recordMetrics) ? System.nanoTime() : 0;
+				if (endEvent != NO_EVENT)
+					notifyExecutionListeners(script, endEvent);
 
 				fStackTrace.remove(0);
+
+				if (recordMetrics) {
+					listenerTime += System.nanoTime() - listenerStartTime;
+					recordExecution(script, startTime, listenerStartTime - executionStartTime, listenerTime);
+				}
 			}
 		}
 
 		return script.getResult();
 	}
 
+	/**
+	 * Record execution metrics of a script.
+	 *
+	 * @param script
+	 *            executed script
+	 * @param startTime
+	 *            time when the engine started to process the script
+	 * @param executionTime
+	 *            time spent executing the script
+	 * @param listenerTime
+	 *            time spent notifying execution listeners
+	 */
+	private void recordExecution(final Script script, final long startTime, final long executionTime, final long listenerTime) {
+		final long queuedTime = script.getQueuedTime();
+		final long queueWaitTime = (queuedTime != 0) ? Math.max(0, startTime - queuedTime) : 0;
+
+		long codeLength = 0;
+		try {
+			final String code = script.getCode();
+			if (code != null)
+				codeLength = code.length();
+		} catch (final Exception e) {
+			// code not available, ignore
+		}
+
+		ExecutionMetrics.getInstance().recordExecution(getEngineID(), script.getTitle(), queueWaitTime, executionTime, listenerTime, codeLength,
+				script.getResult().hasException());
+	}
+
+	private String getEngineID() {
+		return (getDescription() != null) ? getDescription().getID() : getName();
+	}
+
 	@Override
 	protected IStatus run(final IProgressMonitor monitor) {
-		Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine started: " + getName());
 		IStatus returnStatus = Status.OK_STATUS;
 		try {
+			returnStatus = startEngine();
+			if (returnStatus.isOK()) {
+				// publish engine thread before checking the queue, so producers either see the thread or we see their code
+				fEngineThread = Thread.currentThread();
+
+				// main loop
+				while ((!monitor.isCanceled()) && (!isTerminated())) {
+
+					// execute code
+					final Script piece = fCodePieces.poll();
+					if (piece != null)
+						process(piece, monitor);
+
+					else if (!isTerminated()) {
+						Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine idle: " + getName());
+						LockSupport.park(this);
+
+						// clear interrupted flag, interrupts are only used to wake up the engine
+						Thread.interrupted();
+					}
+				}
+
+				returnStatus = (!isTerminated()) ? Status.OK_STATUS : Status.CANCEL_STATUS;
+			}
+
+		} finally {
+			returnStatus = stopEngine(returnStatus);
+		}
+
+		return returnStatus;
+	}
+
+	/**
+	 * Set up the engine and apply buffered variables. Runs within the engine thread.
+	 *
+	 * @return {@link Status#OK_STATUS} when the engine is ready to process code
+	 */
+	private IStatus startEngine() {
+		Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine started: " + getName());
+
+		try {
+			final long setupStartTime = System.nanoTime();
 			setupEngine();
 			fSetupDone = true;
 
+			if (ExecutionMetrics.getInstance().isEnabled())
+				ExecutionMetrics.getInstance().recordSetup(getEngineID(), System.nanoTime() - setupStartTime);
+
 			// engine is initialized, set buffered variables
 			for (final Entry<String, Object> entry : fBufferedVariables.entrySet()) {
 				setVariable(entry.getKey(), entry.getValue());
@@ -228,72 +500,239 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 
 			notifyExecutionListeners(null, IExecutionListener.ENGINE_START);
 
-			// main loop
-			while ((!monitor.isCanceled()) && (!isTerminated())) {
+			return Status.OK_STATUS;
 
-				// execute code
-				if (!fCodePieces.isEmpty()) {
-					final Script piece = fCodePieces.remove(0);
-					inject(piece, true, false);
+		} catch (final ScriptEngineException e) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not setup script engine", e);
+		}
+	}
 
-				} else {
+	/**
+	 * Tear down the engine and release waiting threads. Runs within the engine thread.
+	 *
+	 * @param status
+	 *            status of the engine run
+	 * @return final status of the engine run
+	 */
+	private IStatus stopEngine(final IStatus status) {
+		IStatus returnStatus = status;
 
-					synchronized (this) {
-						if (!isTerminated()) {
-							try {
-								Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine idle: " + getName());
-								wait();
-							} catch (final InterruptedException e) {
-							}
-						}
-					}
-				}
-			}
+		fEngineThread = null;
 
-			returnStatus = (!isTerminated()) ? Status.OK_STATUS : Status.CANCEL_STATUS;
+		// discard pending code pieces
+		discardCodePieces();
 
-		} catch (ScriptEngineException e) {
-			returnStatus = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not setup script engine", e);
+		notifyExecutionListeners(null, IExecutionListener.ENGINE_END);
 
+		try {
+			teardownEngine();
+		} catch (final ScriptEngineException e) {
+			if (returnStatus.getSeverity() < IStatus.ERROR) {
+				// We were almost all OK (or just warnings/infos) but then we failed at shutdown
+				// Note we don't override a CANCEL
+				returnStatus = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not teardown script engine", e);
+			}
 		} finally {
+			fTerminated = true;
+			synchronized (this) {
+				notifyAll();
+			}
+
 			// discard pending code pieces
-			synchronized (fCodePieces) {
-				for (final Script script : fCodePieces)
-					script.setException(new ExitException());
+			discardCodePieces();
+
+			closeStreams();
+			Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine terminated: " + getName());
+		}
+
+		return returnStatus;
+	}
+
+	/**
+	 * Process a single queue entry. Runs within the engine thread.
+	 *
+	 * @param piece
+	 *            queue entry to process
+	 * @param monitor
+	 *            engine monitor
+	 */
+	private void process(final Script piece, final IProgressMonitor monitor) {
+		if (piece instanceof EngineRequest)
+			processRequest((EngineRequest) piece);
+		else if (piece instanceof ScriptBatch)
+			processBatch((ScriptBatch) piece, monitor);
+		else
+			inject(piece, IExecutionListener.SCRIPT_START, IExecutionListener.SCRIPT_END, false);
+	}
+
+	/**
+	 * Schedule a drain of the code queue on the {@link EngineExecutor} unless one is already scheduled or running.
+	 */
+	private void scheduleDrain() {
+		if (fDrainScheduled.compareAndSet(false, true))
+			EngineExecutor.getDefault().execute(fDrainTask);
+	}
+
+	/**
+	 * Process all pending code pieces of a shared engine. Runs on a thread of the {@link EngineExecutor}. Only one drain runs at a time for an engine, so code
+	 * pieces are executed in order.
+	 */
+	private void drain() {
+		IStatus status = Status.OK_STATUS;
+		boolean stop = false;
+
+		fEngineThread = Thread.currentThread();
+		try {
+			if (!fSetupDone) {
+				status = startEngine();
+				stop = !status.isOK();
 			}
 
-			fCodePieces.clear();
+			if (!stop) {
+				Script piece;
+				while ((!fSharedMonitor.isCanceled()) && ((piece = fCodePieces.poll()) != null))
+					process(piece, fSharedMonitor);
 
-			notifyExecutionListeners(null, IExecutionListener.ENGINE_END);
+				stop = fSharedMonitor.isCanceled() || isTerminated();
+				if (stop)
+					status = (!isTerminated()) ? Status.OK_STATUS : Status.CANCEL_STATUS;
+			}
 
-			try {
-				teardownEngine();
-			} catch (ScriptEngineException e) {
-				if (returnStatus.getSeverity() < IStatus.ERROR) {
-					// We were almost all OK (or just warnings/infos) but then we failed at shutdown
-					// Note we don't override a CANCEL
-					returnStatus = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not teardown script engine", e);
-				}
-			} finally {
-				fTerminated = true;
-				synchronized (this) {
-					notifyAll();
-				}
+		} catch (final RuntimeException e) {
+			status = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Script engine failed", e);
+			stop = true;
+
+		} finally {
+			fEngineThread = null;
+
+			if (stop) {
+				// drain stays marked as scheduled, so the terminated engine never gets drained again
+				status = stopEngine(status);
+				if (status.getSeverity() == IStatus.ERROR)
+					Logger.error(Activator.PLUGIN_ID, status.getMessage(), status.getException());
+
+			} else {
+				fDrainScheduled.set(false);
+
+				// producers might have added code after our last poll, but before the drain flag got cleared
+				if ((!fCodePieces.isEmpty()) || (isTerminated()))
+					scheduleDrain();
+			}
+		}
+	}
+
+	/**
+	 * Wake up the engine thread if it is waiting for new code.
+	 */
+	private void wakeUpEngine() {
+		if (fShared) {
+			scheduleDrain();
+			return;
+		}
+
+		final Thread engineThread = fEngineThread;
+		if (engineThread != null)
+			LockSupport.unpark(engineThread);
+	}
+
+	/**
+	 * Remove all pending code pieces. Their results are set to an {@link ExitException}.
+	 */
+	private void discardCodePieces() {
+		Script script;
+		while ((script = fCodePieces.poll()) != null) {
+			if (script instanceof ScriptBatch) {
+				for (final Script piece : ((ScriptBatch) script).getPieces())
+					piece.setException(new ExitException());
+			}
+
+			script.setException(new ExitException());
+		}
+	}
+
+	/**
+	 * Process an internal engine request. Runs within the engine thread.
+	 *
+	 * @param request
+	 *            request to process
+	 */
+	private void processRequest(final EngineRequest request) {
+		try {
+			request.setResult(request.process());
+		} catch (final Throwable e) {
+			request.setException(e);
+		}
+	}
+
+	/**
+	 * Process a batch of code pieces. Runs within the engine thread. Pieces not executed due to engine termination get an {@link ExitException} set.
+	 *
+	 * @param batch
+	 *            batch to process
+	 * @param monitor
+	 *            engine job monitor
+	 */
+	private void processBatch(final ScriptBatch batch, final IProgressMonitor monitor) {
+
+		// blocking waiters resume after BATCH_END listeners got notified
+		synchronized (batch.getResult()) {
+			notifyExecutionListeners(batch, IExecutionListener.BATCH_START);
+
+			final List<ScriptResult> results = new ArrayList<ScriptResult>(batch.getPieces().size());
+			Throwable exception = null;
+
+			for (final Script piece : batch.getPieces()) {
+				if (monitor.isCanceled())
+					piece.setException(new ExitException());
+				else
+					// pieces are not reported individually, listeners only get notified about the batch
+					inject(piece, NO_EVENT, NO_EVENT, false);
+
+				results.add(piece.getResult());
+				if ((exception == null) && (piece.getResult().hasException()))
+					exception = piece.getResult().getException();
+			}
 
-				// discard pending code pieces
-				synchronized (fCodePieces) {
-					for (final Script script : fCodePieces)
-						script.setException(new ExitException());
+			batch.getResult().complete(Collections.unmodifiableList(results), exception);
 
-					fCodePieces.clear();
+			notifyExecutionListeners(batch, IExecutionListener.BATCH_END);
+		}
+	}
+
+	/**
+	 * Reset the engine to its initial state. Runs within the engine thread.
+	 *
+	 * @return {@link Boolean#TRUE} when the engine was reset
+	 */
+	private Boolean performReset() {
+		Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine reset: " + getName());
+
+		try {
+			fStackTrace.clear();
+
+			// restore default I/O streams
+			fOutputStream = null;
+			fErrorStream = null;
+			fInputStream = null;
+
+			if (resetEngine()) {
+				// re-apply launch extensions to load the environment module
+				if (getDescription() != null) {
+					for (final IScriptEngineLaunchExtension extension : ScriptService.getService().getLaunchExtensions(getDescription().getID()))
+						extension.createEngine(this);
 				}
 
-				closeStreams();
-				Logger.trace(Activator.PLUGIN_ID, TRACE_SCRIPT_ENGINE, "Engine terminated: " + getName());
+				notifyExecutionListeners(null, IExecutionListener.ENGINE_RESET);
+				return Boolean.TRUE;
 			}
+
+		} catch (final ScriptEngineException e) {
+			Logger.error(Activator.PLUGIN_ID, "Could not reset script engine: " + getName(), e);
 		}
 
-		return returnStatus;
+		// reset not supported, terminate engine
+		fTerminateOnIdle = true;
+		return Boolean.FALSE;
 	}
 
 	private void closeStreams() {
@@ -367,9 +806,7 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 	@Override
 	public final void setTerminateOnIdle(final boolean terminate) {
 		fTerminateOnIdle = terminate;
-		synchronized (this) {
-			notifyAll();
-		}
+		wakeUpEngine();
 	}
 
 	@Override
@@ -413,8 +850,11 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 
 	@Override
 	public void terminate() {
+		if (fShared)
+			fSharedMonitor.setCanceled(true);
+
 		setTerminateOnIdle(true);
-		fCodePieces.clear();
+		discardCodePieces();
 		terminateCurrent();
 
 		// ask thread to terminate
@@ -557,6 +997,29 @@ public abstract class AbstractScriptEngine extends Job implements IScriptEngine
 	 */
 	protected abstract void teardownEngine() throws ScriptEngineException;
 
+	/**
+	 * Reset the engine to a clean state, as if {@link #setupEngine()} was called on a fresh instance. Called from within the engine thread between two script
+	 * executions. I/O streams are already restored to their defaults when this method gets called. The default implementation does not support resetting.
+	 *
+	 * @return <code>true</code> when the engine was reset, <code>false</code> when resetting is not supported
+	 * @throws ScriptEngineException
+	 *             when resetting fails
+	 */
+	protected boolean resetEngine() throws ScriptEngineException {
+		return false;
+	}
+
+	/**
+	 * Check whether this engine may run on the shared {@link EngineExecutor}. Shared engines process subsequent code pieces on arbitrary pool threads, so
+	 * engines binding state to their thread or relying on {@link #getThread()} (like debuggers do) must not support shared execution. The default
+	 * implementation returns <code>false</code>.
+	 *
+	 * @return <code>true</code> when the engine does not depend on a dedicated thread
+	 */
+	protected boolean supportsSharedExecution() {
+		return false;
+	}
+
 	/**
 	 * Execute script code.
 	 *
@@ -15,6 +15,7 @@ import java.net.URL;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.ease.service.ScriptService;
 import org.eclipse.ecf.filetransfer.FileTransferJob;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
@@ -30,6 +31,9 @@ public class Activator extends AbstractUIPlugin {
 	public static final String SCRIPTS_ALLOW_UI_ACCESS = "scriptUIAccess";
 	public static final boolean DEFAULT_SCRIPTS_ALLOW_UI_ACCESS = false;
 
+	public static final String SCRIPTS_POOL_ENGINES = "scriptPoolEngines";
+	public static final boolean DEFAULT_SCRIPTS_POOL_ENGINES = true;
+
 	private static Activator fInstance;
 
 	public static Activator getDefault() {
@@ -49,6 +53,10 @@ public class Activator extends AbstractUIPlugin {
 
 	@Override
 	public void stop(final BundleContext context) throws Exception {
+		// terminate pre-started script engines
+		ScriptService.shutdown();
+		EngineExecutor.shutdown();
+
 		fInstance = null;
 
 		super.stop(context);
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pool driving script engines started with {@link AbstractScriptEngine#scheduleShared()}. Engines only occupy a pool thread while they process
+ * code, idle engines do not hold any thread. The pool is bounded, so long running scripts delay other shared engines once all threads are busy.
+ */
+public final class EngineExecutor {
+
+	/** Time in seconds before an unused pool thread terminates. */
+	private static final long KEEP_ALIVE_TIME = 60;
+
+	private static EngineExecutor fInstance = null;
+
+	/**
+	 * Get the shared executor instance.
+	 *
+	 * @return shared executor
+	 */
+	public static synchronized EngineExecutor getDefault() {
+		if (fInstance == null)
+			fInstance = new EngineExecutor(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+		return fInstance;
+	}
+
+	/**
+	 * Shut down the shared executor. Running tasks are completed, new tasks get rejected.
+	 */
+	public static synchronized void shutdown() {
+		if (fInstance != null) {
+			fInstance.fExecutor.shutdown();
+			fInstance = null;
+		}
+	}
+
+	private final ThreadPoolExecutor fExecutor;
+
+	private EngineExecutor(final int threads) {
+		fExecutor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+			private final AtomicInteger fThreadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "EASE engine executor #" + fThreadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		// do not keep idle threads around
+		fExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Run a task on a pool thread.
+	 *
+	 * @param task
+	 *            task to run
+	 */
+	void execute(final Runnable task) {
+		fExecutor.execute(task);
+	}
+
+	/**
+	 * Get the maximum amount of threads used by this executor.
+	 *
+	 * @return maximum thread count
+	 */
+	public int getMaximumThreads() {
+		return fExecutor.getMaximumPoolSize();
+	}
+}
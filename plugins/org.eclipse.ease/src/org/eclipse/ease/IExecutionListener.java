@@ -33,6 +33,15 @@ public interface IExecutionListener {
 	/** Event injected script (subscript) ended. */
 	int SCRIPT_INJECTION_END = 6;
 
+	/** Event engine got reset to a clean state and is ready for reuse. */
+	int ENGINE_RESET = 7;
+
+	/** Event batch execution started. Items of the batch are not reported individually. */
+	int BATCH_START = 8;
+
+	/** Event batch execution ended. */
+	int BATCH_END = 9;
+
 	/**
 	 * Notifies the listeners when script execution started/ended or when the engine itself is started/ended.
 	 *
@@ -16,6 +16,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.net.URL;
+import java.util.Collection;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Platform;
@@ -54,6 +55,21 @@ public interface IScriptEngine {
 	 */
 	ScriptResult executeSync(final Object content) throws InterruptedException;
 
+	/**
+	 * Execute multiple code pieces asynchronously. All pieces are scheduled at once and executed in order as soon as all previously scheduled code is
+	 * executed. Execution listeners get notified with {@link IExecutionListener#BATCH_START} and {@link IExecutionListener#BATCH_END} only, individual pieces
+	 * are not reported. A failing piece does not stop execution of subsequent pieces.
+	 * <p>
+	 * The returned result gets ready once all pieces are executed. Its value is a {@link java.util.List} containing the {@link ScriptResult} of each piece. If
+	 * any piece failed, the first exception is also stored in the aggregated result.
+	 * </p>
+	 *
+	 * @param contents
+	 *            contents to be executed, see {@link #executeAsync(Object)} for supported types
+	 * @return aggregated execution result
+	 */
+	ScriptResult executeBatch(final Collection<?> contents);
+
 	/**
 	 * Inject script code and execute synchronously. Code passed to this method will be invoked immediately. It might interrupt a currently running execution
 	 * requested asynchronously.
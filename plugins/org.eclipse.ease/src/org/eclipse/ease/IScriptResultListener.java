@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease;
+
+/**
+ * Callback to get notified when a {@link ScriptResult} is ready.
+ */
+public interface IScriptResultListener {
+
+	/**
+	 * Called once the result is ready. Either called from the thread completing the result (typically the script engine thread) or from the thread registering
+	 * the listener in case the result was ready already. Implementations must not block.
+	 *
+	 * @param result
+	 *            completed result
+	 */
+	void resultReady(ScriptResult result);
+}
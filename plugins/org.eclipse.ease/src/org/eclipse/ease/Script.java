@@ -42,6 +42,9 @@ public class Script {
 	/** Interactive/shell originated script piece */
 	private final boolean fIsShell;
 
+	/** Time in nanoseconds when this script got queued for execution, 0 when not queued. Used for execution metrics. */
+	private volatile long fQueuedTime = 0;
+
 	/**
 	 * Constructor.
 	 *
@@ -232,6 +235,22 @@ public class Script {
 		return (getTitle() != null) ? getTitle() : "(unknown script source)";
 	}
 
+	/**
+	 * Remember the time when this script got queued for execution.
+	 */
+	void markQueued() {
+		fQueuedTime = System.nanoTime();
+	}
+
+	/**
+	 * Get the time when this script got queued for execution.
+	 *
+	 * @return {@link System#nanoTime()} of queuing or 0 when not queued
+	 */
+	long getQueuedTime() {
+		return fQueuedTime;
+	}
+
 	/**
 	 * Get the title of this script. Title has to be set by the caller via the constructor. Typically this is used for dynamic code to indicate its purpose. If
 	 * no title is set we try to extract the name of the executed resource.
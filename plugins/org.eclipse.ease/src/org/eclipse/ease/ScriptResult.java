@@ -10,19 +10,34 @@
  *******************************************************************************/
 package org.eclipse.ease;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * A ScriptResult is a container for a script execution. As execution often occurs detached from the System thread, the result object contains an indicator for
  * pending and finished results. Results itself may contain an object or an exception.
+ * <p>
+ * Instead of blocking on a pending result callers may register an {@link IScriptResultListener} or chain further processing on
+ * {@link #toCompletableFuture()}. Threads waiting on the monitor of a result get notified on completion.
+ * </p>
  */
-public class ScriptResult {
+public class ScriptResult implements Future<Object> {
 
 	/** script execution result. */
-	private Object fResult = null;
+	private volatile Object fResult = null;
 
 	/** script execution exception. */
-	private Throwable fException = null;
+	private volatile Throwable fException = null;
+
+	private volatile boolean fIsDone = false;
 
-	private boolean fIsDone = false;
+	/** Listeners to be notified on completion. Set to <code>null</code> once listeners got notified. */
+	private List<IScriptResultListener> fListeners = new ArrayList<IScriptResultListener>();
 
 	/**
 	 * Constructor of a pending execution.
@@ -45,7 +60,7 @@ public class ScriptResult {
 	 *
 	 * @return true when processing is done
 	 */
-	public final synchronized boolean isReady() {
+	public final boolean isReady() {
 		return fIsDone;
 	}
 
@@ -54,7 +69,7 @@ public class ScriptResult {
 	 *
 	 * @return result value
 	 */
-	public final synchronized Object getResult() {
+	public final Object getResult() {
 		return fResult;
 	}
 
@@ -64,10 +79,16 @@ public class ScriptResult {
 	 * @param result
 	 *            object to be stored
 	 */
-	final synchronized void setResult(final Object result) {
-		fResult = result;
-		fIsDone = true;
-		notifyAll();
+	final void setResult(final Object result) {
+		final List<IScriptResultListener> listeners;
+		synchronized (this) {
+			fResult = result;
+			fIsDone = true;
+			listeners = detachListeners();
+			notifyAll();
+		}
+
+		notifyListeners(listeners);
 	}
 
 	/**
@@ -76,10 +97,37 @@ public class ScriptResult {
 	 * @param e
 	 *            exception to be stored
 	 */
-	final synchronized void setException(final Throwable e) {
-		fException = e;
-		fIsDone = true;
-		notifyAll();
+	final void setException(final Throwable e) {
+		final List<IScriptResultListener> listeners;
+		synchronized (this) {
+			fException = e;
+			fIsDone = true;
+			listeners = detachListeners();
+			notifyAll();
+		}
+
+		notifyListeners(listeners);
+	}
+
+	/**
+	 * Set result and exception at once. Used for aggregated results where listeners need to see both values on completion.
+	 *
+	 * @param result
+	 *            object to be stored
+	 * @param e
+	 *            exception to be stored, may be <code>null</code>
+	 */
+	final void complete(final Object result, final Throwable e) {
+		final List<IScriptResultListener> listeners;
+		synchronized (this) {
+			fResult = result;
+			fException = e;
+			fIsDone = true;
+			listeners = detachListeners();
+			notifyAll();
+		}
+
+		notifyListeners(listeners);
 	}
 
 	/**
@@ -87,10 +135,100 @@ public class ScriptResult {
 	 *
 	 * @return stored exception or null
 	 */
-	public final synchronized Throwable getException() {
+	public final Throwable getException() {
 		return fException;
 	}
 
+	/**
+	 * Register a listener to be notified once this result is ready. If the result is ready already, the listener is called immediately from the current thread.
+	 * Listeners are notified only once, even if the result gets updated afterwards.
+	 *
+	 * @param listener
+	 *            listener to be notified
+	 * @return this result to allow for chaining
+	 */
+	public final ScriptResult addListener(final IScriptResultListener listener) {
+		synchronized (this) {
+			if (fListeners != null) {
+				fListeners.add(listener);
+				return this;
+			}
+		}
+
+		// already done
+		listener.resultReady(this);
+		return this;
+	}
+
+	/**
+	 * Get a {@link CompletableFuture} completing together with this result. The future completes exceptionally when the script execution failed.
+	 *
+	 * @return future for this result
+	 */
+	public final CompletableFuture<Object> toCompletableFuture() {
+		final CompletableFuture<Object> future = new CompletableFuture<Object>();
+
+		addListener(new IScriptResultListener() {
+
+			@Override
+			public void resultReady(final ScriptResult result) {
+				if (result.hasException())
+					future.completeExceptionally(result.getException());
+				else
+					future.complete(result.getResult());
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public final Object get() throws InterruptedException, ExecutionException {
+		synchronized (this) {
+			while (!isReady())
+				wait();
+		}
+
+		return getOrThrow();
+	}
+
+	@Override
+	public final Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (this) {
+			while (!isReady()) {
+				final long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					throw new TimeoutException();
+
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+		}
+
+		return getOrThrow();
+	}
+
+	/**
+	 * Script executions cannot be cancelled using their result. Use {@link IScriptEngine#terminateCurrent()} instead.
+	 *
+	 * @return always <code>false</code>
+	 */
+	@Override
+	public final boolean cancel(final boolean mayInterruptIfRunning) {
+		return false;
+	}
+
+	@Override
+	public final boolean isCancelled() {
+		return false;
+	}
+
+	@Override
+	public final boolean isDone() {
+		return isReady();
+	}
+
 	@Override
 	public final String toString() {
 		if (fException != null)
@@ -107,4 +245,34 @@ public class ScriptResult {
 	public final boolean hasException() {
 		return (fException != null);
 	}
+
+	private Object getOrThrow() throws ExecutionException {
+		if (hasException())
+			throw new ExecutionException(getException());
+
+		return getResult();
+	}
+
+	/**
+	 * Detach registered listeners. Needs to be called while holding the monitor of this instance.
+	 *
+	 * @return listeners to be notified or <code>null</code> if listeners were notified already
+	 */
+	private List<IScriptResultListener> detachListeners() {
+		final List<IScriptResultListener> listeners = fListeners;
+		fListeners = null;
+		return listeners;
+	}
+
+	private void notifyListeners(final List<IScriptResultListener> listeners) {
+		if (listeners != null) {
+			for (final IScriptResultListener listener : listeners) {
+				try {
+					listener.resultReady(this);
+				} catch (final Throwable e) {
+					Logger.error(Activator.PLUGIN_ID, "Script result listener failed", e);
+				}
+			}
+		}
+	}
 }
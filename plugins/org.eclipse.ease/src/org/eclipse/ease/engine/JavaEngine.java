@@ -14,6 +14,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URL;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -52,6 +53,11 @@ public class JavaEngine implements IScriptEngine {
 		throw new RuntimeException("not supported");
 	}
 
+	@Override
+	public ScriptResult executeBatch(final Collection<?> contents) {
+		throw new RuntimeException("not supported");
+	}
+
 	@Override
 	public Object inject(final Object content) {
 		throw new RuntimeException("not supported");
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Execution statistics of all engines of one type. Times are stored in nanoseconds.
+ */
+public class EngineStatistics {
+
+	private final String fEngineID;
+
+	private final ConcurrentHashMap<String, ScriptStatistics> fScripts = new ConcurrentHashMap<String, ScriptStatistics>();
+
+	private long fSetups = 0;
+
+	private long fSetupTime = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param engineID
+	 *            engine identifier
+	 */
+	public EngineStatistics(final String engineID) {
+		fEngineID = engineID;
+	}
+
+	/**
+	 * Add a single engine setup.
+	 *
+	 * @param setupTime
+	 *            time spent setting up the engine
+	 */
+	public synchronized void recordSetup(final long setupTime) {
+		fSetups++;
+		fSetupTime += setupTime;
+	}
+
+	/**
+	 * Get statistics for a dedicated script. Statistics get created on first access.
+	 *
+	 * @param name
+	 *            script title or file name
+	 * @return script statistics
+	 */
+	public ScriptStatistics getScriptStatistics(final String name) {
+		ScriptStatistics statistics = fScripts.get(name);
+		if (statistics == null) {
+			statistics = new ScriptStatistics(name);
+			final ScriptStatistics existing = fScripts.putIfAbsent(name, statistics);
+			if (existing != null)
+				statistics = existing;
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * Get statistics of all scripts executed so far.
+	 *
+	 * @return script statistics
+	 */
+	public Collection<ScriptStatistics> getScriptStatistics() {
+		return new ArrayList<ScriptStatistics>(fScripts.values());
+	}
+
+	public String getEngineID() {
+		return fEngineID;
+	}
+
+	public synchronized long getSetups() {
+		return fSetups;
+	}
+
+	public synchronized long getSetupTime() {
+		return fSetupTime;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return fEngineID + ": setups=" + fSetups + ", setup=" + ScriptStatistics.toMillis(fSetupTime) + "ms";
+	}
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ease.Activator;
+import org.eclipse.ease.Logger;
+
+/**
+ * Collects execution metrics of script engines. Statistics are aggregated per engine type and per script title (or file). Recording is disabled by default
+ * and may be enabled by the <i>org.eclipse.ease/debug/metrics</i> trace option or by calling {@link #setEnabled(boolean)}. When a dump interval is set, all
+ * statistics get written to the error log periodically.
+ */
+public final class ExecutionMetrics {
+
+	/** Name used for scripts without title and file. */
+	public static final String ANONYMOUS_SCRIPT = "<anonymous>";
+
+	private static final ExecutionMetrics INSTANCE = new ExecutionMetrics();
+
+	/**
+	 * Get the metrics instance.
+	 *
+	 * @return metrics instance
+	 */
+	public static ExecutionMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	private final ConcurrentHashMap<String, EngineStatistics> fEngines = new ConcurrentHashMap<String, EngineStatistics>();
+
+	private volatile boolean fEnabled;
+
+	private volatile long fDumpInterval = 0;
+
+	private final Job fDumpJob = new Job("Dump script execution metrics") {
+
+		@Override
+		protected IStatus run(final IProgressMonitor monitor) {
+			Logger.info(Activator.PLUGIN_ID, dump());
+
+			final long interval = fDumpInterval;
+			if (interval > 0)
+				schedule(interval);
+
+			return Status.OK_STATUS;
+		}
+	};
+
+	private ExecutionMetrics() {
+		fEnabled = isTraceEnabled("org.eclipse.ease/debug/metrics");
+		fDumpJob.setSystem(true);
+
+		if (fEnabled) {
+			try {
+				setDumpInterval(TimeUnit.SECONDS.toMillis(Long.parseLong(Platform.getDebugOption("org.eclipse.ease/debug/metrics/dumpInterval"))));
+			} catch (final NumberFormatException e) {
+				// no valid dump interval, keep periodic dumps disabled
+			}
+		}
+	}
+
+	private static boolean isTraceEnabled(final String option) {
+		return (Activator.getDefault() != null) && (Activator.getDefault().isDebugging()) && ("true".equalsIgnoreCase(Platform.getDebugOption(option)));
+	}
+
+	/**
+	 * Check whether metrics get recorded. Engines query this flag before taking any measurements.
+	 *
+	 * @return <code>true</code> when recording is enabled
+	 */
+	public boolean isEnabled() {
+		return fEnabled;
+	}
+
+	/**
+	 * Enable or disable recording. Already recorded statistics are kept.
+	 *
+	 * @param enabled
+	 *            <code>true</code> to record metrics
+	 */
+	public void setEnabled(final boolean enabled) {
+		fEnabled = enabled;
+	}
+
+	/**
+	 * Set the interval for periodic dumps to the error log.
+	 *
+	 * @param interval
+	 *            dump interval in milliseconds, 0 to disable periodic dumps
+	 */
+	public void setDumpInterval(final long interval) {
+		fDumpInterval = interval;
+
+		fDumpJob.cancel();
+		if (interval > 0)
+			fDumpJob.schedule(interval);
+	}
+
+	/**
+	 * Record the setup of an engine.
+	 *
+	 * @param engineID
+	 *            engine identifier
+	 * @param setupTime
+	 *            setup time in nanoseconds
+	 */
+	public void recordSetup(final String engineID, final long setupTime) {
+		getEngineStatistics(engineID).recordSetup(setupTime);
+	}
+
+	/**
+	 * Record a single script execution. All times are given in nanoseconds.
+	 *
+	 * @param engineID
+	 *            engine identifier
+	 * @param scriptName
+	 *            script title or file name, <code>null</code> for anonymous scripts
+	 * @param queueWaitTime
+	 *            time the script waited in the engine queue, 0 for injected code
+	 * @param executionTime
+	 *            time spent executing the script
+	 * @param listenerTime
+	 *            time spent notifying execution listeners
+	 * @param codeLength
+	 *            length of the script code in characters
+	 * @param failed
+	 *            <code>true</code> when the execution raised an exception
+	 */
+	public void recordExecution(final String engineID, final String scriptName, final long queueWaitTime, final long executionTime, final long listenerTime,
+			final long codeLength, final boolean failed) {
+		getEngineStatistics(engineID).getScriptStatistics((scriptName != null) ? scriptName : ANONYMOUS_SCRIPT).record(queueWaitTime, executionTime,
+				listenerTime, codeLength, failed);
+	}
+
+	/**
+	 * Get statistics of a dedicated engine type. Statistics get created on first access.
+	 *
+	 * @param engineID
+	 *            engine identifier
+	 * @return engine statistics
+	 */
+	public EngineStatistics getEngineStatistics(final String engineID) {
+		EngineStatistics statistics = fEngines.get(engineID);
+		if (statistics == null) {
+			statistics = new EngineStatistics(engineID);
+			final EngineStatistics existing = fEngines.putIfAbsent(engineID, statistics);
+			if (existing != null)
+				statistics = existing;
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * Get statistics of all engine types recorded so far.
+	 *
+	 * @return engine statistics
+	 */
+	public Collection<EngineStatistics> getEngineStatistics() {
+		return new ArrayList<EngineStatistics>(fEngines.values());
+	}
+
+	/**
+	 * Discard all recorded statistics.
+	 */
+	public void reset() {
+		fEngines.clear();
+	}
+
+	/**
+	 * Create a textual report of all statistics. Scripts are sorted by their total execution time, slowest first.
+	 *
+	 * @return metrics report
+	 */
+	public String dump() {
+		final StringBuilder report = new StringBuilder("Script execution metrics\n");
+
+		for (final EngineStatistics engine : getEngineStatistics()) {
+			report.append(engine).append('\n');
+
+			final List<ScriptStatistics> scripts = new ArrayList<ScriptStatistics>(engine.getScriptStatistics());
+			Collections.sort(scripts, new Comparator<ScriptStatistics>() {
+
+				@Override
+				public int compare(final ScriptStatistics o1, final ScriptStatistics o2) {
+					return Long.compare(o2.getExecutionTime(), o1.getExecutionTime());
+				}
+			});
+
+			for (final ScriptStatistics script : scripts)
+				report.append('\t').append(script).append('\n');
+		}
+
+		return report.toString();
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated execution statistics of all scripts sharing the same title (or file) on one engine type. Times are stored in nanoseconds.
+ */
+public class ScriptStatistics {
+
+	private final String fName;
+
+	private long fExecutions = 0;
+
+	private long fExceptions = 0;
+
+	private long fQueueWaitTime = 0;
+
+	private long fMaxQueueWaitTime = 0;
+
+	private long fExecutionTime = 0;
+
+	private long fMaxExecutionTime = 0;
+
+	private long fListenerTime = 0;
+
+	private long fCodeLength = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            script title or file name
+	 */
+	public ScriptStatistics(final String name) {
+		fName = name;
+	}
+
+	/**
+	 * Add a single script execution.
+	 *
+	 * @param queueWaitTime
+	 *            time the script waited in the engine queue, 0 for injected code
+	 * @param executionTime
+	 *            time spent executing the script
+	 * @param listenerTime
+	 *            time spent notifying execution listeners
+	 * @param codeLength
+	 *            length of the script code in characters
+	 * @param failed
+	 *            <code>true</code> when the execution raised an exception
+	 */
+	public synchronized void record(final long queueWaitTime, final long executionTime, final long listenerTime, final long codeLength, final boolean failed) {
+		fExecutions++;
+		if (failed)
+			fExceptions++;
+
+		fQueueWaitTime += queueWaitTime;
+		fMaxQueueWaitTime = Math.max(fMaxQueueWaitTime, queueWaitTime);
+		fExecutionTime += executionTime;
+		fMaxExecutionTime = Math.max(fMaxExecutionTime, executionTime);
+		fListenerTime += listenerTime;
+		fCodeLength += codeLength;
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	public synchronized long getExecutions() {
+		return fExecutions;
+	}
+
+	public synchronized long getExceptions() {
+		return fExceptions;
+	}
+
+	public synchronized long getQueueWaitTime() {
+		return fQueueWaitTime;
+	}
+
+	public synchronized long getMaxQueueWaitTime() {
+		return fMaxQueueWaitTime;
+	}
+
+	public synchronized long getExecutionTime() {
+		return fExecutionTime;
+	}
+
+	public synchronized long getMaxExecutionTime() {
+		return fMaxExecutionTime;
+	}
+
+	public synchronized long getListenerTime() {
+		return fListenerTime;
+	}
+
+	public synchronized long getCodeLength() {
+		return fCodeLength;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return fName + ": executions=" + fExecutions + ", exceptions=" + fExceptions + ", execution=" + toMillis(fExecutionTime) + "ms (max "
+				+ toMillis(fMaxExecutionTime) + "ms), queueWait=" + toMillis(fQueueWaitTime) + "ms (max " + toMillis(fMaxQueueWaitTime) + "ms), listeners="
+				+ toMillis(fListenerTime) + "ms, code=" + fCodeLength + " chars";
+	}
+
+	static long toMillis(final long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
@@ -13,8 +13,6 @@ package org.eclipse.ease.modules;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -106,17 +104,7 @@ public abstract class AbstractCodeFactory implements ICodeFactory {
 	}
 
 	public static Collection<String> getMethodNames(final Method method) {
-		final Set<String> methodNames = new HashSet<String>();
-		methodNames.add(method.getName());
-
-		final WrapToScript wrapAnnotation = method.getAnnotation(WrapToScript.class);
-		if (wrapAnnotation != null) {
-			for (final String name : wrapAnnotation.alias().split(WrapToScript.DELIMITER))
-				if (!name.trim().isEmpty())
-					methodNames.add(name.trim());
-		}
-
-		return methodNames;
+		return ModuleHelper.getNames(method);
 	}
 
 	public static String getPreExecutionCode(final IEnvironment environment, final Method method) {
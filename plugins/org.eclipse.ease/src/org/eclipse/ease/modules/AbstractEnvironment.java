@@ -14,12 +14,15 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.ease.IScriptEngine;
@@ -49,6 +52,20 @@ public abstract class AbstractEnvironment extends AbstractScriptModule implement
 	@Override
 	@WrapToScript
 	public final Object loadModule(final String identifier) {
+		return loadModule(identifier, false);
+	}
+
+	/**
+	 * Load a module or bring an already loaded module to the top of the module stack.
+	 *
+	 * @param identifier
+	 *            name of module to load
+	 * @param dependency
+	 *            <code>true</code> when loaded as a dependency of another module. Already loaded dependencies are only wrapped again when their functions
+	 *            are hidden by modules on top of them
+	 * @return loaded module instance
+	 */
+	private Object loadModule(final String identifier, final boolean dependency) {
 		// resolve identifier
 		final String moduleName = ModuleHelper.resolveName(identifier);
 
@@ -70,7 +87,7 @@ public abstract class AbstractEnvironment extends AbstractScriptModule implement
 						throw new RuntimeException("Could not resolve module dependency \"" + dependencyId + "\"");
 
 					try {
-						loadModule(requiredModule.getPath().toString());
+						loadModule(requiredModule.getPath().toString(), true);
 					} catch (final RuntimeException e) {
 						throw new RuntimeException("Could not load module dependency \"" + requiredModule.getPath().toString() + "\"", e);
 					}
@@ -89,16 +106,19 @@ public abstract class AbstractEnvironment extends AbstractScriptModule implement
 				// we need to track this module already as we need it in case we want to manipulate functions of already loaded modules
 				fModules.add(module);
 
-				// scripts changing functions force reloading of the whole module stack
-				if (module instanceof IScriptFunctionModifier) {
-					final List<Object> reverseList = new ArrayList<Object>(fModules);
-					Collections.reverse(reverseList);
+				// scripts changing functions force reloading of all functions they modify
+				if (module instanceof IScriptFunctionModifier)
+					updateModifiedFunctions((IScriptFunctionModifier) module);
 
-					for (final Object loadedModule : reverseList)
-						wrap(loadedModule);
-				}
 			} else
 				throw new RuntimeException("Could not find module \"" + identifier + "\"");
+
+		} else if ((dependency) && (!isHidden(module))) {
+			// dependency is already loaded and its functions are not hidden by other modules, only update the module order
+			fModules.remove(module);
+			fModules.add(0, module);
+
+			return module;
 		}
 
 		// first take care that module is tracked as it might modify itself implementing IScriptFunctionModifier
@@ -112,6 +132,94 @@ public abstract class AbstractEnvironment extends AbstractScriptModule implement
 		return module;
 	}
 
+	/**
+	 * Check whether functions of a loaded module are hidden by functions of modules placed on top of it in the module stack.
+	 *
+	 * @param module
+	 *            loaded module
+	 * @return <code>true</code> when at least one function name is also used by a module on top of the given one
+	 */
+	private boolean isHidden(final Object module) {
+		final int index = fModules.indexOf(module);
+		if (index <= 0)
+			return false;
+
+		final Set<String> names = new HashSet<String>();
+		for (final Method method : ModuleHelper.getMethods(module.getClass()))
+			names.addAll(ModuleHelper.getNames(method));
+
+		for (final Object upperModule : fModules.subList(0, index)) {
+			for (final Method method : ModuleHelper.getMethods(upperModule.getClass())) {
+				if (!Collections.disjoint(names, ModuleHelper.getNames(method)))
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Regenerate functions of loaded modules that get modified by a newly loaded {@link IScriptFunctionModifier}. Only functions receiving pre or post
+	 * execution code from the modifier are updated. Functions sharing a name with a modified function are updated too, so the module stack order is preserved.
+	 *
+	 * @param modifier
+	 *            newly loaded modifier, already tracked in the module stack
+	 */
+	private void updateModifiedFunctions(final IScriptFunctionModifier modifier) {
+		// detect function names affected by the modifier
+		final Set<String> modifiedNames = new HashSet<String>();
+		for (final Object loadedModule : fModules) {
+			if (loadedModule != modifier) {
+				for (final Method method : ModuleHelper.getMethods(loadedModule.getClass())) {
+					if (isModified(modifier, method))
+						modifiedNames.addAll(ModuleHelper.getNames(method));
+				}
+			}
+		}
+
+		if (modifiedNames.isEmpty())
+			return;
+
+		// update functions starting at the bottom of the module stack, so upper modules keep precedence
+		final List<Object> reverseList = new ArrayList<Object>(fModules);
+		Collections.reverse(reverseList);
+
+		for (final Object loadedModule : reverseList) {
+			if (loadedModule != modifier) {
+				final List<Method> methods = new ArrayList<Method>();
+				for (final Method method : ModuleHelper.getMethods(loadedModule.getClass())) {
+					if (!Collections.disjoint(modifiedNames, ModuleHelper.getNames(method)))
+						methods.add(method);
+				}
+
+				if (!methods.isEmpty())
+					wrapFunctions(loadedModule, methods);
+			}
+		}
+	}
+
+	private static boolean isModified(final IScriptFunctionModifier modifier, final Method method) {
+		final String preExecutionCode = modifier.getPreExecutionCode(method);
+		if ((preExecutionCode != null) && (!preExecutionCode.isEmpty()))
+			return true;
+
+		final String postExecutionCode = modifier.getPostExecutionCode(method);
+		return (postExecutionCode != null) && (!postExecutionCode.isEmpty());
+	}
+
+	/**
+	 * Regenerate function wrappers for some methods of an already wrapped module. Called when a newly loaded {@link IScriptFunctionModifier} changes the code
+	 * of these functions. The default implementation wraps the whole module again.
+	 *
+	 * @param module
+	 *            already wrapped module
+	 * @param methods
+	 *            methods to regenerate wrappers for
+	 */
+	protected void wrapFunctions(final Object module, final Collection<Method> methods) {
+		wrap(module);
+	}
+
 	@Override
 	public void initialize(final IScriptEngine engine, final IEnvironment environment) {
 		super.initialize(engine, environment);
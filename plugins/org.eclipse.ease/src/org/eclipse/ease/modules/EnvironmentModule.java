@@ -16,6 +16,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IFile;
@@ -71,6 +72,42 @@ public class EnvironmentModule extends AbstractEnvironment {
 		fireModuleEvent(toBeWrapped, reloaded ? IModuleListener.RELOADED : IModuleListener.LOADED);
 	}
 
+	/**
+	 * Regenerate function wrappers for some methods of an already wrapped module. Only the given functions are created and injected into the script engine.
+	 *
+	 * @param module
+	 *            already wrapped module
+	 * @param methods
+	 *            methods to regenerate wrappers for
+	 */
+	@Override
+	protected void wrapFunctions(final Object module, final Collection<Method> methods) {
+		final ICodeFactory codeFactory = getCodeFactory();
+		if (null == codeFactory)
+			return;
+
+		final String identifier = getScriptEngine().getSaveVariableName(getWrappedVariableName(module));
+
+		Logger.trace(Activator.PLUGIN_ID, ICodeFactory.TRACE_MODULE_WRAPPER, "updating " + methods.size() + " functions of object: " + module.toString());
+
+		final StringBuilder scriptCode = new StringBuilder();
+		for (final Method method : methods) {
+			final String code = codeFactory.createFunctionWrapper(this, identifier, method);
+
+			if ((code != null) && !code.isEmpty()) {
+				scriptCode.append(code);
+				scriptCode.append('\n');
+			}
+		}
+
+		if (scriptCode.length() > 0) {
+			getScriptEngine().inject(new Script("Wrapper(" + module.getClass().getSimpleName() + ")", scriptCode));
+
+			// notify listeners
+			fireModuleEvent(module, IModuleListener.RELOADED);
+		}
+	}
+
 	public static final String getWrappedVariableName(final Object toBeWrapped) {
 		return (MODULE_PREFIX + toBeWrapped.getClass().getName()).replace('.', '_');
 	}
@@ -93,15 +130,10 @@ public class EnvironmentModule extends AbstractEnvironment {
 		if (null == codeFactory)
 			return;
 
-		// create wrappers for methods
-		for (final Method method : ModuleHelper.getMethods(instance.getClass())) {
-			final String code = codeFactory.createFunctionWrapper(this, identifier, method);
-
-			if ((code != null) && !code.isEmpty()) {
-				scriptCode.append(code);
-				scriptCode.append('\n');
-			}
-		}
+		// create wrappers for methods, injected separately from field wrappers so engines may reuse compiled code
+		final String functionCode = WrapperCodeCache.getFunctionWrappers(codeFactory, this, instance.getClass(), identifier);
+		if (!functionCode.isEmpty())
+			getScriptEngine().inject(new Script("Wrapper(" + instance.getClass().getSimpleName() + ")", functionCode));
 
 		// create wrappers for final fields
 		if (!reload) {
@@ -129,7 +161,8 @@ public class EnvironmentModule extends AbstractEnvironment {
 		}
 
 		// execute code
-		getScriptEngine().inject(new Script("Wrapper(" + instance.getClass().getSimpleName() + ")", scriptCode));
+		if (scriptCode.length() > 0)
+			getScriptEngine().inject(new Script("Wrapper(" + instance.getClass().getSimpleName() + ")", scriptCode));
 	}
 
 	/**
@@ -342,17 +375,7 @@ public class EnvironmentModule extends AbstractEnvironment {
 	 * @return <code>true</code> on match
 	 */
 	private boolean matchesField(final Field field, final String name) {
-		if (name.equalsIgnoreCase(field.getName()))
-			return true;
-
-		final WrapToScript wrapAnnotation = field.getAnnotation(WrapToScript.class);
-		if (wrapAnnotation != null) {
-			for (final String alias : wrapAnnotation.alias().split(WrapToScript.DELIMITER))
-				if (name.equalsIgnoreCase(alias.trim()))
-					return true;
-		}
-
-		return false;
+		return matchesName(ModuleHelper.getNames(field), name);
 	}
 
 	/**
@@ -365,14 +388,13 @@ public class EnvironmentModule extends AbstractEnvironment {
 	 * @return <code>true</code> on match
 	 */
 	private boolean matchesMethod(final Method method, final String name) {
-		if (name.equalsIgnoreCase(method.getName()))
-			return true;
+		return matchesName(ModuleHelper.getNames(method), name);
+	}
 
-		final WrapToScript wrapAnnotation = method.getAnnotation(WrapToScript.class);
-		if (wrapAnnotation != null) {
-			for (final String alias : wrapAnnotation.alias().split(WrapToScript.DELIMITER))
-				if (name.equalsIgnoreCase(alias.trim()))
-					return true;
+	private static boolean matchesName(final Collection<String> names, final String name) {
+		for (final String candidate : names) {
+			if (name.equalsIgnoreCase(candidate))
+				return true;
 		}
 
 		return false;
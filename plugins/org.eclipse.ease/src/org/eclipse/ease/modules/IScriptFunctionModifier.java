@@ -43,4 +43,14 @@ public interface IScriptFunctionModifier {
 	 * @return script code to be inserted after method call
 	 */
 	String getPostExecutionCode(Method method);
+
+	/**
+	 * Get the version of the code provided by this modifier. Generated function wrappers are cached per modifier instance and version, so the version needs
+	 * to change whenever {@link #getPreExecutionCode(Method)} or {@link #getPostExecutionCode(Method)} return different code than before.
+	 *
+	 * @return code version
+	 */
+	default int getCodeVersion() {
+		return 0;
+	}
 }
@@ -70,12 +70,7 @@ public class ModuleDefinition {
 	 */
 	public static ModuleDefinition getDefinition(final Object module) {
 		final IScriptService scriptService = (IScriptService) PlatformUI.getWorkbench().getService(IScriptService.class);
-		for (final ModuleDefinition definition : scriptService.getAvailableModules().values()) {
-			if (definition.getModuleClass().equals(module.getClass()))
-				return definition;
-		}
-
-		return null;
+		return scriptService.getModuleRegistry().getDefinition(module.getClass());
 	}
 
 	/** Main configuration element for module. */
@@ -83,6 +78,9 @@ public class ModuleDefinition {
 
 	private IPath fPath = null;
 
+	/** Resolved module class. */
+	private Class<?> fModuleClass = null;
+
 	public ModuleDefinition(final IConfigurationElement config) {
 		fConfig = config;
 	}
@@ -111,11 +109,18 @@ public class ModuleDefinition {
 	 * @return class definition of module contribution
 	 */
 	public Class<?> getModuleClass() {
+		if (fModuleClass == null)
+			fModuleClass = loadModuleClass();
+
+		return fModuleClass;
+	}
+
+	private Class<?> loadModuleClass() {
 		final Bundle bundle = Platform.getBundle(fConfig.getDeclaringExtension().getContributor().getName());
 		if (bundle != null) {
 			try {
 				final String className = fConfig.getAttribute(CLASS);
-				return Platform.getBundle(fConfig.getDeclaringExtension().getContributor().getName()).loadClass(className);
+				return bundle.loadClass(className);
 			} catch (final InvalidRegistryObjectException e) {
 				// ignore
 			} catch (final ClassNotFoundException e) {
@@ -126,7 +131,7 @@ public class ModuleDefinition {
 		// we could not locate the class, try to create instance
 		final Object instance = createModuleInstance();
 		if (instance != null)
-			return createModuleInstance().getClass();
+			return instance.getClass();
 
 		return null;
 	}
@@ -22,12 +22,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.ease.ICodeFactory.Parameter;
 import org.eclipse.ease.IScriptEngine;
-import org.eclipse.ease.service.IScriptService;
 import org.eclipse.ease.service.ScriptService;
 
 public final class ModuleHelper {
@@ -36,74 +37,105 @@ public final class ModuleHelper {
 	private ModuleHelper() {
 	}
 
+	/**
+	 * Reflective metadata of a module class. Computed once per class and shared by all engines, code factories and help providers.
+	 */
+	private static class ClassMetadata {
+
+		private final List<Method> fMethods;
+
+		private final List<Field> fFields;
+
+		private final Map<Method, List<Parameter>> fParameters = new ConcurrentHashMap<Method, List<Parameter>>();
+
+		private final Map<AccessibleObject, Collection<String>> fNames = new ConcurrentHashMap<AccessibleObject, Collection<String>>();
+
+		public ClassMetadata(final Class<?> clazz) {
+			final Method[] allMethods = clazz.getMethods();
+			final Field[] declaredFields = clazz.getDeclaredFields();
+			final boolean wrapping = hasWrapToScript(allMethods, declaredFields);
+
+			final List<Method> methods = new ArrayList<Method>();
+			for (final Method method : allMethods) {
+				if ((Modifier.isPublic(method.getModifiers()) && (!wrapping || method.isAnnotationPresent(WrapToScript.class)))) {
+
+					// ignore methods from java.lang.Object
+					if (Object.class.equals(method.getDeclaringClass()))
+						continue;
+
+					methods.add(method);
+				}
+			}
+			fMethods = Collections.unmodifiableList(methods);
+
+			final List<Field> fields = new ArrayList<Field>();
+			if (declaredFields.length > 0) {
+				for (final Field field : clazz.getFields()) {
+					if ((Modifier.isFinal(field.getModifiers()))
+							&& (Modifier.isPublic(field.getModifiers()) && (!wrapping || field.isAnnotationPresent(WrapToScript.class))))
+						fields.add(field);
+				}
+			}
+			fFields = Collections.unmodifiableList(fields);
+		}
+	}
+
+	/** Per class metadata cache. Entries are bound to the lifetime of their class, so unloaded bundles do not leak. */
+	private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+
+		@Override
+		protected ClassMetadata computeValue(final Class<?> type) {
+			return new ClassMetadata(type);
+		}
+	};
+
 	/**
 	 * Returns a list of exported methods. Any public method marked by a @WrapToScript annotation is exported. If no annotations are found all public methods
-	 * are returned.
+	 * are returned. Results are cached per class, the returned list must not be modified.
 	 *
 	 * @param clazz
 	 *            class to be evaluated
 	 * @return list of methods
 	 */
 	public static List<Method> getMethods(final Class<?> clazz) {
-
-		if ((clazz == null) || (clazz.getMethods().length == 0))
+		if (clazz == null)
 			return Collections.emptyList();
 
-		final List<Method> methods = new ArrayList<Method>();
-		final boolean wrapping = ModuleHelper.hasWrapToScript(clazz);
-		for (final Method method : clazz.getMethods()) {
-			if ((Modifier.isPublic(method.getModifiers()) && (!wrapping || method.isAnnotationPresent(WrapToScript.class)))) {
-
-				// ignore methods from java.lang.Object
-				if (Object.class.equals(method.getDeclaringClass()))
-					continue;
-
-				methods.add(method);
-			}
-		}
-
-		return methods;
+		return METADATA.get(clazz).fMethods;
 	}
 
 	/**
 	 * Returns a List of exported fields. Any public final field marked by a @WrapToScript annotation is exported. If no annotations are found all public final
-	 * fields are returned.
+	 * fields are returned. Results are cached per class, the returned list must not be modified.
 	 *
 	 * @param clazz
 	 *            Class to be evaluated
 	 * @return List of Fields
 	 */
 	public static List<Field> getFields(final Class<?> clazz) {
-
-		if ((clazz == null) || (clazz.getDeclaredFields().length == 0))
+		if (clazz == null)
 			return Collections.emptyList();
 
-		final List<Field> fields = new ArrayList<Field>();
-		final boolean wrapping = ModuleHelper.hasWrapToScript(clazz);
-		for (final Field field : clazz.getFields()) {
-			if ((Modifier.isFinal(field.getModifiers()))
-					&& (Modifier.isPublic(field.getModifiers()) && (!wrapping || field.isAnnotationPresent(WrapToScript.class))))
-				fields.add(field);
-		}
-
-		return fields;
+		return METADATA.get(clazz).fFields;
 	}
 
 	/**
 	 * Returns if the Class to be evaluated contains {@link WrapToScript} annotations.
 	 *
-	 * @param clazz
-	 *            class to be evaluated
+	 * @param methods
+	 *            public methods of the class
+	 * @param declaredFields
+	 *            declared fields of the class
 	 * @return <code>true</code> when clazz contains {@link WrapToScript} annotations
 	 */
-	private static boolean hasWrapToScript(final Class<?> clazz) {
+	private static boolean hasWrapToScript(final Method[] methods, final Field[] declaredFields) {
 
-		for (final Field field : clazz.getDeclaredFields()) {
+		for (final Field field : declaredFields) {
 			if (field.isAnnotationPresent(WrapToScript.class))
 				return true;
 		}
 
-		for (final Method method : clazz.getMethods()) {
+		for (final Method method : methods) {
 			if (method.isAnnotationPresent(WrapToScript.class))
 				return true;
 		}
@@ -111,6 +143,64 @@ public final class ModuleHelper {
 		return false;
 	}
 
+	/**
+	 * Get the script names of a method or field. Contains the java name and all aliases defined by {@link WrapToScript#alias()}. Results are cached, the
+	 * returned collection must not be modified.
+	 *
+	 * @param declaringClass
+	 *            class declaring the element
+	 * @param element
+	 *            {@link Method} or {@link Field} to query
+	 * @param name
+	 *            java name of the element
+	 * @return names of the element
+	 */
+	private static Collection<String> getNames(final Class<?> declaringClass, final AccessibleObject element, final String name) {
+		final Map<AccessibleObject, Collection<String>> cache = METADATA.get(declaringClass).fNames;
+
+		Collection<String> names = cache.get(element);
+		if (names == null) {
+			final Set<String> elementNames = new HashSet<String>();
+			elementNames.add(name);
+
+			final WrapToScript wrapAnnotation = element.getAnnotation(WrapToScript.class);
+			if (wrapAnnotation != null) {
+				for (final String alias : wrapAnnotation.alias().split(WrapToScript.DELIMITER))
+					if (!alias.trim().isEmpty())
+						elementNames.add(alias.trim());
+			}
+
+			names = Collections.unmodifiableSet(elementNames);
+			cache.put(element, names);
+		}
+
+		return names;
+	}
+
+	/**
+	 * Get the script names of a method. Contains the method name and all aliases defined by {@link WrapToScript#alias()}. Results are cached, the returned
+	 * collection must not be modified.
+	 *
+	 * @param method
+	 *            method to query
+	 * @return method names
+	 */
+	public static Collection<String> getNames(final Method method) {
+		return getNames(method.getDeclaringClass(), method, method.getName());
+	}
+
+	/**
+	 * Get the script names of a field. Contains the field name and all aliases defined by {@link WrapToScript#alias()}. Results are cached, the returned
+	 * collection must not be modified.
+	 *
+	 * @param field
+	 *            field to query
+	 * @return field names
+	 */
+	public static Collection<String> getNames(final Field field) {
+		return getNames(field.getDeclaringClass(), field, field.getName());
+	}
+
 	/**
 	 * Resolve a relative module name to its absolute name. When only the last part of a module name is provided (without path), this method tries to locate the
 	 * module and returns its absolute path. If 2 modules with the same name are detected, a {@link RuntimeException} is thrown.
@@ -120,33 +210,29 @@ public final class ModuleHelper {
 	 * @return absolute module name
 	 */
 	public static String resolveName(final String identifier) {
-		final IScriptService scriptService = ScriptService.getService();
-		final Map<String, ModuleDefinition> availableModules = scriptService.getAvailableModules();
+		final ModuleRegistry registry = ScriptService.getService().getModuleRegistry();
 
 		// check for absolute path
 		if (identifier.startsWith("/")) {
 
 			// check for valid, absolute path
-			if (availableModules.containsKey(identifier))
+			if (registry.getDefinitionByPath(identifier) != null)
 				return identifier;
 
 			// path is already absolute, module does not exist
 			return null;
 		}
 
-		IPath searchPath = new Path(identifier);
+		final IPath searchPath = new Path(identifier);
 		if ((searchPath.segmentCount() == 1) && (!searchPath.isAbsolute())) {
 			// only module name given
-			for (final Entry<String, ModuleDefinition> module : availableModules.entrySet()) {
-				if (new Path(module.getKey()).lastSegment().equals(identifier)) {
-					// candidate detected
-					if (searchPath.isAbsolute())
-						// we already had one candidate, name is ambiguous
-						throw new RuntimeException("Module identifier \"" + identifier + "\" is ambiguous. Use full path name to load.");
-
-					searchPath = module.getValue().getPath();
-				}
-			}
+			final List<ModuleDefinition> candidates = registry.getDefinitionsByName(identifier);
+			if (candidates.size() > 1)
+				// name is ambiguous
+				throw new RuntimeException("Module identifier \"" + identifier + "\" is ambiguous. Use full path name to load.");
+
+			if (candidates.size() == 1)
+				return candidates.get(0).getPath().toString();
 		}
 
 		return searchPath.toString();
@@ -163,25 +249,40 @@ public final class ModuleHelper {
 		final Collection<ModuleDefinition> modules = new HashSet<ModuleDefinition>();
 
 		// statically access service as workbench is not available in headless mode
-		final IScriptService scriptService = ScriptService.getService();
+		final ModuleRegistry registry = ScriptService.getService().getModuleRegistry();
 
 		for (final Entry<String, Object> entry : engine.getVariables().entrySet()) {
 			if (entry.getKey().startsWith(EnvironmentModule.MODULE_PREFIX)) {
-				final Class<? extends Object> moduleClass = entry.getValue().getClass();
-
-				for (final ModuleDefinition definition : scriptService.getAvailableModules().values()) {
-					if (definition.getModuleClass().equals(moduleClass)) {
-						modules.add(definition);
-						break;
-					}
-				}
+				final ModuleDefinition definition = registry.getDefinition(entry.getValue().getClass());
+				if (definition != null)
+					modules.add(definition);
 			}
 		}
 
 		return modules;
 	}
 
+	/**
+	 * Get the script parameters of a method. Parameter names, optional flags and default values are read from {@link ScriptParameter} annotations. Results are
+	 * cached, neither the returned list nor its parameters must be modified.
+	 *
+	 * @param method
+	 *            method to query
+	 * @return method parameters
+	 */
 	public static List<Parameter> getParameters(final Method method) {
+		final Map<Method, List<Parameter>> cache = METADATA.get(method.getDeclaringClass()).fParameters;
+
+		List<Parameter> parameters = cache.get(method);
+		if (parameters == null) {
+			parameters = Collections.unmodifiableList(parseParameters(method));
+			cache.put(method, parameters);
+		}
+
+		return parameters;
+	}
+
+	private static List<Parameter> parseParameters(final Method method) {
 		final ArrayList<Parameter> parameters = new ArrayList<Parameter>();
 
 		for (int index = 0; index < method.getParameterTypes().length; index++) {
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.modules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of module definitions. Allows to look up modules by their full path, their id, their name (last path segment) and their implementing
+ * class. Indices are built once on creation, so module classes get resolved only once.
+ */
+public class ModuleRegistry {
+
+	/** Modules by full path. */
+	private final Map<String, ModuleDefinition> fByPath;
+
+	/** Modules by id. */
+	private final Map<String, ModuleDefinition> fById;
+
+	/** Modules by name, names might not be unique. */
+	private final Map<String, List<ModuleDefinition>> fByName;
+
+	/** Modules by implementing class. */
+	private final Map<Class<?>, ModuleDefinition> fByClass;
+
+	/**
+	 * Constructor. Definitions without a module class are expected to be filtered by the caller.
+	 *
+	 * @param definitions
+	 *            module definitions to index
+	 */
+	public ModuleRegistry(final Collection<ModuleDefinition> definitions) {
+		final Map<String, ModuleDefinition> byPath = new HashMap<String, ModuleDefinition>();
+		final Map<String, ModuleDefinition> byId = new HashMap<String, ModuleDefinition>();
+		final Map<String, List<ModuleDefinition>> byName = new HashMap<String, List<ModuleDefinition>>();
+		final Map<Class<?>, ModuleDefinition> byClass = new HashMap<Class<?>, ModuleDefinition>();
+
+		for (final ModuleDefinition definition : definitions) {
+			byPath.put(definition.getPath().toString(), definition);
+
+			if (!byId.containsKey(definition.getId()))
+				byId.put(definition.getId(), definition);
+
+			final String name = definition.getPath().lastSegment();
+			List<ModuleDefinition> namedDefinitions = byName.get(name);
+			if (namedDefinitions == null) {
+				namedDefinitions = new ArrayList<ModuleDefinition>(1);
+				byName.put(name, namedDefinitions);
+			}
+			namedDefinitions.add(definition);
+
+			final Class<?> moduleClass = definition.getModuleClass();
+			if ((moduleClass != null) && (!byClass.containsKey(moduleClass)))
+				byClass.put(moduleClass, definition);
+		}
+
+		for (final Map.Entry<String, List<ModuleDefinition>> entry : byName.entrySet())
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+
+		fByPath = Collections.unmodifiableMap(byPath);
+		fById = Collections.unmodifiableMap(byId);
+		fByName = Collections.unmodifiableMap(byName);
+		fByClass = Collections.unmodifiableMap(byClass);
+	}
+
+	/**
+	 * Get all modules. Keys contain the full module name, values contain its descriptor.
+	 *
+	 * @return unmodifiable map of modules
+	 */
+	public Map<String, ModuleDefinition> getDefinitions() {
+		return fByPath;
+	}
+
+	/**
+	 * Get the module with a given full path.
+	 *
+	 * @param path
+	 *            full module path
+	 * @return module definition or <code>null</code>
+	 */
+	public ModuleDefinition getDefinitionByPath(final String path) {
+		return fByPath.get(path);
+	}
+
+	/**
+	 * Get the module with a given id.
+	 *
+	 * @param id
+	 *            module id
+	 * @return module definition or <code>null</code>
+	 */
+	public ModuleDefinition getDefinitionById(final String id) {
+		return fById.get(id);
+	}
+
+	/**
+	 * Get all modules with a given name. The name is the last segment of the module path.
+	 *
+	 * @param name
+	 *            module name
+	 * @return unmodifiable list of modules, empty when no module matches
+	 */
+	public List<ModuleDefinition> getDefinitionsByName(final String name) {
+		final List<ModuleDefinition> definitions = fByName.get(name);
+		return (definitions != null) ? definitions : Collections.<ModuleDefinition> emptyList();
+	}
+
+	/**
+	 * Get the module implemented by a given class.
+	 *
+	 * @param moduleClass
+	 *            module class
+	 * @return module definition or <code>null</code>
+	 */
+	public ModuleDefinition getDefinition(final Class<?> moduleClass) {
+		return fByClass.get(moduleClass);
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.modules;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.ease.ICodeFactory;
+import org.eclipse.ease.tools.BoundedCache;
+
+/**
+ * Cache for generated function wrapper code. Wrapper code only depends on the code factory, the module class, the module variable name and the
+ * {@link IScriptFunctionModifier} modules loaded in the environment, so it can be shared by all engines using the same code factory.
+ * <p>
+ * Cached code is returned as identical strings, which allows engines caching compiled scripts to skip compilation when loading a module into a fresh engine.
+ * Function modifiers are identified by their instance and {@link IScriptFunctionModifier#getCodeVersion() code version}, so computing a key does not need to
+ * generate any code. Modifiers are referenced weakly, wrappers of discarded modifiers get dropped once {@link #MAX_ENTRIES} newer wrappers are cached.
+ * </p>
+ */
+public final class WrapperCodeCache {
+
+	/** Maximum amount of cached wrappers per module class. */
+	public static final int MAX_ENTRIES = 32;
+
+	/** Cached wrapper code per module class. Entries are bound to the lifetime of the module class. */
+	private static final ClassValue<BoundedCache<Key, String>> CACHE = new ClassValue<BoundedCache<Key, String>>() {
+
+		@Override
+		protected BoundedCache<Key, String> computeValue(final Class<?> type) {
+			return new BoundedCache<Key, String>(MAX_ENTRIES);
+		}
+	};
+
+	/**
+	 * Cache key. Modifiers are compared by identity and code version.
+	 */
+	private static final class Key {
+
+		private final String fCodeFactory;
+
+		private final String fModuleVariable;
+
+		private final List<WeakReference<Object>> fModifiers = new ArrayList<WeakReference<Object>>();
+
+		private final List<Integer> fVersions = new ArrayList<Integer>();
+
+		private final int fHashCode;
+
+		public Key(final ICodeFactory codeFactory, final IEnvironment environment, final String moduleVariable) {
+			fCodeFactory = codeFactory.getClass().getName();
+			fModuleVariable = moduleVariable;
+
+			int hashCode = (31 * fCodeFactory.hashCode()) + fModuleVariable.hashCode();
+			for (final Object module : environment.getModules()) {
+				if (module instanceof IScriptFunctionModifier) {
+					final int version = ((IScriptFunctionModifier) module).getCodeVersion();
+					fModifiers.add(new WeakReference<Object>(module));
+					fVersions.add(version);
+
+					hashCode = (31 * ((31 * hashCode) + System.identityHashCode(module))) + version;
+				}
+			}
+
+			fHashCode = hashCode;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof Key))
+				return false;
+
+			final Key other = (Key) obj;
+			if ((fHashCode != other.fHashCode) || (!fCodeFactory.equals(other.fCodeFactory)) || (!fModuleVariable.equals(other.fModuleVariable))
+					|| (!fVersions.equals(other.fVersions)))
+				return false;
+
+			for (int index = 0; index < fModifiers.size(); index++) {
+				final Object modifier = fModifiers.get(index).get();
+				if ((modifier == null) || (modifier != other.fModifiers.get(index).get()))
+					return false;
+			}
+
+			return true;
+		}
+	}
+
+	@Deprecated
+	private WrapperCodeCache() {
+	}
+
+	/**
+	 * Get function wrappers for all exported methods of a module class. Creates and caches the code on the first request.
+	 *
+	 * @param codeFactory
+	 *            code factory creating wrappers
+	 * @param environment
+	 *            environment the module gets loaded to
+	 * @param moduleClass
+	 *            class of module to wrap
+	 * @param moduleVariable
+	 *            script variable name holding the module instance
+	 * @return script code containing function wrappers
+	 */
+	public static String getFunctionWrappers(final ICodeFactory codeFactory, final IEnvironment environment, final Class<?> moduleClass,
+			final String moduleVariable) {
+		final BoundedCache<Key, String> cache = CACHE.get(moduleClass);
+		final Key key = new Key(codeFactory, environment, moduleVariable);
+
+		String code = cache.get(key);
+		if (code == null) {
+			final StringBuilder scriptCode = new StringBuilder();
+			for (final Method method : ModuleHelper.getMethods(moduleClass)) {
+				final String wrapper = codeFactory.createFunctionWrapper(environment, moduleVariable, method);
+
+				if ((wrapper != null) && !wrapper.isEmpty()) {
+					scriptCode.append(wrapper);
+					scriptCode.append('\n');
+				}
+			}
+
+			code = scriptCode.toString();
+			cache.put(key, code);
+		}
+
+		return code;
+	}
+
+	/**
+	 * Remove all cached wrappers of a module class.
+	 *
+	 * @param moduleClass
+	 *            module class to remove cached wrappers for
+	 */
+	public static void invalidate(final Class<?> moduleClass) {
+		CACHE.remove(moduleClass);
+	}
+}
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ease.AbstractScriptEngine;
+import org.eclipse.ease.Activator;
+import org.eclipse.ease.IExecutionListener;
+import org.eclipse.ease.IScriptEngine;
+import org.eclipse.ease.Logger;
+import org.eclipse.ease.Script;
+
+/**
+ * Pool of pre-started script engines for a dedicated {@link EngineDescription}. Pooled engines are already set up and have the Environment module loaded when
+ * they get acquired. Released engines are reset and reused afterwards. Idle engines exceeding the minimum pool size get terminated after an idle timeout.
+ * <p>
+ * Engines returned by {@link #acquire()} are already running. Callers must not call {@link IScriptEngine#schedule()} on them. Instead code is scheduled using
+ * {@link IScriptEngine#executeAsync(Object)} and the engine gets returned by {@link #release(IScriptEngine)}. As a reset is processed in order with scheduled
+ * code, an engine may be released right after its code was scheduled.
+ * </p>
+ */
+public class EnginePool {
+
+	/** Default amount of idle engines kept ready. */
+	public static final int DEFAULT_MIN_SIZE = 1;
+
+	/** Default maximum amount of engines managed by a pool. */
+	public static final int DEFAULT_MAX_SIZE = 4;
+
+	/** Default time in milliseconds before an idle engine gets terminated. */
+	public static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+
+	/**
+	 * Tracks life cycle of pooled engines.
+	 */
+	private class PoolListener implements IExecutionListener {
+
+		@Override
+		public void notify(final IScriptEngine engine, final Script script, final int status) {
+			switch (status) {
+			case ENGINE_RESET:
+				engineReset(engine);
+				break;
+
+			case ENGINE_END:
+				engineTerminated(engine);
+				break;
+			}
+		}
+	}
+
+	private final EngineDescription fDescription;
+
+	private final int fMinSize;
+
+	private final int fMaxSize;
+
+	private final long fIdleTimeout;
+
+	/** Idle engines. The most recently used engine is stored first. */
+	private final LinkedList<AbstractScriptEngine> fIdleEngines = new LinkedList<AbstractScriptEngine>();
+
+	/** Timestamps when engines got idle. */
+	private final Map<IScriptEngine, Long> fIdleSince = new HashMap<IScriptEngine, Long>();
+
+	/** All engines managed by this pool, either idle, leased or resetting. */
+	private final Set<IScriptEngine> fPooledEngines = new HashSet<IScriptEngine>();
+
+	/** Released engines waiting for their reset. */
+	private final Set<IScriptEngine> fResettingEngines = new HashSet<IScriptEngine>();
+
+	private final PoolListener fPoolListener = new PoolListener();
+
+	private final Job fEvictionJob = new Job("Evict idle script engines") {
+
+		@Override
+		protected IStatus run(final IProgressMonitor monitor) {
+			evictIdleEngines();
+			return Status.OK_STATUS;
+		}
+	};
+
+	private boolean fResetSupported = true;
+
+	private boolean fDisposed = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param description
+	 *            description of engines to pool
+	 * @param minSize
+	 *            amount of idle engines kept ready
+	 * @param maxSize
+	 *            maximum amount of engines managed by this pool
+	 * @param idleTimeout
+	 *            time in milliseconds before an idle engine exceeding <i>minSize</i> gets terminated
+	 */
+	public EnginePool(final EngineDescription description, final int minSize, final int maxSize, final long idleTimeout) {
+		fDescription = description;
+		fMinSize = minSize;
+		fMaxSize = Math.max(minSize, maxSize);
+		fIdleTimeout = idleTimeout;
+
+		fEvictionJob.setSystem(true);
+	}
+
+	/**
+	 * Constructor using default pool settings.
+	 *
+	 * @param description
+	 *            description of engines to pool
+	 */
+	public EnginePool(final EngineDescription description) {
+		this(description, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Get the description of pooled engines.
+	 *
+	 * @return engine description
+	 */
+	public EngineDescription getDescription() {
+		return fDescription;
+	}
+
+	/**
+	 * Acquire a running engine from the pool. The engine needs to be returned by calling {@link #release(IScriptEngine)}. If the pool is exhausted or the engine
+	 * type does not support resetting, <code>null</code> is returned. Callers then need to fall back to {@link EngineDescription#createEngine()}.
+	 *
+	 * @return running script engine or <code>null</code>
+	 */
+	public AbstractScriptEngine acquire() {
+		AbstractScriptEngine engine = null;
+
+		synchronized (this) {
+			if (!fIdleEngines.isEmpty()) {
+				engine = fIdleEngines.removeFirst();
+				fIdleSince.remove(engine);
+
+			} else if (isPooling() && (fPooledEngines.size() < fMaxSize))
+				engine = startEngine();
+
+			// keep minimum amount of engines ready for the next request
+			fill();
+		}
+
+		return engine;
+	}
+
+	/**
+	 * Return an engine to the pool. The engine gets reset after all its scheduled code is processed and may be acquired again afterwards.
+	 *
+	 * @param engine
+	 *            engine acquired from this pool
+	 */
+	public void release(final IScriptEngine engine) {
+		synchronized (this) {
+			if ((isPooling()) && (fPooledEngines.contains(engine))) {
+				fResettingEngines.add(engine);
+				((AbstractScriptEngine) engine).reset();
+				return;
+			}
+		}
+
+		engine.setTerminateOnIdle(true);
+	}
+
+	/**
+	 * Dispose this pool. Terminates idle engines. Engines still leased terminate on their release.
+	 */
+	public void dispose() {
+		final Collection<AbstractScriptEngine> idleEngines;
+
+		synchronized (this) {
+			fDisposed = true;
+			idleEngines = new ArrayList<AbstractScriptEngine>(fIdleEngines);
+			fIdleEngines.clear();
+			fIdleSince.clear();
+		}
+
+		fEvictionJob.cancel();
+
+		for (final IScriptEngine engine : idleEngines)
+			engine.setTerminateOnIdle(true);
+	}
+
+	/**
+	 * Get the amount of idle engines ready to be acquired.
+	 *
+	 * @return amount of idle engines
+	 */
+	public synchronized int getIdleCount() {
+		return fIdleEngines.size();
+	}
+
+	private boolean isPooling() {
+		return fResetSupported && !fDisposed;
+	}
+
+	/**
+	 * Start idle engines until the minimum pool size is reached.
+	 */
+	private synchronized void fill() {
+		while ((isPooling()) && (fIdleEngines.size() < fMinSize) && (fPooledEngines.size() < fMaxSize)) {
+			final AbstractScriptEngine engine = startEngine();
+			if (engine == null)
+				break;
+
+			markIdle(engine);
+		}
+	}
+
+	/**
+	 * Create and start a new pooled engine. Launch extensions are applied during creation, so the Environment module gets loaded right after engine setup.
+	 *
+	 * @return running engine or <code>null</code>
+	 */
+	private synchronized AbstractScriptEngine startEngine() {
+		final IScriptEngine engine = fDescription.createEngine();
+
+		if (engine instanceof AbstractScriptEngine) {
+			engine.addExecutionListener(fPoolListener);
+			engine.setTerminateOnIdle(false);
+
+			// idle pooled engines should not hold a thread
+			((AbstractScriptEngine) engine).scheduleShared();
+
+			fPooledEngines.add(engine);
+
+			Logger.trace(Activator.PLUGIN_ID, IScriptService.TRACE_SCRIPT_SERVICE, "Started pooled engine: " + fDescription.getID());
+			return (AbstractScriptEngine) engine;
+		}
+
+		// engine type cannot be reset
+		fResetSupported = false;
+		return null;
+	}
+
+	private synchronized void markIdle(final AbstractScriptEngine engine) {
+		fIdleEngines.addFirst(engine);
+		fIdleSince.put(engine, System.currentTimeMillis());
+
+		if ((fIdleEngines.size() > fMinSize) && (fEvictionJob.getState() == Job.NONE))
+			fEvictionJob.schedule(fIdleTimeout);
+	}
+
+	private void engineReset(final IScriptEngine engine) {
+		boolean terminate = false;
+
+		synchronized (this) {
+			if (fResettingEngines.remove(engine)) {
+				if ((isPooling()) && (fIdleEngines.size() < fMaxSize))
+					markIdle((AbstractScriptEngine) engine);
+				else
+					terminate = true;
+			}
+		}
+
+		if (terminate)
+			engine.setTerminateOnIdle(true);
+	}
+
+	private synchronized void engineTerminated(final IScriptEngine engine) {
+		engine.removeExecutionListener(fPoolListener);
+
+		if (fResettingEngines.remove(engine)) {
+			// engine terminated during reset, do not try to pool this kind of engine anymore
+			Logger.warning(Activator.PLUGIN_ID, "Script engine \"" + fDescription.getID() + "\" does not support resetting, pooling disabled");
+			fResetSupported = false;
+		}
+
+		fPooledEngines.remove(engine);
+		fIdleEngines.remove(engine);
+		fIdleSince.remove(engine);
+	}
+
+	/**
+	 * Terminate engines idle for longer than the idle timeout while keeping the minimum pool size.
+	 */
+	private void evictIdleEngines() {
+		final Collection<IScriptEngine> evicted = new ArrayList<IScriptEngine>();
+
+		synchronized (this) {
+			final long now = System.currentTimeMillis();
+			while (fIdleEngines.size() > fMinSize) {
+				final AbstractScriptEngine engine = fIdleEngines.getLast();
+				if ((now - fIdleSince.get(engine)) < fIdleTimeout)
+					break;
+
+				fIdleEngines.removeLast();
+				fIdleSince.remove(engine);
+				evicted.add(engine);
+			}
+
+			// check again later for remaining engines
+			if ((!fDisposed) && (fIdleEngines.size() > fMinSize))
+				fEvictionJob.schedule(fIdleTimeout);
+		}
+
+		for (final IScriptEngine engine : evicted)
+			engine.setTerminateOnIdle(true);
+	}
+}
@@ -18,6 +18,7 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.ease.IScriptEngineLaunchExtension;
 import org.eclipse.ease.modules.ModuleCategoryDefinition;
 import org.eclipse.ease.modules.ModuleDefinition;
+import org.eclipse.ease.modules.ModuleRegistry;
 
 /**
  * Global service to create script engines and to query configuration data from the scripting extensions. To get the service instance use
@@ -74,6 +75,13 @@ public interface IScriptService {
 	 */
 	Map<String, ModuleDefinition> getAvailableModules();
 
+	/**
+	 * Get the indexed registry of available modules. The registry is immutable and gets replaced when module contributions change.
+	 *
+	 * @return module registry
+	 */
+	ModuleRegistry getModuleRegistry();
+
 	/**
 	 * Get a map of available module categories. Keys contain the category id, values contain its descriptor.
 	 *
@@ -114,4 +122,13 @@ public interface IScriptService {
 	 * @return module definition
 	 */
 	ModuleDefinition getModuleDefinition(String moduleId);
+
+	/**
+	 * Get the engine pool for a dedicated script engine. Pools are created on first access.
+	 *
+	 * @param engineID
+	 *            engine identifier
+	 * @return engine pool or <code>null</code> when the engine does not exist
+	 */
+	EnginePool getEnginePool(String engineID);
 }
\ No newline at end of file
@@ -22,6 +22,9 @@ import java.util.Map;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryEventListener;
 import org.eclipse.core.runtime.InvalidRegistryObjectException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.content.IContentDescription;
@@ -34,6 +37,7 @@ import org.eclipse.ease.IScriptEngineLaunchExtension;
 import org.eclipse.ease.Logger;
 import org.eclipse.ease.modules.ModuleCategoryDefinition;
 import org.eclipse.ease.modules.ModuleDefinition;
+import org.eclipse.ease.modules.ModuleRegistry;
 import org.eclipse.ease.tools.ResourceTools;
 import org.eclipse.ui.PlatformUI;
 
@@ -75,7 +79,19 @@ public class ScriptService implements IScriptService {
 		return fInstance;
 	}
 
-	private Map<String, ModuleDefinition> fAvailableModules = null;
+	/**
+	 * Shut down the script service singleton. Disposes engine pools and stops listening for module contributions. Called when the bundle stops.
+	 */
+	public synchronized static void shutdown() {
+		if (fInstance != null) {
+			fInstance.disposeEnginePools();
+			Platform.getExtensionRegistry().removeListener(fInstance.fRegistryListener);
+
+			fInstance = null;
+		}
+	}
+
+	private ModuleRegistry fModuleRegistry = null;
 
 	private Map<String, EngineDescription> fEngineDescriptions = null;
 
@@ -83,7 +99,34 @@ public class ScriptService implements IScriptService {
 
 	private Map<String, ModuleCategoryDefinition> fAvailableModuleCategories = null;
 
+	private final Map<String, EnginePool> fEnginePools = new HashMap<String, EnginePool>();
+
+	/** Rebuilds module definitions when module contributions change. */
+	private final IRegistryEventListener fRegistryListener = new IRegistryEventListener() {
+
+		@Override
+		public void added(final IExtension[] extensions) {
+			resetModules();
+		}
+
+		@Override
+		public void removed(final IExtension[] extensions) {
+			resetModules();
+		}
+
+		@Override
+		public void added(final IExtensionPoint[] extensionPoints) {
+			resetModules();
+		}
+
+		@Override
+		public void removed(final IExtensionPoint[] extensionPoints) {
+			resetModules();
+		}
+	};
+
 	private ScriptService() {
+		Platform.getExtensionRegistry().addListener(fRegistryListener, EXTENSION_MODULES_ID);
 	}
 
 	@Override
@@ -92,23 +135,39 @@ public class ScriptService implements IScriptService {
 	}
 
 	@Override
-	public synchronized Map<String, ModuleDefinition> getAvailableModules() {
-		if (fAvailableModules == null) {
-			fAvailableModules = new HashMap<String, ModuleDefinition>();
+	public Map<String, ModuleDefinition> getAvailableModules() {
+		return getModuleRegistry().getDefinitions();
+	}
+
+	@Override
+	public synchronized ModuleRegistry getModuleRegistry() {
+		if (fModuleRegistry == null) {
+			final Collection<ModuleDefinition> definitions = new ArrayList<ModuleDefinition>();
 			final IConfigurationElement[] config = Platform.getExtensionRegistry().getConfigurationElementsFor(EXTENSION_MODULES_ID);
 			for (final IConfigurationElement e : config) {
 				if (e.getName().equals(EXTENSION_MODULE)) {
 					// module extension detected
 					ModuleDefinition definition = new ModuleDefinition(e);
 					if (definition.getModuleClass() != null)
-						fAvailableModules.put(definition.getPath().toString(), definition);
+						definitions.add(definition);
 					else
 						Logger.warning(Activator.PLUGIN_ID,
 								"Module <" + definition.getName() + "> in plugin <" + definition.getBundleID() + "> could not be located!");
 				}
 			}
+
+			fModuleRegistry = new ModuleRegistry(definitions);
 		}
-		return fAvailableModules;
+
+		return fModuleRegistry;
+	}
+
+	/**
+	 * Drop cached module and category definitions. They get rebuilt from the extension registry on next access.
+	 */
+	private synchronized void resetModules() {
+		fModuleRegistry = null;
+		fAvailableModuleCategories = null;
 	}
 
 	@Override
@@ -235,7 +294,7 @@ public class ScriptService implements IScriptService {
 	}
 
 	@Override
-	public Map<String, ModuleCategoryDefinition> getAvailableModuleCategories() {
+	public synchronized Map<String, ModuleCategoryDefinition> getAvailableModuleCategories() {
 		if (fAvailableModuleCategories == null) {
 			fAvailableModuleCategories = new HashMap<String, ModuleCategoryDefinition>();
 			final IConfigurationElement[] config = Platform.getExtensionRegistry().getConfigurationElementsFor(EXTENSION_MODULES_ID);
@@ -252,12 +311,31 @@ public class ScriptService implements IScriptService {
 
 	@Override
 	public ModuleDefinition getModuleDefinition(final String moduleId) {
-		for (ModuleDefinition definition : getAvailableModules().values()) {
-			if (definition.getId().equals(moduleId))
-				return definition;
+		return getModuleRegistry().getDefinitionById(moduleId);
+	}
+
+	@Override
+	public synchronized EnginePool getEnginePool(final String engineID) {
+		EnginePool pool = fEnginePools.get(engineID);
+		if (pool == null) {
+			final EngineDescription description = getEngineByID(engineID);
+			if (description != null) {
+				pool = new EnginePool(description);
+				fEnginePools.put(engineID, pool);
+			}
 		}
 
-		return null;
+		return pool;
+	}
+
+	/**
+	 * Dispose all engine pools. Idle pooled engines get terminated.
+	 */
+	public synchronized void disposeEnginePools() {
+		for (final EnginePool pool : fEnginePools.values())
+			pool.dispose();
+
+		fEnginePools.clear();
 	}
 
 	/**
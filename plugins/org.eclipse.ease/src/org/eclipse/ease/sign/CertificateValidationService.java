@@ -0,0 +1,526 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ease.sign;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXCertPathChecker;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.eclipse.ease.Activator;
+import org.eclipse.ease.Logger;
+import org.eclipse.ease.tools.BoundedCache;
+
+/**
+ * Validates certificate chains against trust stores. Parsed trust stores are kept in memory until their file changes. Successful validations are cached for
+ * a configurable time, so repeated verification of signed scripts does not hit the file system or revocation services on every run. All caches are bounded,
+ * least recently used entries are dropped first.
+ * <p>
+ * By default revocation is checked online using OCSP and CRL distribution points. When an offline CRL file is set, revocation is checked against that file
+ * only and no network connections are used. Revocation settings are applied to the validation parameters only, global security properties are not modified.
+ * </p>
+ */
+public class CertificateValidationService {
+
+	/** Default time in milliseconds successful validations are cached. */
+	public static final long DEFAULT_VALIDATION_TTL = 10 * 60 * 1000;
+
+	/** Default trust store of the running JRE. */
+	private static final File DEFAULT_TRUST_STORE = new File(System.getProperty("java.home") + "/lib/security/cacerts");
+
+	/** Password of the default trust store. */
+	private static final char[] DEFAULT_TRUST_STORE_PASSWORD = "changeit".toCharArray();
+
+	/** Maximum amount of cached trust stores, applies to file and stream trust stores separately. */
+	static final int MAX_CACHED_TRUST_STORES = 16;
+
+	/** Maximum amount of cached validation results. */
+	static final int MAX_CACHED_VALIDATIONS = 256;
+
+	/**
+	 * Parsed content of a file, valid as long as the file is not modified.
+	 */
+	private static class CachedFile<T> {
+
+		private final long fLastModified;
+		private final long fLength;
+		private final T fContent;
+
+		public CachedFile(final long lastModified, final long length, final T content) {
+			fLastModified = lastModified;
+			fLength = length;
+			fContent = content;
+		}
+
+		public boolean isValid(final File file) {
+			return (file.lastModified() == fLastModified) && (file.length() == fLength);
+		}
+	}
+
+	/**
+	 * Trust anchors of a trust store.
+	 */
+	private static class TrustStore {
+
+		/** Identifies trust store content, used to key validation results. */
+		private final String fKey;
+		private final Set<TrustAnchor> fTrustAnchors;
+
+		public TrustStore(final String key, final Set<TrustAnchor> trustAnchors) {
+			fKey = key;
+			fTrustAnchors = trustAnchors;
+		}
+	}
+
+	/**
+	 * Revocation checker using local CRLs only. The revocation checker of the JRE follows CRL distribution points of certificates whenever local CRLs do not
+	 * cover a certificate, so it cannot be used for offline validation.
+	 */
+	private static class OfflineRevocationChecker extends PKIXCertPathChecker {
+
+		private final Collection<X509CRL> fCRLs;
+
+		public OfflineRevocationChecker(final Collection<X509CRL> crls) {
+			fCRLs = crls;
+		}
+
+		@Override
+		public void init(final boolean forward) throws CertPathValidatorException {
+			if (forward)
+				throw new CertPathValidatorException("Forward checking is not supported");
+		}
+
+		@Override
+		public boolean isForwardCheckingSupported() {
+			return false;
+		}
+
+		@Override
+		public Set<String> getSupportedExtensions() {
+			return null;
+		}
+
+		@Override
+		public void check(final Certificate cert, final Collection<String> unresolvedCritExts) throws CertPathValidatorException {
+			final X509Certificate certificate = (X509Certificate) cert;
+
+			boolean covered = false;
+			for (final X509CRL crl : fCRLs) {
+				if (crl.getIssuerX500Principal().equals(certificate.getIssuerX500Principal())) {
+					if (crl.isRevoked(certificate))
+						throw new CertPathValidatorException("Certificate has been revoked: " + certificate.getSubjectX500Principal());
+
+					covered = true;
+				}
+			}
+
+			if (!covered)
+				throw new CertPathValidatorException("Could not determine revocation status, no CRL available for " + certificate.getIssuerX500Principal());
+		}
+	}
+
+	private static CertificateValidationService fInstance = null;
+
+	/**
+	 * Get the validation service singleton.
+	 *
+	 * @return validation service
+	 */
+	public static synchronized CertificateValidationService getInstance() {
+		if (fInstance == null)
+			fInstance = new CertificateValidationService();
+
+		return fInstance;
+	}
+
+	/** Parsed trust stores per file location and password. Guarded by this. */
+	private final BoundedCache<String, CachedFile<TrustStore>> fTrustStores = new BoundedCache<String, CachedFile<TrustStore>>(MAX_CACHED_TRUST_STORES);
+
+	/** Parsed trust stores per stream content and password. Guarded by this. */
+	private final BoundedCache<String, TrustStore> fStreamTrustStores = new BoundedCache<String, TrustStore>(MAX_CACHED_TRUST_STORES);
+
+	/** Expiry timestamps of successful validations. Guarded by this. */
+	private final BoundedCache<String, Long> fValidations = new BoundedCache<String, Long>(MAX_CACHED_VALIDATIONS);
+
+	/** CRLs of the offline CRL file. Guarded by this. */
+	private CachedFile<Collection<? extends CRL>> fOfflineCRLs = null;
+
+	private File fOfflineCRLFile = null;
+
+	private long fValidationTTL = DEFAULT_VALIDATION_TTL;
+
+	/**
+	 * Set the time successful validations are cached. Changing the time drops cached validations.
+	 *
+	 * @param validationTTL
+	 *            time in milliseconds, 0 to disable caching of validations
+	 */
+	public synchronized void setValidationTTL(final long validationTTL) {
+		fValidationTTL = validationTTL;
+		fValidations.clear();
+	}
+
+	/**
+	 * Enable offline mode. Revocation is checked against the provided CRL file only, no network connections are used.
+	 *
+	 * @param crlFile
+	 *            file containing X.509 CRLs or <code>null</code> to check revocation online
+	 */
+	public synchronized void setOfflineCRLFile(final File crlFile) {
+		fOfflineCRLFile = crlFile;
+		fOfflineCRLs = null;
+		fValidations.clear();
+	}
+
+	/**
+	 * Remove all cached trust stores and validation results.
+	 */
+	public synchronized void clear() {
+		fTrustStores.clear();
+		fStreamTrustStores.clear();
+		fValidations.clear();
+		fOfflineCRLs = null;
+	}
+
+	/**
+	 * Validate a certificate chain against a trust store file. The parsed trust store is cached until the file changes.
+	 *
+	 * @param certificates
+	 *            certificate chain, starting with the signer certificate
+	 * @param trustStoreFile
+	 *            JKS trust store or <code>null</code> to use the trust store of the running JRE
+	 * @param trustStorePassword
+	 *            password of the trust store, ignored for the default trust store
+	 * @return <code>true</code> if the chain is valid and trusted
+	 * @throws ScriptSignatureException
+	 *             when the trust store can't be loaded or the chain is invalid
+	 */
+	public boolean validate(final List<Certificate> certificates, File trustStoreFile, char[] trustStorePassword) throws ScriptSignatureException {
+		if (trustStoreFile == null) {
+			trustStoreFile = DEFAULT_TRUST_STORE;
+			trustStorePassword = DEFAULT_TRUST_STORE_PASSWORD;
+		}
+
+		return validate(certificates, getTrustStore(trustStoreFile, trustStorePassword));
+	}
+
+	/**
+	 * Validate a certificate chain against a trust store read from a stream. The stream is consumed and closed. Parsed trust stores are cached by content.
+	 *
+	 * @param certificates
+	 *            certificate chain, starting with the signer certificate
+	 * @param trustStoreStream
+	 *            stream containing a JKS trust store
+	 * @param trustStorePassword
+	 *            password of the trust store
+	 * @return <code>true</code> if the chain is valid and trusted
+	 * @throws ScriptSignatureException
+	 *             when the trust store can't be loaded or the chain is invalid
+	 */
+	public boolean validate(final List<Certificate> certificates, final InputStream trustStoreStream, final char[] trustStorePassword)
+			throws ScriptSignatureException {
+		final byte[] content;
+		try {
+			content = read(trustStoreStream);
+		} catch (IOException e) {
+			throw new ScriptSignatureException("File can't be read. Chose another Truststore or try again.", e);
+		}
+
+		final String key = "stream:" + digest(content) + ":" + digest(trustStorePassword);
+
+		TrustStore trustStore;
+		synchronized (this) {
+			trustStore = fStreamTrustStores.get(key);
+		}
+
+		if (trustStore == null) {
+			trustStore = new TrustStore(key, loadTrustAnchors(new ByteArrayInputStream(content), trustStorePassword));
+			synchronized (this) {
+				fStreamTrustStores.put(key, trustStore);
+			}
+		}
+
+		return validate(certificates, trustStore);
+	}
+
+	private boolean validate(final List<Certificate> certificates, final TrustStore trustStore) throws ScriptSignatureException {
+		final String validationKey;
+		final File offlineCRLFile;
+		synchronized (this) {
+			offlineCRLFile = fOfflineCRLFile;
+			validationKey = trustStore.fKey + ":" + ((offlineCRLFile != null) ? offlineCRLFile.getAbsolutePath() : "online") + ":" + digest(certificates);
+
+			final Long expiry = fValidations.get(validationKey);
+			if (expiry != null) {
+				if (expiry > System.currentTimeMillis())
+					return true;
+
+				fValidations.remove(validationKey);
+			}
+		}
+
+		try {
+			final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+			final CertPath certPath = certificateFactory.generateCertPath(certificates);
+
+			final CertPathValidator validator = CertPathValidator.getInstance("PKIX");
+
+			final PKIXParameters params = new PKIXParameters(trustStore.fTrustAnchors);
+
+			if (offlineCRLFile != null) {
+				// check revocation against local CRLs only
+				params.setRevocationEnabled(false);
+				params.addCertPathChecker(new OfflineRevocationChecker(getVerifiedCRLs(getOfflineCRLs(offlineCRLFile), certificates, trustStore.fTrustAnchors)));
+
+			} else {
+				// OCSP with fallback to CRL distribution points. If certificate does not contain OSCP or CRL responder than that certificate will be considered
+				// invalid
+				params.addCertPathChecker((PKIXCertPathChecker) validator.getRevocationChecker());
+			}
+
+			// Validate will throw an exception on invalid chains.
+			validator.validate(certPath, params);
+
+			synchronized (this) {
+				if (fValidationTTL > 0)
+					fValidations.put(validationKey, System.currentTimeMillis() + fValidationTTL);
+			}
+
+			return true;
+
+		} catch (CertificateException e) {
+			throw new ScriptSignatureException("One or more certificates can't be loaded.", e);
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new ScriptSignatureException("Algorithm used for validation can't be found.", e);
+
+		} catch (InvalidAlgorithmParameterException e) {
+			Logger.error(Activator.PLUGIN_ID, Arrays.toString(e.getStackTrace()), e);
+			throw new ScriptSignatureException("Can't perform validation.", e);
+
+		} catch (CertPathValidatorException e) {
+			// if any invalidation occurs, exception will be caught here
+			throw new ScriptSignatureException(e.getMessage());
+		}
+	}
+
+	private TrustStore getTrustStore(final File file, final char[] password) throws ScriptSignatureException {
+		final String key = file.getAbsolutePath() + ":" + digest(password);
+
+		synchronized (this) {
+			final CachedFile<TrustStore> cachedStore = fTrustStores.get(key);
+			if ((cachedStore != null) && (cachedStore.isValid(file)))
+				return cachedStore.fContent;
+		}
+
+		// read file state before content, a concurrent modification invalidates the entry on next access
+		final long lastModified = file.lastModified();
+		final long length = file.length();
+		final InputStream inputStream;
+		try {
+			inputStream = new FileInputStream(file);
+		} catch (FileNotFoundException e) {
+			throw new ScriptSignatureException("File can't be read. Chose another Truststore or try again.", e);
+		}
+
+		final TrustStore trustStore = new TrustStore(key + ":" + lastModified + ":" + length, loadTrustAnchors(inputStream, password));
+
+		synchronized (this) {
+			fTrustStores.put(key, new CachedFile<TrustStore>(lastModified, length, trustStore));
+		}
+
+		return trustStore;
+	}
+
+	private static Set<TrustAnchor> loadTrustAnchors(final InputStream inputStream, final char[] password) throws ScriptSignatureException {
+		try {
+			final KeyStore keystore = KeyStore.getInstance("JKS");
+			keystore.load(inputStream, password);
+
+			return new PKIXParameters(keystore).getTrustAnchors();
+
+		} catch (CertificateException e) {
+			throw new ScriptSignatureException("One or more certificates can't be loaded.", e);
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new ScriptSignatureException("Algorithm used for securing truststore can't be found. Chose another Truststore.", e);
+
+		} catch (KeyStoreException e) {
+			throw new ScriptSignatureException("Truststore can't be loaded.");
+
+		} catch (InvalidAlgorithmParameterException e) {
+			throw new ScriptSignatureException("Truststore does not contain any trusted certificate entry.", e);
+
+		} catch (IOException e) {
+			if (e.getCause() instanceof UnrecoverableKeyException)
+				throw new ScriptSignatureException("Invalid Truststore Password.", e);
+			else if (e.getCause() instanceof FileNotFoundException || e.getCause() instanceof SecurityException)
+				throw new ScriptSignatureException("File can't be read. Chose another Truststore or try again.", e);
+
+			Logger.error(Activator.PLUGIN_ID, Arrays.toString(e.getStackTrace()), e);
+			throw new ScriptSignatureException("Error loading Truststore. Try again.", e);
+
+		} finally {
+			try {
+				inputStream.close();
+			} catch (IOException e) {
+				Logger.error(Activator.PLUGIN_ID, Arrays.toString(e.getStackTrace()), e);
+			}
+		}
+	}
+
+	private synchronized Collection<? extends CRL> getOfflineCRLs(final File crlFile) throws ScriptSignatureException {
+		if ((fOfflineCRLs == null) || (!fOfflineCRLs.isValid(crlFile))) {
+			try {
+				final long lastModified = crlFile.lastModified();
+				final long length = crlFile.length();
+				final InputStream inputStream = new FileInputStream(crlFile);
+				try {
+					fOfflineCRLs = new CachedFile<Collection<? extends CRL>>(lastModified, length, CertificateFactory.getInstance("X.509").generateCRLs(inputStream));
+				} finally {
+					inputStream.close();
+				}
+
+			} catch (IOException e) {
+				throw new ScriptSignatureException("CRL file can't be read.", e);
+
+			} catch (CRLException e) {
+				throw new ScriptSignatureException("CRL file can't be parsed.", e);
+
+			} catch (CertificateException e) {
+				throw new ScriptSignatureException("CRL file can't be parsed.", e);
+			}
+		}
+
+		return fOfflineCRLs.fContent;
+	}
+
+	/**
+	 * Get CRLs that are up to date and signed by a certificate of the chain or a trust anchor.
+	 */
+	private static Collection<X509CRL> getVerifiedCRLs(final Collection<? extends CRL> crls, final List<Certificate> certificates,
+			final Set<TrustAnchor> trustAnchors) {
+		final Map<X500Principal, PublicKey> issuers = new HashMap<X500Principal, PublicKey>();
+		for (final TrustAnchor trustAnchor : trustAnchors) {
+			if (trustAnchor.getTrustedCert() != null)
+				issuers.put(trustAnchor.getTrustedCert().getSubjectX500Principal(), trustAnchor.getTrustedCert().getPublicKey());
+			else
+				issuers.put(trustAnchor.getCA(), trustAnchor.getCAPublicKey());
+		}
+
+		for (final Certificate certificate : certificates) {
+			if (certificate instanceof X509Certificate)
+				issuers.put(((X509Certificate) certificate).getSubjectX500Principal(), certificate.getPublicKey());
+		}
+
+		final Date now = new Date();
+		final Collection<X509CRL> verifiedCRLs = new ArrayList<X509CRL>();
+		for (final CRL crl : crls) {
+			if (crl instanceof X509CRL) {
+				final X509CRL x509CRL = (X509CRL) crl;
+				final PublicKey issuerKey = issuers.get(x509CRL.getIssuerX500Principal());
+				if ((issuerKey != null) && ((x509CRL.getNextUpdate() == null) || (x509CRL.getNextUpdate().after(now)))) {
+					try {
+						x509CRL.verify(issuerKey);
+						verifiedCRLs.add(x509CRL);
+					} catch (final GeneralSecurityException e) {
+						// invalid signature, ignore CRL
+					}
+				}
+			}
+		}
+
+		return verifiedCRLs;
+	}
+
+	private static String digest(final List<Certificate> certificates) throws ScriptSignatureException {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (final Certificate certificate : certificates)
+				digest.update(certificate.getEncoded());
+
+			return SignatureHelper.convertBytesToBase64(digest.digest());
+
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is available on all java platforms
+			throw new IllegalStateException(e);
+
+		} catch (CertificateEncodingException e) {
+			throw new ScriptSignatureException("One or more certificates can't be loaded.", e);
+		}
+	}
+
+	private static String digest(final char[] password) {
+		return digest((password != null) ? new String(password).getBytes(StandardCharsets.UTF_8) : new byte[0]);
+	}
+
+	private static String digest(final byte[] data) {
+		try {
+			return SignatureHelper.convertBytesToBase64(MessageDigest.getInstance("SHA-256").digest(data));
+
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is available on all java platforms
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] read(final InputStream inputStream) throws IOException {
+		try {
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int length;
+			while ((length = inputStream.read(buffer)) != -1)
+				output.write(buffer, 0, length);
+
+			return output.toByteArray();
+
+		} finally {
+			inputStream.close();
+		}
+	}
+}
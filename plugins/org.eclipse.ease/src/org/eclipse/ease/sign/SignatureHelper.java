@@ -15,6 +15,7 @@ import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -36,7 +37,7 @@ import org.eclipse.ease.service.ScriptType;
  */
 public class SignatureHelper {
 
-	private static final String BEGIN_STRING = "-----BEGIN SIGNATURE-----", END_STRING = "-----END SIGNATURE-----";
+	static final String BEGIN_STRING = "-----BEGIN SIGNATURE-----", END_STRING = "-----END SIGNATURE-----";
 
 	/**
 	 * Converts given bytes in {@link Base64} form.
@@ -155,8 +156,8 @@ public class SignatureHelper {
 			strBuf.append(end);
 
 			ICodeFactory iCodeFactory = scriptType.getCodeFactory();
-			bufferedOutputStream.write(iCodeFactory.createCommentedString(strBuf.toString(), true).getBytes());
-			bufferedOutputStream.write("\n".getBytes());
+			bufferedOutputStream.write(iCodeFactory.createCommentedString(strBuf.toString(), true).getBytes(StandardCharsets.UTF_8));
+			bufferedOutputStream.write("\n".getBytes(StandardCharsets.UTF_8));
 			return true;
 
 		} catch (IOException e) {
@@ -12,28 +12,22 @@
 package org.eclipse.ease.sign;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.InvalidAlgorithmParameterException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.PublicKey;
-import java.security.Security;
 import java.security.Signature;
 import java.security.SignatureException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertPath;
-import java.security.cert.CertPathValidator;
-import java.security.cert.CertPathValidatorException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
-import java.security.cert.PKIXParameters;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -42,12 +36,40 @@ import org.eclipse.ease.Activator;
 import org.eclipse.ease.ICodeParser;
 import org.eclipse.ease.Logger;
 import org.eclipse.ease.service.ScriptType;
-import org.eclipse.ease.tools.ResourceTools;
+import org.eclipse.ease.tools.BoundedCache;
 
+/**
+ * Verifies signatures of scripts. Signatures are created by {@link PerformSignature} over the raw bytes of the script preceding the signature block, so
+ * verification hashes the very same bytes, regardless of line breaks and character encoding of the script.
+ */
 public class VerifySignature {
 
+	/** Maximum size of a signature block located at the end of a file. */
+	private static final int MAX_SIGNATURE_BLOCK_SIZE = 64 * 1024;
+
+	/** Maximum amount of cached verification results. */
+	private static final int MAX_CACHED_RESULTS = 256;
+
+	/** Verification results per file, length, modification time and certificate. */
+	private static final BoundedCache<String, Boolean> VERIFICATION_CACHE = new BoundedCache<String, Boolean>(MAX_CACHED_RESULTS);
+
 	private final SignatureInfo fSignatureInfo;
 
+	/** Signed file when content is streamed from the file system, otherwise <code>null</code>. */
+	private final File fFile;
+
+	/** Amount of signed bytes at the beginning of fFile. */
+	private final long fContentLength;
+
+	/** Length of fFile when the signature block got parsed. */
+	private final long fFileLength;
+
+	/** Modification timestamp of fFile when the signature block got parsed. */
+	private final long fLastModified;
+
+	/** Signed bytes when verifying a stream, otherwise <code>null</code>. */
+	private final byte[] fContent;
+
 	/**
 	 * Use this constructor to use methods of this class.
 	 *
@@ -64,7 +86,143 @@ public class VerifySignature {
 			throw new ScriptSignatureException("One or more parameters are not provided");
 
 		ICodeParser iCodeParser = scriptType.getCodeParser();
-		fSignatureInfo = iCodeParser.getSignatureInfo(inputStream);
+		fFile = null;
+		fContentLength = -1;
+		fFileLength = -1;
+		fLastModified = -1;
+
+		try {
+			// keep raw bytes, signed content must not be decoded and normalized by the parser
+			final byte[] data = readAll(inputStream);
+			final int contentEnd = findContentEnd(data);
+			fSignatureInfo = (contentEnd >= 0) ? parseSignatureBlock(iCodeParser, data, contentEnd) : null;
+			fContent = (fSignatureInfo != null) ? Arrays.copyOf(data, contentEnd) : null;
+
+		} catch (IOException e) {
+			throw new ScriptSignatureException("An IO error occurred while reading stream.", e);
+		}
+
+		validateSignatureInfo();
+	}
+
+	/**
+	 * Use this constructor to verify files. Only the signature block at the end of the file is parsed upfront, signed content is streamed from the file on
+	 * verification. Verification results are cached per file, length, modification time and certificate.
+	 *
+	 * @param scriptType
+	 *            provide {@link ScriptType} instance of file
+	 * @param file
+	 *            provide script file to verify
+	 * @throws ScriptSignatureException
+	 *             when one or more parameters are not provided, file can't be read or signature format is improper
+	 */
+	public VerifySignature(final ScriptType scriptType, final File file) throws ScriptSignatureException {
+
+		if (scriptType == null || file == null)
+			throw new ScriptSignatureException("One or more parameters are not provided");
+
+		final ICodeParser iCodeParser = scriptType.getCodeParser();
+		fLastModified = file.lastModified();
+		fContent = null;
+
+		try {
+			final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				// read the end of the file, the signature block needs to be located there
+				fFileLength = randomAccessFile.length();
+				long tailOffset = Math.max(0, fFileLength - MAX_SIGNATURE_BLOCK_SIZE);
+				byte[] tail = new byte[(int) (fFileLength - tailOffset)];
+				randomAccessFile.seek(tailOffset);
+				randomAccessFile.readFully(tail);
+
+				int contentEnd = findContentEnd(tail);
+				if ((contentEnd < 0) && (tailOffset > 0)) {
+					// signature block larger than the tail, search the whole file
+					tailOffset = 0;
+					tail = new byte[(int) fFileLength];
+					randomAccessFile.seek(0);
+					randomAccessFile.readFully(tail);
+					contentEnd = findContentEnd(tail);
+				}
+
+				if (contentEnd >= 0) {
+					fSignatureInfo = parseSignatureBlock(iCodeParser, tail, contentEnd);
+					fFile = (fSignatureInfo != null) ? file : null;
+					fContentLength = tailOffset + contentEnd;
+
+				} else {
+					// no signature block
+					fSignatureInfo = null;
+					fFile = null;
+					fContentLength = -1;
+				}
+
+			} finally {
+				randomAccessFile.close();
+			}
+
+		} catch (IOException e) {
+			throw new ScriptSignatureException("An IO error occurred while reading file.", e);
+		}
+
+		validateSignatureInfo();
+	}
+
+	/**
+	 * Parse the signature block following signed content. The block starts with the line break following signed content.
+	 *
+	 * @param codeParser
+	 *            parser of the script type
+	 * @param data
+	 *            data containing the signature block
+	 * @param contentEnd
+	 *            offset of the signature block as returned by {@link #findContentEnd(byte[])}
+	 * @return signature information or <code>null</code> when the block is not a valid signature block
+	 * @throws ScriptSignatureException
+	 *             when signature format is improper
+	 */
+	private static SignatureInfo parseSignatureBlock(final ICodeParser codeParser, final byte[] data, final int contentEnd) throws ScriptSignatureException {
+		return codeParser.getSignatureInfo(new ByteArrayInputStream(data, contentEnd, data.length - contentEnd));
+	}
+
+	private static byte[] readAll(final InputStream inputStream) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		int length;
+		while ((length = inputStream.read(buffer)) != -1)
+			output.write(buffer, 0, length);
+
+		return output.toByteArray();
+	}
+
+	/**
+	 * Find the end of signed content within the tail of a file. Signed content ends before the line break preceding the block comment start line of the
+	 * trailing signature block. A CRLF line break is removed completely, as it is not part of signed content.
+	 *
+	 * @param tail
+	 *            last bytes of a file
+	 * @return offset of the line break before the signature block or -1 when no signature block was found
+	 */
+	static int findContentEnd(final byte[] tail) {
+		// single byte charset keeps offsets aligned with bytes, signature blocks only contain ASCII characters
+		final String text = new String(tail, StandardCharsets.ISO_8859_1);
+
+		int beginIndex = text.lastIndexOf(SignatureHelper.BEGIN_STRING);
+		while (beginIndex >= 2) {
+			if (text.charAt(beginIndex - 1) == '\n') {
+				// locate start of the block comment line
+				final int commentLineStart = text.lastIndexOf('\n', beginIndex - 2) + 1;
+				if (commentLineStart > 0)
+					return ((commentLineStart > 1) && (text.charAt(commentLineStart - 2) == '\r')) ? commentLineStart - 2 : commentLineStart - 1;
+			}
+
+			beginIndex = text.lastIndexOf(SignatureHelper.BEGIN_STRING, beginIndex - 1);
+		}
+
+		return -1;
+	}
+
+	private void validateSignatureInfo() throws ScriptSignatureException {
 		if (fSignatureInfo != null) {
 			if (fSignatureInfo.getSignature() == null || fSignatureInfo.getProvider() == null || fSignatureInfo.getMessageDigestAlgo() == null
 					|| fSignatureInfo.getCertificateChain() == null || fSignatureInfo.getContentOnly() == null)
@@ -152,84 +310,58 @@ public class VerifySignature {
 		if ((trustStoreLocation == null && trustStorePassword != null) || (trustStoreLocation != null && trustStorePassword == null))
 			throw new ScriptSignatureException("Either both or none of the parameters should be null");
 
-		if (fSignatureInfo != null) {
-			InputStream iStream = null;
-			try {
-				if (trustStoreLocation == null && trustStorePassword == null) {
-					// TODO check following command for windows
-					iStream = new FileInputStream(System.getProperty("java.home") + "/lib/security/" + "cacerts");
-					trustStorePassword = "changeit".toCharArray();
-				} else
-					iStream = ResourceTools.getInputStream(trustStoreLocation);
-
-				CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
-
-				ArrayList<Certificate> certificateList = (ArrayList<Certificate>) getCertificateChain();
-
-				int certLength = certificateList.size();
-				if (SignatureHelper.isSelfSignedCertificate(certificateList.get(certLength - 1)))
-					certificateList.remove(certLength - 1);
-
-				CertPath certPath = certificateFactory.generateCertPath(certificateList);
-
-				CertPathValidator validator = CertPathValidator.getInstance("PKIX");
+		if (trustStoreLocation == null)
+			return isCertChainValid((File) null, null);
 
-				KeyStore keystore = KeyStore.getInstance("JKS");
-				keystore.load(iStream, trustStorePassword);
+		if (fSignatureInfo != null)
+			return CertificateValidationService.getInstance().validate(getValidationChain(), trustStoreLocation, trustStorePassword);
 
-				PKIXParameters params = new PKIXParameters(keystore);
-				params.setRevocationEnabled(true);
-
-				// If certificate does not contain OSCP or CRL responder than that certificate will be considered invalid
-				Security.setProperty("ocsp.enable", "true");
-				System.setProperty("com.sun.net.ssl.checkRevocation", "true");
-				System.setProperty("com.sun.security.enableCRLDP", "true");
-
-				// Validate will throw an exception on invalid chains.
-				validator.validate(certPath, params);
-				return true;
-
-			} catch (CertificateException e) {
-				throw new ScriptSignatureException("One or more certificates can't be loaded.", e);
+		throw new ScriptSignatureException("Script does not contain signature.");
+	}
 
-			} catch (NoSuchAlgorithmException e) {
-				throw new ScriptSignatureException("Algorithm used for securing truststore can't be found. Chose another Truststore.", e);
+	/**
+	 * Checks the validity of certificate. If certificate is CA signed, then it checks the validity of CA with trust-store. The parsed trust-store is cached
+	 * until the file changes, successful validations are cached by {@link CertificateValidationService}.
+	 *
+	 * @param trustStoreFile
+	 *            provide truststore file or <code>null</code> to use the default truststore of the JRE
+	 * @param trustStorePassword
+	 *            provide password for truststore
+	 * @return <code>true</code> if certificate is valid and trusted or <code>false</code> if certificate is invalid or not trusted
+	 * @throws ScriptSignatureException
+	 *             when truststore can't be loaded or script does not contain signature
+	 */
+	public boolean isCertChainValid(File trustStoreFile, char[] trustStorePassword) throws ScriptSignatureException {
 
-			} catch (KeyStoreException e) {
-				throw new ScriptSignatureException("Truststore can't be loaded.");
+		if (trustStoreFile != null && trustStorePassword == null)
+			throw new ScriptSignatureException("Password for truststore is not provided");
 
-			} catch (IOException e) {
-				if (e.getCause() instanceof UnrecoverableKeyException)
-					throw new ScriptSignatureException("Invalid Truststore Password.", e);
-				else if (e.getCause() instanceof FileNotFoundException || e.getCause() instanceof SecurityException)
-					throw new ScriptSignatureException("File can't be read. Chose another Truststore or try again.", e);
+		if (fSignatureInfo != null)
+			return CertificateValidationService.getInstance().validate(getValidationChain(), trustStoreFile, trustStorePassword);
 
-				Logger.error(Activator.PLUGIN_ID, Arrays.toString(e.getStackTrace()), e);
-				throw new ScriptSignatureException("Error loading Truststore. Try again.", e);
+		throw new ScriptSignatureException("Script does not contain signature.");
+	}
 
-			} catch (InvalidAlgorithmParameterException e) {
-				Logger.error(Activator.PLUGIN_ID, Arrays.toString(e.getStackTrace()), e);
-				throw new ScriptSignatureException("Can't perform validation.", e);
+	/**
+	 * Get the certificate chain to validate. A self-signed root certificate is removed as it needs to be provided by the truststore.
+	 *
+	 * @return certificate chain
+	 * @throws ScriptSignatureException
+	 *             when there is an error while retrieving certificate
+	 */
+	private List<Certificate> getValidationChain() throws ScriptSignatureException {
+		List<Certificate> certificateList = getCertificateChain();
 
-			} catch (CertPathValidatorException e) {
-				// if any invalidation occurs, exception will be caught here
-				throw new ScriptSignatureException(e.getMessage());
+		int certLength = certificateList.size();
+		if (SignatureHelper.isSelfSignedCertificate(certificateList.get(certLength - 1)))
+			certificateList.remove(certLength - 1);
 
-			} finally {
-				try {
-					if (iStream != null)
-						iStream.close();
-				} catch (IOException e) {
-					Logger.error(Activator.PLUGIN_ID, Arrays.toString(e.getStackTrace()), e);
-				}
-			}
-		}
-		throw new ScriptSignatureException("Script does not contain signature.");
+		return certificateList;
 	}
 
 	/**
 	 * Checks the validity of certificate. If certificate is CA signed, then it checks the validity of CA with trust-store. It uses default truststore present
-	 * at JRE_PATH/lib/security/cacerts and "changeit" as password. If password has been modified, use {@link #isCertChainValid(String, char[])}.
+	 * at JRE_PATH/lib/security/cacerts and "changeit" as password. If password has been modified, use {@link #isCertChainValid(File, char[])}.
 	 *
 	 * @return <code>true</code> if certificate is valid and trusted or <code>false</code> if certificate is invalid or not trusted
 	 * @throws ScriptSignatureException
@@ -237,7 +369,7 @@ public class VerifySignature {
 	 */
 	public boolean isCertChainValid() throws ScriptSignatureException {
 
-		return isCertChainValid(null, null);
+		return isCertChainValid((File) null, null);
 	}
 
 	/**
@@ -250,6 +382,14 @@ public class VerifySignature {
 	public boolean verify() throws ScriptSignatureException {
 
 		if (fSignatureInfo != null) {
+			final String cacheKey = (fFile != null)
+					? fFile.getAbsolutePath() + ":" + fFileLength + ":" + fLastModified + ":" + BoundedCache.hash(fSignatureInfo.getCertificateChain()[0]) : null;
+			if (cacheKey != null) {
+				final Boolean cachedResult = VERIFICATION_CACHE.get(cacheKey);
+				if (cachedResult != null)
+					return cachedResult;
+			}
+
 			byte[] signByte = SignatureHelper.convertBase64ToBytes(fSignatureInfo.getSignature());
 			byte[] certByte = SignatureHelper.convertBase64ToBytes(fSignatureInfo.getCertificateChain()[0]);
 			Certificate userCert = getCertificate(certByte);
@@ -263,10 +403,17 @@ public class VerifySignature {
 				// initialize signature instance with public key
 				signature.initVerify(publicKey);
 
-				// perform verification
-				signature.update(fSignatureInfo.getContentOnly().getBytes());
+				// perform verification on the raw bytes signed by PerformSignature
+				if (fFile != null)
+					updateFromFile(signature);
+				else
+					signature.update(fContent);
 
-				return signature.verify(signByte);
+				final boolean valid = signature.verify(signByte);
+				if (cacheKey != null)
+					VERIFICATION_CACHE.put(cacheKey, valid);
+
+				return valid;
 
 			} catch (SignatureException e) {
 				Logger.error(Activator.PLUGIN_ID, "Signature object not initialized properly or signature is not readable.", e);
@@ -285,4 +432,48 @@ public class VerifySignature {
 		}
 		throw new ScriptSignatureException("Script does not contain signature.");
 	}
+
+	/**
+	 * Feed signed content of the file into a signature instance.
+	 *
+	 * @param signature
+	 *            signature initialized for verification
+	 * @throws ScriptSignatureException
+	 *             when the file can't be read or was modified in the meantime
+	 * @throws SignatureException
+	 *             when the signature is not initialized properly
+	 */
+	private void updateFromFile(final Signature signature) throws ScriptSignatureException, SignatureException {
+		if ((fFile.lastModified() != fLastModified) || (fFile.length() != fFileLength))
+			throw new ScriptSignatureException("File was modified during verification. Try again.");
+
+		try {
+			final InputStream inputStream = new FileInputStream(fFile);
+			try {
+				final byte[] buffer = new byte[8192];
+				long remaining = fContentLength;
+				while (remaining > 0) {
+					final int length = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+					if (length < 0)
+						throw new ScriptSignatureException("File was modified during verification. Try again.");
+
+					signature.update(buffer, 0, length);
+					remaining -= length;
+				}
+
+			} finally {
+				inputStream.close();
+			}
+
+		} catch (IOException e) {
+			throw new ScriptSignatureException("An IO error occurred while reading file.", e);
+		}
+	}
+
+	/**
+	 * Remove all cached verification results.
+	 */
+	public static void clearCache() {
+		VERIFICATION_CACHE.clear();
+	}
 }
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe cache holding a limited amount of entries. When the cache is full, the least recently used entry gets dropped. Lookups are counted to provide
+ * hit and miss statistics.
+ * <p>
+ * The cache does not create values on its own. Callers typically look up a value and create and {@link #put(Object, Object)} it on a miss. Values are
+ * created outside of any lock, so concurrent misses for the same key may create the value more than once. The last value stored wins.
+ * </p>
+ *
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            value type
+ */
+public class BoundedCache<K, V> {
+
+	/**
+	 * Selects cache entries to be removed.
+	 *
+	 * @param <K>
+	 *            key type
+	 * @param <V>
+	 *            value type
+	 */
+	public interface IFilter<K, V> {
+
+		/**
+		 * Check whether an entry matches the filter.
+		 *
+		 * @param key
+		 *            entry key
+		 * @param value
+		 *            entry value
+		 * @return <code>true</code> to select the entry
+		 */
+		boolean matches(K key, V value);
+	}
+
+	private final Map<K, V> fCache;
+
+	private final AtomicLong fHits = new AtomicLong();
+
+	private final AtomicLong fMisses = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            maximum amount of cached entries
+	 */
+	public BoundedCache(final int capacity) {
+		fCache = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2871573451036374126L;
+
+			@Override
+			protected boolean removeEldestEntry(final Entry<K, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Get a cached value. Counts as cache hit or miss.
+	 *
+	 * @param key
+	 *            key to look up
+	 * @return cached value or <code>null</code>
+	 */
+	public V get(final K key) {
+		final V value;
+		synchronized (fCache) {
+			value = fCache.get(key);
+		}
+
+		if (value != null)
+			fHits.incrementAndGet();
+		else
+			fMisses.incrementAndGet();
+
+		return value;
+	}
+
+	/**
+	 * Store a value. Might drop the least recently used entry.
+	 *
+	 * @param key
+	 *            key to store value for
+	 * @param value
+	 *            value to store
+	 */
+	public void put(final K key, final V value) {
+		synchronized (fCache) {
+			fCache.put(key, value);
+		}
+	}
+
+	/**
+	 * Remove a cached value. Does not affect statistics.
+	 *
+	 * @param key
+	 *            key to remove
+	 * @return removed value or <code>null</code>
+	 */
+	public V remove(final K key) {
+		synchronized (fCache) {
+			return fCache.remove(key);
+		}
+	}
+
+	/**
+	 * Remove all cached values matching a filter. Does not affect statistics. The filter is called while the cache is locked.
+	 *
+	 * @param filter
+	 *            filter selecting entries to remove
+	 * @return amount of removed entries
+	 */
+	public int removeAll(final IFilter<? super K, ? super V> filter) {
+		int removed = 0;
+		synchronized (fCache) {
+			final Iterator<Entry<K, V>> iterator = fCache.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Entry<K, V> entry = iterator.next();
+				if (filter.matches(entry.getKey(), entry.getValue())) {
+					iterator.remove();
+					removed++;
+				}
+			}
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Get the amount of cache hits.
+	 *
+	 * @return cache hits
+	 */
+	public long getHitCount() {
+		return fHits.get();
+	}
+
+	/**
+	 * Get the amount of cache misses.
+	 *
+	 * @return cache misses
+	 */
+	public long getMissCount() {
+		return fMisses.get();
+	}
+
+	/**
+	 * Get the amount of cached entries.
+	 *
+	 * @return cache size
+	 */
+	public int size() {
+		synchronized (fCache) {
+			return fCache.size();
+		}
+	}
+
+	/**
+	 * Remove all cached entries and reset statistics.
+	 */
+	public void clear() {
+		synchronized (fCache) {
+			fCache.clear();
+		}
+
+		fHits.set(0);
+		fMisses.set(0);
+	}
+
+	/**
+	 * Create a SHA-1 hash of given content. Allows to use large content like source code as part of a cache key without keeping it in memory.
+	 *
+	 * @param content
+	 *            content to hash
+	 * @return hex encoded hash
+	 */
+	public static String hash(final String content) {
+		try {
+			final StringBuilder hash = new StringBuilder();
+			for (final byte b : MessageDigest.getInstance("SHA-1").digest(content.getBytes(StandardCharsets.UTF_8)))
+				hash.append(Integer.toHexString((b & 0xFF) | 0x100).substring(1));
+
+			return hash.toString();
+
+		} catch (final NoSuchAlgorithmException e) {
+			// SHA-1 is mandatory on all java platforms
+			throw new IllegalStateException(e);
+		}
+	}
+}
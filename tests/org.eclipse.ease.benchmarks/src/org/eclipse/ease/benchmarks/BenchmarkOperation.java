@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+/**
+ * Operation measured by the {@link BenchmarkRunner}. Only {@link #run(Blackhole)} is timed, {@link #prepare()} and {@link #cleanup()} allow to set up and
+ * dispose state needed by a single invocation.
+ */
+public abstract class BenchmarkOperation {
+
+	/**
+	 * Called before each invocation of {@link #run(Blackhole)}. Not measured.
+	 *
+	 * @throws Exception
+	 *             when preparation fails
+	 */
+	protected void prepare() throws Exception {
+	}
+
+	/**
+	 * Measured operation. Results need to be passed to the given blackhole, otherwise the JIT compiler might drop the code computing them.
+	 *
+	 * @param blackhole
+	 *            sink for results
+	 * @throws Exception
+	 *             when the operation fails
+	 */
+	protected abstract void run(Blackhole blackhole) throws Exception;
+
+	/**
+	 * Called after each invocation of {@link #run(Blackhole)}. Not measured.
+	 *
+	 * @throws Exception
+	 *             when cleanup fails
+	 */
+	protected void cleanup() throws Exception {
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measured timings of a single benchmark. All times are given in nanoseconds.
+ */
+public class BenchmarkResult {
+
+	/** Column names of {@link #toCSV()}. */
+	public static final String CSV_HEADER = "benchmark,invocations,average [ns],min [ns],median [ns],p90 [ns],max [ns],throughput [ops/s]";
+
+	private final String fName;
+
+	private final long[] fSamples;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            benchmark name
+	 * @param samples
+	 *            measured time of each invocation
+	 */
+	public BenchmarkResult(final String name, final long[] samples) {
+		fName = name;
+		fSamples = Arrays.copyOf(samples, samples.length);
+		Arrays.sort(fSamples);
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	public int getInvocations() {
+		return fSamples.length;
+	}
+
+	public long getMinimum() {
+		return (fSamples.length > 0) ? fSamples[0] : 0;
+	}
+
+	public long getMaximum() {
+		return (fSamples.length > 0) ? fSamples[fSamples.length - 1] : 0;
+	}
+
+	public long getMedian() {
+		return getPercentile(50);
+	}
+
+	/**
+	 * Get a percentile of all measured invocations.
+	 *
+	 * @param percentile
+	 *            percentile in the range [0, 100]
+	 * @return invocation time
+	 */
+	public long getPercentile(final int percentile) {
+		if (fSamples.length == 0)
+			return 0;
+
+		final int index = (int) Math.ceil((percentile / 100.0) * fSamples.length) - 1;
+		return fSamples[Math.max(0, Math.min(index, fSamples.length - 1))];
+	}
+
+	public double getAverage() {
+		if (fSamples.length == 0)
+			return 0;
+
+		long total = 0;
+		for (final long sample : fSamples)
+			total += sample;
+
+		return (double) total / fSamples.length;
+	}
+
+	/**
+	 * Get the throughput derived from the average invocation time.
+	 *
+	 * @return operations per second
+	 */
+	public double getThroughput() {
+		final double average = getAverage();
+		return (average > 0) ? 1000000000d / average : 0;
+	}
+
+	/**
+	 * Get a comma separated representation of this result. Columns match {@link #CSV_HEADER}.
+	 *
+	 * @return CSV line
+	 */
+	public String toCSV() {
+		return String.format(Locale.ROOT, "%s,%d,%.0f,%d,%d,%d,%d,%.2f", getName(), getInvocations(), getAverage(), getMinimum(), getMedian(),
+				getPercentile(90), getMaximum(), getThroughput());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %.3f ms/op (min %.3f, median %.3f, p90 %.3f, max %.3f), %.1f ops/s, %d invocations", getName(), toMillis(getAverage()),
+				toMillis(getMinimum()), toMillis(getMedian()), toMillis(getPercentile(90)), toMillis(getMaximum()), getThroughput(), getInvocations());
+	}
+
+	private static double toMillis(final double nanos) {
+		return nanos / 1000000d;
+	}
+}
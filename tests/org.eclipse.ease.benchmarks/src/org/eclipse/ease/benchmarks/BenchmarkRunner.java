@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Runs benchmark operations within the running OSGi framework. Script engines are contributed via extension points and cannot run outside of the framework,
+ * so operations are measured in process: after a number of warmup invocations each measured invocation is timed individually.
+ * <p>
+ * JMH is not used as it is not available in the target platform and its forked benchmark JVMs run without the OSGi framework, where no script engines are
+ * available. The runner follows its practices instead: operation results are passed to a {@link Blackhole} to prevent dead code elimination and each
+ * benchmark class runs in a dedicated test runtime, see the surefire executions in the <code>pom.xml</code>. Benchmark methods of the same class share a
+ * JVM, so measurements of a single method should be repeated using <code>-Dtest=&lt;class&gt;#&lt;method&gt;</code> before drawing conclusions.
+ * </p>
+ * <p>
+ * Results are printed to the console. When the system property {@value #REPORT_PROPERTY} points to a file, results are appended to that file in CSV format,
+ * which allows to compare runs before and after a change.
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+	/** System property holding the location of the CSV report file. */
+	public static final String REPORT_PROPERTY = "org.eclipse.ease.benchmarks.report";
+
+	@Deprecated
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Measure a benchmark operation.
+	 *
+	 * @param name
+	 *            benchmark name
+	 * @param operation
+	 *            operation to measure
+	 * @param warmupInvocations
+	 *            invocations before measuring starts
+	 * @param invocations
+	 *            measured invocations
+	 * @return measured result
+	 * @throws Exception
+	 *             when the operation fails
+	 */
+	public static BenchmarkResult measure(final String name, final BenchmarkOperation operation, final int warmupInvocations, final int invocations)
+			throws Exception {
+		final Blackhole blackhole = new Blackhole();
+
+		for (int index = 0; index < warmupInvocations; index++)
+			invoke(operation, blackhole);
+
+		// do not account garbage from the warmup phase to the first measurements
+		System.gc();
+
+		final long[] samples = new long[invocations];
+		for (int index = 0; index < invocations; index++)
+			samples[index] = invoke(operation, blackhole);
+
+		final BenchmarkResult result = new BenchmarkResult(name, samples);
+		report(result);
+
+		return result;
+	}
+
+	private static long invoke(final BenchmarkOperation operation, final Blackhole blackhole) throws Exception {
+		operation.prepare();
+		try {
+			final long start = System.nanoTime();
+			operation.run(blackhole);
+			return System.nanoTime() - start;
+
+		} finally {
+			operation.cleanup();
+		}
+	}
+
+	private static synchronized void report(final BenchmarkResult result) {
+		System.out.println("[benchmark] " + result);
+
+		final String location = System.getProperty(REPORT_PROPERTY);
+		if ((location != null) && (!location.isEmpty())) {
+			final File file = new File(location);
+			final boolean writeHeader = !file.exists() || (file.length() == 0);
+
+			PrintWriter writer = null;
+			try {
+				writer = new PrintWriter(new FileWriter(file, true));
+				if (writeHeader)
+					writer.println(BenchmarkResult.CSV_HEADER);
+
+				writer.println(result.toCSV());
+
+			} catch (final IOException e) {
+				System.err.println("[benchmark] could not write report to " + location + ": " + e.getMessage());
+
+			} finally {
+				if (writer != null)
+					writer.close();
+			}
+		}
+	}
+}
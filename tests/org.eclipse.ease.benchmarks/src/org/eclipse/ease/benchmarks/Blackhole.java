@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+/**
+ * Sink for results of measured operations. Results that are never used allow the JIT compiler to drop the code computing them, so operations pass their
+ * results to {@link #consume(Object)}.
+ */
+public final class Blackhole {
+
+	/** Volatile, so writes cannot be eliminated. */
+	private volatile Object fSink;
+
+	/**
+	 * Consume a result of a measured operation.
+	 *
+	 * @param value
+	 *            result to consume
+	 */
+	public void consume(final Object value) {
+		fSink = value;
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import static org.junit.Assume.assumeNotNull;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.eclipse.ease.ICodeFactory;
+import org.eclipse.ease.IScriptEngine;
+import org.eclipse.ease.modules.AbstractEnvironment;
+import org.eclipse.ease.modules.EnvironmentModule;
+import org.eclipse.ease.modules.IEnvironment;
+import org.eclipse.ease.modules.ModuleHelper;
+import org.eclipse.ease.modules.WrapperCodeCache;
+import org.eclipse.ease.service.ScriptService;
+import org.eclipse.ease.service.ScriptType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Measures creation of function wrappers for all methods of the Environment module. A single operation wraps all exported methods of the module.
+ */
+public class CodeFactoryBenchmark extends EngineBenchmarkBase {
+
+	private static final int WARMUP = 500;
+	private static final int INVOCATIONS = 2000;
+
+	private static final String MODULE_VARIABLE = "__MOD_Benchmark";
+
+	private static IScriptEngine fEngine = null;
+	private static IEnvironment fEnvironment = null;
+
+	@BeforeClass
+	public static void setUpClass() throws InterruptedException {
+		// wrappers need an environment to look up function modifiers
+		fEngine = startEngine(RHINO_ENGINE);
+		fEnvironment = AbstractEnvironment.getEnvironment(fEngine);
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws InterruptedException {
+		stopEngine(fEngine);
+		fEngine = null;
+		fEnvironment = null;
+	}
+
+	@Test
+	public void javaScriptFunctionWrappers() throws Exception {
+		measureFunctionWrappers("JavaScript createFunctionWrapper", "JavaScript");
+	}
+
+	@Test
+	public void pythonFunctionWrappers() throws Exception {
+		measureFunctionWrappers("Python createFunctionWrapper", "Python");
+	}
+
+	@Test
+	public void cachedFunctionWrappers() throws Exception {
+		final ICodeFactory codeFactory = getCodeFactory("JavaScript");
+
+		BenchmarkRunner.measure("JavaScript cached function wrappers", new BenchmarkOperation() {
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				blackhole.consume(WrapperCodeCache.getFunctionWrappers(codeFactory, fEnvironment, EnvironmentModule.class, MODULE_VARIABLE));
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+
+	private static void measureFunctionWrappers(final String name, final String scriptType) throws Exception {
+		final ICodeFactory codeFactory = getCodeFactory(scriptType);
+		final List<Method> methods = ModuleHelper.getMethods(EnvironmentModule.class);
+
+		BenchmarkRunner.measure(name + " (" + methods.size() + " methods)", new BenchmarkOperation() {
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				for (final Method method : methods)
+					blackhole.consume(codeFactory.createFunctionWrapper(fEnvironment, MODULE_VARIABLE, method));
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+
+	private static ICodeFactory getCodeFactory(final String scriptType) {
+		final ScriptType type = ScriptService.getService().getAvailableScriptTypes().get(scriptType);
+		assumeNotNull(type);
+
+		final ICodeFactory codeFactory = type.getCodeFactory();
+		assumeNotNull(codeFactory);
+
+		return codeFactory;
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.ease.ICodeParser;
+import org.eclipse.ease.service.ScriptService;
+import org.eclipse.ease.service.ScriptType;
+import org.junit.Test;
+
+/**
+ * Measures parsing of script headers as done for every script found in a script repository.
+ */
+public class CodeParserBenchmark {
+
+	private static final int WARMUP = 2000;
+	private static final int INVOCATIONS = 10000;
+
+	/** Lines of code following the header. Parsers should stop reading at the end of the header. */
+	private static final int CODE_LINES = 500;
+
+	@Test
+	public void javaScriptHeader() throws Exception {
+		measureParser("JavaScript header parser", "JavaScript", "var x = 1;");
+	}
+
+	@Test
+	public void pythonHeader() throws Exception {
+		measureParser("Python header parser", "Python", "x = 1");
+	}
+
+	private static void measureParser(final String name, final String scriptType, final String codeLine) throws Exception {
+		final ScriptType type = ScriptService.getService().getAvailableScriptTypes().get(scriptType);
+		assumeNotNull(type);
+
+		final ICodeParser parser = type.getCodeParser();
+		assumeNotNull(parser);
+
+		final byte[] content = createScript(parser, codeLine);
+
+		BenchmarkRunner.measure(name, new BenchmarkOperation() {
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				blackhole.consume(parser.parse(new ByteArrayInputStream(content)));
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+
+	private static byte[] createScript(final ICodeParser parser, final String codeLine) throws UnsupportedEncodingException {
+		final Map<String, String> header = new LinkedHashMap<String, String>();
+		header.put("name", "Benchmarks/Header parser");
+		header.put("description", "Script used to measure header parsing performance");
+		header.put("toolbar", "Project Explorer | Benchmark");
+		header.put("menu", "Project Explorer | Benchmark");
+		header.put("image", "platform:/plugin/org.eclipse.ease/icons/eobj16/script.png");
+		header.put("onStartup", "false");
+		header.put("onSave", "*.js");
+		header.put("thread", "false");
+		header.put("author", "EASE benchmarks");
+		header.put("license", "EPL 1.0");
+
+		final StringBuilder script = new StringBuilder(parser.createHeader(header));
+		for (int line = 0; line < CODE_LINES; line++)
+			script.append(codeLine).append('\n');
+
+		return script.toString().getBytes("UTF-8");
+	}
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import static org.junit.Assume.assumeNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ease.IScriptEngine;
+import org.eclipse.ease.ScriptResult;
+import org.eclipse.ease.service.EngineDescription;
+import org.eclipse.ease.service.ScriptService;
+
+/**
+ * Base class for benchmarks using script engines. Benchmarks get skipped when engines are not available in the test runtime or cannot be started (eg. when no
+ * Python interpreter is installed).
+ */
+public abstract class EngineBenchmarkBase {
+
+	public static final String RHINO_ENGINE = "org.eclipse.ease.javascript.rhino";
+	public static final String NASHORN_ENGINE = "org.eclipse.ease.javascript.nashorn";
+	public static final String JYTHON_ENGINE = "org.eclipse.ease.python.jython";
+	public static final String PY4J_ENGINE = "org.eclipse.ease.lang.python.py4j.engine";
+
+	/**
+	 * Create an engine instance. Skips the calling benchmark when the engine is not available.
+	 *
+	 * @param engineID
+	 *            engine to create
+	 * @return engine instance, not started yet
+	 */
+	protected static IScriptEngine createEngine(final String engineID) {
+		final EngineDescription description = ScriptService.getService().getEngineByID(engineID);
+		assumeNotNull(description);
+
+		final IScriptEngine engine = description.createEngine();
+		assumeNotNull(engine);
+
+		return engine;
+	}
+
+	/**
+	 * Create and start an engine that stays alive until {@link #stopEngine(IScriptEngine)} is called.
+	 *
+	 * @param engineID
+	 *            engine to create
+	 * @return running engine
+	 * @throws InterruptedException
+	 *             when interrupted while waiting for the engine to start
+	 */
+	protected static IScriptEngine startEngine(final String engineID) throws InterruptedException {
+		final IScriptEngine engine = createEngine(engineID);
+		engine.setTerminateOnIdle(false);
+
+		// the first execution waits for the engine setup to complete
+		final ScriptResult result = engine.executeSync("");
+		if (result.hasException())
+			stopEngine(engine);
+
+		assumeTrue(!result.hasException());
+
+		return engine;
+	}
+
+	/**
+	 * Terminate an engine and wait for its termination.
+	 *
+	 * @param engine
+	 *            engine to terminate, may be <code>null</code>
+	 * @throws InterruptedException
+	 *             when interrupted while waiting for the engine to terminate
+	 */
+	protected static void stopEngine(final IScriptEngine engine) throws InterruptedException {
+		if (engine != null) {
+			engine.terminate();
+
+			if (engine instanceof Job)
+				((Job) engine).join();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import org.eclipse.ease.IScriptEngine;
+import org.junit.Test;
+
+/**
+ * Measures the time from engine creation until the first piece of code got executed. This includes engine setup and the execution of launch extensions,
+ * which load the Environment module.
+ */
+public class EngineSetupBenchmark extends EngineBenchmarkBase {
+
+	private static final int WARMUP = 5;
+	private static final int INVOCATIONS = 20;
+
+	@Test
+	public void rhinoSetup() throws Exception {
+		measureSetup("rhino setup", RHINO_ENGINE);
+	}
+
+	@Test
+	public void nashornSetup() throws Exception {
+		measureSetup("nashorn setup", NASHORN_ENGINE);
+	}
+
+	@Test
+	public void jythonSetup() throws Exception {
+		measureSetup("jython setup", JYTHON_ENGINE);
+	}
+
+	private static void measureSetup(final String name, final String engineID) throws Exception {
+		// skip when the engine cannot be started at all
+		stopEngine(startEngine(engineID));
+
+		BenchmarkRunner.measure(name, new BenchmarkOperation() {
+
+			private IScriptEngine fEngine;
+
+			@Override
+			protected void prepare() throws Exception {
+				fEngine = createEngine(engineID);
+				fEngine.setTerminateOnIdle(false);
+			}
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				blackhole.consume(fEngine.executeSync(""));
+			}
+
+			@Override
+			protected void cleanup() throws Exception {
+				stopEngine(fEngine);
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import org.eclipse.ease.IScriptEngine;
+import org.eclipse.ease.Script;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Measures code execution on running engines: the round trip of trivial code through the engine queue and loading of modules.
+ */
+public class ExecutionBenchmark extends EngineBenchmarkBase {
+
+	private static final int WARMUP = 200;
+	private static final int INVOCATIONS = 1000;
+
+	private static final String ENVIRONMENT_MODULE = "/System/Environment";
+
+	private IScriptEngine fEngine = null;
+
+	@After
+	public void tearDown() throws InterruptedException {
+		stopEngine(fEngine);
+		fEngine = null;
+	}
+
+	@Test
+	public void rhinoExecuteSync() throws Exception {
+		measureExecuteSync("rhino executeSync", RHINO_ENGINE, "1 + 1;");
+	}
+
+	@Test
+	public void nashornExecuteSync() throws Exception {
+		measureExecuteSync("nashorn executeSync", NASHORN_ENGINE, "1 + 1;");
+	}
+
+	@Test
+	public void jythonExecuteSync() throws Exception {
+		measureExecuteSync("jython executeSync", JYTHON_ENGINE, "1 + 1");
+	}
+
+	@Test
+	public void rhinoLoadEnvironmentModule() throws Exception {
+		measureExecuteSync("rhino loadModule(Environment)", RHINO_ENGINE, "loadModule('" + ENVIRONMENT_MODULE + "');");
+	}
+
+	@Test
+	public void jythonLoadEnvironmentModule() throws Exception {
+		measureExecuteSync("jython loadModule(Environment)", JYTHON_ENGINE, "loadModule('" + ENVIRONMENT_MODULE + "')");
+	}
+
+	private void measureExecuteSync(final String name, final String engineID, final String code) throws Exception {
+		fEngine = startEngine(engineID);
+
+		BenchmarkRunner.measure(name, new BenchmarkOperation() {
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				blackhole.consume(fEngine.executeSync(new Script("benchmark", code)));
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.benchmarks;
+
+import org.eclipse.ease.IScriptEngine;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Measures variable transfers between Java and a Python process connected via py4j. Skipped when no Python interpreter is available.
+ */
+public class Py4JBenchmark extends EngineBenchmarkBase {
+
+	private static final int WARMUP = 200;
+	private static final int INVOCATIONS = 1000;
+
+	private static IScriptEngine fEngine = null;
+
+	@BeforeClass
+	public static void setUpClass() throws InterruptedException {
+		fEngine = startEngine(PY4J_ENGINE);
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws InterruptedException {
+		stopEngine(fEngine);
+		fEngine = null;
+	}
+
+	@Test
+	public void stringVariableRoundTrip() throws Exception {
+		measureVariableRoundTrip("py4j string variable round trip", "EASE benchmark");
+	}
+
+	@Test
+	public void arrayVariableRoundTrip() throws Exception {
+		final int[] content = new int[1000];
+		for (int index = 0; index < content.length; index++)
+			content[index] = index;
+
+		measureVariableRoundTrip("py4j int[1000] variable round trip", content);
+	}
+
+	@Test
+	public void executeSync() throws Exception {
+		BenchmarkRunner.measure("py4j executeSync", new BenchmarkOperation() {
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				blackhole.consume(fEngine.executeSync("1 + 1"));
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+
+	private static void measureVariableRoundTrip(final String name, final Object content) throws Exception {
+		BenchmarkRunner.measure(name, new BenchmarkOperation() {
+
+			@Override
+			protected void run(final Blackhole blackhole) throws Exception {
+				fEngine.setVariable("benchmark", content);
+				blackhole.consume(fEngine.getVariable("benchmark"));
+			}
+		}, WARMUP, INVOCATIONS);
+	}
+}
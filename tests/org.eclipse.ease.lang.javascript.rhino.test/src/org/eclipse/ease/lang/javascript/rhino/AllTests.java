@@ -5,7 +5,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ RhinoScriptEngineTest.class })
+@SuiteClasses({ RhinoScriptEngineTest.class, CompiledScriptCacheTest.class, ObservingContextFactoryTest.class })
 public class AllTests {
 
 }
@@ -0,0 +1,89 @@
+package org.eclipse.ease.lang.javascript.rhino;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Field;
+
+import org.eclipse.ease.lang.javascript.rhino.RhinoClassLoader.EngineClassLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+
+public class CompiledScriptCacheTest {
+
+	private static final String SCRIPT_SNIPPET_1 = "foo = 40 + 2;";
+	private static final String SCRIPT_SNIPPET_2 = "bar = 40 + 2;";
+	private static final String SCRIPT_SNIPPET_3 = "baz = 40 + 2;";
+
+	private CompiledScriptCache fCache;
+
+	private Context fContext;
+
+	@Before
+	public void setUp() {
+		fCache = new CompiledScriptCache(2);
+		fContext = Context.enter();
+		fContext.setOptimizationLevel(9);
+	}
+
+	@After
+	public void tearDown() {
+		Context.exit();
+	}
+
+	@Test
+	public void cacheHit() {
+		final Script script = fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test");
+
+		assertSame(script, fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test"));
+		assertEquals(1, fCache.getHitCount());
+		assertEquals(1, fCache.getMissCount());
+	}
+
+	@Test
+	public void optimizationLevelIsPartOfKey() {
+		final Script script = fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test");
+
+		fContext.setOptimizationLevel(-1);
+		assertNotSame(script, fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test"));
+		assertEquals(2, fCache.getMissCount());
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test");
+		fCache.getScript(fContext, SCRIPT_SNIPPET_2, "test");
+		fCache.getScript(fContext, SCRIPT_SNIPPET_3, "test");
+
+		assertEquals(2, fCache.size());
+	}
+
+	@Test
+	public void clear() {
+		fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test");
+		fCache.clear();
+
+		assertEquals(0, fCache.size());
+		assertEquals(0, fCache.getMissCount());
+	}
+
+	@Test
+	public void scriptsDoNotReferenceEngineClassLoader() throws Exception {
+		final ClassLoader sharedClassLoader = Context.class.getClassLoader();
+		final EngineClassLoader engineClassLoader = new EngineClassLoader(sharedClassLoader);
+		fContext.setApplicationClassLoader(engineClassLoader);
+
+		final Script script = fCache.getScript(fContext, SCRIPT_SNIPPET_1, "test");
+
+		// generated classes are defined by a loader delegating to the application class loader used for compilation
+		final Field parentLoader = script.getClass().getClassLoader().getClass().getDeclaredField("parentLoader");
+		parentLoader.setAccessible(true);
+		assertSame(sharedClassLoader, parentLoader.get(script.getClass().getClassLoader()));
+
+		assertSame(engineClassLoader, fContext.getApplicationClassLoader());
+	}
+}
@@ -0,0 +1,92 @@
+package org.eclipse.ease.lang.javascript.rhino;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.eclipse.ease.ExitException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+public class ObservingContextFactoryTest {
+
+	/** Loop running for 10 seconds, bounded to not block the test run when termination fails. */
+	private static final String LONG_RUNNING_LOOP = "var end = java.lang.System.currentTimeMillis() + 10000;\n"
+			+ "while (java.lang.System.currentTimeMillis() < end) { i = 1; }";
+
+	private ObservingContextFactory fFactory;
+
+	private Context fContext;
+
+	private Scriptable fScope;
+
+	@Before
+	public void setUp() {
+		fFactory = new ObservingContextFactory();
+		fContext = fFactory.enterContext();
+		fContext.setOptimizationLevel(-1);
+		fContext.setGenerateObserverCount(true);
+		fContext.setInstructionObserverThreshold(10);
+		fScope = fContext.initStandardObjects();
+	}
+
+	@After
+	public void tearDown() {
+		Context.exit();
+	}
+
+	@Test
+	public void createsObservingContext() {
+		assertTrue(fContext instanceof ObservingContextFactory.ObservingContext);
+	}
+
+	@Test
+	public void terminateFromOtherThread() throws InterruptedException {
+		final Context context = fContext;
+		final Thread terminator = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (final InterruptedException e) {
+					// terminate immediately
+				}
+				fFactory.terminate(context);
+			}
+		};
+		terminator.start();
+
+		try {
+			fContext.evaluateString(fScope, LONG_RUNNING_LOOP, "test", 1, null);
+			fail("Script should be terminated");
+		} catch (final ExitException e) {
+			// expected
+		}
+
+		terminator.join();
+	}
+
+	@Test
+	public void terminationRequestIsConsumed() {
+		fFactory.terminate(fContext);
+		try {
+			fContext.evaluateString(fScope, "for (var i = 0; i < 100; i++) {}", "test", 1, null);
+			fail("Script should be terminated");
+		} catch (final ExitException e) {
+			// expected
+		}
+
+		assertEquals(42.0, ((Number) fContext.evaluateString(fScope, "for (var i = 0; i < 100; i++) {}; 42", "test", 1, null)).doubleValue(), 0);
+	}
+
+	@Test
+	public void cancelTermination() {
+		fFactory.terminate(fContext);
+		fFactory.cancelTerminate(fContext);
+
+		assertEquals(42.0, ((Number) fContext.evaluateString(fScope, "for (var i = 0; i < 100; i++) {}; 42", "test", 1, null)).doubleValue(), 0);
+	}
+}
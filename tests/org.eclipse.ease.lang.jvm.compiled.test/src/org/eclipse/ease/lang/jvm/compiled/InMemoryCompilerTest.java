@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.jvm.compiled;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.eclipse.ease.ScriptExecutionException;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InMemoryCompilerTest {
+
+	private static final String CODE = "package org.example;\n\npublic class Script {\n\tpublic static int run() {\n\t\treturn 42;\n\t}\n}\n";
+
+	private static final URL[] NO_CLASSPATH = new URL[0];
+
+	private InMemoryCompiler fCompiler;
+
+	private ClassLoader fParent;
+
+	@Before
+	public void setUp() {
+		fCompiler = new InMemoryCompiler(4);
+		fParent = InMemoryCompilerTest.class.getClassLoader();
+	}
+
+	@Test
+	public void classNameFromFileName() {
+		assertEquals("Script", InMemoryCompiler.getClassName("public class Other {}", "Script.java"));
+		assertEquals("Script", InMemoryCompiler.getClassName("public class Other {}", "/project/src/Script.java"));
+		assertEquals("Script", InMemoryCompiler.getClassName("public class Other {}", "C:\\project\\src\\Script.java"));
+	}
+
+	@Test
+	public void classNameFromCode() {
+		assertEquals("Other", InMemoryCompiler.getClassName("public class Other {}", null));
+		assertEquals("Other", InMemoryCompiler.getClassName("public abstract class Other {}", "script.txt"));
+		assertEquals("Other", InMemoryCompiler.getClassName("class Helper {}\npublic final class Other {}", null));
+	}
+
+	@Test
+	public void classNameWithPackage() {
+		assertEquals("org.example.Script", InMemoryCompiler.getClassName(CODE, null));
+		assertEquals("org.example.Script", InMemoryCompiler.getClassName(CODE, "Script.java"));
+	}
+
+	@Test
+	public void undetectableClassName() {
+		assertNull(InMemoryCompiler.getClassName("class Helper {}", null));
+	}
+
+	@Test
+	public void compile() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		final Class<?> clazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent);
+
+		assertEquals("org.example.Script", clazz.getName());
+		assertEquals(42, clazz.getMethod("run").invoke(null));
+		assertSame(fParent, clazz.getClassLoader().getParent());
+	}
+
+	@Test
+	public void compilationErrorIsReported() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		try {
+			fCompiler.compile("public class Script {\n\tint a = ;\n}\n", "Script.java", NO_CLASSPATH, fParent);
+			fail("Compilation should fail");
+		} catch (final ScriptExecutionException e) {
+			assertTrue(e.getMessage().contains("line 2"));
+		}
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void missingClassName() throws Exception {
+		fCompiler.compile("class Helper {}", null, NO_CLASSPATH, fParent);
+	}
+
+	@Test
+	public void compiledClassIsCached() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		final Class<?> clazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent);
+		assertEquals(0, fCompiler.getHitCount());
+		assertEquals(1, fCompiler.getMissCount());
+
+		assertSame(clazz, fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent));
+		assertEquals(1, fCompiler.getHitCount());
+		assertEquals(1, fCompiler.getMissCount());
+	}
+
+	@Test
+	public void changedCodeIsRecompiled() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		final Class<?> clazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent);
+		final Class<?> changedClazz = fCompiler.compile(CODE.replace("42", "43"), "Script.java", NO_CLASSPATH, fParent);
+
+		assertNotSame(clazz, changedClazz);
+		assertEquals(43, changedClazz.getMethod("run").invoke(null));
+		assertEquals(2, fCompiler.getMissCount());
+	}
+
+	@Test
+	public void changedParentIsRecompiled() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		final Class<?> clazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent);
+
+		// a new project loader replaces the previous one after a workspace change
+		final ClassLoader newParent = new URLClassLoader(NO_CLASSPATH, fParent);
+		final Class<?> recompiledClazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, newParent);
+
+		assertNotSame(clazz, recompiledClazz);
+		assertSame(newParent, recompiledClazz.getClassLoader().getParent());
+		assertEquals(0, fCompiler.getHitCount());
+		assertEquals(2, fCompiler.getMissCount());
+	}
+
+	@Test
+	public void invalidatedParentIsDropped() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		final ClassLoader droppedParent = new URLClassLoader(NO_CLASSPATH, fParent);
+		final Class<?> droppedClazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, droppedParent);
+		final Class<?> clazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent);
+
+		fCompiler.invalidate(droppedParent);
+
+		assertSame(clazz, fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent));
+		assertNotSame(droppedClazz, fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, droppedParent));
+		assertEquals(1, fCompiler.getHitCount());
+		assertEquals(3, fCompiler.getMissCount());
+	}
+
+	@Test
+	public void clear() throws Exception {
+		Assume.assumeTrue(InMemoryCompiler.isAvailable());
+
+		final Class<?> clazz = fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent);
+		fCompiler.clear();
+
+		assertNotSame(clazz, fCompiler.compile(CODE, "Script.java", NO_CLASSPATH, fParent));
+		assertEquals(0, fCompiler.getHitCount());
+		assertEquals(1, fCompiler.getMissCount());
+	}
+}
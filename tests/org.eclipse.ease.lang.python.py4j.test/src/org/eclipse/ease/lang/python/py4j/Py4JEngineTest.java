@@ -10,9 +10,12 @@
  *******************************************************************************/
 package org.eclipse.ease.lang.python.py4j;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.util.Random;
+
 import org.eclipse.ease.ScriptResult;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -39,6 +42,20 @@ public class Py4JEngineTest extends Py4JEngineTestBase {
 		assertEquals(22, result22.getResult());
 	}
 
+	/**
+	 * Transfer data larger than the socket buffers to Python and back, so that writing a frame needs the other side to receive it concurrently.
+	 */
+	@Test(timeout = 60000)
+	public void transferLargeData() throws Exception {
+		byte[] data = new byte[2 * 1024 * 1024];
+		new Random(42).nextBytes(data);
+
+		fEngine.setVariable("data", data);
+		ScriptResult result = executeCode("bytearray(data)", true);
+		assertNull(result.getException());
+		assertArrayEquals(data, (byte[]) result.getResult());
+	}
+
 	/**
 	 * Test printing to the Python's standard output. This is different to where print_ outputs to.
 	 *
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Kichwa Coders and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Jonah Graham (Kichwa Coders) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.py4j.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BulkDataChannelTest {
+
+	/**
+	 * Write data using one channel and read it back using a second channel.
+	 */
+	private static Object[] roundTrip(Object... values) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		BulkDataChannel writer = new BulkDataChannel(new ByteArrayInputStream(new byte[0]), buffer);
+		int[] handles = new int[values.length];
+		for (int index = 0; index < values.length; index++)
+			handles[index] = writer.write(values[index]);
+
+		BulkDataChannel reader = new BulkDataChannel(new ByteArrayInputStream(buffer.toByteArray()), new ByteArrayOutputStream());
+		Object[] result = new Object[values.length];
+		for (int index = 0; index < values.length; index++)
+			result[index] = reader.read(handles[index]);
+
+		return result;
+	}
+
+	@Test
+	public void isSupported() {
+		assertTrue(BulkDataChannel.isSupported(new byte[0]));
+		assertTrue(BulkDataChannel.isSupported(ByteBuffer.allocate(1)));
+		assertTrue(BulkDataChannel.isSupported(new double[0]));
+		assertFalse(BulkDataChannel.isSupported("text"));
+		assertFalse(BulkDataChannel.isSupported(new Object[0]));
+		assertFalse(BulkDataChannel.isSupported(null));
+	}
+
+	@Test
+	public void transferArrays() throws IOException {
+		Object[] result = roundTrip(new byte[] { 1, 2, 3 }, new int[] { -1, 42 }, new long[] { Long.MAX_VALUE }, new float[] { 1.5f },
+				new double[] { Math.PI, -0.0 });
+
+		assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) result[0]);
+		assertArrayEquals(new int[] { -1, 42 }, (int[]) result[1]);
+		assertArrayEquals(new long[] { Long.MAX_VALUE }, (long[]) result[2]);
+		assertArrayEquals(new float[] { 1.5f }, (float[]) result[3], 0);
+		assertArrayEquals(new double[] { Math.PI, -0.0 }, (double[]) result[4], 0);
+	}
+
+	@Test
+	public void transferByteBuffer() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 0, 1, 2, 3 });
+		buffer.position(1);
+
+		assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) roundTrip(buffer)[0]);
+		// source buffer is not consumed
+		assertEquals(1, buffer.position());
+	}
+
+	@Test
+	public void readOutOfOrder() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		BulkDataChannel writer = new BulkDataChannel(new ByteArrayInputStream(new byte[0]), buffer);
+		int first = writer.write(new int[] { 1 });
+		int second = writer.write(new int[] { 2 });
+
+		BulkDataChannel reader = new BulkDataChannel(new ByteArrayInputStream(buffer.toByteArray()), new ByteArrayOutputStream());
+		assertArrayEquals(new int[] { 2 }, (int[]) reader.read(second));
+		assertArrayEquals(new int[] { 1 }, (int[]) reader.read(first));
+	}
+
+	@Test
+	public void readTable() throws IOException {
+		// frame as written by the Python side
+		ByteArrayOutputStream columns = new ByteArrayOutputStream();
+		DataOutputStream columnData = new DataOutputStream(columns);
+		columnData.writeInt(2);
+		writeColumn(columnData, "x", BulkDataChannel.KIND_FLOAT64, ByteBuffer.allocate(16).putDouble(1.0).putDouble(2.0).array());
+		writeColumn(columnData, "count", BulkDataChannel.KIND_INT32, ByteBuffer.allocate(8).putInt(3).putInt(4).array());
+
+		ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		DataOutputStream frameData = new DataOutputStream(frame);
+		frameData.writeInt(7);
+		frameData.writeByte(BulkDataChannel.KIND_TABLE);
+		frameData.writeInt(columns.size());
+		frameData.write(columns.toByteArray());
+
+		BulkDataChannel reader = new BulkDataChannel(new ByteArrayInputStream(frame.toByteArray()), new ByteArrayOutputStream());
+		@SuppressWarnings("unchecked")
+		Map<String, Object> table = (Map<String, Object>) reader.read(7);
+
+		assertArrayEquals(new String[] { "x", "count" }, table.keySet().toArray());
+		assertArrayEquals(new double[] { 1.0, 2.0 }, (double[]) table.get("x"), 0);
+		assertArrayEquals(new int[] { 3, 4 }, (int[]) table.get("count"));
+	}
+
+	@Test
+	public void failedWriteClosesChannel() throws IOException {
+		BulkDataChannel writer = new BulkDataChannel(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream());
+		try {
+			writer.write("text");
+			fail("Unsupported data should not be written");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertTrue(writer.isClosed());
+		try {
+			writer.write(new byte[] { 1 });
+			fail("Closed channel should not be used");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void failedReadClosesChannel() throws IOException {
+		// frame header without payload
+		BulkDataChannel reader = new BulkDataChannel(new ByteArrayInputStream(new byte[] { 0, 0, 0, 1, BulkDataChannel.KIND_BYTES, 0, 0, 0, 8 }),
+				new ByteArrayOutputStream());
+		try {
+			reader.read(1);
+			fail("Incomplete frame should not be read");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertTrue(reader.isClosed());
+	}
+
+	@Test(timeout = 30000)
+	public void transferLargeFramesInBothDirections() throws Exception {
+		// larger than the socket buffers, writing needs the other side to receive concurrently
+		byte[] toClient = new byte[8 * 1024 * 1024];
+		Arrays.fill(toClient, (byte) 1);
+		double[] toServer = new double[1024 * 1024];
+		Arrays.fill(toServer, 2.0);
+
+		BulkDataChannel server = new BulkDataChannel();
+		Socket socket = new Socket();
+		socket.setReceiveBufferSize(64 * 1024);
+		socket.setSendBufferSize(64 * 1024);
+		socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+		try {
+			socket.getOutputStream().write(server.getToken().getBytes(StandardCharsets.US_ASCII));
+			server.accept(10000);
+			BulkDataChannel client = new BulkDataChannel(socket.getInputStream(), socket.getOutputStream());
+
+			// nobody reads before both writes completed
+			int serverHandle = server.write(toClient);
+			int clientHandle = client.write(toServer);
+
+			assertArrayEquals(toClient, (byte[]) client.read(serverHandle));
+			assertArrayEquals(toServer, (double[]) server.read(clientHandle), 0);
+
+		} finally {
+			socket.close();
+			server.close();
+		}
+	}
+
+	@Test(timeout = 30000)
+	public void rejectWrongToken() throws Exception {
+		BulkDataChannel server = new BulkDataChannel();
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		try {
+			byte[] token = server.getToken().getBytes(StandardCharsets.US_ASCII);
+			token[0]++;
+			socket.getOutputStream().write(token);
+
+			server.accept(2000);
+			fail("Connection with wrong token should not be accepted");
+
+		} catch (IOException e) {
+			// expected
+
+		} finally {
+			socket.close();
+			server.close();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void discardOldestPendingFrame() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		BulkDataChannel writer = new BulkDataChannel(new ByteArrayInputStream(new byte[0]), buffer);
+		int[] handles = new int[BulkDataChannel.MAX_PENDING_FRAMES + 1];
+		for (int index = 0; index < handles.length; index++)
+			handles[index] = writer.write(new int[] { index });
+
+		BulkDataChannel reader = new BulkDataChannel(new ByteArrayInputStream(buffer.toByteArray()), new ByteArrayOutputStream());
+		// waits until all frames are received
+		assertArrayEquals(new int[] { BulkDataChannel.MAX_PENDING_FRAMES }, (int[]) reader.read(handles[BulkDataChannel.MAX_PENDING_FRAMES]));
+		assertArrayEquals(new int[] { 1 }, (int[]) reader.read(handles[1]));
+
+		try {
+			reader.read(handles[0]);
+			fail("Oldest frame should be discarded");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private static void writeColumn(DataOutputStream output, String name, byte kind, byte[] payload) throws IOException {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(nameBytes.length);
+		output.write(nameBytes);
+		output.writeByte(kind);
+		output.writeInt(payload.length);
+		output.write(payload);
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Kichwa Coders and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Jonah Graham (Kichwa Coders) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.py4j.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ease.lang.python.py4j.EaseTestBase;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PythonWorkerPoolTest extends EaseTestBase {
+
+	private static String fInterpreter;
+
+	private PythonWorkerPool fPool;
+
+	/** Workers leased by a test, shut down after each test. */
+	private final List<PythonWorker> fWorkers = new ArrayList<>();
+
+	@BeforeClass
+	public static void checkInterpreter() {
+		fInterpreter = Activator.getDefault().getPreferenceStore().getString(Py4JScriptEnginePrefConstants.INTERPRETER);
+		Assume.assumeTrue("No Python interpreter available", isInterpreterAvailable(fInterpreter));
+	}
+
+	private static boolean isInterpreterAvailable(String interpreter) {
+		try {
+			Process process = new ProcessBuilder(interpreter, "--version").redirectErrorStream(true).start();
+			return process.waitFor(10, TimeUnit.SECONDS) && (process.exitValue() == 0);
+
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Before
+	public void setUp() {
+		fPool = new PythonWorkerPool();
+	}
+
+	@After
+	public void tearDown() {
+		fPool.dispose();
+		for (PythonWorker worker : fWorkers) {
+			if (worker.isAlive())
+				worker.shutdown();
+		}
+	}
+
+	private PythonWorker lease() throws Exception {
+		PythonWorker worker = fPool.lease(fInterpreter);
+		fWorkers.add(worker);
+		return worker;
+	}
+
+	@Test
+	public void releasedWorkerIsReused() throws Exception {
+		PythonWorker worker = lease();
+		assertTrue(worker.isAlive());
+
+		fPool.release(worker);
+		assertTrue(worker.isAlive());
+
+		assertSame(worker, lease());
+	}
+
+	@Test
+	public void leasedWorkerIsNotShared() throws Exception {
+		PythonWorker worker = lease();
+
+		assertNotSame(worker, lease());
+	}
+
+	@Test
+	public void namespaceIsResetBetweenReuses() throws Exception {
+		PythonWorker worker = lease();
+		worker.getPythonSideEngine().internalSetVariable("leaked", 42);
+		assertTrue(worker.getPythonSideEngine().internalHasVariable("leaked"));
+
+		fPool.release(worker);
+
+		PythonWorker reusedWorker = lease();
+		assertSame(worker, reusedWorker);
+		assertFalse(reusedWorker.getPythonSideEngine().internalHasVariable("leaked"));
+	}
+
+	@Test
+	public void interpreterStateIsResetBetweenReuses() throws Exception {
+		PythonWorker worker = lease();
+		worker.getPythonSideEngine().executeScript("import sys\nimport colorsys\nsys.path.append('leaked_path')", null);
+
+		fPool.release(worker);
+
+		PythonWorker reusedWorker = lease();
+		assertSame(worker, reusedWorker);
+		reusedWorker.getPythonSideEngine().executeScript("import sys\nstate = ('leaked_path' in sys.path, 'colorsys' in sys.modules)", null);
+		assertEquals("(False, False)", reusedWorker.getPythonSideEngine().internalGetVariable("state"));
+	}
+
+	@Test
+	public void deadWorkerIsNotReused() throws Exception {
+		PythonWorker worker = lease();
+		fPool.release(worker);
+
+		worker.destroy();
+		waitUntil(() -> !worker.isAlive());
+
+		PythonWorker newWorker = lease();
+		assertNotSame(worker, newWorker);
+		assertTrue(newWorker.isAlive());
+	}
+
+	@Test
+	public void excessWorkersAreTerminated() throws Exception {
+		List<PythonWorker> workers = new ArrayList<>();
+		for (int index = 0; index <= PythonWorkerPool.MAX_IDLE_WORKERS; index++)
+			workers.add(lease());
+
+		for (PythonWorker worker : workers)
+			fPool.release(worker);
+
+		for (int index = 0; index < PythonWorkerPool.MAX_IDLE_WORKERS; index++)
+			assertTrue(workers.get(index).isAlive());
+
+		PythonWorker excessWorker = workers.get(PythonWorkerPool.MAX_IDLE_WORKERS);
+		waitUntil(() -> !excessWorker.isAlive());
+	}
+
+	@Test
+	public void disposeTerminatesWorkers() throws Exception {
+		PythonWorker idleWorker = lease();
+		PythonWorker leasedWorker = lease();
+		fPool.release(idleWorker);
+
+		fPool.dispose();
+		waitUntil(() -> !idleWorker.isAlive());
+		assertTrue(leasedWorker.isAlive());
+
+		// workers released after dispose are not pooled any longer
+		fPool.release(leasedWorker);
+		waitUntil(() -> !leasedWorker.isAlive());
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.jython;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.python.core.PyObject;
+
+public class CompiledCodeCacheTest {
+
+	private CompiledCodeCache fCache;
+
+	@Before
+	public void setup() {
+		fCache = new CompiledCodeCache(2);
+	}
+
+	@Test
+	public void cacheHit() {
+		final PyObject code = fCache.getCode("a = 1", "script.py");
+
+		assertSame(code, fCache.getCode("a = 1", "script.py"));
+		assertEquals(1, fCache.getHitCount());
+		assertEquals(1, fCache.getMissCount());
+	}
+
+	@Test
+	public void cacheMiss() {
+		final PyObject code = fCache.getCode("a = 1", "script.py");
+
+		assertNotSame(code, fCache.getCode("a = 2", "script.py"));
+		assertEquals(0, fCache.getHitCount());
+		assertEquals(2, fCache.getMissCount());
+	}
+
+	@Test
+	public void fileNameIsPartOfKey() {
+		final PyObject code = fCache.getCode("a = 1", "script.py");
+
+		assertNotSame(code, fCache.getCode("a = 1", "other.py"));
+		assertNotSame(code, fCache.getCode("a = 1", null));
+		assertEquals(3, fCache.getMissCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedCodeIsEvicted() {
+		final PyObject first = fCache.getCode("a = 1", "script.py");
+		final PyObject second = fCache.getCode("a = 2", "script.py");
+
+		// access first code, so second code is evicted when a third one is added
+		assertSame(first, fCache.getCode("a = 1", "script.py"));
+		fCache.getCode("a = 3", "script.py");
+		assertEquals(2, fCache.size());
+
+		assertSame(first, fCache.getCode("a = 1", "script.py"));
+		assertNotSame(second, fCache.getCode("a = 2", "script.py"));
+		assertEquals(2, fCache.getHitCount());
+		assertEquals(4, fCache.getMissCount());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void incompleteCode() {
+		fCache.getCode("if True:", "script.py");
+	}
+
+	@Test
+	public void incompleteCodeIsNotCached() {
+		try {
+			fCache.getCode("if True:", "script.py");
+		} catch (final RuntimeException e) {
+			// expected
+		}
+
+		assertEquals(0, fCache.size());
+	}
+}
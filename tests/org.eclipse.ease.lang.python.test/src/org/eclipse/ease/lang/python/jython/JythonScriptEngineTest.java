@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.lang.python.jython;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JythonScriptEngineTest {
+
+	@Rule
+	public TemporaryFolder fFolder = new TemporaryFolder();
+
+	private JythonScriptEngine fEngine;
+
+	private String fModuleFolder;
+
+	@Before
+	public void setUp() throws IOException {
+		final File module = fFolder.newFile("ease_reset_test.py");
+		final FileWriter writer = new FileWriter(module);
+		try {
+			writer.write("state = 42\n");
+		} finally {
+			writer.close();
+		}
+
+		fModuleFolder = fFolder.getRoot().getAbsolutePath().replace('\\', '/');
+
+		fEngine = new JythonScriptEngine();
+		fEngine.setTerminateOnIdle(false);
+		fEngine.schedule();
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		fEngine.terminate();
+		fEngine.join();
+	}
+
+	@Test(timeout = 10000)
+	public void resetRestoresPath() throws Exception {
+		fEngine.executeSync("import sys\nsys.path.append('" + fModuleFolder + "')");
+		assertTrue(isTrue("'" + fModuleFolder + "' in sys.path"));
+
+		assertEquals(Boolean.TRUE, fEngine.reset().get());
+
+		assertFalse(isTrue("'" + fModuleFolder + "' in sys.path"));
+	}
+
+	@Test(timeout = 10000)
+	public void resetDropsImportedModules() throws Exception {
+		fEngine.executeSync("import sys\nsys.path.append('" + fModuleFolder + "')\nimport ease_reset_test");
+		assertTrue(isTrue("'ease_reset_test' in sys.modules"));
+
+		assertEquals(Boolean.TRUE, fEngine.reset().get());
+
+		assertFalse(isTrue("'ease_reset_test' in sys.modules"));
+	}
+
+	@Test(timeout = 10000)
+	public void resetDropsVariables() throws Exception {
+		fEngine.executeSync("leaked = 42");
+		assertTrue(fEngine.hasVariable("leaked"));
+
+		assertEquals(Boolean.TRUE, fEngine.reset().get());
+
+		assertFalse(fEngine.hasVariable("leaked"));
+	}
+
+	/**
+	 * Evaluate a condition within the engine. Code is executed as a script, so the condition result is passed by defining a variable.
+	 */
+	private boolean isTrue(final String condition) throws Exception {
+		fEngine.executeSync("import sys\nif " + condition + ":\n    condition_met = True\nelif 'condition_met' in globals():\n    del condition_met");
+		return fEngine.hasVariable("condition_met");
+	}
+}
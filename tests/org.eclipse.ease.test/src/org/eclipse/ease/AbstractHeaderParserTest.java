@@ -1,13 +1,17 @@
 package org.eclipse.ease;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.ease.sign.ScriptSignatureException;
+import org.eclipse.ease.sign.SignatureInfo;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -88,6 +92,57 @@ public class AbstractHeaderParserTest {
 		assertEquals("this is a multi line keyword", keywords.get("multi"));
 	}
 
+	@Test
+	public void parseDelimitedHeader() {
+		final Map<String, String> keywords = fParser.parse(toStream("// ********\n// key: word\n// continued\n// ********\n// other text\n"));
+		assertEquals(1, keywords.size());
+		assertEquals("word continued", keywords.get("key"));
+	}
+
+	@Test
+	public void parseStopsAtCode() {
+		final Map<String, String> keywords = fParser.parse(toStream("// key: word\nvar a = 13;\n// other: value\n"));
+		assertEquals(1, keywords.size());
+		assertEquals("word", keywords.get("key"));
+	}
+
+	@Test
+	public void parseUnicodeHeader() throws UnsupportedEncodingException {
+		final Map<String, String> keywords = fParser.parse(new ByteArrayInputStream("// author: J\u00fcrgen \u00c5str\u00f6m\n".getBytes("UTF-8")));
+		assertEquals("J\u00fcrgen \u00c5str\u00f6m", keywords.get("author"));
+	}
+
+	@Test
+	public void parseHugeComment() {
+		final StringBuilder data = new StringBuilder("// key: word\n");
+		for (int index = 0; index < 100000; index++)
+			data.append("// this is a very long comment\n");
+		data.append("// late: keyword\n");
+
+		final Map<String, String> keywords = fParser.parse(toStream(data.toString()));
+		assertEquals(1, keywords.size());
+		assertTrue(keywords.get("key").startsWith("word this is a very long comment"));
+	}
+
+	@Test
+	public void parseSignatureBlock() throws ScriptSignatureException {
+		final String signature = "0123456789012345678901234567890123456789012345678901234567890123";
+		final String script = "var a = 13;\n/*\n-----BEGIN SIGNATURE-----\nnot a signature\n*/\nvar b = 14;";
+		final String block = "\n/*\n-----BEGIN SIGNATURE-----\nHash:SHA1 Provider:SUN\n\n" + signature + "\n\nfirst:second\n\n-----END SIGNATURE-----\n*/";
+
+		final SignatureInfo info = fParser.getSignatureInfo(toStream(script + block));
+		assertEquals(script, info.getContentOnly());
+		assertEquals(signature, info.getSignature());
+		assertEquals("SUN", info.getProvider());
+		assertEquals("SHA1", info.getMessageDigestAlgo());
+		assertEquals(2, info.getCertificateChain().length);
+	}
+
+	@Test
+	public void parseUnsignedScript() throws ScriptSignatureException {
+		assertNull(fParser.getSignatureInfo(toStream(TEMPLATE_BLOCK_HEADER + "var a = 13;\n")));
+	}
+
 	@Test
 	public void createHeader() {
 		final HashMap<String, String> keywords = new HashMap<String, String>();
@@ -4,12 +4,25 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ease.metrics.ExecutionMetrics;
+import org.eclipse.ease.metrics.ScriptStatistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -22,6 +35,9 @@ public class AbstractScriptEngineTest {
 
 	private AbstractScriptEngine fTestEngine;
 
+	/** Thread that set the output stream of the test engine. */
+	private volatile Thread fStreamThread;
+
 	@Before
 	public void setup() {
 		fTestEngine = new AbstractScriptEngine("Test engine") {
@@ -75,6 +91,17 @@ public class AbstractScriptEngineTest {
 			protected Object execute(final Script script, final Object reference, final String fileName, final boolean uiThread) throws Exception {
 				return script.getCommand();
 			}
+
+			@Override
+			protected boolean supportsSharedExecution() {
+				return true;
+			}
+
+			@Override
+			public void setOutputStream(final OutputStream outputStream) {
+				fStreamThread = Thread.currentThread();
+				super.setOutputStream(outputStream);
+			}
 		};
 	}
 
@@ -180,6 +207,136 @@ public class AbstractScriptEngineTest {
 		assertEquals(Job.NONE, fTestEngine.getState());
 	}
 
+	@Test(timeout = 1000)
+	public void executeBatch() throws InterruptedException, ExecutionException {
+		final List<Integer> events = new ArrayList<Integer>();
+		fTestEngine.addExecutionListener(new IExecutionListener() {
+
+			@Override
+			public void notify(final IScriptEngine engine, final Script script, final int status) {
+				if ((status != ENGINE_START) && (status != ENGINE_END))
+					events.add(status);
+			}
+		});
+
+		final ScriptResult result = fTestEngine.executeBatch(Arrays.asList(SAMPLE_CODE, "second"));
+		fTestEngine.schedule();
+
+		final List<?> results = (List<?>) result.get();
+		assertEquals(2, results.size());
+		assertEquals(SAMPLE_CODE, ((ScriptResult) results.get(0)).getResult());
+		assertEquals("second", ((ScriptResult) results.get(1)).getResult());
+		assertFalse(result.hasException());
+
+		// pieces of a batch are not reported to listeners
+		assertEquals(Arrays.asList(IExecutionListener.BATCH_START, IExecutionListener.BATCH_END), events);
+	}
+
+	@Test(timeout = 1000)
+	public void setStreamsAsync() throws InterruptedException, ExecutionException {
+		final PrintStream output = new PrintStream(new ByteArrayOutputStream());
+		final PrintStream error = new PrintStream(new ByteArrayOutputStream());
+		final InputStream input = new ByteArrayInputStream(new byte[0]);
+
+		fTestEngine.setTerminateOnIdle(false);
+		fTestEngine.scheduleShared();
+		fTestEngine.setStreamsAsync(output, error, input).get();
+
+		// streams are replaced by the engine thread
+		assertNotNull(fStreamThread);
+		assertNotSame(Thread.currentThread(), fStreamThread);
+		assertSame(output, fTestEngine.getOutputStream());
+		assertSame(error, fTestEngine.getErrorStream());
+		assertSame(input, fTestEngine.getInputStream());
+
+		fTestEngine.terminate();
+		fTestEngine.join(0);
+	}
+
+	@Test(timeout = 1000)
+	public void resetNotSupported() throws InterruptedException {
+		fTestEngine.setTerminateOnIdle(false);
+		fTestEngine.schedule();
+
+		final ScriptResult result = fTestEngine.reset();
+		fTestEngine.join();
+
+		assertEquals(Boolean.FALSE, result.getResult());
+		assertTrue(fTestEngine.isFinished());
+	}
+
+	@Test(timeout = 1000)
+	public void sharedExecution() throws InterruptedException {
+		fTestEngine.setTerminateOnIdle(false);
+		fTestEngine.scheduleShared();
+
+		assertTrue(fTestEngine.isShared());
+		assertEquals(SAMPLE_CODE, fTestEngine.executeSync(SAMPLE_CODE).getResult());
+		assertEquals("second", fTestEngine.executeSync("second").getResult());
+
+		// shared engines are not scheduled as a job
+		assertEquals(Job.NONE, fTestEngine.getState());
+
+		fTestEngine.setTerminateOnIdle(true);
+		fTestEngine.join(0);
+
+		assertTrue(fTestEngine.isFinished());
+	}
+
+	@Test(timeout = 1000)
+	public void sharedExecutionKeepsOrder() throws InterruptedException, ExecutionException {
+		final List<Object> executed = new ArrayList<Object>();
+		fTestEngine.addExecutionListener(new IExecutionListener() {
+
+			@Override
+			public void notify(final IScriptEngine engine, final Script script, final int status) {
+				if (status == SCRIPT_START)
+					executed.add(script.getCommand());
+			}
+		});
+
+		fTestEngine.setTerminateOnIdle(false);
+		fTestEngine.scheduleShared();
+
+		ScriptResult result = null;
+		for (int index = 0; index < 100; index++)
+			result = fTestEngine.executeAsync(Integer.toString(index));
+
+		assertEquals("99", result.get());
+
+		fTestEngine.terminate();
+		fTestEngine.join(0);
+
+		assertEquals(100, executed.size());
+		for (int index = 0; index < 100; index++)
+			assertEquals(Integer.toString(index), executed.get(index));
+	}
+
+	@Test(timeout = 1000)
+	public void recordMetrics() throws InterruptedException {
+		final ExecutionMetrics metrics = ExecutionMetrics.getInstance();
+		metrics.reset();
+		metrics.setEnabled(true);
+		try {
+			fTestEngine.setTerminateOnIdle(false);
+			fTestEngine.schedule();
+
+			fTestEngine.executeSync(new Script("metrics", SAMPLE_CODE));
+			fTestEngine.executeSync(new Script("metrics", SAMPLE_CODE));
+			fTestEngine.terminate();
+
+			final ScriptStatistics statistics = metrics.getEngineStatistics(fTestEngine.getName()).getScriptStatistics("metrics");
+			assertEquals(2, statistics.getExecutions());
+			assertEquals(0, statistics.getExceptions());
+			assertEquals(2 * SAMPLE_CODE.length(), statistics.getCodeLength());
+			assertEquals(1, metrics.getEngineStatistics(fTestEngine.getName()).getSetups());
+
+		} finally {
+			metrics.setEnabled(false);
+			metrics.reset();
+		}
+	}
+
 	@Test
 	public void extractEmptyArguments() {
 		assertEquals(0, AbstractScriptEngine.extractArguments(null).length);
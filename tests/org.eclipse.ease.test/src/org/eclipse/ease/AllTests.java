@@ -1,6 +1,13 @@
 package org.eclipse.ease;
 
 import org.eclipse.ease.adapters.ScriptableAdapterTest;
+import org.eclipse.ease.metrics.ExecutionMetricsTest;
+import org.eclipse.ease.modules.ModuleHelperTest;
+import org.eclipse.ease.modules.ModuleRegistryTest;
+import org.eclipse.ease.modules.WrapperCodeCacheTest;
+import org.eclipse.ease.sign.CertificateValidationServiceTest;
+import org.eclipse.ease.sign.VerifySignatureTest;
+import org.eclipse.ease.tools.BoundedCacheTest;
 import org.eclipse.ease.tools.ResourceToolsTest;
 import org.eclipse.ease.tools.RunnableWithResultTest;
 import org.junit.runner.RunWith;
@@ -9,7 +16,9 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({ ResourceToolsTest.class, RunnableWithResultTest.class, AbstractHeaderParserTest.class, ScriptResultTest.class, ScriptTest.class,
-	AbstractScriptEngineTest.class, ScriptableAdapterTest.class })
+	AbstractScriptEngineTest.class, ScriptableAdapterTest.class, ModuleHelperTest.class,
+	WrapperCodeCacheTest.class, ModuleRegistryTest.class, ExecutionMetricsTest.class, BoundedCacheTest.class,
+	CertificateValidationServiceTest.class, VerifySignatureTest.class })
 public class AllTests {
 
 }
@@ -4,6 +4,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -55,4 +62,89 @@ public class ScriptResultTest {
 		result.setException(fException);
 		assertTrue(result.hasException());
 	}
+
+	@Test
+	public void listenerOnPendingResult() {
+		final AtomicInteger calls = new AtomicInteger();
+		final ScriptResult result = new ScriptResult();
+		result.addListener(new IScriptResultListener() {
+
+			@Override
+			public void resultReady(final ScriptResult readyResult) {
+				assertEquals(fResult, readyResult.getResult());
+				calls.incrementAndGet();
+			}
+		});
+
+		assertEquals(0, calls.get());
+
+		result.setResult(fResult);
+		assertEquals(1, calls.get());
+
+		// listeners are notified only once
+		result.setException(fException);
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void listenerOnReadyResult() {
+		final AtomicInteger calls = new AtomicInteger();
+		new ScriptResult(fResult).addListener(new IScriptResultListener() {
+
+			@Override
+			public void resultReady(final ScriptResult readyResult) {
+				calls.incrementAndGet();
+			}
+		});
+
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void toCompletableFuture() throws InterruptedException, ExecutionException {
+		ScriptResult result = new ScriptResult();
+		CompletableFuture<Object> future = result.toCompletableFuture();
+		assertFalse(future.isDone());
+
+		result.setResult(fResult);
+		assertEquals(fResult, future.get());
+
+		result = new ScriptResult();
+		future = result.toCompletableFuture();
+		result.setException(fException);
+		assertTrue(future.isCompletedExceptionally());
+	}
+
+	@Test
+	public void get() throws InterruptedException, ExecutionException, TimeoutException {
+		assertEquals(fResult, new ScriptResult(fResult).get());
+
+		final ScriptResult result = new ScriptResult();
+		new Thread() {
+			@Override
+			public void run() {
+				result.setResult(fResult);
+			}
+		}.start();
+
+		assertEquals(fResult, result.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = TimeoutException.class)
+	public void getTimeout() throws InterruptedException, ExecutionException, TimeoutException {
+		new ScriptResult().get(10, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	public void getThrowsExecutionException() throws InterruptedException {
+		final ScriptResult result = new ScriptResult();
+		result.setException(fException);
+
+		try {
+			result.get();
+			fail("ExecutionException expected");
+		} catch (final ExecutionException e) {
+			assertEquals(fException, e.getCause());
+		}
+	}
 }
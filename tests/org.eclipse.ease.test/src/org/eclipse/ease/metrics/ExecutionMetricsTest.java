@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutionMetricsTest {
+
+	private ExecutionMetrics fMetrics;
+
+	@Before
+	public void setup() {
+		fMetrics = ExecutionMetrics.getInstance();
+		fMetrics.reset();
+	}
+
+	@After
+	public void teardown() {
+		fMetrics.reset();
+	}
+
+	@Test
+	public void aggregateExecutions() {
+		fMetrics.recordExecution("engine", "script", 10, 100, 1, 20, false);
+		fMetrics.recordExecution("engine", "script", 30, 200, 2, 20, true);
+
+		final ScriptStatistics statistics = fMetrics.getEngineStatistics("engine").getScriptStatistics("script");
+		assertEquals(2, statistics.getExecutions());
+		assertEquals(1, statistics.getExceptions());
+		assertEquals(40, statistics.getQueueWaitTime());
+		assertEquals(30, statistics.getMaxQueueWaitTime());
+		assertEquals(300, statistics.getExecutionTime());
+		assertEquals(200, statistics.getMaxExecutionTime());
+		assertEquals(3, statistics.getListenerTime());
+		assertEquals(40, statistics.getCodeLength());
+	}
+
+	@Test
+	public void anonymousScripts() {
+		fMetrics.recordExecution("engine", null, 0, 100, 0, 0, false);
+
+		assertEquals(1, fMetrics.getEngineStatistics("engine").getScriptStatistics(ExecutionMetrics.ANONYMOUS_SCRIPT).getExecutions());
+	}
+
+	@Test
+	public void recordSetup() {
+		fMetrics.recordSetup("engine", 500);
+		fMetrics.recordSetup("engine", 700);
+
+		final EngineStatistics statistics = fMetrics.getEngineStatistics("engine");
+		assertSame(statistics, fMetrics.getEngineStatistics("engine"));
+		assertEquals(2, statistics.getSetups());
+		assertEquals(1200, statistics.getSetupTime());
+	}
+
+	@Test
+	public void dumpSortsByExecutionTime() {
+		fMetrics.recordExecution("engine", "fast", 0, 1000000, 0, 0, false);
+		fMetrics.recordExecution("engine", "slow", 0, 5000000, 0, 0, false);
+
+		final String dump = fMetrics.dump();
+		assertTrue(dump.contains("engine"));
+		assertTrue(dump.indexOf("slow") < dump.indexOf("fast"));
+	}
+
+	@Test
+	public void resetStatistics() {
+		fMetrics.recordExecution("engine", "script", 0, 100, 0, 0, false);
+		fMetrics.reset();
+
+		assertTrue(fMetrics.getEngineStatistics().isEmpty());
+	}
+}
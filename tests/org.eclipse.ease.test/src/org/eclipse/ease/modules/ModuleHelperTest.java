@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.ease.ICodeFactory.Parameter;
+import org.junit.Test;
+
+public class ModuleHelperTest {
+
+	public static class AnnotatedModule {
+
+		@WrapToScript
+		public static final String CONSTANT = "constant";
+
+		public static final String HIDDEN_CONSTANT = "hidden";
+
+		@WrapToScript(alias = "aliasOne;aliasTwo")
+		public void wrapped(@ScriptParameter(name = "value") final String value, final int count) {
+		}
+
+		public void notWrapped() {
+		}
+	}
+
+	public static class PlainModule {
+
+		public static final String CONSTANT = "constant";
+
+		public void first() {
+		}
+
+		public void second() {
+		}
+	}
+
+	@Test
+	public void annotatedMethods() throws NoSuchMethodException {
+		final List<Method> methods = ModuleHelper.getMethods(AnnotatedModule.class);
+
+		assertEquals(1, methods.size());
+		assertEquals(AnnotatedModule.class.getMethod("wrapped", String.class, int.class), methods.get(0));
+	}
+
+	@Test
+	public void plainMethods() {
+		final List<Method> methods = ModuleHelper.getMethods(PlainModule.class);
+
+		assertEquals(2, methods.size());
+		for (final Method method : methods)
+			assertFalse(Object.class.equals(method.getDeclaringClass()));
+	}
+
+	@Test
+	public void annotatedFields() throws NoSuchFieldException {
+		final List<Field> fields = ModuleHelper.getFields(AnnotatedModule.class);
+
+		assertEquals(1, fields.size());
+		assertEquals(AnnotatedModule.class.getField("CONSTANT"), fields.get(0));
+		assertEquals(1, ModuleHelper.getFields(PlainModule.class).size());
+	}
+
+	@Test
+	public void nullClass() {
+		assertTrue(ModuleHelper.getMethods(null).isEmpty());
+		assertTrue(ModuleHelper.getFields(null).isEmpty());
+	}
+
+	@Test
+	public void metadataIsCached() throws NoSuchMethodException {
+		assertSame(ModuleHelper.getMethods(AnnotatedModule.class), ModuleHelper.getMethods(AnnotatedModule.class));
+		assertSame(ModuleHelper.getFields(AnnotatedModule.class), ModuleHelper.getFields(AnnotatedModule.class));
+
+		final Method method = AnnotatedModule.class.getMethod("wrapped", String.class, int.class);
+		assertSame(ModuleHelper.getParameters(method), ModuleHelper.getParameters(method));
+		assertSame(ModuleHelper.getNames(method), ModuleHelper.getNames(method));
+	}
+
+	@Test
+	public void parameters() throws NoSuchMethodException {
+		final List<Parameter> parameters = ModuleHelper.getParameters(AnnotatedModule.class.getMethod("wrapped", String.class, int.class));
+
+		assertEquals(2, parameters.size());
+		assertEquals("value", parameters.get(0).getName());
+		assertEquals(String.class, parameters.get(0).getClazz());
+		assertEquals("param1", parameters.get(1).getName());
+		assertEquals(int.class, parameters.get(1).getClazz());
+	}
+
+	@Test
+	public void names() throws NoSuchMethodException {
+		final Collection<String> names = ModuleHelper.getNames(AnnotatedModule.class.getMethod("wrapped", String.class, int.class));
+
+		assertEquals(3, names.size());
+		assertTrue(names.contains("wrapped"));
+		assertTrue(names.contains("aliasOne"));
+		assertTrue(names.contains("aliasTwo"));
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ModuleRegistryTest {
+
+	private ModuleDefinition fFirst;
+	private ModuleDefinition fSecond;
+	private ModuleDefinition fThird;
+
+	private ModuleRegistry fRegistry;
+
+	private static ModuleDefinition createDefinition(final String id, final String path, final Class<?> moduleClass) {
+		final ModuleDefinition definition = mock(ModuleDefinition.class);
+		when(definition.getId()).thenReturn(id);
+		when(definition.getPath()).thenReturn(new Path(path));
+		when(definition.getModuleClass()).thenAnswer(new Answer<Class<?>>() {
+
+			@Override
+			public Class<?> answer(final InvocationOnMock invocation) throws Throwable {
+				return moduleClass;
+			}
+		});
+
+		return definition;
+	}
+
+	@Before
+	public void setup() {
+		fFirst = createDefinition("first", "/System/Environment", EnvironmentModule.class);
+		fSecond = createDefinition("second", "/System/Resources", String.class);
+		fThird = createDefinition("third", "/Other/Resources", Integer.class);
+
+		fRegistry = new ModuleRegistry(Arrays.asList(fFirst, fSecond, fThird));
+	}
+
+	@Test
+	public void lookupByPath() {
+		assertEquals(3, fRegistry.getDefinitions().size());
+		assertSame(fFirst, fRegistry.getDefinitionByPath("/System/Environment"));
+		assertSame(fFirst, fRegistry.getDefinitions().get("/System/Environment"));
+		assertNull(fRegistry.getDefinitionByPath("/System/Unknown"));
+	}
+
+	@Test
+	public void lookupById() {
+		assertSame(fSecond, fRegistry.getDefinitionById("second"));
+		assertNull(fRegistry.getDefinitionById("unknown"));
+	}
+
+	@Test
+	public void lookupByName() {
+		assertEquals(Arrays.asList(fFirst), fRegistry.getDefinitionsByName("Environment"));
+		assertEquals(2, fRegistry.getDefinitionsByName("Resources").size());
+		assertTrue(fRegistry.getDefinitionsByName("Unknown").isEmpty());
+	}
+
+	@Test
+	public void lookupByClass() {
+		assertSame(fFirst, fRegistry.getDefinition(EnvironmentModule.class));
+		assertSame(fThird, fRegistry.getDefinition(Integer.class));
+		assertNull(fRegistry.getDefinition(Object.class));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void definitionsAreImmutable() {
+		fRegistry.getDefinitions().clear();
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.eclipse.ease.ICodeFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WrapperCodeCacheTest {
+
+	public static class SampleModule {
+
+		@WrapToScript
+		public void first() {
+		}
+
+		@WrapToScript
+		public void second() {
+		}
+	}
+
+	public static class ConfigurableModifier implements IScriptFunctionModifier {
+
+		private String fCode;
+
+		private int fVersion = 0;
+
+		public ConfigurableModifier(final String code) {
+			fCode = code;
+		}
+
+		public void setCode(final String code) {
+			fCode = code;
+			fVersion++;
+		}
+
+		@Override
+		public String getPreExecutionCode(final Method method) {
+			return fCode;
+		}
+
+		@Override
+		public String getPostExecutionCode(final Method method) {
+			return "";
+		}
+
+		@Override
+		public int getCodeVersion() {
+			return fVersion;
+		}
+	}
+
+	private ICodeFactory fCodeFactory;
+
+	private IEnvironment fEnvironment;
+
+	@Before
+	public void setup() {
+		WrapperCodeCache.invalidate(SampleModule.class);
+
+		fCodeFactory = mock(ICodeFactory.class);
+		when(fCodeFactory.createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class))).thenReturn("wrapper");
+
+		fEnvironment = mock(IEnvironment.class);
+		when(fEnvironment.getModules()).thenReturn(Collections.<Object> emptyList());
+	}
+
+	@Test
+	public void createWrappers() {
+		assertEquals("wrapper\nwrapper\n", WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module"));
+	}
+
+	@Test
+	public void cachedWrappers() {
+		final String code = WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+		assertSame(code, WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module"));
+
+		verify(fCodeFactory, times(2)).createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class));
+	}
+
+	@Test
+	public void variableNameIsPartOfKey() {
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__other");
+
+		verify(fCodeFactory, times(4)).createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class));
+	}
+
+	@Test
+	public void modifiersArePartOfKey() {
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		final ArrayList<Object> modules = new ArrayList<Object>();
+		modules.add(mock(IScriptFunctionModifier.class));
+		when(fEnvironment.getModules()).thenReturn(modules);
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		verify(fCodeFactory, times(4)).createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class));
+	}
+
+	@Test
+	public void modifierStateIsPartOfKey() {
+		final ArrayList<Object> modules = new ArrayList<Object>();
+		modules.add(new ConfigurableModifier("first();"));
+		when(fEnvironment.getModules()).thenReturn(modules);
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		modules.set(0, new ConfigurableModifier("second();"));
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		verify(fCodeFactory, times(4)).createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class));
+	}
+
+	@Test
+	public void modifierVersionIsPartOfKey() {
+		final ConfigurableModifier modifier = new ConfigurableModifier("first();");
+		final ArrayList<Object> modules = new ArrayList<Object>();
+		modules.add(modifier);
+		when(fEnvironment.getModules()).thenReturn(modules);
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		modifier.setCode("second();");
+		WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		verify(fCodeFactory, times(4)).createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class));
+	}
+
+	@Test
+	public void sameModifierSharesWrappers() {
+		final IScriptFunctionModifier modifier = mock(IScriptFunctionModifier.class);
+		final ArrayList<Object> modules = new ArrayList<Object>();
+		modules.add(modifier);
+		when(fEnvironment.getModules()).thenReturn(modules);
+		final String code = WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module");
+
+		assertSame(code, WrapperCodeCache.getFunctionWrappers(fCodeFactory, fEnvironment, SampleModule.class, "__module"));
+
+		verify(fCodeFactory, times(2)).createFunctionWrapper(any(IEnvironment.class), anyString(), any(Method.class));
+		// keys do not depend on generated code
+		verify(modifier, never()).getPreExecutionCode(any(Method.class));
+		verify(modifier, never()).getPostExecutionCode(any(Method.class));
+	}
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.sign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CertificateValidationServiceTest {
+
+	private static final char[] PASSWORD = "secret".toCharArray();
+
+	@Rule
+	public TemporaryFolder fFolder = new TemporaryFolder();
+
+	private CertificateValidationService fService;
+
+	private Certificate fCA;
+
+	private Certificate fOtherCA;
+
+	private List<Certificate> fChain;
+
+	private File fTrustStore;
+
+	private File fCRLFile;
+
+	@Before
+	public void setUp() throws Exception {
+		fService = new CertificateValidationService();
+
+		fCA = loadCertificate("ca.pem");
+		fOtherCA = loadCertificate("other-ca.pem");
+		fChain = Collections.singletonList(loadCertificate("signer.pem"));
+
+		fTrustStore = fFolder.newFile("truststore.jks");
+		writeTrustStore(fTrustStore, fCA);
+
+		fCRLFile = fFolder.newFile("crl.pem");
+		writeResource("crl-empty.pem", fCRLFile);
+		fService.setOfflineCRLFile(fCRLFile);
+	}
+
+	@Test
+	public void validChain() throws Exception {
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+	}
+
+	@Test
+	public void validChainFromStream() throws Exception {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		createTrustStore(fCA).store(output, PASSWORD);
+
+		assertTrue(fService.validate(fChain, new ByteArrayInputStream(output.toByteArray()), PASSWORD));
+	}
+
+	@Test
+	public void untrustedChainIsRejected() throws Exception {
+		writeTrustStore(fTrustStore, fOtherCA);
+
+		assertInvalid();
+	}
+
+	@Test
+	public void revokedCertificateIsRejectedOffline() throws Exception {
+		writeResource("crl-revoked.pem", fCRLFile);
+
+		assertInvalid();
+	}
+
+	@Test
+	public void missingCRLIsRejectedOffline() throws Exception {
+		fService.setOfflineCRLFile(fFolder.newFile("empty.pem"));
+
+		assertInvalid();
+	}
+
+	@Test
+	public void trustStoreIsReloadedWhenSizeChanges() throws Exception {
+		writeTrustStore(fTrustStore, fOtherCA);
+		final long lastModified = fTrustStore.lastModified();
+		assertInvalid();
+
+		writeTrustStore(fTrustStore, fOtherCA, fCA);
+		fTrustStore.setLastModified(lastModified);
+
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+	}
+
+	@Test
+	public void trustStoreIsReloadedWhenModificationTimeChanges() throws Exception {
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+
+		final long length = fTrustStore.length();
+		final long lastModified = fTrustStore.lastModified();
+		writeTrustStore(fTrustStore, fOtherCA);
+		fTrustStore.setLastModified(lastModified + 10000);
+
+		// both CA certificates have the same size, so only the modification time differs
+		assertEquals(length, fTrustStore.length());
+		assertInvalid();
+	}
+
+	@Test
+	public void validationIsCached() throws Exception {
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+
+		// revocation is not checked again while the validation is cached
+		writeResource("crl-revoked.pem", fCRLFile);
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+	}
+
+	@Test
+	public void cachedValidationExpires() throws Exception {
+		fService.setValidationTTL(100);
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+
+		writeResource("crl-revoked.pem", fCRLFile);
+		Thread.sleep(200);
+
+		assertInvalid();
+	}
+
+	@Test
+	public void disabledValidationCache() throws Exception {
+		fService.setValidationTTL(0);
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+
+		writeResource("crl-revoked.pem", fCRLFile);
+
+		assertInvalid();
+	}
+
+	@Test
+	public void validationCacheIsBounded() throws Exception {
+		assertTrue(fService.validate(fChain, fTrustStore, PASSWORD));
+
+		// evict the first validation by validating against other trust store files
+		for (int index = 0; index < CertificateValidationService.MAX_CACHED_VALIDATIONS; index++) {
+			final File trustStore = fFolder.newFile("truststore" + index + ".jks");
+			writeTrustStore(trustStore, fCA);
+			assertTrue(fService.validate(fChain, trustStore, PASSWORD));
+		}
+
+		writeResource("crl-revoked.pem", fCRLFile);
+
+		assertInvalid();
+	}
+
+	private void assertInvalid() {
+		try {
+			fService.validate(fChain, fTrustStore, PASSWORD);
+			fail("Certificate chain should be rejected");
+		} catch (final ScriptSignatureException e) {
+			// expected
+		}
+	}
+
+	private static Certificate loadCertificate(final String name) throws GeneralSecurityException, IOException {
+		final InputStream input = CertificateValidationServiceTest.class.getResourceAsStream(name);
+		try {
+			return CertificateFactory.getInstance("X.509").generateCertificate(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	private static KeyStore createTrustStore(final Certificate... certificates) throws GeneralSecurityException, IOException {
+		final KeyStore keyStore = KeyStore.getInstance("JKS");
+		keyStore.load(null, PASSWORD);
+		for (int index = 0; index < certificates.length; index++)
+			keyStore.setCertificateEntry("ca" + index, certificates[index]);
+
+		return keyStore;
+	}
+
+	private static void writeTrustStore(final File file, final Certificate... certificates) throws GeneralSecurityException, IOException {
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			createTrustStore(certificates).store(output, PASSWORD);
+		} finally {
+			output.close();
+		}
+	}
+
+	private static void writeResource(final String name, final File file) throws IOException {
+		final InputStream input = CertificateValidationServiceTest.class.getResourceAsStream(name);
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			final byte[] buffer = new byte[1024];
+			int length;
+			while ((length = input.read(buffer)) != -1)
+				output.write(buffer, 0, length);
+
+		} finally {
+			output.close();
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.sign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+
+import org.eclipse.ease.AbstractCodeParser;
+import org.eclipse.ease.ICodeFactory;
+import org.eclipse.ease.service.ScriptType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class VerifySignatureTest {
+
+	private static final String CONTENT = "var a = 13;\nprint(a);\n";
+
+	private static final String CONTENT_CRLF = "var a = 13;\r\nprint(a);\r\n";
+
+	private static final String CONTENT_NON_ASCII = "var a = '\u00e4\u00f6\u00fc';\nprint(a);\n";
+
+	// classic implementation of a code parser
+	private static class CodeParser extends AbstractCodeParser {
+
+		@Override
+		protected boolean hasBlockComment() {
+			return true;
+		}
+
+		@Override
+		protected String getBlockCommentEndToken() {
+			return "*/";
+		}
+
+		@Override
+		protected String getBlockCommentStartToken() {
+			return "/*";
+		}
+
+		@Override
+		protected String getLineCommentToken() {
+			return "//";
+		}
+	}
+
+	@Rule
+	public TemporaryFolder fFolder = new TemporaryFolder();
+
+	private ScriptType fScriptType;
+
+	@Before
+	public void setUp() throws Exception {
+		final ICodeFactory codeFactory = mock(ICodeFactory.class);
+		when(codeFactory.createCommentedString(anyString(), eq(true))).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(final InvocationOnMock invocation) throws Throwable {
+				return "/*" + invocation.getArguments()[0] + "*/";
+			}
+		});
+
+		fScriptType = mock(ScriptType.class);
+		when(fScriptType.getCodeParser()).thenReturn(new CodeParser());
+		when(fScriptType.getCodeFactory()).thenReturn(codeFactory);
+
+		VerifySignature.clearCache();
+	}
+
+	@Test
+	public void findContentEnd() {
+		assertEquals(4, VerifySignature.findContentEnd(toBytes("code\n/*\n" + SignatureHelper.BEGIN_STRING + "\n")));
+		assertEquals(5, VerifySignature.findContentEnd(toBytes("code\n\n/*\n" + SignatureHelper.BEGIN_STRING + "\n")));
+		assertEquals(6, VerifySignature.findContentEnd(toBytes("code\r\n\r\n/*\r\n" + SignatureHelper.BEGIN_STRING + "\r\n")));
+	}
+
+	@Test
+	public void findContentEndWithoutSignatureBlock() {
+		assertEquals(-1, VerifySignature.findContentEnd(toBytes("code\n")));
+		assertEquals(-1, VerifySignature.findContentEnd(toBytes(SignatureHelper.BEGIN_STRING + "\n")));
+	}
+
+	@Test
+	public void verifyFile() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+	}
+
+	@Test
+	public void verifyStream() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+
+		final InputStream input = new FileInputStream(file);
+		try {
+			assertTrue(new VerifySignature(fScriptType, input).verify());
+		} finally {
+			input.close();
+		}
+	}
+
+	@Test
+	public void verifyFileWithCRLFContent() throws Exception {
+		final File file = createSignedFile(CONTENT_CRLF, false, 1);
+
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+	}
+
+	@Test
+	public void verifyStreamWithCRLFContent() throws Exception {
+		final File file = createSignedFile(CONTENT_CRLF, false, 1);
+
+		assertTrue(verifyStream(file));
+	}
+
+	@Test
+	public void verifyNonAsciiContent() throws Exception {
+		// signed bytes are not valid in the platform charset, verification must not decode them
+		final File file = createSignedFile(CONTENT_NON_ASCII, false, 1);
+
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+		assertTrue(verifyStream(file));
+	}
+
+	@Test
+	public void verifyCRLFFile() throws Exception {
+		final File file = createSignedFile(CONTENT_CRLF, true, 1);
+
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+	}
+
+	@Test
+	public void verifyFileWithLargeSignatureBlock() throws Exception {
+		// signature block exceeds the parsed tail of the file, so the whole file is parsed
+		final File file = createSignedFile(CONTENT, false, 100);
+		assertTrue(file.length() > 64 * 1024);
+
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+		assertTrue(verifyStream(file));
+	}
+
+	@Test
+	public void tamperedFileIsRejected() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+		replaceFirstByte(file, 'x');
+
+		assertFalse(new VerifySignature(fScriptType, file).verify());
+	}
+
+	@Test
+	public void fileModifiedAfterParsing() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+		final VerifySignature verifySignature = new VerifySignature(fScriptType, file);
+
+		file.setLastModified(file.lastModified() + 10000);
+
+		try {
+			verifySignature.verify();
+			fail("Modified file should not be verified");
+		} catch (final ScriptSignatureException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void verificationIsCached() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+
+		// results are cached per modification time, so keep it for the modified file
+		final long lastModified = file.lastModified();
+		replaceFirstByte(file, 'x');
+		file.setLastModified(lastModified);
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+
+		VerifySignature.clearCache();
+		assertFalse(new VerifySignature(fScriptType, file).verify());
+	}
+
+	@Test
+	public void cacheIsInvalidatedOnModification() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+
+		final long lastModified = file.lastModified();
+		replaceFirstByte(file, 'x');
+		file.setLastModified(lastModified + 10000);
+
+		assertFalse(new VerifySignature(fScriptType, file).verify());
+	}
+
+	@Test
+	public void cacheIsInvalidatedOnLengthChange() throws Exception {
+		final File file = createSignedFile(CONTENT, false, 1);
+		assertTrue(new VerifySignature(fScriptType, file).verify());
+
+		// keep the modification time, the changed file length needs to trigger verification
+		final long lastModified = file.lastModified();
+		prependByte(file, 'x');
+		file.setLastModified(lastModified);
+
+		assertFalse(new VerifySignature(fScriptType, file).verify());
+	}
+
+	private boolean verifyStream(final File file) throws IOException, ScriptSignatureException {
+		final InputStream input = new FileInputStream(file);
+		try {
+			return new VerifySignature(fScriptType, input).verify();
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Create a script file signed by the test signer.
+	 *
+	 * @param content
+	 *            script content to sign
+	 * @param crlf
+	 *            <code>true</code> to use CRLF line breaks for the signature block
+	 * @param certificateCopies
+	 *            amount of times the signer certificate is attached, allows to create large signature blocks
+	 * @return signed file
+	 */
+	private File createSignedFile(final String content, final boolean crlf, final int certificateCopies) throws GeneralSecurityException, IOException,
+			ScriptSignatureException {
+		final byte[] contentBytes = toBytes(content);
+
+		final String certificate = Base64.getEncoder().encodeToString(loadCertificate().getEncoded()) + ":";
+		final StringBuilder certificates = new StringBuilder();
+		for (int index = 0; index < certificateCopies; index++)
+			certificates.append(certificate);
+
+		final ByteArrayOutputStream block = new ByteArrayOutputStream();
+		SignatureHelper.appendSignature(fScriptType, sign(contentBytes), certificates.toString(), "SHA1", "SUN", block);
+
+		String blockText = "\n" + new String(block.toByteArray(), StandardCharsets.ISO_8859_1);
+		if (crlf)
+			blockText = blockText.replace("\n", "\r\n");
+
+		final File file = fFolder.newFile();
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(contentBytes);
+			output.write(toBytes(blockText));
+		} finally {
+			output.close();
+		}
+
+		return file;
+	}
+
+	/**
+	 * Sign data with the test signer. The signature block format expects 48 signature bytes. DSA signature lengths vary, so sign until the expected length is
+	 * met.
+	 */
+	private static String sign(final byte[] data) throws GeneralSecurityException, IOException {
+		final Signature signature = Signature.getInstance("SHA1withDSA", "SUN");
+		signature.initSign(loadPrivateKey());
+
+		while (true) {
+			signature.update(data);
+			final byte[] signatureBytes = signature.sign();
+			if (signatureBytes.length == 48)
+				return Base64.getEncoder().encodeToString(signatureBytes);
+		}
+	}
+
+	private static Certificate loadCertificate() throws GeneralSecurityException, IOException {
+		final InputStream input = VerifySignatureTest.class.getResourceAsStream("signer.pem");
+		try {
+			return CertificateFactory.getInstance("X.509").generateCertificate(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	private static PrivateKey loadPrivateKey() throws GeneralSecurityException, IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final InputStream input = VerifySignatureTest.class.getResourceAsStream("signer-key.pem");
+		try {
+			final byte[] buffer = new byte[1024];
+			int length;
+			while ((length = input.read(buffer)) != -1)
+				output.write(buffer, 0, length);
+
+		} finally {
+			input.close();
+		}
+
+		final String pem = new String(output.toByteArray(), StandardCharsets.ISO_8859_1).replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+		return KeyFactory.getInstance("DSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem)));
+	}
+
+	private static void replaceFirstByte(final File file, final char character) throws IOException {
+		final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.write(character);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private static void prependByte(final File file, final char character) throws IOException {
+		final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			final byte[] data = new byte[(int) randomAccessFile.length()];
+			randomAccessFile.readFully(data);
+			randomAccessFile.seek(0);
+			randomAccessFile.write(character);
+			randomAccessFile.write(data);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private static byte[] toBytes(final String text) {
+		return text.getBytes(StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedCacheTest {
+
+	private BoundedCache<String, String> fCache;
+
+	@Before
+	public void setUp() {
+		fCache = new BoundedCache<String, String>(2);
+	}
+
+	@Test
+	public void hitAndMiss() {
+		assertNull(fCache.get("first"));
+		fCache.put("first", "value");
+
+		assertEquals("value", fCache.get("first"));
+		assertEquals(1, fCache.getHitCount());
+		assertEquals(1, fCache.getMissCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedEntryIsDropped() {
+		fCache.put("first", "1");
+		fCache.put("second", "2");
+
+		// access first entry so second becomes the eldest one
+		fCache.get("first");
+		fCache.put("third", "3");
+
+		assertEquals(2, fCache.size());
+		assertEquals("1", fCache.get("first"));
+		assertNull(fCache.get("second"));
+		assertEquals("3", fCache.get("third"));
+	}
+
+	@Test
+	public void remove() {
+		fCache.put("first", "1");
+
+		assertEquals("1", fCache.remove("first"));
+		assertEquals(0, fCache.size());
+	}
+
+	@Test
+	public void removeAll() {
+		fCache.put("first", "1");
+		fCache.put("second", "2");
+
+		final int removed = fCache.removeAll(new BoundedCache.IFilter<String, String>() {
+
+			@Override
+			public boolean matches(final String key, final String value) {
+				return "2".equals(value);
+			}
+		});
+
+		assertEquals(1, removed);
+		assertEquals("1", fCache.get("first"));
+		assertNull(fCache.get("second"));
+	}
+
+	@Test
+	public void clear() {
+		fCache.put("first", "1");
+		fCache.get("first");
+		fCache.clear();
+
+		assertEquals(0, fCache.size());
+		assertEquals(0, fCache.getHitCount());
+		assertEquals(0, fCache.getMissCount());
+	}
+
+	@Test
+	public void hash() {
+		assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", BoundedCache.hash("abc"));
+		assertFalse(BoundedCache.hash("abc").equals(BoundedCache.hash("abd")));
+	}
+}
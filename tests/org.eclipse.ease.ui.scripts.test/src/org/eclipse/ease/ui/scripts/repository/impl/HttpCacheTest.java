@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.ui.scripts.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.eclipse.ease.service.IScriptService;
+import org.eclipse.ease.service.ScriptType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HttpCacheTest {
+
+	private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+	private static final long LAST_MODIFIED_TIME = 1445412480000L;
+
+	@Rule
+	public TemporaryFolder fFolder = new TemporaryFolder();
+
+	private TestHttpServer fServer;
+	private HttpCache fCache;
+
+	@Before
+	public void setUp() throws IOException {
+		fServer = new TestHttpServer();
+		fCache = new HttpCache(fFolder.newFolder("cache"));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		fServer.stop();
+	}
+
+	@Test
+	public void fetchStoresContent() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", LAST_MODIFIED);
+
+		final HttpCache.Response response = fCache.fetch(fServer.getURL("/script.js"));
+		assertTrue(response.isModified());
+		assertEquals("print('hello');", new String(response.getContent(), "UTF-8"));
+		assertNotNull(fCache.getCachedContent(fServer.getURL("/script.js")));
+	}
+
+	@Test
+	public void timestampFromLastModifiedHeader() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", null, LAST_MODIFIED);
+
+		assertEquals(LAST_MODIFIED_TIME, fCache.fetch(fServer.getURL("/script.js")).getTimestamp());
+	}
+
+	@Test
+	public void unchangedResourceIsNotDownloadedAgain() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", null);
+
+		final HttpCache.Response first = fCache.fetch(fServer.getURL("/script.js"));
+		final HttpCache.Response second = fCache.fetch(fServer.getURL("/script.js"));
+
+		assertFalse(second.isModified());
+		assertEquals(first.getTimestamp(), second.getTimestamp());
+		assertEquals("print('hello');", new String(second.getContent(), "UTF-8"));
+		assertEquals(1, fServer.getDownloads());
+		assertEquals(1, fServer.getNotModified());
+	}
+
+	@Test
+	public void modifiedResourceIsDownloaded() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", null);
+		fCache.fetch(fServer.getURL("/script.js"));
+
+		fServer.setResource("/script.js", "print('world');", "\"v2\"", null);
+		final HttpCache.Response response = fCache.fetch(fServer.getURL("/script.js"));
+
+		assertTrue(response.isModified());
+		assertEquals("print('world');", new String(response.getContent(), "UTF-8"));
+		assertEquals(2, fServer.getDownloads());
+	}
+
+	@Test
+	public void unreachableServerUsesCache() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", LAST_MODIFIED);
+		fCache.fetch(fServer.getURL("/script.js"));
+
+		fServer.stop();
+
+		final HttpCache.Response response = fCache.fetch(fServer.getURL("/script.js"));
+		assertFalse(response.isModified());
+		assertEquals(LAST_MODIFIED_TIME, response.getTimestamp());
+	}
+
+	@Test
+	public void removedResourceIsRemovedFromCache() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", null);
+		fCache.fetch(fServer.getURL("/script.js"));
+
+		fServer.removeResource("/script.js");
+		try {
+			fCache.fetch(fServer.getURL("/script.js"));
+			fail("Removed resource should not be available");
+		} catch (final IOException e) {
+			// expected
+		}
+
+		assertNull(fCache.getCachedContent(fServer.getURL("/script.js")));
+	}
+
+	@Test
+	public void goneResourceIsRemovedFromCache() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", null);
+		fCache.fetch(fServer.getURL("/script.js"));
+
+		fServer.setError("/script.js", 410);
+		try {
+			fCache.fetch(fServer.getURL("/script.js"));
+			fail("Gone resource should not be available");
+		} catch (final IOException e) {
+			// expected
+		}
+
+		assertNull(fCache.getCachedContent(fServer.getURL("/script.js")));
+	}
+
+	@Test
+	public void serverErrorUsesCache() throws IOException {
+		fServer.setResource("/script.js", "print('hello');", "\"v1\"", LAST_MODIFIED);
+		fCache.fetch(fServer.getURL("/script.js"));
+
+		fServer.setError("/script.js", 503);
+		final HttpCache.Response response = fCache.fetch(fServer.getURL("/script.js"));
+
+		assertFalse(response.isModified());
+		assertEquals(LAST_MODIFIED_TIME, response.getTimestamp());
+		assertEquals("print('hello');", new String(response.getContent(), "UTF-8"));
+		assertNotNull(fCache.getCachedContent(fServer.getURL("/script.js")));
+	}
+
+	@Test
+	public void serverErrorWithoutCacheFails() throws IOException {
+		fServer.setError("/script.js", 500);
+		try {
+			fCache.fetch(fServer.getURL("/script.js"));
+			fail("Failed resource should not be available");
+		} catch (final IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void crawlStaysBelowRoot() throws IOException {
+		fServer.setResource("/scripts/", "<a href=\"first.js\">first</a> <a href=\"/scripts-old/\">old</a> <a href=\"../other.js\">other</a>", "\"index\"",
+				null);
+		fServer.setResource("/scripts/first.js", "print('first');", "\"first\"", null);
+		fServer.setResource("/scripts-old/", "<a href=\"old.js\">old</a>", "\"old\"", null);
+		fServer.setResource("/scripts-old/old.js", "print('old');", "\"old\"", null);
+		fServer.setResource("/other.js", "print('other');", "\"other\"", null);
+
+		final IScriptService scriptService = mock(IScriptService.class);
+		final ScriptType scriptType = mock(ScriptType.class);
+		when(scriptService.getScriptType(anyString())).thenReturn(null);
+		when(scriptService.getScriptType(endsWith(".js"))).thenReturn(scriptType);
+
+		final Map<String, Long> scripts = new HttpParser(fCache).crawl(fServer.getURL("/scripts/"), scriptService);
+
+		assertEquals(1, scripts.size());
+		assertTrue(scripts.containsKey(fServer.getURL("/scripts/first.js")));
+		// index page and script only
+		assertEquals(2, fServer.getDownloads());
+	}
+
+	@Test
+	public void crawlFollowsLinks() throws IOException {
+		fServer.setResource("/scripts/", "<a href=\"first.js\">first</a> <a href=\"sub/\">sub</a>", "\"index\"", null);
+		fServer.setResource("/scripts/first.js", "print('first');", "\"first\"", LAST_MODIFIED);
+		fServer.setResource("/scripts/sub", "<a href=\"/scripts/sub/second.js\">second</a>", "\"sub\"", null);
+		fServer.setResource("/scripts/sub/second.js", "print('second');", "\"second\"", null);
+
+		final IScriptService scriptService = mock(IScriptService.class);
+		final ScriptType scriptType = mock(ScriptType.class);
+		when(scriptService.getScriptType(anyString())).thenReturn(null);
+		when(scriptService.getScriptType(endsWith(".js"))).thenReturn(scriptType);
+
+		final Map<String, Long> scripts = new HttpParser(fCache).crawl(fServer.getURL("/scripts/"), scriptService);
+
+		assertEquals(2, scripts.size());
+		assertEquals(Long.valueOf(LAST_MODIFIED_TIME), scripts.get(fServer.getURL("/scripts/first.js")));
+		assertTrue(scripts.containsKey(fServer.getURL("/scripts/sub/second.js")));
+
+		// a second crawl does not download unchanged resources
+		final int downloads = fServer.getDownloads();
+		assertEquals(scripts, new HttpParser(fCache).crawl(fServer.getURL("/scripts/"), scriptService));
+		assertEquals(downloads, fServer.getDownloads());
+	}
+}
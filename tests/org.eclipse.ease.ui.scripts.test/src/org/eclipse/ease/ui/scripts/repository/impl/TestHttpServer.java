@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Christian Pontesegger and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Christian Pontesegger - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ease.ui.scripts.repository.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal HTTP server serving static resources. Supports conditional requests using ETags.
+ */
+public class TestHttpServer implements Runnable {
+
+	private static class Resource {
+		private final byte[] fContent;
+		private final String fETag;
+		private final String fLastModified;
+
+		public Resource(final byte[] content, final String etag, final String lastModified) {
+			fContent = content;
+			fETag = etag;
+			fLastModified = lastModified;
+		}
+	}
+
+	private final ServerSocket fServerSocket;
+
+	private final Map<String, Resource> fResources = new ConcurrentHashMap<String, Resource>();
+
+	/** Error status codes returned instead of resources. */
+	private final Map<String, Integer> fErrors = new ConcurrentHashMap<String, Integer>();
+
+	private final AtomicInteger fDownloads = new AtomicInteger();
+
+	private final AtomicInteger fNotModified = new AtomicInteger();
+
+	public TestHttpServer() throws IOException {
+		fServerSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+		final Thread thread = new Thread(this, "Test HTTP server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public String getURL(final String path) {
+		return "http://127.0.0.1:" + fServerSocket.getLocalPort() + path;
+	}
+
+	public void setResource(final String path, final String content, final String etag, final String lastModified) throws IOException {
+		fResources.put(path, new Resource(content.getBytes("UTF-8"), etag, lastModified));
+	}
+
+	public void removeResource(final String path) {
+		fResources.remove(path);
+	}
+
+	/**
+	 * Respond with an error status for a path. Pass <code>null</code> to serve the resource again.
+	 */
+	public void setError(final String path, final Integer status) {
+		if (status != null)
+			fErrors.put(path, status);
+		else
+			fErrors.remove(path);
+	}
+
+	/**
+	 * Get the amount of responses containing content.
+	 */
+	public int getDownloads() {
+		return fDownloads.get();
+	}
+
+	/**
+	 * Get the amount of 304 responses.
+	 */
+	public int getNotModified() {
+		return fNotModified.get();
+	}
+
+	public void stop() throws IOException {
+		fServerSocket.close();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				final Socket socket = fServerSocket.accept();
+				try {
+					handle(socket);
+				} catch (final IOException e) {
+					// ignore broken request
+				} finally {
+					socket.close();
+				}
+			}
+		} catch (final IOException e) {
+			// server stopped
+		}
+	}
+
+	private void handle(final Socket socket) throws IOException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+		final String requestLine = reader.readLine();
+		if (requestLine == null)
+			return;
+
+		final Map<String, String> headers = new HashMap<String, String>();
+		String line;
+		while (((line = reader.readLine()) != null) && (!line.isEmpty())) {
+			final int separator = line.indexOf(':');
+			if (separator > 0)
+				headers.put(line.substring(0, separator).trim().toLowerCase(), line.substring(separator + 1).trim());
+		}
+
+		final String path = requestLine.split(" ")[1];
+		final Resource resource = fResources.get(path);
+
+		final StringBuilder response = new StringBuilder();
+		byte[] body = new byte[0];
+		if (fErrors.containsKey(path)) {
+			response.append("HTTP/1.1 ").append(fErrors.get(path)).append(" Error\r\n");
+
+		} else if (resource == null) {
+			response.append("HTTP/1.1 404 Not Found\r\n");
+
+		} else if ((resource.fETag != null) && (resource.fETag.equals(headers.get("if-none-match")))) {
+			response.append("HTTP/1.1 304 Not Modified\r\n");
+			fNotModified.incrementAndGet();
+
+		} else {
+			response.append("HTTP/1.1 200 OK\r\n");
+			if (resource.fETag != null)
+				response.append("ETag: ").append(resource.fETag).append("\r\n");
+			if (resource.fLastModified != null)
+				response.append("Last-Modified: ").append(resource.fLastModified).append("\r\n");
+
+			body = resource.fContent;
+			fDownloads.incrementAndGet();
+		}
+
+		response.append("Content-Length: ").append(body.length).append("\r\n");
+		response.append("Connection: close\r\n\r\n");
+
+		final OutputStream output = socket.getOutputStream();
+		output.write(response.toString().getBytes("ISO-8859-1"));
+		output.write(body);
+		output.flush();
+	}
+}